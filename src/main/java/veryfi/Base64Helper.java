@@ -15,6 +15,12 @@ import java.util.Base64;
  */
 public class Base64Helper {
 
+    /**
+     * Files from this size on are encoded by {@link ParallelBase64Encoder}: the file then splits into at least two
+     * chunks. Below it a single mapped chunk only saves the heap copy of the file while paying for the mapping.
+     */
+    static final long PARALLEL_THRESHOLD = 2L * ParallelBase64Encoder.CHUNK_BYTES;
+
     /**
      * Converts a file to Base64 encoded string using the file path.
      * <p>
@@ -36,7 +42,8 @@ public class Base64Helper {
      * Converts a file to Base64 encoded string using a File object.
      * <p>
      * This method reads the file content, encodes it to Base64, and prepends
-     * the appropriate data URI prefix based on the file extension.
+     * the appropriate data URI prefix based on the file extension. Large files
+     * are encoded in parallel chunks by {@link ParallelBase64Encoder}.
      * </p>
      * 
      * @param file The file to encode
@@ -44,6 +51,8 @@ public class Base64Helper {
      * @throws IOException if the file cannot be read
      */
     public static String getBase64FileContent(File file) throws IOException {
+        if (file.length() >= PARALLEL_THRESHOLD)
+            return ParallelBase64Encoder.encode(file.toPath(), getUriPrefix(file));
         String fileData = "";
         byte[] fileContent = Files.readAllBytes(file.toPath());
         fileData = Base64.getEncoder().encodeToString(fileContent);
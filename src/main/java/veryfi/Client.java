@@ -3,14 +3,18 @@ package veryfi;
 import org.json.JSONObject;
 import veryfi.enums.Endpoint;
 import veryfi.enums.HttpMethod;
+import veryfi.batch.BatchReport;
 import veryfi.models.AddLineItem;
+import veryfi.models.LineItemSyncResult;
 import veryfi.models.NotValidModelException;
+import veryfi.models.SharedLineItem;
 import veryfi.models.UpdateLineItem;
 import veryfi.services.SplitServices;
 
 import java.net.http.HttpClient;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
 /**
  * Veryfi API client for Java.
@@ -40,6 +44,19 @@ public interface Client {
      */
     CompletableFuture<String> getDocumentsAsync(int page, int pageSize, boolean boundingBoxes, boolean confidenceDetails, JSONObject parameters);
 
+    /**
+     * Returns a lazily evaluated {@link Stream} over all the documents, requesting the following pages while the current one is consumed. https://docs.veryfi.com/api/receipts-invoices/search-documents/
+     * Closing the stream cancels the pages still in flight.
+     *
+     * @param pageSize The number of records per page. The response is capped to maximum of 50 results per page.
+     * @param boundingBoxes A field used to determine whether or not to return bounding_box and bounding_region for extracted fields in the Document response.
+     * @param confidenceDetails A field used to determine whether or not to return the score and ocr_score fields in the Document response.
+     * @param parameters Additional request parameters.
+     * @param prefetchDepth The number of pages requested ahead of the page being consumed, 0 to disable prefetching.
+     * @return the records of every page {@link Stream}{@code <JSONObject>}
+     */
+    Stream<JSONObject> getDocumentsStream(int pageSize, boolean boundingBoxes, boolean confidenceDetails, JSONObject parameters, int prefetchDepth);
+
     /**
      * Returns a json string {@link String} document information. https://docs.veryfi.com/api/receipts-invoices/get-a-document/
      * @param documentId ID of the document you'd like to retrieve.
@@ -76,6 +93,42 @@ public interface Client {
     CompletableFuture<String> processDocumentAsync(String filePath, List<String> categories,
                                                    boolean deleteAfterProcessing, JSONObject parameters);
 
+    /**
+     * Process a document and extract all the fields from it. https://docs.veryfi.com/api/receipts-invoices/process-a-document/
+     * @param source   the {@link FileSource} of the file to submit for data extraction, encoded when the request is prepared
+     * @param categories List of categories Veryfi can use to categorize the document
+     * @param deleteAfterProcessing Delete this document from Veryfi after data has been extracted
+     * @param parameters Additional request parameters
+     * @return the data extracted from the Document {@link String}
+     */
+    String processDocument(FileSource source, List<String> categories, boolean deleteAfterProcessing,
+                           JSONObject parameters);
+
+    /**
+     * Process a document and extract all the fields from it. https://docs.veryfi.com/api/receipts-invoices/process-a-document/
+     * @param source   the {@link FileSource} of the file to submit for data extraction, encoded when the request is prepared
+     * @param categories List of categories Veryfi can use to categorize the document
+     * @param deleteAfterProcessing Delete this document from Veryfi after data has been extracted
+     * @param parameters Additional request parameters
+     * @return the data extracted from the Document {@link CompletableFuture}{@code <String>}
+     */
+    CompletableFuture<String> processDocumentAsync(FileSource source, List<String> categories,
+                                                   boolean deleteAfterProcessing, JSONObject parameters);
+
+    /**
+     * Process many Documents from disk with a bounded number of files in progress. https://docs.veryfi.com/api/receipts-invoices/process-a-document/
+     * A file that fails is retried and reported without stopping the others.
+     *
+     * @param filePaths             Paths on disk to the files to submit for data extraction, pulled lazily.
+     * @param categories            List of categories Veryfi can use to categorize the documents
+     * @param deleteAfterProcessing Delete the documents from Veryfi after data has been extracted
+     * @param parameters            Additional request parameters, applied to every file.
+     * @param concurrency           The maximum number of files in progress.
+     * @return the per-file outcomes {@link BatchReport}
+     * @throws InterruptedException when the calling thread is interrupted.
+     */
+    BatchReport processDocuments(Iterable<String> filePaths, List<String> categories, boolean deleteAfterProcessing, JSONObject parameters, int concurrency) throws InterruptedException;
+
     /**
      * Process a document and extract all the fields from it. https://docs.veryfi.com/api/receipts-invoices/process-a-document/
      *
@@ -132,6 +185,90 @@ public interface Client {
     CompletableFuture<String> processDocumentUrlAsync(String fileUrl, List<String> fileUrls, List<String> categories, boolean deleteAfterProcessing,
                               int maxPagesToProcess, boolean boostMode, String externalId, JSONObject parameters);
 
+    /**
+     * Process a document with a reusable {@link RequestTemplate} and extract all the fields from it. https://docs.veryfi.com/api/receipts-invoices/process-a-document/
+     *
+     * @param filePath   Path on disk to a file to submit for data extraction
+     * @param template   Fixed request arguments such as categories or auto delete, see {@link RequestTemplate#builder()}
+     * @param parameters Additional request parameters for this document only
+     * @return the data extracted from the Document {@link String}
+     */
+    String processDocument(String filePath, RequestTemplate template, JSONObject parameters);
+
+    /**
+     * Process a document with a reusable {@link RequestTemplate} and extract all the fields from it. https://docs.veryfi.com/api/receipts-invoices/process-a-document/
+     *
+     * @param filePath   Path on disk to a file to submit for data extraction
+     * @param template   Fixed request arguments such as categories or auto delete, see {@link RequestTemplate#builder()}
+     * @param parameters Additional request parameters for this document only
+     * @return the data extracted from the Document {@link CompletableFuture}{@code <String>}
+     */
+    CompletableFuture<String> processDocumentAsync(String filePath, RequestTemplate template, JSONObject parameters);
+
+    /**
+     * Process a document with a reusable {@link RequestTemplate} and extract all the fields from it. https://docs.veryfi.com/api/receipts-invoices/process-a-document/
+     *
+     * @param source     the {@link FileSource} of the file to submit for data extraction, encoded when the request is prepared
+     * @param template   Fixed request arguments such as categories or auto delete, see {@link RequestTemplate#builder()}
+     * @param parameters Additional request parameters for this document only
+     * @return the data extracted from the Document {@link String}
+     */
+    String processDocument(FileSource source, RequestTemplate template, JSONObject parameters);
+
+    /**
+     * Process a document with a reusable {@link RequestTemplate} and extract all the fields from it. https://docs.veryfi.com/api/receipts-invoices/process-a-document/
+     *
+     * @param source     the {@link FileSource} of the file to submit for data extraction, encoded when the request is prepared
+     * @param template   Fixed request arguments such as categories or auto delete, see {@link RequestTemplate#builder()}
+     * @param parameters Additional request parameters for this document only
+     * @return the data extracted from the Document {@link CompletableFuture}{@code <String>}
+     */
+    CompletableFuture<String> processDocumentAsync(FileSource source, RequestTemplate template, JSONObject parameters);
+
+    /**
+     * Process a document with a reusable {@link RequestTemplate} and extract all the fields from it. https://docs.veryfi.com/api/receipts-invoices/process-a-document/
+     *
+     * @param fileName   Name of the file to upload to the Veryfi API
+     * @param fileData   Base64 encoded file data
+     * @param template   Fixed request arguments such as categories or auto delete, see {@link RequestTemplate#builder()}
+     * @param parameters Additional request parameters for this document only
+     * @return the data extracted from the Document {@link String}
+     */
+    String processDocument(String fileName, String fileData, RequestTemplate template, JSONObject parameters);
+
+    /**
+     * Process a document with a reusable {@link RequestTemplate} and extract all the fields from it. https://docs.veryfi.com/api/receipts-invoices/process-a-document/
+     *
+     * @param fileName   Name of the file to upload to the Veryfi API
+     * @param fileData   Base64 encoded file data
+     * @param template   Fixed request arguments such as categories or auto delete, see {@link RequestTemplate#builder()}
+     * @param parameters Additional request parameters for this document only
+     * @return the data extracted from the Document {@link CompletableFuture}{@code <String>}
+     */
+    CompletableFuture<String> processDocumentAsync(String fileName, String fileData, RequestTemplate template, JSONObject parameters);
+
+    /**
+     * Process Document from url with a reusable {@link RequestTemplate} and extract all the fields from it. https://docs.veryfi.com/api/receipts-invoices/process-a-document/
+     *
+     * @param fileUrl    Required if file_urls isn't specified. Publicly accessible URL to a file, e.g. "https://cdn.example.com/receipt.jpg".
+     * @param fileUrls   Required if file_url isn't specifies. List of publicly accessible URLs to multiple files, e.g. ["https://cdn.example.com/receipt1.jpg", "https://cdn.example.com/receipt2.jpg"]
+     * @param template   Fixed request arguments such as categories or boost mode, see {@link RequestTemplate#builder()}
+     * @param parameters Additional request parameters for this document only
+     * @return the data extracted from the Document {@link String}
+     */
+    String processDocumentUrl(String fileUrl, List<String> fileUrls, RequestTemplate template, JSONObject parameters);
+
+    /**
+     * Process Document from url with a reusable {@link RequestTemplate} and extract all the fields from it. https://docs.veryfi.com/api/receipts-invoices/process-a-document/
+     *
+     * @param fileUrl    Required if file_urls isn't specified. Publicly accessible URL to a file, e.g. "https://cdn.example.com/receipt.jpg".
+     * @param fileUrls   Required if file_url isn't specifies. List of publicly accessible URLs to multiple files, e.g. ["https://cdn.example.com/receipt1.jpg", "https://cdn.example.com/receipt2.jpg"]
+     * @param template   Fixed request arguments such as categories or boost mode, see {@link RequestTemplate#builder()}
+     * @param parameters Additional request parameters for this document only
+     * @return the data extracted from the Document {@link CompletableFuture}{@code <String>}
+     */
+    CompletableFuture<String> processDocumentUrlAsync(String fileUrl, List<String> fileUrls, RequestTemplate template, JSONObject parameters);
+
 
     /**
      * Delete Document from Veryfi. https://docs.veryfi.com/api/receipts-invoices/delete-a-document/
@@ -263,6 +400,26 @@ public interface Client {
      */
     CompletableFuture<String> deleteLineItemAsync(String documentId, String lineItemId);
 
+    /**
+     * Make the line items of a document match a desired list, sending only the adds, the changed fields and the
+     * deletes, up to 8 requests at a time. Line items are matched by their order and the ones kept keep their ids.
+     * @param documentId ID of the document you'd like to update.
+     * @param lineItems the desired line items, {@link AddLineItem}s and {@link UpdateLineItem}s with distinct orders.
+     * @return the counts of the requests and the failed ones {@link LineItemSyncResult}
+     * @throws NotValidModelException when a model is not valid, has no order or shares its order with another.
+     */
+    LineItemSyncResult syncLineItems(String documentId, List<? extends SharedLineItem> lineItems) throws NotValidModelException;
+
+    /**
+     * Make the line items of a document match a desired list, sending only the adds, the changed fields and the
+     * deletes, up to 8 requests at a time. Line items are matched by their order and the ones kept keep their ids.
+     * @param documentId ID of the document you'd like to update.
+     * @param lineItems the desired line items, {@link AddLineItem}s and {@link UpdateLineItem}s with distinct orders.
+     * @return the counts of the requests and the failed ones {@link CompletableFuture}{@code <LineItemSyncResult>}
+     * @throws NotValidModelException when a model is not valid, has no order or shares its order with another.
+     */
+    CompletableFuture<LineItemSyncResult> syncLineItemsAsync(String documentId, List<? extends SharedLineItem> lineItems) throws NotValidModelException;
+
     /**
      * Replace multiple tags on an existing document. https://docs.veryfi.com/api/receipts-invoices/add-tags-to-a-document/
      * @param documentId  ID of the document you'd like to update.
@@ -319,6 +476,19 @@ public interface Client {
      */
     CompletableFuture<String> getAnyDocumentsAsync(int page, int pageSize, boolean boundingBoxes, boolean confidenceDetails, JSONObject parameters);
 
+    /**
+     * Returns a lazily evaluated {@link Stream} over all the Any Documents, requesting the following pages while the current one is consumed. https://docs.veryfi.com/api/anydocs/get-A-docs/
+     * Closing the stream cancels the pages still in flight.
+     *
+     * @param pageSize The number of records per page. The response is capped to maximum of 50 results per page.
+     * @param boundingBoxes A field used to determine whether or not to return bounding_box and bounding_region for extracted fields in the Document response.
+     * @param confidenceDetails A field used to determine whether or not to return the score and ocr_score fields in the Document response.
+     * @param parameters Additional request parameters.
+     * @param prefetchDepth The number of pages requested ahead of the page being consumed, 0 to disable prefetching.
+     * @return the records of every page {@link Stream}{@code <JSONObject>}
+     */
+    Stream<JSONObject> getAnyDocumentsStream(int pageSize, boolean boundingBoxes, boolean confidenceDetails, JSONObject parameters, int prefetchDepth);
+
     /**
      * Returns a json string {@link String} AnyDocument information. https://docs.veryfi.com/api/anydocs/get-a-A-doc/
      *
@@ -355,6 +525,19 @@ public interface Client {
      */
     CompletableFuture<String> processAnyDocumentAsync(String filePath, String blueprintName, JSONObject parameters);
 
+    /**
+     * Process many Any Documents from disk with a bounded number of files in progress. https://docs.veryfi.com/api/anydocs/process-A-doc/
+     * A file that fails is retried and reported without stopping the others.
+     *
+     * @param filePaths             Paths on disk to the files to submit for data extraction, pulled lazily.
+     * @param blueprintName The name of the extraction blueprint.
+     * @param parameters            Additional request parameters, applied to every file.
+     * @param concurrency           The maximum number of files in progress.
+     * @return the per-file outcomes {@link BatchReport}
+     * @throws InterruptedException when the calling thread is interrupted.
+     */
+    BatchReport processAnyDocuments(Iterable<String> filePaths, String blueprintName, JSONObject parameters, int concurrency) throws InterruptedException;
+
     /**
      * Process a AnyDocument and extract all the fields from it. https://docs.veryfi.com/api/anydocs/process-A-doc/
      *
@@ -377,6 +560,26 @@ public interface Client {
      */
     CompletableFuture<String> processAnyDocumentAsync(String fileName, String fileData, String blueprintName, JSONObject parameters);
 
+    /**
+     * Process a AnyDocument and extract all the fields from it. https://docs.veryfi.com/api/anydocs/process-A-doc/
+     *
+     * @param source        the {@link FileSource} of the file to submit for data extraction, encoded when the request is prepared.
+     * @param blueprintName The name of the extraction blueprints.
+     * @param parameters    Additional request parameters.
+     * @return the data extracted from the AnyDocument {@link String}
+     */
+    String processAnyDocument(FileSource source, String blueprintName, JSONObject parameters);
+
+    /**
+     * Process a AnyDocument and extract all the fields from it. https://docs.veryfi.com/api/anydocs/process-A-doc/
+     *
+     * @param source        the {@link FileSource} of the file to submit for data extraction, encoded when the request is prepared.
+     * @param blueprintName The name of the extraction blueprints.
+     * @param parameters    Additional request parameters.
+     * @return the data extracted from the AnyDocument {@link CompletableFuture}{@code <String>}
+     */
+    CompletableFuture<String> processAnyDocumentAsync(FileSource source, String blueprintName, JSONObject parameters);
+
     /**
      * Process AnyDocument from url and extract all the fields from it. https://docs.veryfi.com/api/anydocs/process-A-doc/
      *
@@ -439,6 +642,19 @@ public interface Client {
      */
     CompletableFuture<String> getBankStatementsAsync(int page, int pageSize, boolean boundingBoxes, boolean confidenceDetails, JSONObject parameters);
 
+    /**
+     * Returns a lazily evaluated {@link Stream} over all the bank statements, requesting the following pages while the current one is consumed. https://docs.veryfi.com/api/bank-statements/get-bank-statements/
+     * Closing the stream cancels the pages still in flight.
+     *
+     * @param pageSize The number of records per page. The response is capped to maximum of 50 results per page.
+     * @param boundingBoxes A field used to determine whether or not to return bounding_box and bounding_region for extracted fields in the Document response.
+     * @param confidenceDetails A field used to determine whether or not to return the score and ocr_score fields in the Document response.
+     * @param parameters Additional request parameters.
+     * @param prefetchDepth The number of pages requested ahead of the page being consumed, 0 to disable prefetching.
+     * @return the records of every page {@link Stream}{@code <JSONObject>}
+     */
+    Stream<JSONObject> getBankStatementsStream(int pageSize, boolean boundingBoxes, boolean confidenceDetails, JSONObject parameters, int prefetchDepth);
+
     /**
      * Returns a json string {@link String} BankStatement information. https://docs.veryfi.com/api/bank-statements/get-a-bank-statement/
      *
@@ -473,6 +689,18 @@ public interface Client {
      */
     CompletableFuture<String> processBankStatementAsync(String filePath, JSONObject parameters);
 
+    /**
+     * Process many Bank Statements from disk with a bounded number of files in progress. https://docs.veryfi.com/api/bank-statements/process-a-bank-statement/
+     * A file that fails is retried and reported without stopping the others.
+     *
+     * @param filePaths             Paths on disk to the files to submit for data extraction, pulled lazily.
+     * @param parameters            Additional request parameters, applied to every file.
+     * @param concurrency           The maximum number of files in progress.
+     * @return the per-file outcomes {@link BatchReport}
+     * @throws InterruptedException when the calling thread is interrupted.
+     */
+    BatchReport processBankStatements(Iterable<String> filePaths, JSONObject parameters, int concurrency) throws InterruptedException;
+
     /**
      * Process a Bank Statement and extract all the fields from it. https://docs.veryfi.com/api/bank-statements/process-a-bank-statement/
      *
@@ -493,6 +721,24 @@ public interface Client {
      */
     CompletableFuture<String> processBankStatementAsync(String fileName, String fileData, JSONObject parameters);
 
+    /**
+     * Process a Bank Statement and extract all the fields from it. https://docs.veryfi.com/api/bank-statements/process-a-bank-statement/
+     *
+     * @param source        the {@link FileSource} of the file to submit for data extraction, encoded when the request is prepared.
+     * @param parameters    Additional request parameters.
+     * @return the data extracted from the Bank Statement {@link String}
+     */
+    String processBankStatement(FileSource source, JSONObject parameters);
+
+    /**
+     * Process a Bank Statement and extract all the fields from it. https://docs.veryfi.com/api/bank-statements/process-a-bank-statement/
+     *
+     * @param source        the {@link FileSource} of the file to submit for data extraction, encoded when the request is prepared.
+     * @param parameters    Additional request parameters.
+     * @return the data extracted from the Bank Statement {@link CompletableFuture}{@code <String>}
+     */
+    CompletableFuture<String> processBankStatementAsync(FileSource source, JSONObject parameters);
+
     /**
      * Process Bank Statement from url and extract all the fields from it. https://docs.veryfi.com/api/bank-statements/process-a-bank-statement/
      *
@@ -553,6 +799,19 @@ public interface Client {
      */
     CompletableFuture<String> getBusinessCardsAsync(int page, int pageSize, boolean boundingBoxes, boolean confidenceDetails, JSONObject parameters);
 
+    /**
+     * Returns a lazily evaluated {@link Stream} over all the business cards, requesting the following pages while the current one is consumed. https://docs.veryfi.com/api/business-cards/get-business-cards/
+     * Closing the stream cancels the pages still in flight.
+     *
+     * @param pageSize The number of records per page. The response is capped to maximum of 50 results per page.
+     * @param boundingBoxes A field used to determine whether or not to return bounding_box and bounding_region for extracted fields in the Document response.
+     * @param confidenceDetails A field used to determine whether or not to return the score and ocr_score fields in the Document response.
+     * @param parameters Additional request parameters.
+     * @param prefetchDepth The number of pages requested ahead of the page being consumed, 0 to disable prefetching.
+     * @return the records of every page {@link Stream}{@code <JSONObject>}
+     */
+    Stream<JSONObject> getBusinessCardsStream(int pageSize, boolean boundingBoxes, boolean confidenceDetails, JSONObject parameters, int prefetchDepth);
+
     /**
      * Returns a json string {@link String} Business Card information. https://docs.veryfi.com/api/business-cards/get-a-business-card/
      *
@@ -587,6 +846,18 @@ public interface Client {
      */
     CompletableFuture<String> processBusinessCardAsync(String filePath, JSONObject parameters);
 
+    /**
+     * Process many Business Cards from disk with a bounded number of files in progress. https://docs.veryfi.com/api/business-cards/process-a-business-card/
+     * A file that fails is retried and reported without stopping the others.
+     *
+     * @param filePaths             Paths on disk to the files to submit for data extraction, pulled lazily.
+     * @param parameters            Additional request parameters, applied to every file.
+     * @param concurrency           The maximum number of files in progress.
+     * @return the per-file outcomes {@link BatchReport}
+     * @throws InterruptedException when the calling thread is interrupted.
+     */
+    BatchReport processBusinessCards(Iterable<String> filePaths, JSONObject parameters, int concurrency) throws InterruptedException;
+
     /**
      * Process a Business Card and extract all the fields from it. https://docs.veryfi.com/api/business-cards/process-a-business-card/
      *
@@ -607,6 +878,24 @@ public interface Client {
      */
     CompletableFuture<String> processBusinessCardAsync(String fileName, String fileData, JSONObject parameters);
 
+    /**
+     * Process a Business Card and extract all the fields from it. https://docs.veryfi.com/api/business-cards/process-a-business-card/
+     *
+     * @param source        the {@link FileSource} of the file to submit for data extraction, encoded when the request is prepared.
+     * @param parameters    Additional request parameters.
+     * @return the data extracted from the Business Card {@link String}
+     */
+    String processBusinessCard(FileSource source, JSONObject parameters);
+
+    /**
+     * Process a Business Card and extract all the fields from it. https://docs.veryfi.com/api/business-cards/process-a-business-card/
+     *
+     * @param source        the {@link FileSource} of the file to submit for data extraction, encoded when the request is prepared.
+     * @param parameters    Additional request parameters.
+     * @return the data extracted from the Business Card {@link CompletableFuture}{@code <String>}
+     */
+    CompletableFuture<String> processBusinessCardAsync(FileSource source, JSONObject parameters);
+
     /**
      * Process Business Card from url and extract all the fields from it. https://docs.veryfi.com/api/business-cards/process-a-business-card/
      *
@@ -667,6 +956,19 @@ public interface Client {
      */
     CompletableFuture<String> getChecksAsync(int page, int pageSize, boolean boundingBoxes, boolean confidenceDetails, JSONObject parameters);
 
+    /**
+     * Returns a lazily evaluated {@link Stream} over all the checks, requesting the following pages while the current one is consumed. https://docs.veryfi.com/api/checks/get-checks/
+     * Closing the stream cancels the pages still in flight.
+     *
+     * @param pageSize The number of records per page. The response is capped to maximum of 50 results per page.
+     * @param boundingBoxes A field used to determine whether or not to return bounding_box and bounding_region for extracted fields in the Document response.
+     * @param confidenceDetails A field used to determine whether or not to return the score and ocr_score fields in the Document response.
+     * @param parameters Additional request parameters.
+     * @param prefetchDepth The number of pages requested ahead of the page being consumed, 0 to disable prefetching.
+     * @return the records of every page {@link Stream}{@code <JSONObject>}
+     */
+    Stream<JSONObject> getChecksStream(int pageSize, boolean boundingBoxes, boolean confidenceDetails, JSONObject parameters, int prefetchDepth);
+
     /**
      * Returns a json string {@link String} Check information. https://docs.veryfi.com/api/checks/get-a-check/
      *
@@ -701,6 +1003,18 @@ public interface Client {
      */
     CompletableFuture<String> processCheckAsync(String filePath, JSONObject parameters);
 
+    /**
+     * Process many Checks from disk with a bounded number of files in progress. https://docs.veryfi.com/api/checks/process-a-check/
+     * A file that fails is retried and reported without stopping the others.
+     *
+     * @param filePaths             Paths on disk to the files to submit for data extraction, pulled lazily.
+     * @param parameters            Additional request parameters, applied to every file.
+     * @param concurrency           The maximum number of files in progress.
+     * @return the per-file outcomes {@link BatchReport}
+     * @throws InterruptedException when the calling thread is interrupted.
+     */
+    BatchReport processChecks(Iterable<String> filePaths, JSONObject parameters, int concurrency) throws InterruptedException;
+
     /**
      * Process a Check and extract all the fields from it. https://docs.veryfi.com/api/checks/process-a-check/
      *
@@ -721,6 +1035,24 @@ public interface Client {
      */
     CompletableFuture<String> processCheckAsync(String fileName, String fileData, JSONObject parameters);
 
+    /**
+     * Process a Check and extract all the fields from it. https://docs.veryfi.com/api/checks/process-a-check/
+     *
+     * @param source        the {@link FileSource} of the file to submit for data extraction, encoded when the request is prepared.
+     * @param parameters    Additional request parameters.
+     * @return the data extracted from the Check {@link String}
+     */
+    String processCheck(FileSource source, JSONObject parameters);
+
+    /**
+     * Process a Check and extract all the fields from it. https://docs.veryfi.com/api/checks/process-a-check/
+     *
+     * @param source        the {@link FileSource} of the file to submit for data extraction, encoded when the request is prepared.
+     * @param parameters    Additional request parameters.
+     * @return the data extracted from the Check {@link CompletableFuture}{@code <String>}
+     */
+    CompletableFuture<String> processCheckAsync(FileSource source, JSONObject parameters);
+
     /**
      * Process Check from url and extract all the fields from it. https://docs.veryfi.com/api/checks/process-a-check/
      *
@@ -781,6 +1113,19 @@ public interface Client {
      */
     CompletableFuture<String> getW2sAsync(int page, int pageSize, boolean boundingBoxes, boolean confidenceDetails, JSONObject parameters);
 
+    /**
+     * Returns a lazily evaluated {@link Stream} over all the W2s, requesting the following pages while the current one is consumed. https://docs.veryfi.com/api/w2s/get-w-2-s/
+     * Closing the stream cancels the pages still in flight.
+     *
+     * @param pageSize The number of records per page. The response is capped to maximum of 50 results per page.
+     * @param boundingBoxes A field used to determine whether or not to return bounding_box and bounding_region for extracted fields in the Document response.
+     * @param confidenceDetails A field used to determine whether or not to return the score and ocr_score fields in the Document response.
+     * @param parameters Additional request parameters.
+     * @param prefetchDepth The number of pages requested ahead of the page being consumed, 0 to disable prefetching.
+     * @return the records of every page {@link Stream}{@code <JSONObject>}
+     */
+    Stream<JSONObject> getW2sStream(int pageSize, boolean boundingBoxes, boolean confidenceDetails, JSONObject parameters, int prefetchDepth);
+
     /**
      * Returns a json string {@link String} W2 information. https://docs.veryfi.com/api/w2s/get-a-w-2/
      *
@@ -815,6 +1160,18 @@ public interface Client {
      */
     CompletableFuture<String> processW2Async(String filePath, JSONObject parameters);
 
+    /**
+     * Process many W2s from disk with a bounded number of files in progress. https://docs.veryfi.com/api/w2s/process-a-w-2/
+     * A file that fails is retried and reported without stopping the others.
+     *
+     * @param filePaths             Paths on disk to the files to submit for data extraction, pulled lazily.
+     * @param parameters            Additional request parameters, applied to every file.
+     * @param concurrency           The maximum number of files in progress.
+     * @return the per-file outcomes {@link BatchReport}
+     * @throws InterruptedException when the calling thread is interrupted.
+     */
+    BatchReport processW2s(Iterable<String> filePaths, JSONObject parameters, int concurrency) throws InterruptedException;
+
     /**
      * Process a W2 and extract all the fields from it. https://docs.veryfi.com/api/w2s/process-a-w-2/
      *
@@ -835,6 +1192,24 @@ public interface Client {
      */
     CompletableFuture<String> processW2Async(String fileName, String fileData, JSONObject parameters);
 
+    /**
+     * Process a W2 and extract all the fields from it. https://docs.veryfi.com/api/w2s/process-a-w-2/
+     *
+     * @param source        the {@link FileSource} of the file to submit for data extraction, encoded when the request is prepared.
+     * @param parameters    Additional request parameters.
+     * @return the data extracted from the W2 {@link String}
+     */
+    String processW2(FileSource source, JSONObject parameters);
+
+    /**
+     * Process a W2 and extract all the fields from it. https://docs.veryfi.com/api/w2s/process-a-w-2/
+     *
+     * @param source        the {@link FileSource} of the file to submit for data extraction, encoded when the request is prepared.
+     * @param parameters    Additional request parameters.
+     * @return the data extracted from the W2 {@link CompletableFuture}{@code <String>}
+     */
+    CompletableFuture<String> processW2Async(FileSource source, JSONObject parameters);
+
     /**
      * Process W2 from url and extract all the fields from it. https://docs.veryfi.com/api/w2s/process-a-w-2/
      *
@@ -895,6 +1270,19 @@ public interface Client {
      */
     CompletableFuture<String> getW8BenEsAsync(int page, int pageSize, boolean boundingBoxes, boolean confidenceDetails, JSONObject parameters);
 
+    /**
+     * Returns a lazily evaluated {@link Stream} over all the W-8BEN-Es, requesting the following pages while the current one is consumed. https://docs.veryfi.com/api/w-8ben-e/get-w-8-ben-es/
+     * Closing the stream cancels the pages still in flight.
+     *
+     * @param pageSize The number of records per page. The response is capped to maximum of 50 results per page.
+     * @param boundingBoxes A field used to determine whether or not to return bounding_box and bounding_region for extracted fields in the Document response.
+     * @param confidenceDetails A field used to determine whether or not to return the score and ocr_score fields in the Document response.
+     * @param parameters Additional request parameters.
+     * @param prefetchDepth The number of pages requested ahead of the page being consumed, 0 to disable prefetching.
+     * @return the records of every page {@link Stream}{@code <JSONObject>}
+     */
+    Stream<JSONObject> getW8BenEsStream(int pageSize, boolean boundingBoxes, boolean confidenceDetails, JSONObject parameters, int prefetchDepth);
+
     /**
      * Returns a json string {@link String} W-8BEN-E information. https://docs.veryfi.com/api/w-8ben-e/get-a-w-8-ben-e/
      *
@@ -929,6 +1317,18 @@ public interface Client {
      */
     CompletableFuture<String> processW8BenEAsync(String filePath, JSONObject parameters);
 
+    /**
+     * Process many W-8BEN-E forms from disk with a bounded number of files in progress. https://docs.veryfi.com/api/w-8ben-e/process-a-w-8-ben-e/
+     * A file that fails is retried and reported without stopping the others.
+     *
+     * @param filePaths             Paths on disk to the files to submit for data extraction, pulled lazily.
+     * @param parameters            Additional request parameters, applied to every file.
+     * @param concurrency           The maximum number of files in progress.
+     * @return the per-file outcomes {@link BatchReport}
+     * @throws InterruptedException when the calling thread is interrupted.
+     */
+    BatchReport processW8BenEs(Iterable<String> filePaths, JSONObject parameters, int concurrency) throws InterruptedException;
+
     /**
      * Process W-8BEN-E from url and extract all the fields from it. https://docs.veryfi.com/api/w-8ben-e/process-a-w-8-ben-e/
      *
@@ -989,6 +1389,19 @@ public interface Client {
      */
     CompletableFuture<String> getW9sAsync(int page, int pageSize, boolean boundingBoxes, boolean confidenceDetails, JSONObject parameters);
 
+    /**
+     * Returns a lazily evaluated {@link Stream} over all the W9s, requesting the following pages while the current one is consumed. https://docs.veryfi.com/api/w9s/get-w-9-s/
+     * Closing the stream cancels the pages still in flight.
+     *
+     * @param pageSize The number of records per page. The response is capped to maximum of 50 results per page.
+     * @param boundingBoxes A field used to determine whether or not to return bounding_box and bounding_region for extracted fields in the Document response.
+     * @param confidenceDetails A field used to determine whether or not to return the score and ocr_score fields in the Document response.
+     * @param parameters Additional request parameters.
+     * @param prefetchDepth The number of pages requested ahead of the page being consumed, 0 to disable prefetching.
+     * @return the records of every page {@link Stream}{@code <JSONObject>}
+     */
+    Stream<JSONObject> getW9sStream(int pageSize, boolean boundingBoxes, boolean confidenceDetails, JSONObject parameters, int prefetchDepth);
+
     /**
      * Returns a json string {@link String} W9 information. https://docs.veryfi.com/api/w9s/get-a-w-9/
      *
@@ -1023,6 +1436,18 @@ public interface Client {
      */
     CompletableFuture<String> processW9Async(String filePath, JSONObject parameters);
 
+    /**
+     * Process many W9s from disk with a bounded number of files in progress. https://docs.veryfi.com/api/w9s/process-a-w-9/
+     * A file that fails is retried and reported without stopping the others.
+     *
+     * @param filePaths             Paths on disk to the files to submit for data extraction, pulled lazily.
+     * @param parameters            Additional request parameters, applied to every file.
+     * @param concurrency           The maximum number of files in progress.
+     * @return the per-file outcomes {@link BatchReport}
+     * @throws InterruptedException when the calling thread is interrupted.
+     */
+    BatchReport processW9s(Iterable<String> filePaths, JSONObject parameters, int concurrency) throws InterruptedException;
+
     /**
      * Process a W9 and extract all the fields from it. https://docs.veryfi.com/api/w9s/process-a-w-9/
      *
@@ -1043,6 +1468,24 @@ public interface Client {
      */
     CompletableFuture<String> processW9Async(String fileName, String fileData, JSONObject parameters);
 
+    /**
+     * Process a W9 and extract all the fields from it. https://docs.veryfi.com/api/w9s/process-a-w-9/
+     *
+     * @param source        the {@link FileSource} of the file to submit for data extraction, encoded when the request is prepared.
+     * @param parameters    Additional request parameters.
+     * @return the data extracted from the W9 {@link String}
+     */
+    String processW9(FileSource source, JSONObject parameters);
+
+    /**
+     * Process a W9 and extract all the fields from it. https://docs.veryfi.com/api/w9s/process-a-w-9/
+     *
+     * @param source        the {@link FileSource} of the file to submit for data extraction, encoded when the request is prepared.
+     * @param parameters    Additional request parameters.
+     * @return the data extracted from the W9 {@link CompletableFuture}{@code <String>}
+     */
+    CompletableFuture<String> processW9Async(FileSource source, JSONObject parameters);
+
     /**
      * Process W9 from url and extract all the fields from it. https://docs.veryfi.com/api/w9s/process-a-w-9/
      *
@@ -1099,6 +1542,17 @@ public interface Client {
      */
     CompletableFuture<String> getContractsAsync(int page, int pageSize, JSONObject parameters);
 
+    /**
+     * Returns a lazily evaluated {@link Stream} over all the Contracts, requesting the following pages while the current one is consumed.
+     * Closing the stream cancels the pages still in flight.
+     *
+     * @param pageSize The number of records per page. The response is capped to maximum of 50 results per page.
+     * @param parameters Additional request parameters.
+     * @param prefetchDepth The number of pages requested ahead of the page being consumed, 0 to disable prefetching.
+     * @return the records of every page {@link Stream}{@code <JSONObject>}
+     */
+    Stream<JSONObject> getContractsStream(int pageSize, JSONObject parameters, int prefetchDepth);
+
     /**
      * Returns a json string {@link String} with the Contract information.
      *
@@ -1133,6 +1587,18 @@ public interface Client {
      */
     CompletableFuture<String> processContractAsync(String filePath, JSONObject parameters);
 
+    /**
+     * Process many Contracts from disk with a bounded number of files in progress. https://docs.veryfi.com/api/contracts/process-a-contract/
+     * A file that fails is retried and reported without stopping the others.
+     *
+     * @param filePaths             Paths on disk to the files to submit for data extraction, pulled lazily.
+     * @param parameters            Additional request parameters, applied to every file.
+     * @param concurrency           The maximum number of files in progress.
+     * @return the per-file outcomes {@link BatchReport}
+     * @throws InterruptedException when the calling thread is interrupted.
+     */
+    BatchReport processContracts(Iterable<String> filePaths, JSONObject parameters, int concurrency) throws InterruptedException;
+
     /**
      * Process a Contract and extract all the fields from it.
      *
@@ -1153,6 +1619,24 @@ public interface Client {
      */
     CompletableFuture<String> processContractAsync(String fileName, String fileData, JSONObject parameters);
 
+    /**
+     * Process a Contract and extract all the fields from it.
+     *
+     * @param source        the {@link FileSource} of the file to submit for data extraction, encoded when the request is prepared.
+     * @param parameters    Additional request parameters.
+     * @return the data extracted from the Contract {@link String}
+     */
+    String processContract(FileSource source, JSONObject parameters);
+
+    /**
+     * Process a Contract and extract all the fields from it.
+     *
+     * @param source        the {@link FileSource} of the file to submit for data extraction, encoded when the request is prepared.
+     * @param parameters    Additional request parameters.
+     * @return the data extracted from the Contract {@link CompletableFuture}{@code <String>}
+     */
+    CompletableFuture<String> processContractAsync(FileSource source, JSONObject parameters);
+
     /**
      * Process a W-8BEN-E and extract all the fields from it. https://docs.veryfi.com/api/w-8ben-e/process-a-w-8-ben-e/
      *
@@ -1173,6 +1657,24 @@ public interface Client {
      */
     CompletableFuture<String> processW8BenEAsync(String fileName, String fileData, JSONObject parameters);
 
+    /**
+     * Process a W-8BEN-E and extract all the fields from it. https://docs.veryfi.com/api/w-8ben-e/process-a-w-8-ben-e/
+     *
+     * @param source        the {@link FileSource} of the file to submit for data extraction, encoded when the request is prepared.
+     * @param parameters    Additional request parameters.
+     * @return the data extracted from the W-8BEN-E {@link String}
+     */
+    String processW8BenE(FileSource source, JSONObject parameters);
+
+    /**
+     * Process a W-8BEN-E and extract all the fields from it. https://docs.veryfi.com/api/w-8ben-e/process-a-w-8-ben-e/
+     *
+     * @param source        the {@link FileSource} of the file to submit for data extraction, encoded when the request is prepared.
+     * @param parameters    Additional request parameters.
+     * @return the data extracted from the W-8BEN-E {@link CompletableFuture}{@code <String>}
+     */
+    CompletableFuture<String> processW8BenEAsync(FileSource source, JSONObject parameters);
+
     /**
      * Process Contract from url and extract all the fields from it.
      *
@@ -1347,6 +1849,19 @@ public interface Client {
      */
     CompletableFuture<String> getSplitDocumentsAsync(int page, int pageSize, boolean boundingBoxes, boolean confidenceDetails, JSONObject parameters);
 
+    /**
+     * Returns a lazily evaluated {@link Stream} over all the documents from split PDFs, requesting the following pages while the current one is consumed. https://docs.veryfi.com/api/receipts-invoices/get-submitted-pdf/
+     * Closing the stream cancels the pages still in flight.
+     *
+     * @param pageSize The number of records per page. The response is capped to maximum of 50 results per page.
+     * @param boundingBoxes A field used to determine whether or not to return bounding_box and bounding_region for extracted fields in the Document response.
+     * @param confidenceDetails A field used to determine whether or not to return the score and ocr_score fields in the Document response.
+     * @param parameters Additional request parameters.
+     * @param prefetchDepth The number of pages requested ahead of the page being consumed, 0 to disable prefetching.
+     * @return the records of every page {@link Stream}{@code <JSONObject>}
+     */
+    Stream<JSONObject> getSplitDocumentsStream(int pageSize, boolean boundingBoxes, boolean confidenceDetails, JSONObject parameters, int prefetchDepth);
+
     /**
      * Veryfi's Get a Documents from PDF endpoint allows you to retrieve a collection of previously processed documents. https://docs.veryfi.com/api/receipts-invoices/get-documents-from-pdf/
      *
@@ -2,6 +2,7 @@ package veryfi;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Constants used throughout the Veryfi Java SDK.
@@ -56,6 +57,10 @@ public final class Constants {
      * header for HttpRequest
      */
     public static final String X_VERYFI_REQUEST_SIGNATURE = "X-Veryfi-Request-Signature";
+    /**
+     * header of the webhook requests
+     */
+    public static final String X_VERYFI_SIGNATURE = "X-Veryfi-Signature";
     /**
      * header for HttpRequest
      */
@@ -101,6 +106,10 @@ public final class Constants {
      */
     public static final String MAX_PAGES_TO_PROCESS = "max_pages_to_process";
 
+    /**
+     * statuses of a document still being processed.
+     */
+    public static final Set<String> PENDING_STATUSES = Set.of("in_progress", "processing", "pending", "queued");
     /**
      * default list of categories.
      */
@@ -0,0 +1,188 @@
+package veryfi;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+
+/**
+ * A file to submit for data extraction, on disk or already in memory.
+ * <p>
+ * The content is Base64 encoded only when the request is prepared, so callers holding the file as a stream,
+ * an array or a buffer don't write it to a temporary file or encode it themselves. Files on disk go through
+ * {@link Base64Helper}, in memory contents are encoded in a single pass from the source into the encoded string.
+ * </p>
+ * <p>
+ * Example:
+ * </p>
+ * <pre>{@code
+ * client.processDocument(FileSource.fromStream("invoice.pdf", s3Object.getObjectContent()), categories, false, null);
+ * }</pre>
+ */
+public class FileSource {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final String fileName;
+    private final Path path;
+    private final InputStream stream;
+    private final byte[] bytes;
+    private final ByteBuffer buffer;
+
+    private FileSource(String fileName, Path path, InputStream stream, byte[] bytes, ByteBuffer buffer) {
+        if (fileName == null || fileName.isEmpty())
+            throw new IllegalArgumentException("fileName must not be empty");
+        this.fileName = fileName;
+        this.path = path;
+        this.stream = stream;
+        this.bytes = bytes;
+        this.buffer = buffer;
+    }
+
+    /**
+     * A file on disk, named after the last element of its path.
+     *
+     * @param path the {@link Path} of the file.
+     * @return the {@link FileSource}
+     */
+    public static FileSource fromPath(Path path) {
+        return new FileSource(path.getFileName().toString(), path, null, null, null);
+    }
+
+    /**
+     * A file read from a stream when the request is prepared. The stream is read to its end and not closed.
+     *
+     * @param fileName Name of the file, its extension gives the type of the content.
+     * @param stream   the {@link InputStream} of the content, read once.
+     * @return the {@link FileSource}
+     */
+    public static FileSource fromStream(String fileName, InputStream stream) {
+        if (stream == null)
+            throw new IllegalArgumentException("stream must not be null");
+        return new FileSource(fileName, null, stream, null, null);
+    }
+
+    /**
+     * A file in memory. The array isn't copied and must not change until the request is prepared.
+     *
+     * @param fileName Name of the file, its extension gives the type of the content.
+     * @param bytes    The content of the file.
+     * @return the {@link FileSource}
+     */
+    public static FileSource fromBytes(String fileName, byte[] bytes) {
+        if (bytes == null)
+            throw new IllegalArgumentException("bytes must not be null");
+        return new FileSource(fileName, null, null, bytes, null);
+    }
+
+    /**
+     * A file in memory, from the position to the limit of a buffer, which are left unchanged.
+     *
+     * @param fileName Name of the file, its extension gives the type of the content.
+     * @param buffer   the {@link ByteBuffer} of the content, heap or direct.
+     * @return the {@link FileSource}
+     */
+    public static FileSource fromBuffer(String fileName, ByteBuffer buffer) {
+        if (buffer == null)
+            throw new IllegalArgumentException("buffer must not be null");
+        return new FileSource(fileName, null, null, null, buffer.duplicate());
+    }
+
+    /**
+     * Returns the name of the file sent to the API.
+     * @return the file name {@link String}
+     */
+    public String getFileName() {
+        return fileName;
+    }
+
+    /**
+     * Returns the number of bytes of the content when known without reading it.
+     *
+     * @return the length, -1 for a stream.
+     * @throws IOException when the size of the file can't be read.
+     */
+    public long getLength() throws IOException {
+        if (path != null)
+            return Files.size(path);
+        if (bytes != null)
+            return bytes.length;
+        if (buffer != null)
+            return buffer.remaining();
+        return -1;
+    }
+
+    /**
+     * Reads the whole content, a stream is consumed and an array returned as is.
+     *
+     * @return the content of the file.
+     * @throws IOException when the content can't be read.
+     */
+    public byte[] readBytes() throws IOException {
+        if (path != null)
+            return Files.readAllBytes(path);
+        if (bytes != null)
+            return bytes;
+        if (buffer != null) {
+            byte[] content = new byte[buffer.remaining()];
+            buffer.duplicate().get(content);
+            return content;
+        }
+        return stream.readAllBytes();
+    }
+
+    /**
+     * Encodes the content as a data URI, the form of the file_data argument.
+     *
+     * @return Base64 encoded string with data URI prefix
+     * @throws IOException when the content can't be read.
+     */
+    public String encode() throws IOException {
+        if (path != null)
+            return Base64Helper.getBase64FileContent(path.toFile());
+        String prefix = Base64Helper.getUriPrefix(new File(fileName));
+        if (bytes != null)
+            return prefix + Base64.getEncoder().encodeToString(bytes);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(expectedLength(prefix));
+        out.writeBytes(prefix.getBytes(StandardCharsets.US_ASCII));
+        try (OutputStream encoder = Base64.getEncoder().wrap(out)) {
+            if (buffer != null) {
+                writeBuffer(encoder);
+            } else {
+                stream.transferTo(encoder);
+            }
+        }
+        // Base64 is ASCII, so the latin-1 string is built with a plain copy of the bytes.
+        return out.toString(StandardCharsets.ISO_8859_1);
+    }
+
+    private void writeBuffer(OutputStream encoder) throws IOException {
+        ByteBuffer content = buffer.duplicate();
+        if (content.hasArray()) {
+            encoder.write(content.array(), content.arrayOffset() + content.position(), content.remaining());
+            return;
+        }
+        byte[] chunk = new byte[Math.min(BUFFER_SIZE, content.remaining())];
+        while (content.hasRemaining()) {
+            int length = Math.min(chunk.length, content.remaining());
+            content.get(chunk, 0, length);
+            encoder.write(chunk, 0, length);
+        }
+    }
+
+    private int expectedLength(String prefix) throws IOException {
+        long length = buffer != null ? buffer.remaining() : stream.available();
+        return (int) Math.min(prefix.length() + (length + 2) / 3 * 4, Integer.MAX_VALUE - 8);
+    }
+
+    @Override
+    public String toString() {
+        return "FileSource{" + fileName + "}";
+    }
+}
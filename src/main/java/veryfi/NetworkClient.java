@@ -1,18 +1,27 @@
 package veryfi;
 
 import org.json.JSONArray;
+import org.json.JSONException;
 import org.json.JSONObject;
+import veryfi.cache.ResponseCache;
 import veryfi.enums.HttpMethod;
+import veryfi.image.ImagePreprocessor;
+import veryfi.pdf.PdfPageTrimmer;
+import veryfi.pool.BufferPool;
+import veryfi.pool.PooledBuffer;
+import veryfi.pool.PooledBufferWriter;
 
 import javax.crypto.Mac;
 import javax.crypto.spec.SecretKeySpec;
 import java.io.File;
+import java.io.IOException;
 import java.net.URI;
 import java.net.URLEncoder;
 import java.net.http.HttpClient;
 import java.net.http.HttpHeaders;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.security.InvalidKeyException;
@@ -20,17 +29,31 @@ import java.security.NoSuchAlgorithmException;
 import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.logging.Logger;
 
 import static veryfi.Constants.*;
 import static veryfi.Constants.SHA256;
 
 abstract public class NetworkClient {
+    private static final AtomicInteger FILE_THREAD_COUNT = new AtomicInteger();
+    private static final Executor FILE_EXECUTOR = newFileExecutor();
     private Credentials credentials;
     private HttpClient httpClient;
     private int timeOut = 120;
     private String baseUrl = "https://api.veryfi.com/api/";
     private int apiVersion = 8;
+    private ResponseCache responseCache;
+    private Executor fileExecutor = FILE_EXECUTOR;
+    private BufferPool bufferPool;
+    private ImagePreprocessor imagePreprocessor;
+    private PdfPageTrimmer pdfPageTrimmer;
     protected final Logger logger = Logger.getLogger("ClientImpl");
 
     /**
@@ -83,17 +106,37 @@ abstract public class NetworkClient {
      * @return A JSON of the response data.
      */
     protected String request(HttpMethod httpVerb, String endpointName, JSONObject requestArguments) {
-        HttpRequest request = getHttpRequest(httpVerb, endpointName, requestArguments);
+        ResponseCache cache = responseCache;
+        String query = null;
+        long generation = 0;
+        if (cache != null && httpVerb == HttpMethod.GET) {
+            query = buildQueryString(requestArguments);
+            String cached = cache.get(endpointName, query);
+            if (cached != null)
+                return cached;
+            generation = cache.generation(endpointName);
+        }
+        PooledBuffer body = pooledBody(httpVerb, requestArguments);
+        HttpRequest request = body == null
+                ? getHttpRequest(httpVerb, endpointName, requestArguments)
+                : getHttpRequest(httpVerb, endpointName, body);
         try {
             HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
             if (response.headers() != null) {
                 Optional<String> traceId = response.headers().firstValue("x-veryfi-trace-id");
                 traceId.ifPresent(s -> logger.info("x-veryfi-trace-id: " + s));
             }
+            if (query != null && isCacheable(response))
+                cache.put(endpointName, query, response.body(), generation);
             return response.body();
         } catch (Exception e) {
             logger.severe("request: " + e.getMessage());
             return "";
+        } finally {
+            if (body != null)
+                body.close();
+            if (cache != null && httpVerb != HttpMethod.GET)
+                cache.invalidate(endpointName);
         }
     }
 
@@ -107,8 +150,102 @@ abstract public class NetworkClient {
      */
     protected CompletableFuture<String> requestAsync(HttpMethod httpVerb, String endpointName,
                                                    JSONObject requestArguments) {
+        ResponseCache cache = responseCache;
+        if (httpVerb != HttpMethod.GET) {
+            PooledBuffer body = pooledBody(httpVerb, requestArguments);
+            if (body == null && cache == null) {
+                HttpRequest request = getHttpRequest(httpVerb, endpointName, requestArguments);
+                return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString()).thenApply(HttpResponse::body);
+            }
+            HttpRequest request = body == null
+                    ? getHttpRequest(httpVerb, endpointName, requestArguments)
+                    : getHttpRequest(httpVerb, endpointName, body);
+            return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                    .whenComplete((response, error) -> {
+                        if (body != null)
+                            body.close();
+                        if (cache != null)
+                            cache.invalidate(endpointName);
+                    })
+                    .thenApply(HttpResponse::body);
+        }
+        if (cache == null) {
+            HttpRequest request = getHttpRequest(httpVerb, endpointName, requestArguments);
+            return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString()).thenApply(HttpResponse::body);
+        }
+        String query = buildQueryString(requestArguments);
+        String cached = cache.get(endpointName, query);
+        if (cached != null)
+            return CompletableFuture.completedFuture(cached);
+        long generation = cache.generation(endpointName);
         HttpRequest request = getHttpRequest(httpVerb, endpointName, requestArguments);
-        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString()).thenApply(HttpResponse::body);
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString()).thenApply(response -> {
+            if (isCacheable(response))
+                cache.put(endpointName, query, response.body(), generation);
+            return response.body();
+        });
+    }
+
+    /**
+     * Submit the HTTP request with a pre-encoded {@link RequestTemplate}.
+     *
+     * @param httpVerb         HTTP Method
+     * @param endpointName     Endpoint name such as 'documents', 'users', etc.
+     * @param template         Fixed request arguments shared between requests
+     * @param requestArguments JSON payload specific to this request
+     * @return A JSON of the response data.
+     */
+    protected String request(HttpMethod httpVerb, String endpointName, RequestTemplate template,
+                             JSONObject requestArguments) {
+        PooledBuffer body = pooledBody(httpVerb, template, requestArguments);
+        HttpRequest request = body == null
+                ? getHttpRequest(httpVerb, endpointName, template, requestArguments)
+                : getHttpRequest(httpVerb, endpointName, body);
+        try {
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.headers() != null) {
+                Optional<String> traceId = response.headers().firstValue("x-veryfi-trace-id");
+                traceId.ifPresent(s -> logger.info("x-veryfi-trace-id: " + s));
+            }
+            return response.body();
+        } catch (Exception e) {
+            logger.severe("request: " + e.getMessage());
+            return "";
+        } finally {
+            if (body != null)
+                body.close();
+            ResponseCache cache = responseCache;
+            if (cache != null)
+                cache.invalidate(endpointName);
+        }
+    }
+
+    /**
+     * Submit the HTTP request with a pre-encoded {@link RequestTemplate}.
+     *
+     * @param httpVerb         HTTP Method
+     * @param endpointName     Endpoint name such as 'documents', 'users', etc.
+     * @param template         Fixed request arguments shared between requests
+     * @param requestArguments JSON payload specific to this request
+     * @return A JSON of the response data.
+     */
+    protected CompletableFuture<String> requestAsync(HttpMethod httpVerb, String endpointName, RequestTemplate template,
+                                                     JSONObject requestArguments) {
+        PooledBuffer body = pooledBody(httpVerb, template, requestArguments);
+        HttpRequest request = body == null
+                ? getHttpRequest(httpVerb, endpointName, template, requestArguments)
+                : getHttpRequest(httpVerb, endpointName, body);
+        ResponseCache cache = responseCache;
+        if (body == null && cache == null)
+            return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString()).thenApply(HttpResponse::body);
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .whenComplete((response, error) -> {
+                    if (body != null)
+                        body.close();
+                    if (cache != null)
+                        cache.invalidate(endpointName);
+                })
+                .thenApply(HttpResponse::body);
     }
 
     /**
@@ -160,6 +297,156 @@ abstract public class NetworkClient {
         return request;
     }
 
+    /**
+     * Creates the HTTP request Object, splicing the encoded template into the body.
+     * Falls back to a merged {@link JSONObject} when the request can't be spliced.
+     *
+     * @param httpVerb         HTTP Method
+     * @param endpointName     Endpoint name such as 'documents', 'users', etc.
+     * @param template         Fixed request arguments shared between requests
+     * @param requestArguments JSON payload specific to this request
+     * @return request Object for the HttpClient {@link HttpRequest}
+     */
+    private HttpRequest getHttpRequest(HttpMethod httpVerb, String endpointName, RequestTemplate template,
+                                       JSONObject requestArguments) {
+        if (requestArguments == null)
+            requestArguments = new JSONObject();
+        if (!isSpliceable(httpVerb, template, requestArguments))
+            return getHttpRequest(httpVerb, endpointName, merge(template, requestArguments));
+
+        byte[] prefix = template.encodedPrefix();
+        byte[] arguments;
+        if (requestArguments.isEmpty()) {
+            arguments = new byte[]{'}'};
+        } else {
+            arguments = requestArguments.toString().getBytes(StandardCharsets.UTF_8);
+            arguments[0] = ',';
+        }
+        long timeStamp = new Date().getTime();
+        List<String> headers = getHeaders(timeStamp, generateSignature(timeStamp, prefix, arguments));
+        HttpRequest.BodyPublisher body = HttpRequest.BodyPublishers.concat(
+                HttpRequest.BodyPublishers.ofByteArray(prefix),
+                HttpRequest.BodyPublishers.ofByteArray(arguments));
+        HttpRequest.Builder builder = HttpRequest.newBuilder()
+                .uri(URI.create(getUrl() + endpointName))
+                .timeout(Duration.ofSeconds(timeOut))
+                .headers(headers.toArray(new String[0]));
+        return (httpVerb == HttpMethod.PUT ? builder.PUT(body) : builder.POST(body)).build();
+    }
+
+    /**
+     * Creates the HTTP request Object for a body serialized into a pooled buffer, signing the bytes of the body
+     * instead of a copy of the arguments.
+     *
+     * @param httpVerb     HTTP Method, POST or PUT
+     * @param endpointName Endpoint name such as 'documents', 'users', etc.
+     * @param body         JSON payload to send to Veryfi, from 0 to the position of the buffer
+     * @return request Object for the HttpClient {@link HttpRequest}
+     */
+    private HttpRequest getHttpRequest(HttpMethod httpVerb, String endpointName, PooledBuffer body) {
+        long timeStamp = new Date().getTime();
+        ByteBuffer content = body.buffer().duplicate().flip();
+        List<String> headers = getHeaders(timeStamp, generateSignature(timeStamp, content));
+        HttpRequest.Builder builder = HttpRequest.newBuilder()
+                .uri(URI.create(getUrl() + endpointName))
+                .timeout(Duration.ofSeconds(timeOut))
+                .headers(headers.toArray(new String[0]));
+        HttpRequest.BodyPublisher publisher = body.bodyPublisher();
+        return (httpVerb == HttpMethod.PUT ? builder.PUT(publisher) : builder.POST(publisher)).build();
+    }
+
+    /**
+     * Serializes the arguments of a POST or PUT into a buffer borrowed from the pool.
+     *
+     * @param httpVerb         HTTP Method
+     * @param requestArguments JSON payload to send to Veryfi
+     * @return the {@link PooledBuffer} to close once the exchange finishes, null without a pool or a body
+     */
+    private PooledBuffer pooledBody(HttpMethod httpVerb, JSONObject requestArguments) {
+        BufferPool pool = bufferPool;
+        if (pool == null || (httpVerb != HttpMethod.POST && httpVerb != HttpMethod.PUT))
+            return null;
+        if (requestArguments == null)
+            requestArguments = new JSONObject();
+        PooledBufferWriter writer = new PooledBufferWriter(pool, estimateSize(requestArguments));
+        try {
+            requestArguments.write(writer);
+            return writer.detach();
+        } catch (RuntimeException e) {
+            writer.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Serializes a POST or PUT with a {@link RequestTemplate} into a buffer borrowed from the pool, the encoded
+     * template copied first and the arguments of this request written after it.
+     *
+     * @param httpVerb         HTTP Method
+     * @param template         Fixed request arguments shared between requests
+     * @param requestArguments JSON payload specific to this request
+     * @return the {@link PooledBuffer} to close once the exchange finishes, null without a pool or a body
+     */
+    private PooledBuffer pooledBody(HttpMethod httpVerb, RequestTemplate template, JSONObject requestArguments) {
+        BufferPool pool = bufferPool;
+        if (pool == null || (httpVerb != HttpMethod.POST && httpVerb != HttpMethod.PUT))
+            return null;
+        if (requestArguments == null)
+            requestArguments = new JSONObject();
+        if (!isSpliceable(httpVerb, template, requestArguments))
+            return pooledBody(httpVerb, merge(template, requestArguments));
+        byte[] prefix = template.encodedPrefix();
+        PooledBufferWriter writer = new PooledBufferWriter(pool, prefix.length + estimateSize(requestArguments));
+        try {
+            writer.writeEncoded(prefix);
+            if (requestArguments.isEmpty()) {
+                writer.write('}');
+                return writer.detach();
+            }
+            requestArguments.write(writer);
+            PooledBuffer body = writer.detach();
+            // The arguments continue the template object, their opening brace becomes a comma.
+            body.buffer().put(prefix.length, (byte) ',');
+            return body;
+        } catch (RuntimeException e) {
+            writer.close();
+            throw e;
+        }
+    }
+
+    /**
+     * A template is spliced into a POST or PUT body unless the arguments of the request override one of its keys.
+     */
+    private static boolean isSpliceable(HttpMethod httpVerb, RequestTemplate template, JSONObject requestArguments) {
+        if ((httpVerb != HttpMethod.POST && httpVerb != HttpMethod.PUT) || template.isEmpty())
+            return false;
+        for (String key : requestArguments.keySet()) {
+            if (template.keys().contains(key))
+                return false;
+        }
+        return true;
+    }
+
+    private static JSONObject merge(RequestTemplate template, JSONObject requestArguments) {
+        JSONObject merged = template.toJsonObject();
+        for (String key : requestArguments.keySet()) {
+            merged.put(key, requestArguments.get(key));
+        }
+        return merged;
+    }
+
+    /**
+     * Guesses the serialized size of the arguments from their top level strings, which hold the file data.
+     */
+    private static int estimateSize(JSONObject requestArguments) {
+        long size = 64;
+        for (String key : requestArguments.keySet()) {
+            Object value = requestArguments.opt(key);
+            size += key.length() + 8 + (value instanceof String ? ((String) value).length() : 64);
+        }
+        return (int) Math.min(size, Integer.MAX_VALUE - 8);
+    }
+
     /**
      * Builds an application/x-www-form-urlencoded query string from a JSON object (GET parameters).
      */
@@ -192,6 +479,17 @@ abstract public class NetworkClient {
     private List<String> getHeaders(JSONObject requestArguments) {
         Date date = new Date();
         long timeStamp = date.getTime();
+        return getHeaders(timeStamp, generateSignature(timeStamp, requestArguments));
+    }
+
+    /**
+     * Prepares the headers needed for a request.
+     *
+     * @param timeStamp Unix Long timestamp used for the signature
+     * @param signature signature of the payload
+     * @return List of the headers {@link List<String>}
+     */
+    private List<String> getHeaders(long timeStamp, String signature) {
         List<String> headers = new ArrayList<>();
         JSONObject jsonHeaders = new JSONObject();
         jsonHeaders.put(USER_AGENT, USER_AGENT_JAVA);
@@ -200,7 +498,7 @@ abstract public class NetworkClient {
         jsonHeaders.put(CLIENT_ID, credentials.clientId);
         jsonHeaders.put(AUTHORIZATION, getApiKey());
         jsonHeaders.put(X_VERYFI_REQUEST_TIMESTAMP, String.valueOf(timeStamp));
-        jsonHeaders.put(X_VERYFI_REQUEST_SIGNATURE, generateSignature(timeStamp, requestArguments));
+        jsonHeaders.put(X_VERYFI_REQUEST_SIGNATURE, signature);
         for (String key : JSONObject.getNames(jsonHeaders)) {
             headers.add(key);
             headers.add(jsonHeaders.getString(key));
@@ -240,6 +538,55 @@ abstract public class NetworkClient {
         return base64SignatureEncoded;
     }
 
+    /**
+     * Generate unique signature for a spliced payload, signing the same JSON object
+     * with the timestamp appended without copying the payload.
+     *
+     * @param timeStamp Unix Long timestamp
+     * @param prefix    encoded template, a JSON object without its closing brace
+     * @param arguments encoded request arguments, starting with ',' and ending with '}'
+     * @return Unique signature generated using the client_secret and the payload
+     */
+    private String generateSignature(long timeStamp, byte[] prefix, byte[] arguments) {
+        byte[] secretBytes = credentials.clientSecret.getBytes(StandardCharsets.UTF_8);
+        byte[] timeStampBytes = (",\"" + TIMESTAMP + "\":\"" + timeStamp + "\"}").getBytes(StandardCharsets.UTF_8);
+        Mac mac;
+        try {
+            mac = Mac.getInstance(SHA256);
+            mac.init(new SecretKeySpec(secretBytes, SHA256));
+        } catch (NoSuchAlgorithmException | InvalidKeyException e) {
+            return e.getMessage();
+        }
+        mac.update(prefix);
+        mac.update(arguments, 0, arguments.length - 1);
+        return Base64.getEncoder().encodeToString(mac.doFinal(timeStampBytes));
+    }
+
+    /**
+     * Generate unique signature for a serialized payload, signing the same JSON object
+     * with the timestamp appended without copying the payload.
+     *
+     * @param timeStamp Unix Long timestamp
+     * @param content   serialized JSON object
+     * @return Unique signature generated using the client_secret and the payload
+     */
+    private String generateSignature(long timeStamp, ByteBuffer content) {
+        byte[] secretBytes = credentials.clientSecret.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer withoutBrace = content.duplicate();
+        withoutBrace.limit(withoutBrace.limit() - 1);
+        String separator = withoutBrace.remaining() > 1 ? "," : "";
+        byte[] timeStampBytes = (separator + "\"" + TIMESTAMP + "\":\"" + timeStamp + "\"}").getBytes(StandardCharsets.UTF_8);
+        Mac mac;
+        try {
+            mac = Mac.getInstance(SHA256);
+            mac.init(new SecretKeySpec(secretBytes, SHA256));
+        } catch (NoSuchAlgorithmException | InvalidKeyException e) {
+            return e.getMessage();
+        }
+        mac.update(withoutBrace);
+        return Base64.getEncoder().encodeToString(mac.doFinal(timeStampBytes));
+    }
+
     /**
      * Define new time out for the requests in seconds
      * @param timeOut of the http requests in seconds
@@ -264,6 +611,150 @@ abstract public class NetworkClient {
         this.httpClient = httpClient;
     }
 
+    /**
+     * By default GET responses aren't cached.
+     * @param responseCache the {@link ResponseCache} shared by the services of a client, null to disable it
+     */
+    public void setResponseCache(ResponseCache responseCache) {
+        this.responseCache = responseCache;
+    }
+
+    /**
+     * By default files are read and encoded on a shared pool with one daemon thread per processor, at least 2.
+     * @param fileExecutor the {@link Executor} preparing the requests of the async methods taking a file path
+     */
+    public void setFileExecutor(Executor fileExecutor) {
+        this.fileExecutor = fileExecutor;
+    }
+
+    /**
+     * Returns the executor preparing the requests of the async methods taking a file path.
+     *
+     * @return the file {@link Executor}.
+     */
+    public Executor getFileExecutor() {
+        return fileExecutor;
+    }
+
+    /**
+     * By default request bodies are built as strings on the heap.
+     * @param bufferPool the {@link BufferPool} lending the direct buffers POST and PUT bodies are serialized into, null to disable it
+     */
+    public void setBufferPool(BufferPool bufferPool) {
+        this.bufferPool = bufferPool;
+    }
+
+    /**
+     * By default files are uploaded as they are.
+     * @param imagePreprocessor the {@link ImagePreprocessor} shrinking large images before they are encoded, null to disable it
+     */
+    public void setImagePreprocessor(ImagePreprocessor imagePreprocessor) {
+        this.imagePreprocessor = imagePreprocessor;
+    }
+
+    /**
+     * By default PDFs are uploaded whole, whatever max_pages_to_process is.
+     * @param pdfPageTrimmer the {@link PdfPageTrimmer} cutting PDFs down to max_pages_to_process pages before they are encoded, null to disable it
+     */
+    public void setPdfPageTrimmer(PdfPageTrimmer pdfPageTrimmer) {
+        this.pdfPageTrimmer = pdfPageTrimmer;
+    }
+
+    /**
+     * Encodes a file as a data URI for the file_data argument, shrinking it first when it is a large image.
+     *
+     * @param source the {@link FileSource} of the file to submit for data extraction
+     * @return Base64 encoded string with data URI prefix
+     * @throws IOException when the file can't be read
+     */
+    protected String encodeFile(FileSource source) throws IOException {
+        return encodeFile(source, 0);
+    }
+
+    /**
+     * Encodes a file as a data URI for the file_data argument, cutting a PDF down to its first pages and
+     * shrinking a large image first.
+     *
+     * @param source   the {@link FileSource} of the file to submit for data extraction
+     * @param maxPages How many pages of the document are processed, starting from page 1, 0 for all of them
+     * @return Base64 encoded string with data URI prefix
+     * @throws IOException when the file can't be read
+     */
+    protected String encodeFile(FileSource source, int maxPages) throws IOException {
+        PdfPageTrimmer trimmer = pdfPageTrimmer;
+        if (trimmer != null && maxPages > 0)
+            source = trimmer.trim(source, maxPages);
+        ImagePreprocessor preprocessor = imagePreprocessor;
+        if (preprocessor != null)
+            source = preprocessor.process(source);
+        return source.encode();
+    }
+
+    /**
+     * Prepares a request on the file executor, so reading and encoding the file, serializing and signing the
+     * arguments don't block the caller and the future is returned immediately. The request must only touch a copy
+     * of the caller's parameters, see {@link #copyParameters(JSONObject)}, taken before this call: the caller may
+     * reuse them for other calls or edit them.
+     *
+     * @param request Prepares and submits the request.
+     * @return A JSON of the response data.
+     */
+    protected CompletableFuture<String> prepareAsync(Supplier<CompletableFuture<String>> request) {
+        return CompletableFuture.supplyAsync(request, fileExecutor).thenCompose(Function.identity());
+    }
+
+    /**
+     * Copies the caller's additional request parameters before the request is prepared on another thread.
+     *
+     * @param parameters Additional request parameters, may be null.
+     * @return a new {@link JSONObject}
+     */
+    protected static JSONObject copyParameters(JSONObject parameters) {
+        return parameters == null ? new JSONObject() : new JSONObject(parameters.toString());
+    }
+
+    private static Executor newFileExecutor() {
+        int threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "veryfi-file-" + FILE_THREAD_COUNT.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Only successful json object responses are cached, the API answers errors with a "fail" status. A document still
+     * being processed isn't cached either, its next poll must reach the API.
+     */
+    private static boolean isCacheable(HttpResponse<String> response) {
+        String body = response.body();
+        if (response.statusCode() >= 400 || body == null || body.isEmpty() || body.charAt(0) != '{')
+            return false;
+        try {
+            JSONObject json = new JSONObject(body);
+            if ("fail".equals(json.optString("status")) || json.has("error"))
+                return false;
+            JSONObject data = json.optJSONObject("data");
+            String status = (data != null ? data : json).optString("status", "");
+            return !PENDING_STATUSES.contains(status.toLowerCase());
+        } catch (JSONException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Returns the max_pages_to_process argument of a request, 0 when it isn't set.
+     *
+     * @param parameters Additional request parameters
+     * @return How many pages of the document are processed
+     */
+    protected static int maxPagesToProcess(JSONObject parameters) {
+        return parameters == null ? 0 : parameters.optInt(MAX_PAGES_TO_PROCESS, 0);
+    }
+
     /**
      * Creates the JSON Object for the parameters of the request
      *
@@ -292,13 +783,30 @@ abstract public class NetworkClient {
         File file = new File(filePath);
         String fileData = "";
         try {
-            fileData = Base64Helper.getBase64FileContent(file);
+            fileData = encodeFile(FileSource.fromPath(file.toPath()), maxPagesToProcess(parameters));
         } catch (Exception e) {
             logger.severe("addFileToParameters: " + e.getMessage());
         }
         return addFileToParameters(fileName, fileData, parameters);
     }
 
+    /**
+     * Creates the JSON Object for the parameters of the request
+     *
+     * @param source                the {@link FileSource} of the file to submit for data extraction
+     * @param parameters            Additional request parameters
+     * @return the JSON object of the parameters of the request
+     */
+    protected JSONObject addFileToParameters(FileSource source, JSONObject parameters) {
+        String fileData = "";
+        try {
+            fileData = encodeFile(source, maxPagesToProcess(parameters));
+        } catch (Exception e) {
+            logger.severe("addFileToParameters: " + e.getMessage());
+        }
+        return addFileToParameters(source.getFileName(), fileData, parameters);
+    }
+
     /**
      * Creates the JSON object of the parameters of the request
      *
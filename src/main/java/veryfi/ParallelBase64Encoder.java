@@ -0,0 +1,148 @@
+package veryfi;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Base64;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Base64 encoder for large files.
+ * <p>
+ * The file is memory-mapped in chunks of 3 MiB, a multiple of 3 bytes, so every chunk encodes to a fixed
+ * number of characters without padding and lands at a known offset of the output. The chunks are encoded in
+ * parallel on a {@link ForkJoinPool} straight from the page cache into a single output array, which becomes
+ * the returned string, instead of reading the whole file onto the heap and encoding it on one thread. Each chunk
+ * is read through a 48 KiB block and its encoding streamed into its range of the output, so no chunk sized
+ * array is allocated.
+ * </p>
+ */
+public class ParallelBase64Encoder {
+
+    static final int CHUNK_BYTES = 3 << 20;
+    private static final int BLOCK_BYTES = 3 << 14;
+    private static final long MAX_ENCODED_LENGTH = Integer.MAX_VALUE - 8;
+
+    /**
+     * Encodes a file on the common fork-join pool.
+     *
+     * @param file   the {@link Path} of the file to encode.
+     * @param prefix Characters written before the encoded content, such as a data URI prefix.
+     * @return the prefix followed by the Base64 encoded content.
+     * @throws IOException when the file can't be read or its encoding exceeds the size of a string.
+     */
+    public static String encode(Path file, String prefix) throws IOException {
+        return encode(file, prefix, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Encodes a file.
+     *
+     * @param file   the {@link Path} of the file to encode.
+     * @param prefix Characters written before the encoded content, such as a data URI prefix.
+     * @param pool   the {@link ForkJoinPool} encoding the chunks.
+     * @return the prefix followed by the Base64 encoded content.
+     * @throws IOException when the file can't be read or its encoding exceeds the size of a string.
+     */
+    public static String encode(Path file, String prefix, ForkJoinPool pool) throws IOException {
+        byte[] prefixBytes = prefix.getBytes(StandardCharsets.US_ASCII);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long encodedLength = prefixBytes.length + (size + 2) / 3 * 4;
+            if (encodedLength > MAX_ENCODED_LENGTH)
+                throw new IOException("file too large to encode: " + file);
+            byte[] out = new byte[(int) encodedLength];
+            System.arraycopy(prefixBytes, 0, out, 0, prefixBytes.length);
+            try {
+                pool.invoke(new EncodeTask(channel, out, prefixBytes.length, 0, size));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            // Base64 is ASCII, so the latin-1 string is built with a plain copy of the bytes.
+            return new String(out, StandardCharsets.ISO_8859_1);
+        }
+    }
+
+    /**
+     * Encodes a range of the file starting at a chunk boundary, splitting it in halves of whole chunks.
+     */
+    private static class EncodeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final FileChannel channel;
+        private final byte[] out;
+        private final int outOffset;
+        private final long position;
+        private final long length;
+
+        private EncodeTask(FileChannel channel, byte[] out, int outOffset, long position, long length) {
+            this.channel = channel;
+            this.out = out;
+            this.outOffset = outOffset;
+            this.position = position;
+            this.length = length;
+        }
+
+        @Override
+        protected void compute() {
+            if (length <= CHUNK_BYTES) {
+                encodeChunk();
+                return;
+            }
+            long chunks = (length + CHUNK_BYTES - 1) / CHUNK_BYTES;
+            long leftLength = chunks / 2 * CHUNK_BYTES;
+            int rightOffset = outOffset + (int) (leftLength / 3 * 4);
+            invokeAll(new EncodeTask(channel, out, outOffset, position, leftLength),
+                    new EncodeTask(channel, out, rightOffset, position + leftLength, length - leftLength));
+        }
+
+        private void encodeChunk() {
+            if (length == 0)
+                return;
+            try {
+                ByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                byte[] block = new byte[BLOCK_BYTES];
+                // The encoder streams straight into the output array, only a block of input is buffered.
+                try (OutputStream encoding = Base64.getEncoder().wrap(new OutputWindow(out, outOffset))) {
+                    while (chunk.hasRemaining()) {
+                        int blockLength = Math.min(block.length, chunk.remaining());
+                        chunk.get(block, 0, blockLength);
+                        encoding.write(block, 0, blockLength);
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Writes to the output array from an offset, the range of one chunk.
+     */
+    private static class OutputWindow extends OutputStream {
+        private final byte[] out;
+        private int position;
+
+        private OutputWindow(byte[] out, int position) {
+            this.out = out;
+            this.position = position;
+        }
+
+        @Override
+        public void write(int b) {
+            out[position++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            System.arraycopy(b, off, out, position, len);
+            position += len;
+        }
+    }
+}
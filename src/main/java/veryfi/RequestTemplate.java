@@ -0,0 +1,181 @@
+package veryfi;
+
+import org.json.JSONObject;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static veryfi.Constants.*;
+
+/**
+ * Immutable set of request arguments shared by many process requests.
+ * <p>
+ * The fixed arguments of a submission (categories, boost mode, auto delete, ...) are serialized
+ * once when the template is built. The encoded bytes are then spliced into every request that
+ * uses the template, so each submission only serializes the file and its own fields.
+ * Instances are thread-safe and meant to be built once and reused.
+ * </p>
+ */
+public final class RequestTemplate {
+
+    private final String json;
+    private final byte[] encodedPrefix;
+    private final Set<String> keys;
+    private final int maxPagesToProcess;
+
+    /**
+     * Creates an instance of {@link RequestTemplate}.
+     *
+     * @param arguments the fixed request arguments.
+     */
+    private RequestTemplate(JSONObject arguments) {
+        this.json = arguments.toString();
+        this.keys = Collections.unmodifiableSet(new LinkedHashSet<>(arguments.keySet()));
+        this.maxPagesToProcess = arguments.optInt(MAX_PAGES_TO_PROCESS, 0);
+        // The template is stored as an unterminated JSON object ("{...") so the per-request
+        // arguments can be appended as ",...}" without copying the template bytes.
+        this.encodedPrefix = json.substring(0, json.length() - 1).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Creates a new {@link Builder}.
+     *
+     * @return an empty builder.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Returns the names of the arguments fixed by this template.
+     *
+     * @return the unmodifiable {@link Set} of argument names.
+     */
+    public Set<String> keys() {
+        return keys;
+    }
+
+    /**
+     * Returns whether this template has no arguments.
+     *
+     * @return true when the template is empty.
+     */
+    public boolean isEmpty() {
+        return keys.isEmpty();
+    }
+
+    /**
+     * Returns how many pages of a document are processed, starting from page 1.
+     *
+     * @return the max_pages_to_process argument, 0 when the template doesn't set it.
+     */
+    public int maxPagesToProcess() {
+        return maxPagesToProcess;
+    }
+
+    /**
+     * Returns a mutable copy of the template arguments.
+     *
+     * @return a new {@link JSONObject} with the template arguments.
+     */
+    public JSONObject toJsonObject() {
+        return new JSONObject(json);
+    }
+
+    /**
+     * Returns the pre-encoded template as a UTF-8 JSON object without its closing brace.
+     * The array is shared and must not be modified.
+     *
+     * @return the encoded template bytes.
+     */
+    byte[] encodedPrefix() {
+        return encodedPrefix;
+    }
+
+    @Override
+    public String toString() {
+        return json;
+    }
+
+    /**
+     * Builder for {@link RequestTemplate}.
+     */
+    public static final class Builder {
+
+        private final JSONObject arguments = new JSONObject();
+
+        private Builder() {
+        }
+
+        /**
+         * @param categories List of categories Veryfi can use to categorize the document
+         * @return this builder
+         */
+        public Builder categories(List<String> categories) {
+            arguments.put(CATEGORIES, categories);
+            return this;
+        }
+
+        /**
+         * @param deleteAfterProcessing Delete this document from Veryfi after data has been extracted
+         * @return this builder
+         */
+        public Builder deleteAfterProcessing(boolean deleteAfterProcessing) {
+            arguments.put(AUTO_DELETE, deleteAfterProcessing);
+            return this;
+        }
+
+        /**
+         * @param boostMode Flag that tells Veryfi whether boost mode should be enabled
+         * @return this builder
+         */
+        public Builder boostMode(boolean boostMode) {
+            arguments.put(BOOST_MODE, boostMode);
+            return this;
+        }
+
+        /**
+         * @param maxPagesToProcess How many pages of the document will be read and processed, starting from page 1.
+         * @return this builder
+         */
+        public Builder maxPagesToProcess(int maxPagesToProcess) {
+            arguments.put(MAX_PAGES_TO_PROCESS, maxPagesToProcess);
+            return this;
+        }
+
+        /**
+         * @param key   name of the request argument
+         * @param value value of the request argument
+         * @return this builder
+         */
+        public Builder parameter(String key, Object value) {
+            arguments.put(key, value);
+            return this;
+        }
+
+        /**
+         * @param parameters Additional request parameters, copied into the template
+         * @return this builder
+         */
+        public Builder parameters(JSONObject parameters) {
+            if (parameters != null) {
+                for (String key : parameters.keySet()) {
+                    arguments.put(key, parameters.get(key));
+                }
+            }
+            return this;
+        }
+
+        /**
+         * Builds the immutable template. The builder can keep being used afterwards.
+         *
+         * @return the new {@link RequestTemplate}
+         */
+        public RequestTemplate build() {
+            return new RequestTemplate(arguments);
+        }
+    }
+}
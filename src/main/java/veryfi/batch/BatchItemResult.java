@@ -0,0 +1,67 @@
+package veryfi.batch;
+
+import java.time.Duration;
+
+/**
+ * Outcome of one file of a batch run by a {@link BatchProcessor}.
+ */
+public class BatchItemResult {
+
+    /**
+     * Path on disk of the file.
+     */
+    public final String filePath;
+    /**
+     * Whether the API returned a successful response.
+     */
+    public final boolean success;
+    /**
+     * The json string of the last response, empty when no response was received, null when it was handed to the
+     * result consumer of the {@link BatchProcessor}.
+     */
+    public final String response;
+    /**
+     * The reason of the failure, null on success.
+     */
+    public final String error;
+    /**
+     * The number of retries after the first attempt.
+     */
+    public final int retries;
+    /**
+     * The time spent on the file, retries included.
+     */
+    public final Duration latency;
+
+    /**
+     * Creates an instance of {@link BatchItemResult}.
+     *
+     * @param filePath Path on disk of the file.
+     * @param success  Whether the API returned a successful response.
+     * @param response The json string of the last response.
+     * @param error    The reason of the failure, null on success.
+     * @param retries  The number of retries after the first attempt.
+     * @param latency  The time spent on the file.
+     */
+    public BatchItemResult(String filePath, boolean success, String response, String error, int retries, Duration latency) {
+        this.filePath = filePath;
+        this.success = success;
+        this.response = response;
+        this.error = error;
+        this.retries = retries;
+        this.latency = latency;
+    }
+
+    /**
+     * Returns this result without its response, once the response is consumed.
+     */
+    BatchItemResult withoutResponse() {
+        return new BatchItemResult(filePath, success, null, error, retries, latency);
+    }
+
+    @Override
+    public String toString() {
+        return "BatchItemResult{filePath=" + filePath + ", success=" + success + ", error=" + error
+                + ", retries=" + retries + ", latency=" + latency + "}";
+    }
+}
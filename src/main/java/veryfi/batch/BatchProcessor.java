@@ -0,0 +1,226 @@
+package veryfi.batch;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.logging.Logger;
+
+/**
+ * Processes many local files with a bounded number of files in progress.
+ * <p>
+ * Every worker reads, encodes and uploads its own file, so the reading and encoding of some files overlaps the
+ * uploads of the others. Paths are pulled from the input only when a worker is free, so a stream over a large
+ * folder isn't materialised. A file that fails on a transport error, a rate limit or a server error is retried, then
+ * reported, without stopping the batch; other failures, such as a rejected file, are reported at once. With a
+ * {@link #setResultConsumer(Consumer) result consumer} the responses are handed over as files finish instead of
+ * being kept until the batch ends.
+ * </p>
+ * <p>
+ * The empty response of a client side timeout is not retried: the API may have received the upload already, and a
+ * second upload would create a duplicate document. A processor that needs to retry it can send an
+ * {@code external_id} with the file and look the document up by it before uploading again.
+ * </p>
+ */
+public class BatchProcessor {
+
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+    private static final List<String> STATUS_CODE_FIELDS = List.of("status_code", "code");
+    private static final List<String> RETRYABLE_MESSAGES = List.of("too many requests", "throttl", "rate limit",
+            "server error", "service unavailable", "bad gateway", "gateway timeout", "try again");
+
+    private final Logger logger = Logger.getLogger("BatchProcessor");
+    private final int concurrency;
+    private int maxRetries = 2;
+    private Duration retryDelay = Duration.ofSeconds(1);
+    private Consumer<BatchItemResult> resultConsumer;
+
+    /**
+     * Creates an instance of {@link BatchProcessor}.
+     *
+     * @param concurrency The maximum number of files in progress.
+     */
+    public BatchProcessor(int concurrency) {
+        if (concurrency <= 0)
+            throw new IllegalArgumentException("concurrency must be positive");
+        this.concurrency = concurrency;
+    }
+
+    /**
+     * By default a file failing with a transport error, a rate limit or a server error is retried 2 times.
+     * @param maxRetries the number of retries of a failed file
+     */
+    public void setMaxRetries(int maxRetries) {
+        this.maxRetries = maxRetries;
+    }
+
+    /**
+     * By default a failed file is retried after 1 second, doubled on every retry.
+     * @param retryDelay the delay before the first retry
+     */
+    public void setRetryDelay(Duration retryDelay) {
+        this.retryDelay = retryDelay;
+    }
+
+    /**
+     * By default results are only collected in the {@link BatchReport}, each with its response.
+     * @param resultConsumer receives every result with its response on the worker thread as soon as its file is done,
+     *                       the report then keeps the responses of the failed files only, so the memory of a large
+     *                       batch doesn't grow with the extracted documents. An exception thrown by it stops the batch.
+     */
+    public void setResultConsumer(Consumer<BatchItemResult> resultConsumer) {
+        this.resultConsumer = resultConsumer;
+    }
+
+    /**
+     * Processes every file and waits for the last one.
+     *
+     * @param filePaths Paths on disk of the files, pulled lazily.
+     * @param processor Processes one file and returns the json string of the response, for example
+     *                  {@code filePath -> client.processW2(filePath, null)}.
+     * @return the {@link BatchReport} of the files in input order.
+     * @throws InterruptedException when the calling thread is interrupted, the files in progress are abandoned.
+     */
+    public BatchReport process(Iterable<String> filePaths, Function<String, String> processor) throws InterruptedException {
+        long start = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency, runnable -> {
+            Thread thread = new Thread(runnable, "veryfi-batch-" + THREAD_COUNT.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        Semaphore slots = new Semaphore(concurrency);
+        Consumer<BatchItemResult> consumer = resultConsumer;
+        List<Future<BatchItemResult>> futures = new ArrayList<>();
+        try {
+            for (String filePath : filePaths) {
+                slots.acquire();
+                futures.add(executor.submit(() -> {
+                    try {
+                        BatchItemResult result = processOne(filePath, processor);
+                        if (consumer == null)
+                            return result;
+                        consumer.accept(result);
+                        return result.success ? result.withoutResponse() : result;
+                    } finally {
+                        slots.release();
+                    }
+                }));
+            }
+            List<BatchItemResult> items = new ArrayList<>(futures.size());
+            for (Future<BatchItemResult> future : futures) {
+                try {
+                    items.add(future.get());
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException(e.getCause());
+                }
+            }
+            return new BatchReport(items, Duration.ofNanos(System.nanoTime() - start));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Processes one file, retrying it on failure.
+     */
+    BatchItemResult processOne(String filePath, Function<String, String> processor) throws InterruptedException {
+        long start = System.nanoTime();
+        if (!Files.isReadable(Paths.get(filePath)))
+            return new BatchItemResult(filePath, false, "", "file not readable", 0, Duration.ofNanos(System.nanoTime() - start));
+        String response = "";
+        String error = null;
+        long delay = retryDelay.toMillis();
+        for (int attempt = 0; ; attempt++) {
+            boolean retryable;
+            try {
+                response = processor.apply(filePath);
+                error = failureOf(response);
+                retryable = error != null && isRetryable(response);
+            } catch (RuntimeException e) {
+                response = "";
+                error = e.toString();
+                retryable = isTransportError(e);
+            }
+            if (error == null)
+                return new BatchItemResult(filePath, true, response, null, attempt, Duration.ofNanos(System.nanoTime() - start));
+            if (!retryable || attempt >= maxRetries)
+                return new BatchItemResult(filePath, false, response, error, attempt, Duration.ofNanos(System.nanoTime() - start));
+            logger.warning("batch: retrying " + filePath + ": " + error);
+            Thread.sleep(delay);
+            delay *= 2;
+        }
+    }
+
+    /**
+     * Returns whether a failed response is worth retrying: a rate limit, a server error, or a body that isn't json,
+     * such as the error page of a gateway. A rejected request fails the same way again, and an empty response, the
+     * client timing out, may come from an upload the API received already.
+     *
+     * @param response The json string of a failed response.
+     * @return true when the request may succeed if sent again.
+     */
+    public static boolean isRetryable(String response) {
+        if (response == null || response.isEmpty())
+            return false;
+        JSONObject json;
+        try {
+            json = new JSONObject(response);
+        } catch (JSONException e) {
+            return true;
+        }
+        for (String field : STATUS_CODE_FIELDS) {
+            int statusCode = json.optInt(field, -1);
+            if (statusCode > 0)
+                return statusCode == 429 || statusCode >= 500;
+        }
+        String failure = String.valueOf(failureOf(response)).toLowerCase(Locale.ROOT);
+        for (String message : RETRYABLE_MESSAGES) {
+            if (failure.contains(message))
+                return true;
+        }
+        return false;
+    }
+
+    private static boolean isTransportError(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof IOException)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns why a response is a failure, the API answers errors with a "fail" status and the client with an empty body.
+     *
+     * @param response The json string of a response.
+     * @return the reason of the failure, null for a successful response.
+     */
+    public static String failureOf(String response) {
+        if (response == null || response.isEmpty())
+            return "no response";
+        try {
+            JSONObject json = new JSONObject(response);
+            if ("fail".equals(json.optString("status")))
+                return json.optString("message", json.has("error") ? String.valueOf(json.get("error")) : "fail");
+            if (json.has("error"))
+                return String.valueOf(json.get("error"));
+            return null;
+        } catch (JSONException e) {
+            return "unexpected response: " + e.getMessage();
+        }
+    }
+}
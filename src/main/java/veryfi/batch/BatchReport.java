@@ -0,0 +1,77 @@
+package veryfi.batch;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Per-file outcomes of a batch run by a {@link BatchProcessor}, in the order of the input.
+ */
+public class BatchReport {
+
+    private final List<BatchItemResult> items;
+    private final Duration elapsed;
+
+    /**
+     * Creates an instance of {@link BatchReport}.
+     *
+     * @param items   The outcome of every file, in the order of the input.
+     * @param elapsed The wall-clock time of the batch.
+     */
+    public BatchReport(List<BatchItemResult> items, Duration elapsed) {
+        this.items = Collections.unmodifiableList(items);
+        this.elapsed = elapsed;
+    }
+
+    /**
+     * Returns the outcome of every file.
+     *
+     * @return an unmodifiable {@link List} in the order of the input.
+     */
+    public List<BatchItemResult> getItems() {
+        return items;
+    }
+
+    /**
+     * Returns the outcomes of the files that failed after their retries.
+     *
+     * @return a {@link List} of failed items.
+     */
+    public List<BatchItemResult> getFailures() {
+        return items.stream().filter(item -> !item.success).collect(Collectors.toList());
+    }
+
+    /**
+     * Returns the number of files processed successfully.
+     *
+     * @return the number of successes.
+     */
+    public int getSuccessCount() {
+        return (int) items.stream().filter(item -> item.success).count();
+    }
+
+    /**
+     * Returns the number of files that failed after their retries.
+     *
+     * @return the number of failures.
+     */
+    public int getFailureCount() {
+        return items.size() - getSuccessCount();
+    }
+
+    /**
+     * Returns the wall-clock time of the batch.
+     *
+     * @return the elapsed {@link Duration}.
+     */
+    public Duration getElapsed() {
+        return elapsed;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchReport{items=" + items.size() + ", successes=" + getSuccessCount()
+                + ", failures=" + getFailureCount() + ", elapsed=" + elapsed + "}";
+    }
+}
@@ -0,0 +1,413 @@
+package veryfi.batch;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.logging.Logger;
+
+/**
+ * Watches a drop folder and processes every file written to it.
+ * <p>
+ * Files are picked up from a {@link WatchService} on the folder, along with the files already there when it starts.
+ * A file is submitted once its size and modification time haven't changed for a quiet period, so a file still being
+ * copied in isn't uploaded half written. Hidden files and the usual partial download names (.tmp, .part,
+ * .crdownload) are skipped. Each file goes to the processor of the first route matching its name, with a bounded
+ * number of files in progress, and is retried like in a {@link BatchProcessor}.
+ * </p>
+ * <p>
+ * A processed file is moved to the done folder next to a .json file with the response, a failed one to the failed
+ * folder next to a .error file with the reason. Both folders may be inside the watched folder.
+ * </p>
+ * <p>
+ * Example:
+ * </p>
+ * <pre>{@code
+ * IngestionPipeline pipeline = new IngestionPipeline(inbox, inbox.resolve("done"), inbox.resolve("failed"), 8);
+ * pipeline.addRoute("w2_*", filePath -> client.processW2(filePath, null));
+ * pipeline.addRoute("*.pdf", filePath -> client.processBankStatement(filePath, null));
+ * pipeline.setDefaultRoute(filePath -> client.processDocument(filePath, null, false, null));
+ * pipeline.start();
+ * }</pre>
+ */
+public class IngestionPipeline implements AutoCloseable {
+
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+    private final Logger logger = Logger.getLogger("IngestionPipeline");
+    private final Path inbox;
+    private final Path doneDirectory;
+    private final Path failedDirectory;
+    private final int concurrency;
+    private final BatchProcessor retrier;
+    private final List<Route> routes = new CopyOnWriteArrayList<>();
+    private volatile Function<String, String> defaultRoute;
+    private volatile Consumer<BatchItemResult> listener;
+    private Duration quietPeriod = Duration.ofSeconds(2);
+    // Only used by the watch thread.
+    private final Map<Path, Candidate> candidates = new HashMap<>();
+    private final Set<Path> inProgress = ConcurrentHashMap.newKeySet();
+    private final AtomicLong processedCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private volatile long startNanos;
+    private volatile boolean running = false;
+    private WatchService watchService;
+    private Thread watchThread;
+    private ExecutorService uploads;
+
+    /**
+     * Creates an instance of {@link IngestionPipeline}.
+     *
+     * @param inbox           The folder files are dropped into.
+     * @param doneDirectory   The folder processed files are moved to, created when missing.
+     * @param failedDirectory The folder failed files are moved to, created when missing.
+     * @param concurrency     The maximum number of files in progress.
+     */
+    public IngestionPipeline(Path inbox, Path doneDirectory, Path failedDirectory, int concurrency) {
+        if (concurrency <= 0)
+            throw new IllegalArgumentException("concurrency must be positive");
+        this.inbox = inbox.toAbsolutePath().normalize();
+        this.doneDirectory = doneDirectory.toAbsolutePath().normalize();
+        this.failedDirectory = failedDirectory.toAbsolutePath().normalize();
+        this.concurrency = concurrency;
+        this.retrier = new BatchProcessor(concurrency);
+    }
+
+    /**
+     * Sends the files whose name matches a glob to a processor. Routes are tried in the order they were added.
+     *
+     * @param glob      The glob matched against the file name, for example {@code "*.pdf"} or {@code "w2_*"}.
+     * @param processor Processes one file and returns the json string of the response, for example
+     *                  {@code filePath -> client.processW2(filePath, null)}.
+     */
+    public void addRoute(String glob, Function<String, String> processor) {
+        routes.add(new Route(FileSystems.getDefault().getPathMatcher("glob:" + glob), processor));
+    }
+
+    /**
+     * By default a file matching no route fails with "no route".
+     * @param processor processes the files matching no route
+     */
+    public void setDefaultRoute(Function<String, String> processor) {
+        this.defaultRoute = processor;
+    }
+
+    /**
+     * By default nothing is notified when a file finishes.
+     * @param listener called with the result of every file once it is moved, on the thread that processed it
+     */
+    public void setListener(Consumer<BatchItemResult> listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * By default a file is submitted once it hasn't changed for 2 seconds.
+     * @param quietPeriod how long the size and modification time of a file must stay the same, set before {@link #start()}
+     */
+    public void setQuietPeriod(Duration quietPeriod) {
+        if (quietPeriod.isNegative())
+            throw new IllegalArgumentException("quietPeriod must not be negative");
+        this.quietPeriod = quietPeriod;
+    }
+
+    /**
+     * By default a file failing with a transport error, a rate limit or a server error is retried 2 times.
+     * @param maxRetries the number of retries of a failed file
+     */
+    public void setMaxRetries(int maxRetries) {
+        retrier.setMaxRetries(maxRetries);
+    }
+
+    /**
+     * By default a failed file is retried after 1 second, doubled on every retry.
+     * @param retryDelay the delay before the first retry
+     */
+    public void setRetryDelay(Duration retryDelay) {
+        retrier.setRetryDelay(retryDelay);
+    }
+
+    /**
+     * Starts watching the folder, the files already in it are submitted too.
+     *
+     * @throws IOException when the folders can't be created or the inbox can't be watched.
+     */
+    public synchronized void start() throws IOException {
+        if (watchThread != null)
+            throw new IllegalStateException("already started");
+        Files.createDirectories(doneDirectory);
+        Files.createDirectories(failedDirectory);
+        watchService = inbox.getFileSystem().newWatchService();
+        inbox.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        int id = THREAD_COUNT.incrementAndGet();
+        AtomicInteger uploadCount = new AtomicInteger();
+        uploads = Executors.newFixedThreadPool(concurrency, runnable -> {
+            Thread thread = new Thread(runnable, "veryfi-ingest-" + id + "-" + uploadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        startNanos = System.nanoTime();
+        running = true;
+        watchThread = new Thread(this::watch, "veryfi-ingest-watch-" + id);
+        watchThread.setDaemon(true);
+        watchThread.start();
+    }
+
+    /**
+     * Stops watching the folder and waits for the files already submitted. Files not submitted yet stay in the
+     * inbox and are picked up on the next start.
+     */
+    @Override
+    public synchronized void close() {
+        // The watch thread may have stopped on its own, the uploads still have to be shut down.
+        if (watchThread == null)
+            return;
+        running = false;
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            logger.warning("close: " + e.getMessage());
+        }
+        try {
+            watchThread.join();
+            uploads.shutdown();
+            while (!uploads.awaitTermination(1, TimeUnit.MINUTES)) {
+                logger.info("close: waiting for " + inProgress.size() + " files in progress");
+            }
+        } catch (InterruptedException e) {
+            uploads.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void watch() {
+        long tick = Math.max(10, quietPeriod.toMillis() / 4);
+        try {
+            scan();
+            while (running) {
+                WatchKey key = watchService.poll(tick, TimeUnit.MILLISECONDS);
+                if (key != null) {
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                            scan();
+                        } else {
+                            offer(inbox.resolve((Path) event.context()));
+                        }
+                    }
+                    if (!key.reset()) {
+                        logger.severe("watch: " + inbox + " can't be watched anymore");
+                        running = false;
+                        return;
+                    }
+                }
+                submitQuietFiles();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Closing.
+        } catch (IOException e) {
+            logger.severe("watch: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Offers every file of the inbox, at start and when the watch service lost events.
+     */
+    private void scan() throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(inbox)) {
+            for (Path file : files) {
+                offer(file);
+            }
+        }
+    }
+
+    private void offer(Path file) {
+        if (!ignored(file.getFileName().toString()) && !inProgress.contains(file))
+            candidates.putIfAbsent(file, new Candidate());
+    }
+
+    private void submitQuietFiles() {
+        long now = System.nanoTime();
+        Iterator<Map.Entry<Path, Candidate>> iterator = candidates.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Path, Candidate> entry = iterator.next();
+            Path file = entry.getKey();
+            BasicFileAttributes attributes;
+            try {
+                attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            } catch (IOException e) {
+                // Deleted or moved away before it settled.
+                iterator.remove();
+                continue;
+            }
+            if (!attributes.isRegularFile()) {
+                iterator.remove();
+                continue;
+            }
+            Candidate candidate = entry.getValue();
+            long modified = attributes.lastModifiedTime().toMillis();
+            if (attributes.size() != candidate.size || modified != candidate.modified) {
+                candidate.size = attributes.size();
+                candidate.modified = modified;
+                candidate.changedAt = now;
+                continue;
+            }
+            if (now - candidate.changedAt < quietPeriod.toNanos())
+                continue;
+            iterator.remove();
+            inProgress.add(file);
+            uploads.execute(() -> process(file));
+        }
+    }
+
+    private void process(Path file) {
+        String fileName = file.getFileName().toString();
+        Function<String, String> processor = route(fileName);
+        BatchItemResult result;
+        if (processor == null) {
+            result = new BatchItemResult(file.toString(), false, "", "no route", 0, Duration.ZERO);
+        } else {
+            try {
+                result = retrier.processOne(file.toString(), processor);
+            } catch (InterruptedException e) {
+                // Closing, the file stays in the inbox.
+                inProgress.remove(file);
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        (result.success ? processedCount : failedCount).incrementAndGet();
+        try {
+            Path directory = result.success ? doneDirectory : failedDirectory;
+            Path target = move(file, directory);
+            String report = result.success ? result.response : result.error;
+            Files.writeString(directory.resolve(target.getFileName() + (result.success ? ".json" : ".error")),
+                    report, StandardCharsets.UTF_8);
+            inProgress.remove(file);
+        } catch (IOException e) {
+            // Kept in progress so the file left in the inbox isn't processed again.
+            logger.severe("process: " + fileName + " was processed but not moved: " + e.getMessage());
+        }
+        Consumer<BatchItemResult> consumer = listener;
+        if (consumer != null)
+            consumer.accept(result);
+    }
+
+    private Function<String, String> route(String fileName) {
+        Path name = Path.of(fileName);
+        for (Route route : routes) {
+            if (route.matcher.matches(name))
+                return route.processor;
+        }
+        return defaultRoute;
+    }
+
+    /**
+     * Moves a file into a folder, with a numbered name when the folder already has a file of the same name.
+     */
+    private static Path move(Path file, Path directory) throws IOException {
+        String fileName = file.getFileName().toString();
+        int dot = fileName.lastIndexOf('.');
+        String stem = dot > 0 ? fileName.substring(0, dot) : fileName;
+        String extension = dot > 0 ? fileName.substring(dot) : "";
+        Path target = directory.resolve(fileName);
+        for (int i = 1; Files.exists(target); i++) {
+            target = directory.resolve(stem + "-" + i + extension);
+        }
+        try {
+            return Files.move(file, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            return Files.move(file, target);
+        }
+    }
+
+    private static boolean ignored(String fileName) {
+        String name = fileName.toLowerCase(Locale.ROOT);
+        return name.startsWith(".") || name.endsWith(".tmp") || name.endsWith(".part") || name.endsWith(".crdownload");
+    }
+
+    /**
+     * Returns the number of files moved to the done folder.
+     * @return the number of processed files.
+     */
+    public long getProcessedCount() {
+        return processedCount.get();
+    }
+
+    /**
+     * Returns the number of files moved to the failed folder.
+     * @return the number of failed files.
+     */
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+
+    /**
+     * Returns the number of files submitted and not finished yet.
+     * @return the number of files in progress.
+     */
+    public int getInProgressCount() {
+        return inProgress.size();
+    }
+
+    /**
+     * Returns the number of finished files per second since the start.
+     * @return the throughput, 0 before the start.
+     */
+    public double getThroughput() {
+        if (startNanos == 0)
+            return 0;
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        return (processedCount.get() + failedCount.get()) / seconds;
+    }
+
+    @Override
+    public String toString() {
+        return "IngestionPipeline{inbox=" + inbox + ", processed=" + getProcessedCount() + ", failed=" + getFailedCount()
+                + ", inProgress=" + getInProgressCount() + "}";
+    }
+
+    private static class Route {
+        private final PathMatcher matcher;
+        private final Function<String, String> processor;
+
+        private Route(PathMatcher matcher, Function<String, String> processor) {
+            this.matcher = matcher;
+            this.processor = processor;
+        }
+    }
+
+    /**
+     * Last seen state of a file waiting to settle.
+     */
+    private static class Candidate {
+        private long size = -1;
+        private long modified = -1;
+        private long changedAt;
+    }
+}
@@ -0,0 +1,57 @@
+package veryfi.batch;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Spaces out requests shared by many threads to a maximum rate.
+ * <p>
+ * Every permit reserves the next free slot, one interval after the previous one, so the requests are spread
+ * evenly instead of bursting at the start of every second. A slot that wasn't used doesn't accumulate.
+ * </p>
+ */
+public class RateLimiter {
+
+    private final long intervalNanos;
+    private long nextSlot = System.nanoTime();
+
+    /**
+     * Creates an instance of {@link RateLimiter}.
+     *
+     * @param permitsPerSecond The maximum number of permits per second.
+     */
+    public RateLimiter(double permitsPerSecond) {
+        if (!(permitsPerSecond > 0))
+            throw new IllegalArgumentException("permitsPerSecond must be positive");
+        this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond);
+    }
+
+    /**
+     * Waits for the next permit.
+     *
+     * @throws InterruptedException when the calling thread is interrupted, its slot is lost.
+     */
+    public void acquire() throws InterruptedException {
+        long wait;
+        synchronized (this) {
+            long now = System.nanoTime();
+            long slot = Math.max(now, nextSlot);
+            nextSlot = slot + intervalNanos;
+            wait = slot - now;
+        }
+        if (wait > 0)
+            TimeUnit.NANOSECONDS.sleep(wait);
+    }
+
+    /**
+     * Returns the maximum number of permits per second.
+     * @return the rate of the limiter.
+     */
+    public double getPermitsPerSecond() {
+        return (double) TimeUnit.SECONDS.toNanos(1) / intervalNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "RateLimiter{permitsPerSecond=" + getPermitsPerSecond() + "}";
+    }
+}
@@ -0,0 +1,476 @@
+package veryfi.cache;
+
+import veryfi.enums.Endpoint;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded in-memory cache of the GET responses of the Veryfi API.
+ * <p>
+ * The cache is bounded by the size of the cached bodies in bytes and evicts with W-TinyLFU: new responses enter a
+ * small LRU window, and leave it for the main segmented LRU only when a {@link FrequencySketch} says they are used
+ * more often than the entry they would evict. Responses read once don't push out the popular ones.
+ * </p>
+ * <p>
+ * Entries are grouped by resource, for example {@code /partner/documents/42/} holds the document, its line items
+ * and its tags. A mutating request invalidates its resource and the list responses of its endpoint, and a GET that
+ * started before the invalidation never stores its result. Resources are spread over independently locked segments,
+ * so readers of different documents don't contend.
+ * </p>
+ * <p>
+ * Example:
+ * </p>
+ * <pre>{@code
+ * ResponseCache cache = new ResponseCache(64 * 1024 * 1024);
+ * cache.setTtl(Endpoint.documents, Duration.ofMinutes(5));
+ * ((ClientImpl) client).setResponseCache(cache);
+ * }</pre>
+ */
+public class ResponseCache {
+
+    private static final int GENERATION_STRIPES = 1024;
+    private static final int AVERAGE_ENTRY_BYTES = 4096;
+
+    private final Segment[] segments;
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+    private final Map<String, Long> ttls = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder evictedBytes = new LongAdder();
+    private volatile long defaultTtl = Duration.ofMinutes(5).toNanos();
+
+    /**
+     * Creates an instance of {@link ResponseCache} with one segment per available processor.
+     *
+     * @param maximumBytes The maximum size of the cached bodies in bytes.
+     */
+    public ResponseCache(long maximumBytes) {
+        this(maximumBytes, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates an instance of {@link ResponseCache}.
+     *
+     * @param maximumBytes The maximum size of the cached bodies in bytes.
+     * @param segmentCount The number of independently locked segments.
+     */
+    public ResponseCache(long maximumBytes, int segmentCount) {
+        if (maximumBytes <= 0)
+            throw new IllegalArgumentException("maximumBytes must be positive");
+        int count = Integer.highestOneBit(Math.max(1, segmentCount) * 2 - 1);
+        segments = new Segment[count];
+        long segmentBytes = Math.max(1, maximumBytes / count);
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment(segmentBytes);
+        }
+    }
+
+    /**
+     * By default responses are cached for 5 minutes.
+     * @param ttl the time to live of the responses of the endpoints without their own ttl
+     */
+    public void setDefaultTtl(Duration ttl) {
+        this.defaultTtl = ttl.toNanos();
+    }
+
+    /**
+     * Sets the time to live of the responses of an endpoint.
+     * @param endpoint the {@link Endpoint}
+     * @param ttl      the time to live of its responses, {@link Duration#ZERO} to never cache them
+     */
+    public void setTtl(Endpoint endpoint, Duration ttl) {
+        ttls.put(endpoint.path, ttl.toNanos());
+    }
+
+    /**
+     * Returns a cached response.
+     *
+     * @param endpointName The path of the request, for example {@code /partner/documents/42/}.
+     * @param query        The query string of the request, may be empty.
+     * @return the response body, null when not cached or expired.
+     */
+    public String get(String endpointName, String query) {
+        String resource = resourceOf(endpointName);
+        String value = segmentFor(resource).get(key(endpointName, query), System.nanoTime());
+        if (value == null)
+            misses.increment();
+        else
+            hits.increment();
+        return value;
+    }
+
+    /**
+     * Returns the invalidation generation of the resource of a request, to pass to {@link #put}.
+     *
+     * @param endpointName The path of the request.
+     * @return the generation.
+     */
+    public long generation(String endpointName) {
+        return generations.get(stripe(resourceOf(endpointName)));
+    }
+
+    /**
+     * Caches a response, unless its resource was invalidated since the generation was read.
+     *
+     * @param endpointName The path of the request.
+     * @param query        The query string of the request, may be empty.
+     * @param body         The response body.
+     * @param generation   The generation read before the request was sent.
+     */
+    public void put(String endpointName, String query, String body, long generation) {
+        String resource = resourceOf(endpointName);
+        long ttl = ttls.getOrDefault(collectionOf(endpointName), defaultTtl);
+        if (ttl <= 0)
+            return;
+        long now = System.nanoTime();
+        segmentFor(resource).put(key(endpointName, query), resource, body, now + ttl, () -> generations.get(stripe(resource)) == generation);
+    }
+
+    /**
+     * Drops the cached responses of the resource of a request and the list responses of its endpoint.
+     *
+     * @param endpointName The path of the mutating request.
+     */
+    public void invalidate(String endpointName) {
+        String resource = resourceOf(endpointName);
+        String collection = collectionOf(endpointName);
+        generations.incrementAndGet(stripe(resource));
+        segmentFor(resource).invalidate(resource);
+        if (!collection.equals(resource)) {
+            generations.incrementAndGet(stripe(collection));
+            segmentFor(collection).invalidate(collection);
+        }
+    }
+
+    /**
+     * Drops every cached response.
+     */
+    public void clear() {
+        for (int i = 0; i < GENERATION_STRIPES; i++) {
+            generations.incrementAndGet(i);
+        }
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+    }
+
+    /**
+     * Returns the number of requests answered from the cache.
+     *
+     * @return the number of hits.
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns the number of requests not found in the cache.
+     *
+     * @return the number of misses.
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns the share of requests answered from the cache.
+     *
+     * @return the hit ratio between 0 and 1, 0 before the first request.
+     */
+    public double getHitRatio() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    /**
+     * Returns the number of responses evicted to stay under the size bound, or refused by the admission policy.
+     *
+     * @return the number of evictions.
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * Returns the size of the evicted responses in bytes.
+     *
+     * @return the evicted bytes.
+     */
+    public long getEvictedBytes() {
+        return evictedBytes.sum();
+    }
+
+    /**
+     * Returns the size of the cached responses in bytes.
+     *
+     * @return the cached bytes.
+     */
+    public long getWeightedSize() {
+        long total = 0;
+        for (Segment segment : segments) {
+            total += segment.weightedSize();
+        }
+        return total;
+    }
+
+    /**
+     * Returns the number of cached responses.
+     *
+     * @return the number of entries.
+     */
+    public int size() {
+        int total = 0;
+        for (Segment segment : segments) {
+            total += segment.size();
+        }
+        return total;
+    }
+
+    private Segment segmentFor(String resource) {
+        return segments[spread(resource.hashCode()) & (segments.length - 1)];
+    }
+
+    private static int stripe(String resource) {
+        return spread(resource.hashCode()) & (GENERATION_STRIPES - 1);
+    }
+
+    private static int spread(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x45d9f3b;
+        return hash ^ (hash >>> 16);
+    }
+
+    private static String key(String endpointName, String query) {
+        return query == null || query.isEmpty() ? endpointName : endpointName + "?" + query;
+    }
+
+    /**
+     * Returns the first three segments of a path, {@code /partner/documents/42/} for {@code /partner/documents/42/tags/}.
+     */
+    static String resourceOf(String endpointName) {
+        return prefix(endpointName, 3);
+    }
+
+    /**
+     * Returns the first two segments of a path, {@code /partner/documents/} for {@code /partner/documents/42/}.
+     */
+    static String collectionOf(String endpointName) {
+        return prefix(endpointName, 2);
+    }
+
+    private static String prefix(String path, int segmentCount) {
+        int index = path.startsWith("/") ? 1 : 0;
+        for (int i = 0; i < segmentCount; i++) {
+            int next = path.indexOf('/', index);
+            if (next < 0)
+                return path.endsWith("/") ? path : path + "/";
+            index = next + 1;
+        }
+        return path.substring(0, index);
+    }
+
+    /**
+     * Condition checked under the segment lock before storing a response.
+     */
+    @FunctionalInterface
+    private interface Admission {
+        boolean stillValid();
+    }
+
+    /**
+     * One W-TinyLFU cache: an LRU window of 1% of the bytes, then a probation and a protected LRU.
+     */
+    private class Segment {
+        private final long maximumWeight;
+        private final long windowMaximum;
+        private final long protectedMaximum;
+        private final Map<String, Node> data = new HashMap<>();
+        private final Map<String, Set<Node>> byResource = new HashMap<>();
+        private final FrequencySketch sketch;
+        private final Node window = Node.sentinel();
+        private final Node probation = Node.sentinel();
+        private final Node protectedQueue = Node.sentinel();
+        private long windowWeight;
+        private long probationWeight;
+        private long protectedWeight;
+
+        private Segment(long maximumWeight) {
+            this.maximumWeight = maximumWeight;
+            this.windowMaximum = Math.max(1, maximumWeight / 100);
+            this.protectedMaximum = (maximumWeight - windowMaximum) * 4 / 5;
+            this.sketch = new FrequencySketch((int) Math.min(Integer.MAX_VALUE, maximumWeight / AVERAGE_ENTRY_BYTES));
+        }
+
+        private synchronized String get(String key, long now) {
+            Node node = data.get(key);
+            int hash = spread(key.hashCode());
+            sketch.increment(hash);
+            if (node == null)
+                return null;
+            if (now - node.expiresAt >= 0) {
+                remove(node);
+                return null;
+            }
+            if (node.queue == probation) {
+                unlink(node);
+                probationWeight -= node.weight;
+                append(protectedQueue, node);
+                protectedWeight += node.weight;
+                while (protectedWeight > protectedMaximum) {
+                    Node demoted = protectedQueue.next;
+                    unlink(demoted);
+                    protectedWeight -= demoted.weight;
+                    append(probation, demoted);
+                    probationWeight += demoted.weight;
+                }
+            } else {
+                Node queue = node.queue;
+                unlink(node);
+                append(queue, node);
+            }
+            return node.value;
+        }
+
+        private synchronized void put(String key, String resource, String value, long expiresAt, Admission admission) {
+            if (!admission.stillValid())
+                return;
+            long weight = 2L * value.length() + key.length();
+            Node existing = data.get(key);
+            if (existing != null)
+                remove(existing);
+            if (weight > maximumWeight) {
+                evicted(weight);
+                return;
+            }
+            Node node = new Node(key, resource, value, weight, spread(key.hashCode()), expiresAt);
+            data.put(key, node);
+            byResource.computeIfAbsent(resource, ignored -> new HashSet<>()).add(node);
+            append(window, node);
+            windowWeight += weight;
+            evict();
+        }
+
+        private synchronized void invalidate(String resource) {
+            Set<Node> nodes = byResource.get(resource);
+            if (nodes == null)
+                return;
+            for (Node node : nodes.toArray(new Node[0])) {
+                remove(node);
+            }
+        }
+
+        private synchronized void clear() {
+            for (Node node : data.values().toArray(new Node[0])) {
+                remove(node);
+            }
+        }
+
+        private synchronized long weightedSize() {
+            return windowWeight + probationWeight + protectedWeight;
+        }
+
+        private synchronized int size() {
+            return data.size();
+        }
+
+        private void evict() {
+            while (windowWeight > windowMaximum && window.next != window) {
+                Node candidate = window.next;
+                unlink(candidate);
+                windowWeight -= candidate.weight;
+                append(probation, candidate);
+                probationWeight += candidate.weight;
+                while (weightedSize() > maximumWeight) {
+                    Node victim = probation.next != candidate ? probation.next : protectedQueue.next;
+                    if (victim == protectedQueue || sketch.frequency(candidate.hash) <= sketch.frequency(victim.hash)) {
+                        evict(candidate);
+                        break;
+                    }
+                    evict(victim);
+                }
+            }
+            while (weightedSize() > maximumWeight) {
+                Node victim = probation.next != probation ? probation.next
+                        : protectedQueue.next != protectedQueue ? protectedQueue.next : window.next;
+                evict(victim);
+            }
+        }
+
+        private void evict(Node node) {
+            remove(node);
+            evicted(node.weight);
+        }
+
+        private void evicted(long weight) {
+            evictions.increment();
+            evictedBytes.add(weight);
+        }
+
+        private void remove(Node node) {
+            unlink(node);
+            if (node.queue == window)
+                windowWeight -= node.weight;
+            else if (node.queue == probation)
+                probationWeight -= node.weight;
+            else
+                protectedWeight -= node.weight;
+            data.remove(node.key);
+            Set<Node> nodes = byResource.get(node.resource);
+            if (nodes != null) {
+                nodes.remove(node);
+                if (nodes.isEmpty())
+                    byResource.remove(node.resource);
+            }
+        }
+
+        private void append(Node queue, Node node) {
+            node.queue = queue;
+            node.prev = queue.prev;
+            node.next = queue;
+            queue.prev.next = node;
+            queue.prev = node;
+        }
+
+        private void unlink(Node node) {
+            node.prev.next = node.next;
+            node.next.prev = node.prev;
+        }
+    }
+
+    /**
+     * A cached response, linked in the queue it belongs to. A sentinel node heads every queue.
+     */
+    private static class Node {
+        private final String key;
+        private final String resource;
+        private final String value;
+        private final long weight;
+        private final int hash;
+        private final long expiresAt;
+        private Node queue;
+        private Node prev = this;
+        private Node next = this;
+
+        private Node(String key, String resource, String value, long weight, int hash, long expiresAt) {
+            this.key = key;
+            this.resource = resource;
+            this.value = value;
+            this.weight = weight;
+            this.hash = hash;
+            this.expiresAt = expiresAt;
+        }
+
+        private static Node sentinel() {
+            return new Node(null, null, null, 0, 0, 0);
+        }
+    }
+}
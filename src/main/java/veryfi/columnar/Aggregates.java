@@ -0,0 +1,77 @@
+package veryfi.columnar;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The loops shared by the columnar stores.
+ * <p>
+ * The sums are plain counted loops over primitive arrays with four independent accumulators, no boxing and no
+ * branch, which the JIT unrolls and keeps in registers. Sums accumulate in double whatever the column type.
+ * </p>
+ */
+final class Aggregates {
+
+    private Aggregates() {
+        // private constructor
+    }
+
+    static double sum(float[] values, int size) {
+        double s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = 0;
+        for (; i + 3 < size; i += 4) {
+            s0 += values[i];
+            s1 += values[i + 1];
+            s2 += values[i + 2];
+            s3 += values[i + 3];
+        }
+        for (; i < size; i++) {
+            s0 += values[i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    static double sum(double[] values, int size) {
+        double s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = 0;
+        for (; i + 3 < size; i += 4) {
+            s0 += values[i];
+            s1 += values[i + 1];
+            s2 += values[i + 2];
+            s3 += values[i + 3];
+        }
+        for (; i < size; i++) {
+            s0 += values[i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    static double[] sumBy(int[] codes, float[] values, int size, int groups) {
+        double[] sums = new double[groups];
+        for (int i = 0; i < size; i++) {
+            sums[codes[i]] += values[i];
+        }
+        return sums;
+    }
+
+    static double[] sumBy(int[] codes, double[] values, int size, int groups) {
+        double[] sums = new double[groups];
+        for (int i = 0; i < size; i++) {
+            sums[codes[i]] += values[i];
+        }
+        return sums;
+    }
+
+    /**
+     * The sums by value in code order, the missing value under the null key when it has rows.
+     */
+    static Map<String, Double> byValue(double[] sums, boolean missing, StringDictionary dictionary) {
+        Map<String, Double> byValue = new LinkedHashMap<>();
+        if (missing)
+            byValue.put(null, sums[0]);
+        for (int code = 1; code < sums.length; code++) {
+            byValue.put(dictionary.decode(code), sums[code]);
+        }
+        return byValue;
+    }
+}
@@ -0,0 +1,344 @@
+package veryfi.columnar;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import veryfi.pagination.Pages;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Columnar store of document headers, the companion of {@link LineItemColumns}.
+ * <p>
+ * The ids and dates are {@code long} arrays, the amounts are {@code double} arrays and vendor name, currency code,
+ * category and document type are dictionary encoded into {@code int} arrays. A document costs 72 bytes without its
+ * line items, which go to a {@link LineItemColumns} keyed by the document id. A missing amount is stored as 0.
+ * Not thread-safe, the store is loaded by one thread and can then be read by many.
+ * </p>
+ * <p>
+ * Example:
+ * </p>
+ * <pre>{@code
+ * DocumentColumns documents = new DocumentColumns();
+ * new ParallelPageExporter(page -> client.getDocumentsAsync(page, 50, false, false, null), 50, 8)
+ *         .export((page, records) -> documents.addAll(records));
+ * Map<String, Double> byCurrency = documents.sumBy(DocumentColumns.Dimension.CURRENCY_CODE, DocumentColumns.Measure.TOTAL);
+ * }</pre>
+ */
+public class DocumentColumns {
+
+    /**
+     * The date of a document without one.
+     */
+    public static final long NO_DATE = Long.MIN_VALUE;
+
+    /**
+     * The amount columns of a document.
+     */
+    public enum Measure {
+        /**
+         * The "total" of the document.
+         */
+        TOTAL("total"),
+        /**
+         * The "subtotal" of the document.
+         */
+        SUBTOTAL("subtotal"),
+        /**
+         * The "tax" of the document.
+         */
+        TAX("tax"),
+        /**
+         * The "tip" of the document.
+         */
+        TIP("tip"),
+        /**
+         * The "discount" of the document.
+         */
+        DISCOUNT("discount");
+
+        private final String field;
+
+        Measure(String field) {
+            this.field = field;
+        }
+    }
+
+    /**
+     * The dictionary encoded columns of a document.
+     */
+    public enum Dimension {
+        /**
+         * The "name" of the "vendor" of the document.
+         */
+        VENDOR,
+        /**
+         * The "currency_code" of the document.
+         */
+        CURRENCY_CODE,
+        /**
+         * The "category" of the document.
+         */
+        CATEGORY,
+        /**
+         * The "document_type" of the document.
+         */
+        DOCUMENT_TYPE
+    }
+
+    private static final Measure[] MEASURES = Measure.values();
+    private static final Dimension[] DIMENSIONS = Dimension.values();
+
+    private int size = 0;
+    private long[] ids;
+    private long[] dates;
+    private final double[][] measures = new double[MEASURES.length][];
+    private final int[][] dimensions = new int[DIMENSIONS.length][];
+    private final StringDictionary[] dictionaries = new StringDictionary[DIMENSIONS.length];
+    private final int[] missingCounts = new int[DIMENSIONS.length];
+
+    /**
+     * Creates an instance of {@link DocumentColumns} with room for 1024 documents.
+     */
+    public DocumentColumns() {
+        this(1024);
+    }
+
+    /**
+     * Creates an instance of {@link DocumentColumns}.
+     *
+     * @param initialCapacity The number of documents stored before the columns grow.
+     */
+    public DocumentColumns(int initialCapacity) {
+        if (initialCapacity <= 0)
+            throw new IllegalArgumentException("initialCapacity must be positive");
+        ids = new long[initialCapacity];
+        dates = new long[initialCapacity];
+        for (int m = 0; m < MEASURES.length; m++) {
+            measures[m] = new double[initialCapacity];
+        }
+        for (int d = 0; d < DIMENSIONS.length; d++) {
+            dimensions[d] = new int[initialCapacity];
+            dictionaries[d] = new StringDictionary();
+        }
+    }
+
+    /**
+     * Adds the header of a document, its line items aren't read.
+     *
+     * @param document The document, as returned by the API.
+     * @return the row of the document.
+     */
+    public int add(JSONObject document) {
+        if (size == ids.length)
+            grow(size * 2);
+        int row = size++;
+        ids[row] = document.optLong("id", 0);
+        dates[row] = epochDay(document.optString("date", ""));
+        for (int m = 0; m < MEASURES.length; m++) {
+            measures[m][row] = document.optDouble(MEASURES[m].field, 0);
+        }
+        JSONObject vendor = document.optJSONObject("vendor");
+        dimensions[Dimension.VENDOR.ordinal()][row] = encode(Dimension.VENDOR,
+                vendor == null ? "" : vendor.optString("name", ""));
+        dimensions[Dimension.CURRENCY_CODE.ordinal()][row] = encode(Dimension.CURRENCY_CODE,
+                document.optString("currency_code", ""));
+        dimensions[Dimension.CATEGORY.ordinal()][row] = encode(Dimension.CATEGORY, document.optString("category", ""));
+        dimensions[Dimension.DOCUMENT_TYPE.ordinal()][row] = encode(Dimension.DOCUMENT_TYPE,
+                document.optString("document_type", ""));
+        return row;
+    }
+
+    /**
+     * Adds the headers of documents.
+     *
+     * @param documents The documents, as returned by the API.
+     * @return the number of documents added.
+     */
+    public int addAll(JSONArray documents) {
+        int added = 0;
+        for (int i = 0; i < documents.length(); i++) {
+            Object document = documents.opt(i);
+            if (document instanceof JSONObject) {
+                add((JSONObject) document);
+                added++;
+            }
+        }
+        return added;
+    }
+
+    /**
+     * Adds the headers of a page of a list endpoint, the parsed page is dropped.
+     *
+     * @param page The json string of the page.
+     * @return the number of documents added.
+     */
+    public int addPage(String page) {
+        return addAll(Pages.records(new JSONObject(page)));
+    }
+
+    /**
+     * Returns the number of documents.
+     * @return the number of rows.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the id of a document.
+     *
+     * @param row The row of the document.
+     * @return the document id.
+     */
+    public long id(int row) {
+        return ids[checked(row)];
+    }
+
+    /**
+     * Returns the date of a document.
+     *
+     * @param row The row of the document.
+     * @return the day of the date since 1970-01-01, {@link #NO_DATE} when missing.
+     */
+    public long epochDay(int row) {
+        return dates[checked(row)];
+    }
+
+    /**
+     * Returns an amount of a document.
+     *
+     * @param measure The {@link Measure} to read.
+     * @param row     The row of the document.
+     * @return the amount, 0 when missing.
+     */
+    public double get(Measure measure, int row) {
+        return measures[measure.ordinal()][checked(row)];
+    }
+
+    /**
+     * Returns a string of a document.
+     *
+     * @param dimension The {@link Dimension} to read.
+     * @param row       The row of the document.
+     * @return the value, null when missing.
+     */
+    public String get(Dimension dimension, int row) {
+        return dictionaries[dimension.ordinal()].decode(dimensions[dimension.ordinal()][checked(row)]);
+    }
+
+    /**
+     * Returns the dictionary of a string column, its codes index {@link #sumByCode(Dimension, Measure)}.
+     *
+     * @param dimension The {@link Dimension} of the column.
+     * @return the {@link StringDictionary} of the column.
+     */
+    public StringDictionary dictionary(Dimension dimension) {
+        return dictionaries[dimension.ordinal()];
+    }
+
+    /**
+     * Sums an amount over every document.
+     *
+     * @param measure The {@link Measure} to sum.
+     * @return the sum.
+     */
+    public double sum(Measure measure) {
+        return Aggregates.sum(measures[measure.ordinal()], size);
+    }
+
+    /**
+     * Sums an amount by value of a string column.
+     *
+     * @param dimension The {@link Dimension} to group by.
+     * @param measure   The {@link Measure} to sum.
+     * @return the sums indexed by the codes of the {@link #dictionary(Dimension)}, missing values at 0.
+     */
+    public double[] sumByCode(Dimension dimension, Measure measure) {
+        return Aggregates.sumBy(dimensions[dimension.ordinal()], measures[measure.ordinal()], size,
+                dictionaries[dimension.ordinal()].size());
+    }
+
+    /**
+     * Sums an amount by value of a string column.
+     *
+     * @param dimension The {@link Dimension} to group by.
+     * @param measure   The {@link Measure} to sum.
+     * @return the sums by value in order of first appearance, documents without a value under the null key.
+     */
+    public Map<String, Double> sumBy(Dimension dimension, Measure measure) {
+        return Aggregates.byValue(sumByCode(dimension, measure), missingCounts[dimension.ordinal()] > 0,
+                dictionaries[dimension.ordinal()]);
+    }
+
+    /**
+     * Sums an amount by category.
+     *
+     * @param measure The {@link Measure} to sum.
+     * @return the sums by category in order of first appearance, documents without a category under the null key.
+     */
+    public Map<String, Double> sumByCategory(Measure measure) {
+        return sumBy(Dimension.CATEGORY, measure);
+    }
+
+    /**
+     * Shrinks the columns to the number of documents, once loading is done.
+     */
+    public void trimToSize() {
+        if (size < ids.length)
+            grow(Math.max(size, 1));
+    }
+
+    /**
+     * Returns the size of the columns, the dictionaries excluded.
+     * @return the number of bytes of the column arrays.
+     */
+    public long columnBytes() {
+        return (long) ids.length * (2 * Long.BYTES + MEASURES.length * Double.BYTES + DIMENSIONS.length * Integer.BYTES);
+    }
+
+    /**
+     * The API sends dates as "yyyy-MM-dd HH:mm:ss", only the day is kept.
+     */
+    private static long epochDay(String date) {
+        if (date.length() < 10)
+            return NO_DATE;
+        try {
+            return LocalDate.parse(date.substring(0, 10)).toEpochDay();
+        } catch (DateTimeParseException e) {
+            return NO_DATE;
+        }
+    }
+
+    private int encode(Dimension dimension, String value) {
+        int code = dictionaries[dimension.ordinal()].encode(value);
+        if (code == 0)
+            missingCounts[dimension.ordinal()]++;
+        return code;
+    }
+
+    private int checked(int row) {
+        if (row < 0 || row >= size)
+            throw new IndexOutOfBoundsException("row " + row + " of " + size);
+        return row;
+    }
+
+    private void grow(int capacity) {
+        ids = Arrays.copyOf(ids, capacity);
+        dates = Arrays.copyOf(dates, capacity);
+        for (int m = 0; m < MEASURES.length; m++) {
+            measures[m] = Arrays.copyOf(measures[m], capacity);
+        }
+        for (int d = 0; d < DIMENSIONS.length; d++) {
+            dimensions[d] = Arrays.copyOf(dimensions[d], capacity);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "DocumentColumns{size=" + size + ", vendors=" + (dictionaries[0].size() - 1)
+                + ", columnBytes=" + columnBytes() + "}";
+    }
+}
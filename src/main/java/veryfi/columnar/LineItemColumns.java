@@ -0,0 +1,336 @@
+package veryfi.columnar;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Columnar store of line items for analytics over millions of rows.
+ * <p>
+ * Every field is a column: the ids are {@code long} arrays, the amounts are {@code float} arrays, as in
+ * {@link veryfi.models.SharedLineItem}, and category, sku, unit of measure and HSN code are dictionary encoded into
+ * {@code int} arrays. A row costs 56 bytes, whatever the length of its strings, where a parsed {@link JSONObject}
+ * costs kilobytes. A missing amount is stored as 0, the value the API reports for it. The sums run over the
+ * primitive arrays without boxing.
+ * </p>
+ * <p>
+ * The category of a line item is its "category", or its "type" when it has none, the field the API fills.
+ * Not thread-safe, the store is loaded by one thread and can then be read by many.
+ * </p>
+ * <p>
+ * Example:
+ * </p>
+ * <pre>{@code
+ * LineItemColumns lineItems = new LineItemColumns();
+ * for (long documentId : documentIds) {
+ *     lineItems.addResponse(documentId, client.getLineItems(String.valueOf(documentId)));
+ * }
+ * Map<String, Double> spend = lineItems.sumByCategory(LineItemColumns.Measure.TOTAL);
+ * }</pre>
+ */
+public class LineItemColumns {
+
+    /**
+     * The amount columns of a line item.
+     */
+    public enum Measure {
+        /**
+         * The "total" of the line item.
+         */
+        TOTAL("total"),
+        /**
+         * The "price" of the line item.
+         */
+        PRICE("price"),
+        /**
+         * The "quantity" of the line item.
+         */
+        QUANTITY("quantity"),
+        /**
+         * The "tax" of the line item.
+         */
+        TAX("tax"),
+        /**
+         * The "tax_rate" of the line item.
+         */
+        TAX_RATE("tax_rate"),
+        /**
+         * The "discount_rate" of the line item.
+         */
+        DISCOUNT_RATE("discount_rate");
+
+        private final String field;
+
+        Measure(String field) {
+            this.field = field;
+        }
+    }
+
+    /**
+     * The dictionary encoded columns of a line item.
+     */
+    public enum Dimension {
+        /**
+         * The "category" of the line item, or its "type".
+         */
+        CATEGORY,
+        /**
+         * The "sku" of the line item.
+         */
+        SKU,
+        /**
+         * The "unit_of_measure" of the line item.
+         */
+        UNIT_OF_MEASURE,
+        /**
+         * The "hsn" of the line item.
+         */
+        HSN
+    }
+
+    private static final Measure[] MEASURES = Measure.values();
+    private static final Dimension[] DIMENSIONS = Dimension.values();
+
+    private int size = 0;
+    private long[] documentIds;
+    private long[] ids;
+    private final float[][] measures = new float[MEASURES.length][];
+    private final int[][] dimensions = new int[DIMENSIONS.length][];
+    private final StringDictionary[] dictionaries = new StringDictionary[DIMENSIONS.length];
+    private final int[] missingCounts = new int[DIMENSIONS.length];
+
+    /**
+     * Creates an instance of {@link LineItemColumns} with room for 1024 line items.
+     */
+    public LineItemColumns() {
+        this(1024);
+    }
+
+    /**
+     * Creates an instance of {@link LineItemColumns}.
+     *
+     * @param initialCapacity The number of line items stored before the columns grow.
+     */
+    public LineItemColumns(int initialCapacity) {
+        if (initialCapacity <= 0)
+            throw new IllegalArgumentException("initialCapacity must be positive");
+        documentIds = new long[initialCapacity];
+        ids = new long[initialCapacity];
+        for (int m = 0; m < MEASURES.length; m++) {
+            measures[m] = new float[initialCapacity];
+        }
+        for (int d = 0; d < DIMENSIONS.length; d++) {
+            dimensions[d] = new int[initialCapacity];
+            dictionaries[d] = new StringDictionary();
+        }
+    }
+
+    /**
+     * Adds a line item.
+     *
+     * @param documentId ID of the document of the line item.
+     * @param lineItem   The line item, as returned by the API.
+     * @return the row of the line item.
+     */
+    public int add(long documentId, JSONObject lineItem) {
+        if (size == ids.length)
+            grow(size * 2);
+        int row = size++;
+        documentIds[row] = documentId;
+        ids[row] = lineItem.optLong("id", 0);
+        for (int m = 0; m < MEASURES.length; m++) {
+            measures[m][row] = (float) lineItem.optDouble(MEASURES[m].field, 0);
+        }
+        String category = lineItem.optString("category", "");
+        dimensions[Dimension.CATEGORY.ordinal()][row] = encode(Dimension.CATEGORY,
+                category.isEmpty() ? lineItem.optString("type", "") : category);
+        dimensions[Dimension.SKU.ordinal()][row] = encode(Dimension.SKU, lineItem.optString("sku", ""));
+        dimensions[Dimension.UNIT_OF_MEASURE.ordinal()][row] = encode(Dimension.UNIT_OF_MEASURE,
+                lineItem.optString("unit_of_measure", ""));
+        dimensions[Dimension.HSN.ordinal()][row] = encode(Dimension.HSN, lineItem.optString("hsn", ""));
+        return row;
+    }
+
+    /**
+     * Adds the line items of a document.
+     *
+     * @param documentId ID of the document of the line items.
+     * @param lineItems  The line items, as returned by the API.
+     * @return the number of line items added.
+     */
+    public int addAll(long documentId, JSONArray lineItems) {
+        int added = 0;
+        for (int i = 0; i < lineItems.length(); i++) {
+            Object lineItem = lineItems.opt(i);
+            if (lineItem instanceof JSONObject) {
+                add(documentId, (JSONObject) lineItem);
+                added++;
+            }
+        }
+        return added;
+    }
+
+    /**
+     * Adds the line items of a {@code getLineItems} or {@code getDocument} response, the parsed response is dropped.
+     *
+     * @param documentId ID of the document of the line items.
+     * @param response   The json string of the response.
+     * @return the number of line items added.
+     */
+    public int addResponse(long documentId, String response) {
+        JSONArray lineItems = new JSONObject(response).optJSONArray("line_items");
+        return lineItems == null ? 0 : addAll(documentId, lineItems);
+    }
+
+    /**
+     * Returns the number of line items.
+     * @return the number of rows.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the document of a line item.
+     *
+     * @param row The row of the line item.
+     * @return the document id.
+     */
+    public long documentId(int row) {
+        return documentIds[checked(row)];
+    }
+
+    /**
+     * Returns the id of a line item.
+     *
+     * @param row The row of the line item.
+     * @return the line item id, 0 when the API didn't send one.
+     */
+    public long id(int row) {
+        return ids[checked(row)];
+    }
+
+    /**
+     * Returns an amount of a line item.
+     *
+     * @param measure The {@link Measure} to read.
+     * @param row     The row of the line item.
+     * @return the amount, 0 when missing.
+     */
+    public float get(Measure measure, int row) {
+        return measures[measure.ordinal()][checked(row)];
+    }
+
+    /**
+     * Returns a string of a line item.
+     *
+     * @param dimension The {@link Dimension} to read.
+     * @param row       The row of the line item.
+     * @return the value, null when missing.
+     */
+    public String get(Dimension dimension, int row) {
+        return dictionaries[dimension.ordinal()].decode(dimensions[dimension.ordinal()][checked(row)]);
+    }
+
+    /**
+     * Returns the dictionary of a string column, its codes index {@link #sumByCode(Dimension, Measure)}.
+     *
+     * @param dimension The {@link Dimension} of the column.
+     * @return the {@link StringDictionary} of the column.
+     */
+    public StringDictionary dictionary(Dimension dimension) {
+        return dictionaries[dimension.ordinal()];
+    }
+
+    /**
+     * Sums an amount over every line item.
+     *
+     * @param measure The {@link Measure} to sum.
+     * @return the sum.
+     */
+    public double sum(Measure measure) {
+        return Aggregates.sum(measures[measure.ordinal()], size);
+    }
+
+    /**
+     * Sums an amount by value of a string column.
+     *
+     * @param dimension The {@link Dimension} to group by.
+     * @param measure   The {@link Measure} to sum.
+     * @return the sums indexed by the codes of the {@link #dictionary(Dimension)}, missing values at 0.
+     */
+    public double[] sumByCode(Dimension dimension, Measure measure) {
+        return Aggregates.sumBy(dimensions[dimension.ordinal()], measures[measure.ordinal()], size,
+                dictionaries[dimension.ordinal()].size());
+    }
+
+    /**
+     * Sums an amount by value of a string column.
+     *
+     * @param dimension The {@link Dimension} to group by.
+     * @param measure   The {@link Measure} to sum.
+     * @return the sums by value in order of first appearance, line items without a value under the null key.
+     */
+    public Map<String, Double> sumBy(Dimension dimension, Measure measure) {
+        return Aggregates.byValue(sumByCode(dimension, measure), missingCounts[dimension.ordinal()] > 0,
+                dictionaries[dimension.ordinal()]);
+    }
+
+    /**
+     * Sums an amount by category.
+     *
+     * @param measure The {@link Measure} to sum.
+     * @return the sums by category in order of first appearance, line items without a category under the null key.
+     */
+    public Map<String, Double> sumByCategory(Measure measure) {
+        return sumBy(Dimension.CATEGORY, measure);
+    }
+
+    /**
+     * Shrinks the columns to the number of line items, once loading is done.
+     */
+    public void trimToSize() {
+        if (size < ids.length)
+            grow(Math.max(size, 1));
+    }
+
+    /**
+     * Returns the size of the columns, the dictionaries excluded.
+     * @return the number of bytes of the column arrays.
+     */
+    public long columnBytes() {
+        return (long) ids.length * (2 * Long.BYTES + MEASURES.length * Float.BYTES + DIMENSIONS.length * Integer.BYTES);
+    }
+
+    private int encode(Dimension dimension, String value) {
+        int code = dictionaries[dimension.ordinal()].encode(value);
+        if (code == 0)
+            missingCounts[dimension.ordinal()]++;
+        return code;
+    }
+
+    private int checked(int row) {
+        if (row < 0 || row >= size)
+            throw new IndexOutOfBoundsException("row " + row + " of " + size);
+        return row;
+    }
+
+    private void grow(int capacity) {
+        documentIds = Arrays.copyOf(documentIds, capacity);
+        ids = Arrays.copyOf(ids, capacity);
+        for (int m = 0; m < MEASURES.length; m++) {
+            measures[m] = Arrays.copyOf(measures[m], capacity);
+        }
+        for (int d = 0; d < DIMENSIONS.length; d++) {
+            dimensions[d] = Arrays.copyOf(dimensions[d], capacity);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "LineItemColumns{size=" + size + ", categories=" + (dictionaries[0].size() - 1)
+                + ", columnBytes=" + columnBytes() + "}";
+    }
+}
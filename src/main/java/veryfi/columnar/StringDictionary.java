@@ -0,0 +1,78 @@
+package veryfi.columnar;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Dictionary encoding of the strings of a column, every distinct value is stored once and rows hold its code.
+ * <p>
+ * Code 0 stands for a missing value, null or empty, so a code can index an array of per-value aggregates without a
+ * check. Codes are assigned in order of first appearance and never change. Not thread-safe, a column is loaded by
+ * one thread.
+ * </p>
+ */
+public final class StringDictionary {
+
+    private final Map<String, Integer> codes = new HashMap<>();
+    private String[] values = new String[16];
+    private int size = 1;
+
+    /**
+     * Returns the code of a value, adding it when it is new.
+     *
+     * @param value The value, null or empty for a missing value.
+     * @return the code of the value, 0 for a missing value.
+     */
+    public int encode(String value) {
+        if (value == null || value.isEmpty())
+            return 0;
+        Integer code = codes.get(value);
+        if (code != null)
+            return code;
+        if (size == values.length)
+            values = Arrays.copyOf(values, size * 2);
+        values[size] = value;
+        codes.put(value, size);
+        return size++;
+    }
+
+    /**
+     * Returns the code of a value without adding it.
+     *
+     * @param value The value.
+     * @return the code of the value, 0 for a missing value and -1 when the value isn't in the dictionary.
+     */
+    public int codeOf(String value) {
+        if (value == null || value.isEmpty())
+            return 0;
+        Integer code = codes.get(value);
+        return code == null ? -1 : code;
+    }
+
+    /**
+     * Returns the value of a code.
+     *
+     * @param code A code returned by {@link #encode(String)}.
+     * @return the value, null for code 0.
+     */
+    public String decode(int code) {
+        if (code < 0 || code >= size)
+            throw new IllegalArgumentException("unknown code: " + code);
+        return values[code];
+    }
+
+    /**
+     * Returns the number of codes, the missing value included.
+     *
+     * @return the number of distinct values plus one.
+     */
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public String toString() {
+        return "StringDictionary{values=" + (size - 1) + "}";
+    }
+}
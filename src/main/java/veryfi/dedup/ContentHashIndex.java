@@ -0,0 +1,251 @@
+package veryfi.dedup;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Persistent map from a 128-bit content hash to a document ID, stored as a memory-mapped open addressing table.
+ * <p>
+ * Every slot takes 24 bytes: the two halves of the hash and the document ID, 0 marking an empty slot.
+ * Lookups probe the mapped file directly, so the table lives in the page cache rather than on the heap and
+ * reopening it costs nothing. The table doubles into a new file, swapped atomically, once it is 70% full.
+ * A slot is written hash first and document ID last, so a crash never leaves a half written entry visible.
+ * </p>
+ */
+public class ContentHashIndex implements Closeable {
+
+    private static final long MAGIC = 0x5645525946494458L;
+    private static final int HEADER_BYTES = 32;
+    private static final int SLOT_BYTES = 24;
+    private static final int CHUNK_SHIFT = 25;
+    private static final long CHUNK_SLOTS = 1L << CHUNK_SHIFT;
+    private static final long DEFAULT_CAPACITY = 1 << 16;
+
+    private final Path path;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private FileChannel channel;
+    private MappedByteBuffer header;
+    private MappedByteBuffer[] chunks;
+    private long capacity;
+    private long size;
+
+    /**
+     * Opens or creates an index with room for 65536 hashes before its first growth.
+     *
+     * @param path the {@link Path} of the index file.
+     * @throws IOException when the index can't be opened.
+     */
+    public ContentHashIndex(Path path) throws IOException {
+        this(path, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Opens or creates an index.
+     *
+     * @param path            the {@link Path} of the index file.
+     * @param initialCapacity The number of slots of a new index, rounded up to a power of two.
+     * @throws IOException when the index can't be opened.
+     */
+    public ContentHashIndex(Path path, long initialCapacity) throws IOException {
+        this.path = path;
+        if (Files.exists(path) && Files.size(path) > 0) {
+            open();
+        } else {
+            create(path, Long.highestOneBit(Math.max(16, initialCapacity) * 2 - 1));
+            open();
+        }
+    }
+
+    /**
+     * Returns the document ID of a hash.
+     *
+     * @param hash the content hash, at least 16 bytes.
+     * @return the document ID, -1 when the hash isn't indexed.
+     */
+    public long get(byte[] hash) {
+        long high = readLong(hash, 0);
+        long low = readLong(hash, 8);
+        lock.readLock().lock();
+        try {
+            long slot = find(high, low);
+            long documentId = documentId(slot);
+            return documentId == 0 ? -1 : documentId;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Indexes a hash, replacing its previous document ID.
+     *
+     * @param hash       the content hash, at least 16 bytes.
+     * @param documentId the positive document ID.
+     * @throws IOException when the index can't grow.
+     */
+    public void put(byte[] hash, long documentId) throws IOException {
+        if (documentId <= 0)
+            throw new IllegalArgumentException("documentId must be positive");
+        long high = readLong(hash, 0);
+        long low = readLong(hash, 8);
+        lock.writeLock().lock();
+        try {
+            if ((size + 1) * 10 > capacity * 7)
+                grow();
+            long slot = find(high, low);
+            boolean added = documentId(slot) == 0;
+            writeSlot(slot, high, low, documentId);
+            if (added) {
+                size++;
+                header.putLong(16, size);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the number of indexed hashes.
+     *
+     * @return the number of hashes.
+     */
+    public long size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Writes the mapped pages to disk.
+     */
+    public void force() {
+        lock.readLock().lock();
+        try {
+            header.force();
+            for (MappedByteBuffer chunk : chunks) {
+                chunk.force();
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            if (channel.isOpen()) {
+                force();
+                channel.close();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private long find(long high, long low) {
+        long mask = capacity - 1;
+        long slot = mix(high ^ low) & mask;
+        while (true) {
+            long documentId = documentId(slot);
+            if (documentId == 0)
+                return slot;
+            MappedByteBuffer chunk = chunks[(int) (slot >>> CHUNK_SHIFT)];
+            int offset = (int) (slot & (CHUNK_SLOTS - 1)) * SLOT_BYTES;
+            if (chunk.getLong(offset) == high && chunk.getLong(offset + 8) == low)
+                return slot;
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private long documentId(long slot) {
+        MappedByteBuffer chunk = chunks[(int) (slot >>> CHUNK_SHIFT)];
+        return chunk.getLong((int) (slot & (CHUNK_SLOTS - 1)) * SLOT_BYTES + 16);
+    }
+
+    private void writeSlot(long slot, long high, long low, long documentId) {
+        MappedByteBuffer chunk = chunks[(int) (slot >>> CHUNK_SHIFT)];
+        int offset = (int) (slot & (CHUNK_SLOTS - 1)) * SLOT_BYTES;
+        chunk.putLong(offset, high);
+        chunk.putLong(offset + 8, low);
+        chunk.putLong(offset + 16, documentId);
+    }
+
+    private void grow() throws IOException {
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        create(temp, capacity * 2);
+        try (ContentHashIndex grown = new ContentHashIndex(temp)) {
+            for (long slot = 0; slot < capacity; slot++) {
+                long documentId = documentId(slot);
+                if (documentId != 0) {
+                    MappedByteBuffer chunk = chunks[(int) (slot >>> CHUNK_SHIFT)];
+                    int offset = (int) (slot & (CHUNK_SLOTS - 1)) * SLOT_BYTES;
+                    long high = chunk.getLong(offset);
+                    long low = chunk.getLong(offset + 8);
+                    long target = grown.find(high, low);
+                    grown.writeSlot(target, high, low, documentId);
+                    grown.size++;
+                }
+            }
+            grown.header.putLong(16, grown.size);
+        }
+        channel.close();
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        open();
+    }
+
+    private void open() throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+        if (header.getLong(0) != MAGIC)
+            throw new IOException("not a content hash index: " + path);
+        capacity = header.getLong(8);
+        size = header.getLong(16);
+        int chunkCount = (int) ((capacity + CHUNK_SLOTS - 1) >>> CHUNK_SHIFT);
+        chunks = new MappedByteBuffer[chunkCount];
+        for (int i = 0; i < chunkCount; i++) {
+            long slots = Math.min(CHUNK_SLOTS, capacity - ((long) i << CHUNK_SHIFT));
+            chunks[i] = channel.map(FileChannel.MapMode.READ_WRITE,
+                    HEADER_BYTES + ((long) i << CHUNK_SHIFT) * SLOT_BYTES, slots * SLOT_BYTES);
+        }
+    }
+
+    private static void create(Path target, long slots) throws IOException {
+        try (FileChannel created = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer newHeader = created.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+            newHeader.putLong(0, MAGIC);
+            newHeader.putLong(8, slots);
+            newHeader.putLong(16, 0);
+            newHeader.force();
+            // Extending the file leaves the slots zeroed, that is empty.
+            created.write(ByteBuffer.wrap(new byte[1]), HEADER_BYTES + slots * SLOT_BYTES - 1);
+        }
+    }
+
+    private static long readLong(byte[] bytes, int offset) {
+        long value = 0;
+        for (int i = offset; i < offset + 8; i++) {
+            value = (value << 8) | (bytes[i] & 0xffL);
+        }
+        return value;
+    }
+
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        return value;
+    }
+}
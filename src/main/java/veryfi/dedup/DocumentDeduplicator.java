@@ -0,0 +1,220 @@
+package veryfi.dedup;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import veryfi.batch.BatchProcessor;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+/**
+ * Skips the upload of files already processed, recognising them by the hash of their content.
+ * <p>
+ * The file is hashed with SHA-256 in a single streaming pass and the first 128 bits are looked up in a
+ * {@link ContentHashIndex}. When the content was already processed, the existing document is returned through the
+ * lookup function, for example {@code client::getDocument}, instead of uploading the file again. Otherwise the
+ * upload runs and the ID of the new document is indexed. When the lookup of the existing document fails, for
+ * example because it was deleted, the file is uploaded again and the new ID replaces it. Concurrent uploads of the same content wait for the first one.
+ * </p>
+ * <p>
+ * Example:
+ * </p>
+ * <pre>{@code
+ * DocumentDeduplicator deduplicator = new DocumentDeduplicator(new ContentHashIndex(Paths.get("hashes.idx")), client::getDocument);
+ * String document = deduplicator.process(filePath, () -> client.processDocument(filePath, categories, false, null));
+ * }</pre>
+ */
+public class DocumentDeduplicator {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String DIGEST = "SHA-256";
+
+    private final Logger logger = Logger.getLogger("DocumentDeduplicator");
+    private final ContentHashIndex index;
+    private final Function<String, String> lookup;
+    private final Map<HashKey, CompletableFuture<Long>> uploading = new ConcurrentHashMap<>();
+    private BiFunction<String, String, String> externalIdUpdater = null;
+
+    /**
+     * Creates an instance of {@link DocumentDeduplicator}.
+     *
+     * @param index  the {@link ContentHashIndex} of the processed contents.
+     * @param lookup Returns the json string of an existing document from its ID.
+     */
+    public DocumentDeduplicator(ContentHashIndex index, Function<String, String> lookup) {
+        this.index = index;
+        this.lookup = lookup;
+    }
+
+    /**
+     * By default the external ID of a duplicate is ignored.
+     * @param externalIdUpdater attaches an external ID to an existing document and returns it, for example
+     *                          {@code (id, externalId) -> client.updateDocument(id, new JSONObject().put("external_id", externalId))}
+     */
+    public void setExternalIdUpdater(BiFunction<String, String, String> externalIdUpdater) {
+        this.externalIdUpdater = externalIdUpdater;
+    }
+
+    /**
+     * Returns the existing document when the content of the file was already processed, otherwise uploads it.
+     *
+     * @param filePath Path on disk to the file.
+     * @param upload   Processes the file and returns the json string of the new document.
+     * @return the json string of the existing or new document.
+     * @throws IOException when the file can't be read or the index can't be updated.
+     */
+    public String process(String filePath, Supplier<String> upload) throws IOException {
+        return process(filePath, null, upload);
+    }
+
+    /**
+     * Returns the existing document when the content of the file was already processed, with the external ID
+     * attached when an updater is set, otherwise uploads it.
+     *
+     * @param filePath   Path on disk to the file.
+     * @param externalId The external ID to attach to an existing document, may be null.
+     * @param upload     Processes the file and returns the json string of the new document.
+     * @return the json string of the existing or new document.
+     * @throws IOException when the file can't be read or the index can't be updated.
+     */
+    public String process(String filePath, String externalId, Supplier<String> upload) throws IOException {
+        byte[] hash = hash(Paths.get(filePath));
+        long documentId = index.get(hash);
+        if (documentId > 0) {
+            String document = existing(documentId, externalId);
+            if (document != null)
+                return document;
+        }
+        // The indexed document, if any, can't be reused: it is only looked up again once re-indexed.
+        long unusable = documentId;
+        HashKey key = new HashKey(hash);
+        CompletableFuture<Long> mine = new CompletableFuture<>();
+        CompletableFuture<Long> other = uploading.putIfAbsent(key, mine);
+        if (other != null) {
+            Long otherId = joinQuietly(other);
+            if (otherId != null && otherId > 0 && otherId != unusable) {
+                String document = existing(otherId, externalId);
+                if (document != null)
+                    return document;
+            }
+            return process(filePath, externalId, upload);
+        }
+        long newId = -1;
+        try {
+            documentId = index.get(hash);
+            if (documentId > 0 && documentId != unusable) {
+                String document = existing(documentId, externalId);
+                if (document != null) {
+                    newId = documentId;
+                    return document;
+                }
+            }
+            String response = upload.get();
+            newId = documentIdOf(response);
+            if (newId > 0)
+                index.put(hash, newId);
+            return response;
+        } finally {
+            uploading.remove(key);
+            mine.complete(newId);
+        }
+    }
+
+    /**
+     * Hashes the content of a file in a single streaming pass.
+     *
+     * @param file the {@link Path} of the file.
+     * @return the 32 bytes SHA-256 digest.
+     * @throws IOException when the file can't be read.
+     */
+    public static byte[] hash(Path file) throws IOException {
+        MessageDigest digest = newDigest();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+        return digest.digest();
+    }
+
+    private String existing(long documentId, String externalId) {
+        String id = Long.toString(documentId);
+        String document = externalId != null && externalIdUpdater != null
+                ? externalIdUpdater.apply(id, externalId)
+                : lookup.apply(id);
+        String failure = BatchProcessor.failureOf(document);
+        if (failure == null)
+            return document;
+        logger.warning("process: document " + id + " can't be reused, uploading again: " + failure);
+        return null;
+    }
+
+    private long documentIdOf(String response) {
+        if (response == null || response.isEmpty() || response.charAt(0) != '{')
+            return -1;
+        try {
+            JSONObject document = new JSONObject(response);
+            if ("fail".equals(document.optString("status")))
+                return -1;
+            return document.optLong("id", -1);
+        } catch (JSONException e) {
+            logger.warning("process: unexpected response: " + e.getMessage());
+            return -1;
+        }
+    }
+
+    private static Long joinQuietly(CompletableFuture<Long> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            return null;
+        }
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance(DIGEST);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * A content hash usable as a map key.
+     */
+    private static class HashKey {
+        private final byte[] hash;
+
+        private HashKey(byte[] hash) {
+            this.hash = hash;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof HashKey && Arrays.equals(hash, ((HashKey) other).hash);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(hash);
+        }
+    }
+}
@@ -0,0 +1,282 @@
+package veryfi.deletion;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import veryfi.Client;
+import veryfi.batch.BatchProcessor;
+import veryfi.batch.RateLimiter;
+import veryfi.pending.DocumentKind;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Logger;
+
+/**
+ * Deletes many documents of any {@link DocumentKind} with a bounded number of requests in progress and a maximum
+ * request rate.
+ * <p>
+ * The ids are read from the source one by one while the deletes of the previous ones are in progress, so a source
+ * paging through an account is never held in memory. The deletes are sent with the async delete method of their
+ * kind, no thread waits for a response. A document the API doesn't find counts as deleted, so deleting a document
+ * twice is harmless. Failed deletes are retried and the documents that still fail are reported. With a
+ * {@link DeletionJournal} every deleted document is recorded, and the documents it lists are skipped by the next run.
+ * </p>
+ * <p>
+ * Example:
+ * </p>
+ * <pre>{@code
+ * BulkDeleter deleter = new BulkDeleter(client, 16);
+ * deleter.setRequestsPerSecond(50);
+ * deleter.setJournal(new DeletionJournal(Path.of("retention-2023.journal")));
+ * DeletionReport report = deleter.run(DocumentKind.W2, expiredW2Ids);
+ * }</pre>
+ */
+public class BulkDeleter {
+
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+    private final Logger logger = Logger.getLogger("BulkDeleter");
+    private final Client client;
+    private final int concurrency;
+    private RateLimiter rateLimiter = new RateLimiter(10);
+    private DeletionJournal journal;
+    private int maxRetries = 2;
+    private Duration retryDelay = Duration.ofSeconds(1);
+    private int progressInterval = 10000;
+
+    /**
+     * Creates an instance of {@link BulkDeleter}.
+     *
+     * @param client      the {@link Client} deleting the documents.
+     * @param concurrency The maximum number of requests in progress.
+     */
+    public BulkDeleter(Client client, int concurrency) {
+        if (concurrency <= 0)
+            throw new IllegalArgumentException("concurrency must be positive");
+        this.client = client;
+        this.concurrency = concurrency;
+    }
+
+    /**
+     * By default at most 10 requests start every second, retries included.
+     * @param requestsPerSecond the maximum request rate
+     */
+    public void setRequestsPerSecond(double requestsPerSecond) {
+        this.rateLimiter = new RateLimiter(requestsPerSecond);
+    }
+
+    /**
+     * By default there is no journal and every run deletes every document of its source.
+     * @param journal the {@link DeletionJournal} recording the deleted documents
+     */
+    public void setJournal(DeletionJournal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * By default a failed document is retried 2 times.
+     * @param maxRetries the number of retries of a failed document
+     */
+    public void setMaxRetries(int maxRetries) {
+        this.maxRetries = maxRetries;
+    }
+
+    /**
+     * By default a failed document is retried after 1 second, doubled on every retry.
+     * @param retryDelay the delay before the first retry
+     */
+    public void setRetryDelay(Duration retryDelay) {
+        this.retryDelay = retryDelay;
+    }
+
+    /**
+     * By default the progress and throughput of a run are logged every 10000 documents.
+     * @param progressInterval the number of documents between progress logs
+     */
+    public void setProgressInterval(int progressInterval) {
+        if (progressInterval <= 0)
+            throw new IllegalArgumentException("progressInterval must be positive");
+        this.progressInterval = progressInterval;
+    }
+
+    /**
+     * Deletes the documents of a source and waits for the last one.
+     *
+     * @param kind        The {@link DocumentKind} of the documents.
+     * @param documentIds The ids of the documents, read one by one as the deletes progress.
+     * @return the {@link DeletionReport} of the run.
+     * @throws IOException          when the journal can't be read or written, the documents in progress are abandoned.
+     * @throws InterruptedException when the calling thread is interrupted, the documents in progress are abandoned.
+     */
+    public DeletionReport run(DocumentKind kind, Iterable<String> documentIds) throws IOException, InterruptedException {
+        if (kind == null)
+            throw new IllegalArgumentException("kind is required");
+        Run run = new Run(kind, journal);
+        Set<String> deleted = run.journal == null ? Set.of() : run.journal.load();
+        ExecutorService retryExecutor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "veryfi-delete-" + THREAD_COUNT.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            for (String documentId : documentIds) {
+                if (run.journalError.get() != null)
+                    break;
+                if (documentId == null || documentId.isEmpty()) {
+                    run.finish(null, "documentId is required");
+                    continue;
+                }
+                if (deleted.contains(DeletionJournal.key(kind, documentId))) {
+                    run.resumedCount.incrementAndGet();
+                    continue;
+                }
+                run.slots.acquire();
+                rateLimiter.acquire();
+                delete(run, documentId, 0, retryDelay.toMillis(), retryExecutor);
+            }
+            run.slots.acquire(concurrency);
+            if (run.journalError.get() != null)
+                throw run.journalError.get();
+            return run.report();
+        } finally {
+            retryExecutor.shutdownNow();
+            synchronized (run) {
+                run.closed = true;
+                if (run.journal != null)
+                    run.journal.close();
+            }
+        }
+    }
+
+    /**
+     * Sends the delete of a document, its slot is released once it is deleted or failed after its retries.
+     */
+    private void delete(Run run, String documentId, int attempt, long delay, ExecutorService retryExecutor) {
+        CompletableFuture<String> future;
+        try {
+            future = run.kind.delete(client, documentId);
+        } catch (RuntimeException e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+        future.whenComplete((response, e) -> {
+            String error = e != null ? String.valueOf(e) : BatchProcessor.failureOf(response);
+            if (error == null) {
+                run.finish(documentId, null);
+                return;
+            }
+            if (e == null && isNotFound(response)) {
+                run.notFoundCount.incrementAndGet();
+                run.finish(documentId, null);
+                return;
+            }
+            if (attempt >= maxRetries || run.journalError.get() != null) {
+                run.finish(documentId, error);
+                return;
+            }
+            logger.warning("delete: retrying " + documentId + ": " + error);
+            run.retryCount.incrementAndGet();
+            try {
+                CompletableFuture.runAsync(() -> {
+                    try {
+                        rateLimiter.acquire();
+                    } catch (InterruptedException interrupted) {
+                        run.finish(documentId, error);
+                        return;
+                    }
+                    delete(run, documentId, attempt + 1, delay * 2, retryExecutor);
+                }, CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS, retryExecutor));
+            } catch (RuntimeException rejected) {
+                run.finish(documentId, error);
+            }
+        });
+    }
+
+    /**
+     * The API answers a document that doesn't exist with a "fail" status and a not found message, any other
+     * failure, an exception of the transport among them, is retried.
+     */
+    private static boolean isNotFound(String response) {
+        JSONObject body;
+        try {
+            body = new JSONObject(response);
+        } catch (JSONException e) {
+            return false;
+        }
+        if (!"fail".equals(body.optString("status")))
+            return false;
+        return body.optString("message").toLowerCase().contains("not found")
+                || body.optString("error").toLowerCase().contains("not found");
+    }
+
+    @Override
+    public String toString() {
+        return "BulkDeleter{concurrency=" + concurrency + ", " + rateLimiter + ", maxRetries=" + maxRetries + "}";
+    }
+
+    /**
+     * The state of a run, shared by the callbacks of its deletes.
+     */
+    private class Run {
+        private final DocumentKind kind;
+        private final DeletionJournal journal;
+        private final long start = System.nanoTime();
+        private final Semaphore slots = new Semaphore(concurrency);
+        private final AtomicInteger deletedCount = new AtomicInteger();
+        private final AtomicInteger notFoundCount = new AtomicInteger();
+        private final AtomicInteger resumedCount = new AtomicInteger();
+        private final AtomicInteger retryCount = new AtomicInteger();
+        private final AtomicInteger finishedCount = new AtomicInteger();
+        private final Map<String, String> failures = new ConcurrentHashMap<>();
+        private final AtomicReference<IOException> journalError = new AtomicReference<>();
+        private boolean closed = false;
+
+        private Run(DocumentKind kind, DeletionJournal journal) {
+            this.kind = kind;
+            this.journal = journal;
+        }
+
+        /**
+         * Records the outcome of a document and releases its slot, a null documentId was never sent.
+         */
+        private void finish(String documentId, String error) {
+            if (error == null) {
+                deletedCount.incrementAndGet();
+                // An abandoned run has closed its journal, its last documents are deleted again by the next run.
+                synchronized (this) {
+                    if (journal != null && !closed) {
+                        try {
+                            journal.append(kind, documentId);
+                        } catch (IOException e) {
+                            journalError.compareAndSet(null, e);
+                        }
+                    }
+                }
+            } else {
+                failures.put(String.valueOf(documentId), error);
+            }
+            if (finishedCount.incrementAndGet() % progressInterval == 0) {
+                double seconds = (System.nanoTime() - start) / 1e9;
+                logger.info("run: " + finishedCount.get() + " " + kind + " documents, " + failures.size() + " failed, "
+                        + String.format("%.1f", finishedCount.get() / seconds) + " per second");
+            }
+            if (documentId != null)
+                slots.release();
+        }
+
+        private DeletionReport report() {
+            return new DeletionReport(deletedCount.get(), notFoundCount.get(), resumedCount.get(), retryCount.get(),
+                    new LinkedHashMap<>(failures), Duration.ofNanos(System.nanoTime() - start));
+        }
+    }
+}
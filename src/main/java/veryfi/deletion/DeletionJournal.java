@@ -0,0 +1,134 @@
+package veryfi.deletion;
+
+import veryfi.pending.DocumentKind;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * File listing the documents a {@link BulkDeleter} has deleted, so an interrupted run resumes without them.
+ * <p>
+ * Every deleted document is appended as a line, its {@link DocumentKind} and id, and the lines are flushed in
+ * groups instead of one by one. A document whose line was lost in a crash is deleted again on the next run, which
+ * the API answers with not found and the deleter counts as deleted, so losing the unflushed lines is safe. A line
+ * cut short by a crash is ignored.
+ * </p>
+ */
+public class DeletionJournal implements AutoCloseable {
+
+    private final Path path;
+    private final int flushEvery;
+    private BufferedWriter writer;
+    private int unflushed = 0;
+
+    /**
+     * Creates an instance of {@link DeletionJournal} flushed every 256 documents.
+     *
+     * @param path the {@link Path} of the journal file, created on the first append.
+     */
+    public DeletionJournal(Path path) {
+        this(path, 256);
+    }
+
+    /**
+     * Creates an instance of {@link DeletionJournal}.
+     *
+     * @param path       the {@link Path} of the journal file, created on the first append.
+     * @param flushEvery The number of documents appended between flushes, 1 writes every document through.
+     */
+    public DeletionJournal(Path path, int flushEvery) {
+        if (flushEvery <= 0)
+            throw new IllegalArgumentException("flushEvery must be positive");
+        this.path = path;
+        this.flushEvery = flushEvery;
+    }
+
+    /**
+     * Reads the deleted documents.
+     *
+     * @return the keys of the deleted documents, see {@link #key(DocumentKind, String)}, empty when nothing was deleted yet.
+     * @throws IOException when the journal file can't be read.
+     */
+    public Set<String> load() throws IOException {
+        Set<String> keys = new HashSet<>();
+        if (!Files.exists(path))
+            return keys;
+        String content = Files.readString(path, StandardCharsets.UTF_8);
+        List<String> lines = content.lines().toList();
+        int complete = content.endsWith("\n") ? lines.size() : lines.size() - 1;
+        for (int i = 0; i < complete; i++) {
+            if (!lines.get(i).isEmpty())
+                keys.add(lines.get(i));
+        }
+        return keys;
+    }
+
+    /**
+     * Records a deleted document, written with the next flush.
+     *
+     * @param kind       the {@link DocumentKind} of the document.
+     * @param documentId the id of the document.
+     * @throws IOException when the journal file can't be written.
+     */
+    public synchronized void append(DocumentKind kind, String documentId) throws IOException {
+        if (writer == null)
+            writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        writer.write(key(kind, documentId));
+        writer.write('\n');
+        if (++unflushed >= flushEvery)
+            flush();
+    }
+
+    /**
+     * Writes the appended documents through.
+     *
+     * @throws IOException when the journal file can't be written.
+     */
+    public synchronized void flush() throws IOException {
+        if (writer != null)
+            writer.flush();
+        unflushed = 0;
+    }
+
+    /**
+     * Flushes and closes the journal file, the next append opens it again.
+     *
+     * @throws IOException when the journal file can't be closed.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (writer != null) {
+            writer.close();
+            writer = null;
+        }
+        unflushed = 0;
+    }
+
+    /**
+     * Deletes the journal, the next run deletes every document.
+     *
+     * @throws IOException when the journal file can't be deleted.
+     */
+    public synchronized void clear() throws IOException {
+        close();
+        Files.deleteIfExists(path);
+    }
+
+    /**
+     * Returns the line of a document in the journal.
+     *
+     * @param kind       the {@link DocumentKind} of the document.
+     * @param documentId the id of the document.
+     * @return the kind and id of the document separated by a colon.
+     */
+    public static String key(DocumentKind kind, String documentId) {
+        return kind + ":" + documentId;
+    }
+}
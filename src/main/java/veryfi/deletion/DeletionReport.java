@@ -0,0 +1,121 @@
+package veryfi.deletion;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Outcome of a run of a {@link BulkDeleter}.
+ * <p>
+ * A run deletes up to hundreds of thousands of documents, so only the failed ones are listed, the others are counted.
+ * </p>
+ */
+public class DeletionReport {
+
+    private final int deletedCount;
+    private final int notFoundCount;
+    private final int resumedCount;
+    private final int retryCount;
+    private final Map<String, String> failures;
+    private final Duration elapsed;
+
+    /**
+     * Creates an instance of {@link DeletionReport}.
+     *
+     * @param deletedCount  The number of documents deleted by the run, not found ones included.
+     * @param notFoundCount The number of documents the API didn't find, deleted earlier or by someone else.
+     * @param resumedCount  The number of documents skipped because the journal lists them.
+     * @param retryCount    The number of requests that were retries.
+     * @param failures      The reason of the failure of every failed document by document id.
+     * @param elapsed       The wall-clock time of the run.
+     */
+    public DeletionReport(int deletedCount, int notFoundCount, int resumedCount, int retryCount,
+                          Map<String, String> failures, Duration elapsed) {
+        this.deletedCount = deletedCount;
+        this.notFoundCount = notFoundCount;
+        this.resumedCount = resumedCount;
+        this.retryCount = retryCount;
+        this.failures = Collections.unmodifiableMap(failures);
+        this.elapsed = elapsed;
+    }
+
+    /**
+     * Returns the number of documents deleted by the run, the ones the API didn't find included.
+     *
+     * @return the number of deleted documents.
+     */
+    public int getDeletedCount() {
+        return deletedCount;
+    }
+
+    /**
+     * Returns the number of documents the API didn't find, they are counted as deleted.
+     *
+     * @return the number of documents not found.
+     */
+    public int getNotFoundCount() {
+        return notFoundCount;
+    }
+
+    /**
+     * Returns the number of documents skipped because the journal lists them.
+     *
+     * @return the number of resumed documents.
+     */
+    public int getResumedCount() {
+        return resumedCount;
+    }
+
+    /**
+     * Returns the number of requests that were retries of a failed request.
+     *
+     * @return the number of retries.
+     */
+    public int getRetryCount() {
+        return retryCount;
+    }
+
+    /**
+     * Returns the documents that failed after their retries.
+     *
+     * @return an unmodifiable {@link Map} of the reason of every failure by document id.
+     */
+    public Map<String, String> getFailures() {
+        return failures;
+    }
+
+    /**
+     * Returns the number of documents that failed after their retries.
+     *
+     * @return the number of failures.
+     */
+    public int getFailureCount() {
+        return failures.size();
+    }
+
+    /**
+     * Returns the wall-clock time of the run.
+     *
+     * @return the elapsed {@link Duration}.
+     */
+    public Duration getElapsed() {
+        return elapsed;
+    }
+
+    /**
+     * Returns the throughput of the run, the documents deleted or failed per second of the run.
+     *
+     * @return the number of documents per second, 0 for an empty run.
+     */
+    public double getDocumentsPerSecond() {
+        double seconds = elapsed.toNanos() / 1e9;
+        return seconds > 0 ? (deletedCount + failures.size()) / seconds : 0;
+    }
+
+    @Override
+    public String toString() {
+        return "DeletionReport{deleted=" + deletedCount + ", notFound=" + notFoundCount + ", resumed=" + resumedCount
+                + ", retries=" + retryCount + ", failures=" + failures.size() + ", elapsed=" + elapsed
+                + ", documentsPerSecond=" + String.format("%.1f", getDocumentsPerSecond()) + "}";
+    }
+}
@@ -0,0 +1,47 @@
+package veryfi.export;
+
+import java.time.Duration;
+
+/**
+ * Summary of an export run by a {@link ParallelPageExporter}.
+ */
+public class ExportResult {
+
+    /**
+     * The number of pages written to the sink during this run.
+     */
+    public final int pages;
+    /**
+     * The number of records written to the sink during this run.
+     */
+    public final long records;
+    /**
+     * The last page of the listing completed, every page up to it has been written.
+     */
+    public final int lastCompletedPage;
+    /**
+     * The wall-clock time of this run.
+     */
+    public final Duration elapsed;
+
+    /**
+     * Creates an instance of {@link ExportResult}.
+     *
+     * @param pages             The number of pages written to the sink during this run.
+     * @param records           The number of records written to the sink during this run.
+     * @param lastCompletedPage The last page of the listing completed.
+     * @param elapsed           The wall-clock time of this run.
+     */
+    public ExportResult(int pages, long records, int lastCompletedPage, Duration elapsed) {
+        this.pages = pages;
+        this.records = records;
+        this.lastCompletedPage = lastCompletedPage;
+        this.elapsed = elapsed;
+    }
+
+    @Override
+    public String toString() {
+        return "ExportResult{pages=" + pages + ", records=" + records
+                + ", lastCompletedPage=" + lastCompletedPage + ", elapsed=" + elapsed + "}";
+    }
+}
@@ -0,0 +1,200 @@
+package veryfi.export;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable list of the fields a {@link RecordWriter} writes, the columns of the export.
+ * <p>
+ * A field is a dot separated path into a record, such as {@code vendor.name} or {@code tax_lines.0.rate}. Line item
+ * fields are paths into the elements of the line items array of the record: a projection with line item fields
+ * writes one row per line item, the record fields repeated on every row, and a single row with empty line item
+ * fields for a record without line items. The paths are split once when the projection is built.
+ * </p>
+ * <p>
+ * Example:
+ * </p>
+ * <pre>{@code
+ * FieldProjection projection = FieldProjection.builder()
+ *         .field("id").field("vendor.name", "vendor").field("total")
+ *         .lineItemField("description").lineItemField("total", "line_total")
+ *         .build();
+ * }</pre>
+ */
+public final class FieldProjection {
+
+    private final List<Field> fields;
+    private final String[] lineItemsPath;
+    private final boolean hasLineItemFields;
+    private final List<String> columns;
+
+    private FieldProjection(List<Field> fields, String lineItemsPath) {
+        this.fields = List.copyOf(fields);
+        this.lineItemsPath = lineItemsPath.split("\\.");
+        this.hasLineItemFields = fields.stream().anyMatch(field -> field.lineItem);
+        List<String> columns = new ArrayList<>(fields.size());
+        fields.forEach(field -> columns.add(field.column));
+        this.columns = Collections.unmodifiableList(columns);
+    }
+
+    /**
+     * Creates a new {@link Builder}.
+     *
+     * @return an empty builder.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Returns the names of the columns, in field order.
+     *
+     * @return the unmodifiable {@link List} of column names.
+     */
+    public List<String> columns() {
+        return columns;
+    }
+
+    /**
+     * Returns whether the projection writes one row per line item.
+     *
+     * @return true when a field is a line item field.
+     */
+    public boolean hasLineItemFields() {
+        return hasLineItemFields;
+    }
+
+    List<Field> fields() {
+        return fields;
+    }
+
+    /**
+     * The line items of a record, null when it has none.
+     */
+    JSONArray lineItems(JSONObject record) {
+        Object items = resolve(record, lineItemsPath);
+        return items instanceof JSONArray && !((JSONArray) items).isEmpty() ? (JSONArray) items : null;
+    }
+
+    /**
+     * Follows a path through objects and arrays, null when a step is missing.
+     */
+    static Object resolve(Object value, String[] path) {
+        for (String step : path) {
+            if (value instanceof JSONObject) {
+                value = ((JSONObject) value).opt(step);
+            } else if (value instanceof JSONArray && !step.isEmpty() && Character.isDigit(step.charAt(0))) {
+                value = ((JSONArray) value).opt(Integer.parseInt(step));
+            } else {
+                return null;
+            }
+        }
+        return value == JSONObject.NULL ? null : value;
+    }
+
+    @Override
+    public String toString() {
+        return "FieldProjection{columns=" + columns + ", lineItems=" + String.join(".", lineItemsPath) + "}";
+    }
+
+    /**
+     * A projected field, its path is read from the record or from a line item.
+     */
+    static final class Field {
+        final String[] path;
+        final String column;
+        final boolean lineItem;
+
+        private Field(String path, String column, boolean lineItem) {
+            this.path = path.split("\\.");
+            this.column = column;
+            this.lineItem = lineItem;
+        }
+    }
+
+    /**
+     * Builder for {@link FieldProjection}.
+     */
+    public static final class Builder {
+
+        private final List<Field> fields = new ArrayList<>();
+        private String lineItemsPath = "line_items";
+
+        private Builder() {
+        }
+
+        /**
+         * @param path path of a field of the record, also the name of its column
+         * @return this builder
+         */
+        public Builder field(String path) {
+            return field(path, path);
+        }
+
+        /**
+         * @param path   path of a field of the record
+         * @param column name of its column
+         * @return this builder
+         */
+        public Builder field(String path, String column) {
+            return add(path, column, false);
+        }
+
+        /**
+         * @param path path of a field of a line item, also the name of its column prefixed by the line items path
+         * @return this builder
+         */
+        public Builder lineItemField(String path) {
+            return lineItemField(path, lineItemsPath + "." + path);
+        }
+
+        /**
+         * @param path   path of a field of a line item
+         * @param column name of its column
+         * @return this builder
+         */
+        public Builder lineItemField(String path, String column) {
+            return add(path, column, true);
+        }
+
+        /**
+         * By default the line items are the "line_items" array of the record.
+         * @param lineItemsPath path of the line items array of the record
+         * @return this builder
+         */
+        public Builder lineItems(String lineItemsPath) {
+            if (lineItemsPath == null || lineItemsPath.isEmpty())
+                throw new IllegalArgumentException("lineItemsPath is required");
+            this.lineItemsPath = lineItemsPath;
+            return this;
+        }
+
+        /**
+         * Builds the immutable projection. The builder can keep being used afterwards.
+         *
+         * @return the new {@link FieldProjection}
+         */
+        public FieldProjection build() {
+            if (fields.isEmpty())
+                throw new IllegalArgumentException("a projection needs at least one field");
+            return new FieldProjection(fields, lineItemsPath);
+        }
+
+        private Builder add(String path, String column, boolean lineItem) {
+            if (path == null || path.isEmpty())
+                throw new IllegalArgumentException("path is required");
+            if (column == null || column.isEmpty())
+                throw new IllegalArgumentException("column is required");
+            for (Field field : fields) {
+                if (field.column.equals(column))
+                    throw new IllegalArgumentException("duplicate column: " + column);
+            }
+            fields.add(new Field(path, column, lineItem));
+            return this;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package veryfi.export;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * File holding the last page completed by an export, so an interrupted export resumes after it.
+ * <p>
+ * Every page up to and including the saved page has been written to the sink. The file is
+ * replaced atomically, so a crash never leaves a partially written checkpoint.
+ * </p>
+ */
+public class PageCheckpoint {
+
+    private final Path path;
+
+    /**
+     * Creates an instance of {@link PageCheckpoint}.
+     *
+     * @param path the {@link Path} of the checkpoint file, created on the first save.
+     */
+    public PageCheckpoint(Path path) {
+        this.path = path;
+    }
+
+    /**
+     * Reads the last completed page.
+     *
+     * @return the page number, 0 when nothing was exported yet.
+     * @throws IOException when the checkpoint file can't be read.
+     */
+    public int load() throws IOException {
+        if (!Files.exists(path))
+            return 0;
+        String content = Files.readString(path, StandardCharsets.UTF_8).trim();
+        return content.isEmpty() ? 0 : Integer.parseInt(content);
+    }
+
+    /**
+     * Saves the last completed page.
+     *
+     * @param page the page number.
+     * @throws IOException when the checkpoint file can't be written.
+     */
+    public void save(int page) throws IOException {
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        Files.writeString(temp, Integer.toString(page), StandardCharsets.UTF_8);
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Deletes the checkpoint, the next export starts from the first page.
+     *
+     * @throws IOException when the checkpoint file can't be deleted.
+     */
+    public void clear() throws IOException {
+        Files.deleteIfExists(path);
+    }
+}
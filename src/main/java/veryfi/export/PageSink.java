@@ -0,0 +1,26 @@
+package veryfi.export;
+
+import org.json.JSONArray;
+
+import java.io.IOException;
+
+/**
+ * Destination of the pages exported by a {@link ParallelPageExporter}.
+ * <p>
+ * The exporter calls the sink from a single thread, one page at a time, so implementations
+ * don't need to be thread-safe. A page is written once its records are received and then dropped,
+ * so the sink should persist or forward it instead of keeping it in memory.
+ * </p>
+ */
+@FunctionalInterface
+public interface PageSink {
+
+    /**
+     * Writes the records of a page.
+     *
+     * @param pageNumber The page number, starting from 1.
+     * @param records    The records of the page.
+     * @throws IOException when the page can't be written, which stops the export.
+     */
+    void write(int pageNumber, JSONArray records) throws IOException;
+}
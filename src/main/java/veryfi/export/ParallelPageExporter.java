@@ -0,0 +1,271 @@
+package veryfi.export;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import veryfi.pagination.PageFetcher;
+import veryfi.intern.StringDeduplicator;
+import veryfi.pagination.Pages;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Function;
+import java.util.logging.Logger;
+
+/**
+ * Exports every record of a Veryfi list endpoint by fetching its pages in parallel.
+ * <p>
+ * The first page tells the total number of pages, the remaining ones are then requested with at most
+ * {@code concurrency} pages in flight or waiting to be written. Pages are written to a {@link PageSink}
+ * from the calling thread, either in page order or as soon as they arrive. A page is dropped once
+ * written, so memory stays bounded by the concurrency whatever the size of the account.
+ * </p>
+ * <p>
+ * With a {@link PageCheckpoint} the export resumes after the last completed page: every page up to it has
+ * been written. In unordered mode pages after the checkpoint may have been written already and are
+ * exported again on resume.
+ * </p>
+ * <p>
+ * Example exporting every document:
+ * </p>
+ * <pre>{@code
+ * ParallelPageExporter exporter = new ParallelPageExporter(
+ *         page -> client.getDocumentsAsync(page, 50, false, false, null), 50, 8);
+ * exporter.setCheckpoint(new PageCheckpoint(Paths.get("documents.checkpoint")));
+ * exporter.export((page, records) -> writer.write(records));
+ * }</pre>
+ */
+public class ParallelPageExporter {
+
+    private final Logger logger = Logger.getLogger("ParallelPageExporter");
+    private final PageFetcher fetcher;
+    private final int pageSize;
+    private final int concurrency;
+    private boolean ordered = true;
+    private int maxRetries = 2;
+    private PageCheckpoint checkpoint;
+    private Function<String, JSONObject> parser = JSONObject::new;
+
+    /**
+     * Creates an instance of {@link ParallelPageExporter}.
+     *
+     * @param fetcher     the {@link PageFetcher} of the list endpoint.
+     * @param pageSize    The number of records per page requested by the fetcher.
+     * @param concurrency The maximum number of pages in flight or waiting to be written.
+     */
+    public ParallelPageExporter(PageFetcher fetcher, int pageSize, int concurrency) {
+        if (pageSize <= 0)
+            throw new IllegalArgumentException("pageSize must be positive");
+        if (concurrency <= 0)
+            throw new IllegalArgumentException("concurrency must be positive");
+        this.fetcher = fetcher;
+        this.pageSize = pageSize;
+        this.concurrency = concurrency;
+    }
+
+    /**
+     * By default pages are written in page order.
+     * @param ordered false to write the pages as soon as they arrive
+     */
+    public void setOrdered(boolean ordered) {
+        this.ordered = ordered;
+    }
+
+    /**
+     * By default a failed page, or a page the API refuses, is requested 2 more times before the export stops.
+     * @param maxRetries the number of retries of a failed page
+     */
+    public void setMaxRetries(int maxRetries) {
+        this.maxRetries = maxRetries;
+    }
+
+    /**
+     * By default the export isn't resumable.
+     * @param checkpoint the {@link PageCheckpoint} saving the last completed page
+     */
+    public void setCheckpoint(PageCheckpoint checkpoint) {
+        this.checkpoint = checkpoint;
+    }
+
+    /**
+     * By default pages are decoded without a dictionary, every record holds its own strings.
+     * @param deduplicator the {@link StringDeduplicator} shared by the records of the pages, null to decode without one
+     */
+    public void setStringDeduplicator(StringDeduplicator deduplicator) {
+        this.parser = deduplicator == null ? JSONObject::new : deduplicator::parseObject;
+    }
+
+    /**
+     * Exports the pages after the last completed page to the sink.
+     *
+     * @param sink the {@link PageSink} receiving the records.
+     * @return the {@link ExportResult} of this run.
+     * @throws IOException          when the sink or the checkpoint fails.
+     * @throws CompletionException  when a page request, or the response of the API, still fails after the retries.
+     * @throws InterruptedException when the calling thread is interrupted.
+     */
+    public ExportResult export(PageSink sink) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        int lastCompleted = checkpoint == null ? 0 : checkpoint.load();
+        Run run = new Run(sink, lastCompleted);
+        int firstPage = lastCompleted + 1;
+        JSONObject first = run.fetchNow(firstPage);
+        JSONArray firstRecords = Pages.records(first);
+        if (!firstRecords.isEmpty()) {
+            run.write(firstPage, firstRecords);
+            run.complete(firstPage);
+            // The API caps the page size: the first page tells the real one, on resume assume the cap.
+            int perPage = firstPage == 1 ? firstRecords.length() : Math.min(pageSize, Pages.MAX_PAGE_SIZE);
+            int totalPages = Pages.totalPages(first, perPage);
+            if (totalPages < 0) {
+                run.exportSequentially(firstPage, perPage, firstRecords.length());
+            } else if (firstPage < totalPages) {
+                run.exportInParallel(firstPage + 1, totalPages);
+            }
+        }
+        return new ExportResult(run.pages, run.records, run.watermark, Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    /**
+     * State of one export, only touched by the calling thread.
+     */
+    private class Run {
+        private final PageSink sink;
+        private final BlockingQueue<FetchedPage> arrivals = new LinkedBlockingQueue<>();
+        private final Map<Integer, CompletableFuture<String>> inFlight = new HashMap<>();
+        private final Map<Integer, Integer> attempts = new HashMap<>();
+        private final TreeMap<Integer, JSONArray> pending = new TreeMap<>();
+        private final TreeSet<Integer> completedAhead = new TreeSet<>();
+        private int watermark;
+        private int pages = 0;
+        private long records = 0;
+
+        private Run(PageSink sink, int watermark) {
+            this.sink = sink;
+            this.watermark = watermark;
+        }
+
+        private JSONObject fetchNow(int page) {
+            for (int attempt = 0; ; attempt++) {
+                try {
+                    return fetcher.fetch(page).thenApply(response -> parse(page, response)).join();
+                } catch (CompletionException e) {
+                    if (attempt >= maxRetries)
+                        throw e;
+                    logger.warning("export: retrying page " + page + ": " + e.getMessage());
+                }
+            }
+        }
+
+        private void exportSequentially(int page, int perPage, int lastPageSize) throws IOException {
+            long seen = lastPageSize;
+            while (lastPageSize >= perPage) {
+                page++;
+                JSONObject next = fetchNow(page);
+                JSONArray nextRecords = Pages.records(next);
+                seen += nextRecords.length();
+                write(page, nextRecords);
+                complete(page);
+                if (Pages.isLastPage(next, page, perPage, seen))
+                    return;
+                lastPageSize = nextRecords.length();
+            }
+        }
+
+        private void exportInParallel(int firstPage, int lastPage) throws IOException, InterruptedException {
+            int nextPage = firstPage;
+            try {
+                while (watermark < lastPage) {
+                    while (nextPage <= lastPage && inFlight.size() + pending.size() < concurrency) {
+                        launch(nextPage++);
+                    }
+                    FetchedPage fetched = arrivals.take();
+                    inFlight.remove(fetched.pageNumber);
+                    if (fetched.error != null) {
+                        retry(fetched);
+                    } else if (ordered) {
+                        pending.put(fetched.pageNumber, Pages.records(fetched.page));
+                        while (!pending.isEmpty() && pending.firstKey() == watermark + 1) {
+                            Map.Entry<Integer, JSONArray> entry = pending.pollFirstEntry();
+                            write(entry.getKey(), entry.getValue());
+                            complete(entry.getKey());
+                        }
+                    } else {
+                        write(fetched.pageNumber, Pages.records(fetched.page));
+                        complete(fetched.pageNumber);
+                    }
+                }
+            } finally {
+                for (CompletableFuture<String> future : new ArrayList<>(inFlight.values())) {
+                    future.cancel(true);
+                }
+            }
+        }
+
+        private void launch(int page) {
+            // Cancelling the raw response reaches the http exchange, the parsed page follows.
+            CompletableFuture<String> response = fetcher.fetch(page);
+            inFlight.put(page, response);
+            response.thenApply(body -> parse(page, body)).whenComplete((result, error) -> arrivals.add(new FetchedPage(page, result, error)));
+        }
+
+        private JSONObject parse(int page, String response) {
+            // A refused page has no records, it must be retried rather than taken for the end of the listing.
+            JSONObject parsed = parser.apply(response);
+            String failure = Pages.failureOf(parsed);
+            if (failure != null)
+                throw new CompletionException(new IOException("page " + page + " failed: " + failure));
+            return parsed;
+        }
+
+        private void retry(FetchedPage fetched) {
+            int attempt = attempts.merge(fetched.pageNumber, 1, Integer::sum);
+            if (attempt > maxRetries) {
+                throw fetched.error instanceof CompletionException
+                        ? (CompletionException) fetched.error
+                        : new CompletionException(fetched.error);
+            }
+            logger.warning("export: retrying page " + fetched.pageNumber + ": " + fetched.error.getMessage());
+            launch(fetched.pageNumber);
+        }
+
+        private void write(int page, JSONArray pageRecords) throws IOException {
+            sink.write(page, pageRecords);
+            pages++;
+            records += pageRecords.length();
+        }
+
+        private void complete(int page) throws IOException {
+            completedAhead.add(page);
+            int previous = watermark;
+            while (completedAhead.remove(watermark + 1)) {
+                watermark++;
+            }
+            if (watermark != previous && checkpoint != null)
+                checkpoint.save(watermark);
+        }
+    }
+
+    /**
+     * A page received, or the error of its request.
+     */
+    private static class FetchedPage {
+        private final int pageNumber;
+        private final JSONObject page;
+        private final Throwable error;
+
+        private FetchedPage(int pageNumber, JSONObject page, Throwable error) {
+            this.pageNumber = pageNumber;
+            this.page = page;
+            this.error = error;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package veryfi.export;
+
+/**
+ * The file formats a {@link RecordWriter} writes.
+ */
+public enum RecordFormat {
+
+    /**
+     * One json object per line, the projected fields keep their json types.
+     */
+    NDJSON,
+    /**
+     * Comma separated values with a header line, as described by RFC 4180.
+     */
+    CSV
+}
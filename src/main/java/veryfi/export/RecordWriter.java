@@ -0,0 +1,300 @@
+package veryfi.export;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import veryfi.batch.BatchProcessor;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+/**
+ * Writes records of the Veryfi list and get endpoints as NDJSON or CSV rows, as they arrive.
+ * <p>
+ * Every record is projected and written right away, nothing is kept after it is written, so an export of any size
+ * runs in the memory of one page. A page is formatted into a reused buffer and handed to the writer in one call,
+ * the writer is only flushed on {@link #flush()} and {@link #close()}.
+ * </p>
+ * <p>
+ * As a {@link PageSink} it receives the pages of a {@link ParallelPageExporter}. The documents of a list of ids are
+ * written with {@link #writeAll(Iterator, Function, int)}, which fetches them from a get endpoint with a few
+ * requests ahead of the one being written. Without a projection NDJSON rows are the records unchanged.
+ * </p>
+ * <p>
+ * Example exporting the line items of every document to CSV:
+ * </p>
+ * <pre>{@code
+ * try (RecordWriter writer = new RecordWriter(Files.newBufferedWriter(path), RecordFormat.CSV, projection)) {
+ *     new ParallelPageExporter(page -> client.getDocumentsAsync(page, 50, false, false, null), 50, 8).export(writer);
+ * }
+ * }</pre>
+ */
+public class RecordWriter implements PageSink, Flushable, Closeable {
+
+    private final Writer writer;
+    private final RecordFormat format;
+    private final FieldProjection projection;
+    private final String[] quotedColumns;
+    private final StringBuilder buffer = new StringBuilder(8192);
+    private boolean headerWritten = false;
+    private long recordCount = 0;
+    private long rowCount = 0;
+
+    /**
+     * Creates an instance of {@link RecordWriter}.
+     *
+     * @param writer     the {@link Writer} receiving the rows, best buffered.
+     * @param format     the {@link RecordFormat} of the rows.
+     * @param projection the {@link FieldProjection} of the rows, null writes whole records and only suits NDJSON.
+     */
+    public RecordWriter(Writer writer, RecordFormat format, FieldProjection projection) {
+        if (writer == null)
+            throw new IllegalArgumentException("writer is required");
+        if (format == null)
+            throw new IllegalArgumentException("format is required");
+        if (projection == null && format == RecordFormat.CSV)
+            throw new IllegalArgumentException("CSV needs a projection");
+        this.writer = writer;
+        this.format = format;
+        this.projection = projection;
+        List<String> columns = projection == null ? List.of() : projection.columns();
+        this.quotedColumns = new String[columns.size()];
+        for (int i = 0; i < quotedColumns.length; i++) {
+            quotedColumns[i] = JSONObject.quote(columns.get(i));
+        }
+    }
+
+    /**
+     * Writes the records of a page.
+     *
+     * @param pageNumber The page number, starting from 1.
+     * @param records    The records of the page.
+     * @throws IOException when the rows can't be written.
+     */
+    @Override
+    public void write(int pageNumber, JSONArray records) throws IOException {
+        for (int i = 0; i < records.length(); i++) {
+            Object record = records.opt(i);
+            if (record instanceof JSONObject)
+                append((JSONObject) record);
+        }
+        drain();
+    }
+
+    /**
+     * Writes one record.
+     *
+     * @param record The record, a document or any other object of the API.
+     * @throws IOException when the rows can't be written.
+     */
+    public void write(JSONObject record) throws IOException {
+        append(record);
+        drain();
+    }
+
+    /**
+     * Fetches records from a get endpoint and writes them in the order of their ids.
+     * <p>
+     * At most {@code prefetchDepth} requests are in progress, the next ids are read as records are written.
+     * A failed request stops the export, as does a response with a "fail" status or an error, such as a deleted
+     * document: the rows written so far stay, the {@link IOException} names the id and has the exception of a failed
+     * request as its cause.
+     * </p>
+     *
+     * @param documentIds   The ids of the records.
+     * @param getter        The get endpoint, such as {@code client::getDocumentAsync}.
+     * @param prefetchDepth The maximum number of requests in progress.
+     * @return the number of records written.
+     * @throws IOException when the rows can't be written or a record can't be fetched.
+     */
+    public long writeAll(Iterator<String> documentIds, Function<String, CompletableFuture<String>> getter,
+                         int prefetchDepth) throws IOException {
+        if (prefetchDepth <= 0)
+            throw new IllegalArgumentException("prefetchDepth must be positive");
+        long written = 0;
+        ArrayDeque<String> ids = new ArrayDeque<>(prefetchDepth);
+        ArrayDeque<CompletableFuture<String>> window = new ArrayDeque<>(prefetchDepth);
+        try {
+            while (documentIds.hasNext() || !window.isEmpty()) {
+                while (window.size() < prefetchDepth && documentIds.hasNext()) {
+                    String documentId = documentIds.next();
+                    ids.add(documentId);
+                    window.add(getter.apply(documentId));
+                }
+                String documentId = ids.poll();
+                String response;
+                try {
+                    response = window.poll().join();
+                } catch (CompletionException e) {
+                    throw new IOException("record " + documentId + " failed: " + e.getCause(), e.getCause());
+                }
+                write(record(documentId, response));
+                written++;
+            }
+            return written;
+        } finally {
+            for (CompletableFuture<String> future : window) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of records written.
+     * @return the number of records.
+     */
+    public long getRecordCount() {
+        return recordCount;
+    }
+
+    /**
+     * Returns the number of rows written, more than the records when line items are flattened.
+     * @return the number of rows, the CSV header excluded.
+     */
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Writes the CSV header if no record was written and flushes the writer.
+     *
+     * @throws IOException when the writer can't be flushed.
+     */
+    @Override
+    public void flush() throws IOException {
+        if (format == RecordFormat.CSV && !headerWritten) {
+            appendHeader();
+            drain();
+        }
+        writer.flush();
+    }
+
+    /**
+     * Flushes and closes the writer.
+     *
+     * @throws IOException when the writer can't be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * The get endpoints answer a missing or inaccessible record with a "fail" status or an "error" field.
+     */
+    private static JSONObject record(String documentId, String response) throws IOException {
+        JSONObject record;
+        try {
+            record = new JSONObject(response == null ? "" : response);
+        } catch (JSONException e) {
+            throw new IOException("record " + documentId + " failed: " + BatchProcessor.failureOf(response));
+        }
+        if ("fail".equals(record.optString("status")) || record.has("error"))
+            throw new IOException("record " + documentId + " failed: " + BatchProcessor.failureOf(response));
+        return record;
+    }
+
+    private void append(JSONObject record) {
+        recordCount++;
+        if (projection == null) {
+            buffer.append(record).append('\n');
+            rowCount++;
+            return;
+        }
+        if (format == RecordFormat.CSV && !headerWritten)
+            appendHeader();
+        JSONArray lineItems = projection.hasLineItemFields() ? projection.lineItems(record) : null;
+        if (lineItems == null) {
+            appendRow(record, null);
+            return;
+        }
+        for (int i = 0; i < lineItems.length(); i++) {
+            Object lineItem = lineItems.opt(i);
+            appendRow(record, lineItem instanceof JSONObject ? (JSONObject) lineItem : null);
+        }
+    }
+
+    private void appendHeader() {
+        List<String> columns = projection.columns();
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0)
+                buffer.append(',');
+            appendCsv(columns.get(i));
+        }
+        buffer.append("\r\n");
+        headerWritten = true;
+    }
+
+    private void appendRow(JSONObject record, JSONObject lineItem) {
+        List<FieldProjection.Field> fields = projection.fields();
+        boolean csv = format == RecordFormat.CSV;
+        buffer.append(csv ? "" : "{");
+        for (int i = 0; i < fields.size(); i++) {
+            FieldProjection.Field field = fields.get(i);
+            Object value = field.lineItem
+                    ? (lineItem == null ? null : FieldProjection.resolve(lineItem, field.path))
+                    : FieldProjection.resolve(record, field.path);
+            if (i > 0)
+                buffer.append(',');
+            if (csv) {
+                appendCsv(value);
+            } else {
+                buffer.append(quotedColumns[i]).append(':').append(value == null ? "null" : JSONObject.valueToString(value));
+            }
+        }
+        buffer.append(csv ? "\r\n" : "}\n");
+        rowCount++;
+    }
+
+    /**
+     * Appends a CSV cell, quoted when it holds a separator, a quote or a line break.
+     */
+    private void appendCsv(Object value) {
+        if (value == null)
+            return;
+        String text = value instanceof Number ? JSONObject.numberToString((Number) value) : value.toString();
+        boolean quote = false;
+        for (int i = 0; i < text.length() && !quote; i++) {
+            char c = text.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            buffer.append(text);
+            return;
+        }
+        buffer.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"')
+                buffer.append('"');
+            buffer.append(c);
+        }
+        buffer.append('"');
+    }
+
+    /**
+     * Hands the formatted rows to the writer and empties the buffer, keeping its capacity.
+     */
+    private void drain() throws IOException {
+        writer.append(buffer);
+        buffer.setLength(0);
+    }
+
+    @Override
+    public String toString() {
+        return "RecordWriter{format=" + format + ", projection=" + projection + ", records=" + recordCount
+                + ", rows=" + rowCount + "}";
+    }
+}
@@ -0,0 +1,333 @@
+package veryfi.image;
+
+import veryfi.FileSource;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Shrinks large photos before they are encoded and uploaded.
+ * <p>
+ * JPEG and PNG files from a minimum size on are decoded with {@code javax.imageio}, scaled so their long edge fits
+ * a maximum and written again, JPEG at a target quality. Nothing but the pixels is written back, which strips the
+ * metadata; the EXIF orientation of a JPEG is applied to the pixels first so the document stays upright.
+ * The smaller of the original and the new content is sent, and the bytes before and after are counted.
+ * </p>
+ * <p>
+ * Example:
+ * </p>
+ * <pre>{@code
+ * ImagePreprocessor preprocessor = new ImagePreprocessor();
+ * preprocessor.setMaxLongEdge(2000);
+ * client.setImagePreprocessor(preprocessor);
+ * }</pre>
+ */
+public class ImagePreprocessor {
+
+    private static final int ORIENTATION_TAG = 0x0112;
+
+    private final Logger logger = Logger.getLogger("ImagePreprocessor");
+    private int maxLongEdge = 2400;
+    private float quality = 0.8f;
+    private long minBytes = 512 * 1024;
+    private final AtomicLong fileCount = new AtomicLong();
+    private final AtomicLong shrunkCount = new AtomicLong();
+    private final AtomicLong bytesBefore = new AtomicLong();
+    private final AtomicLong bytesAfter = new AtomicLong();
+
+    /**
+     * By default the long edge is scaled down to 2400 pixels, about 200 DPI for a letter page.
+     * @param maxLongEdge the maximum number of pixels of the long edge
+     */
+    public void setMaxLongEdge(int maxLongEdge) {
+        if (maxLongEdge <= 0)
+            throw new IllegalArgumentException("maxLongEdge must be positive");
+        this.maxLongEdge = maxLongEdge;
+    }
+
+    /**
+     * By default JPEG files are written at a quality of 0.8.
+     * @param quality the JPEG quality between 0 and 1
+     */
+    public void setQuality(float quality) {
+        if (quality <= 0 || quality > 1)
+            throw new IllegalArgumentException("quality must be in (0, 1]");
+        this.quality = quality;
+    }
+
+    /**
+     * By default files under 512 KiB are sent as they are.
+     * @param minBytes the size from which files are processed
+     */
+    public void setMinBytes(long minBytes) {
+        this.minBytes = minBytes;
+    }
+
+    /**
+     * Returns whether a file is an image this preprocessor rewrites, from its extension.
+     *
+     * @param fileName Name of the file.
+     * @return true for JPEG and PNG files.
+     */
+    public boolean accepts(String fileName) {
+        return format(fileName) != null;
+    }
+
+    /**
+     * Returns the source to upload in place of the given one.
+     *
+     * @param source the {@link FileSource} of the file.
+     * @return the same source when it isn't a large image, otherwise the shrunk content.
+     * @throws IOException when the content can't be read.
+     */
+    public FileSource process(FileSource source) throws IOException {
+        if (!accepts(source.getFileName()))
+            return source;
+        long length = source.getLength();
+        if (length >= 0 && length < minBytes)
+            return source;
+        byte[] content = source.readBytes();
+        return FileSource.fromBytes(source.getFileName(), process(source.getFileName(), content));
+    }
+
+    /**
+     * Returns the content to upload in place of the given one.
+     *
+     * @param fileName Name of the file, its extension gives the format.
+     * @param content  The content of the file.
+     * @return the same array when the file isn't a large image or can't be shrunk, otherwise the new content.
+     */
+    public byte[] process(String fileName, byte[] content) {
+        String format = format(fileName);
+        if (format == null || content.length < minBytes)
+            return content;
+        byte[] result = content;
+        try {
+            byte[] shrunk = shrink(content, format);
+            if (shrunk != null && shrunk.length < content.length)
+                result = shrunk;
+        } catch (IOException | RuntimeException e) {
+            logger.warning("process: keeping " + fileName + " as is: " + e.getMessage());
+        }
+        fileCount.incrementAndGet();
+        bytesBefore.addAndGet(content.length);
+        bytesAfter.addAndGet(result.length);
+        if (result != content) {
+            shrunkCount.incrementAndGet();
+            logger.info("process: " + fileName + " " + content.length + " -> " + result.length + " bytes");
+        }
+        return result;
+    }
+
+    private byte[] shrink(byte[] content, String format) throws IOException {
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(content));
+        if (image == null)
+            return null;
+        int orientation = "jpeg".equals(format) ? orientation(content) : 1;
+        boolean transposed = orientation >= 5;
+        int width = transposed ? image.getHeight() : image.getWidth();
+        int height = transposed ? image.getWidth() : image.getHeight();
+        double scale = Math.min(1, (double) maxLongEdge / Math.max(width, height));
+        if (scale == 1 && orientation == 1 && !"jpeg".equals(format))
+            return null;
+        int targetWidth = Math.max(1, (int) Math.round(width * scale));
+        int targetHeight = Math.max(1, (int) Math.round(height * scale));
+        int type = "jpeg".equals(format) || !image.getColorModel().hasAlpha()
+                ? (image.getType() == BufferedImage.TYPE_BYTE_GRAY ? BufferedImage.TYPE_BYTE_GRAY : BufferedImage.TYPE_INT_RGB)
+                : BufferedImage.TYPE_INT_ARGB;
+        BufferedImage target = new BufferedImage(targetWidth, targetHeight, type);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            AffineTransform transform = AffineTransform.getScaleInstance(scale, scale);
+            transform.concatenate(orientationTransform(orientation, image.getWidth(), image.getHeight()));
+            graphics.drawImage(image, transform, null);
+        } finally {
+            graphics.dispose();
+        }
+        return write(target, format);
+    }
+
+    private byte[] write(BufferedImage image, String format) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if (!"jpeg".equals(format)) {
+            ImageIO.write(image, format, out);
+            return out.toByteArray();
+        }
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName("jpeg");
+        if (!writers.hasNext())
+            return null;
+        ImageWriter writer = writers.next();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Maps the stored pixels of a width x height image to their upright position for an EXIF orientation.
+     */
+    static AffineTransform orientationTransform(int orientation, int width, int height) {
+        AffineTransform transform = new AffineTransform();
+        switch (orientation) {
+            case 2 -> {
+                transform.translate(width, 0);
+                transform.scale(-1, 1);
+            }
+            case 3 -> {
+                transform.translate(width, height);
+                transform.rotate(Math.PI);
+            }
+            case 4 -> {
+                transform.translate(0, height);
+                transform.scale(1, -1);
+            }
+            case 5 -> {
+                transform.rotate(Math.PI / 2);
+                transform.scale(1, -1);
+            }
+            case 6 -> {
+                transform.translate(height, 0);
+                transform.rotate(Math.PI / 2);
+            }
+            case 7 -> {
+                transform.translate(height, 0);
+                transform.rotate(Math.PI / 2);
+                transform.scale(-1, 1);
+                transform.translate(-width, 0);
+            }
+            case 8 -> {
+                transform.translate(0, width);
+                transform.rotate(-Math.PI / 2);
+            }
+            default -> {
+            }
+        }
+        return transform;
+    }
+
+    /**
+     * Reads the orientation tag of the EXIF segment of a JPEG, 1 when there is none.
+     */
+    static int orientation(byte[] jpeg) {
+        if (jpeg.length < 4 || (jpeg[0] & 0xff) != 0xff || (jpeg[1] & 0xff) != 0xd8)
+            return 1;
+        int position = 2;
+        while (position + 4 <= jpeg.length && (jpeg[position] & 0xff) == 0xff) {
+            int marker = jpeg[position + 1] & 0xff;
+            if (marker == 0xda || marker == 0xd9)
+                return 1;
+            int segmentLength = readShort(jpeg, position + 2, false);
+            int start = position + 4;
+            int end = Math.min(jpeg.length, position + 2 + segmentLength);
+            if (marker == 0xe1 && end - start >= 14 && jpeg[start] == 'E' && jpeg[start + 1] == 'x'
+                    && jpeg[start + 2] == 'i' && jpeg[start + 3] == 'f' && jpeg[start + 4] == 0 && jpeg[start + 5] == 0)
+                return tiffOrientation(jpeg, start + 6, end);
+            position += 2 + segmentLength;
+        }
+        return 1;
+    }
+
+    private static int tiffOrientation(byte[] bytes, int tiff, int end) {
+        boolean littleEndian = bytes[tiff] == 'I' && bytes[tiff + 1] == 'I';
+        if (!littleEndian && !(bytes[tiff] == 'M' && bytes[tiff + 1] == 'M'))
+            return 1;
+        long ifd = tiff + (readInt(bytes, tiff + 4, littleEndian) & 0xffffffffL);
+        if (ifd + 2 > end)
+            return 1;
+        int entries = readShort(bytes, (int) ifd, littleEndian);
+        for (int i = 0; i < entries; i++) {
+            int entry = (int) ifd + 2 + i * 12;
+            if (entry + 12 > end)
+                return 1;
+            if (readShort(bytes, entry, littleEndian) == ORIENTATION_TAG) {
+                int orientation = readShort(bytes, entry + 8, littleEndian);
+                return orientation >= 1 && orientation <= 8 ? orientation : 1;
+            }
+        }
+        return 1;
+    }
+
+    private static int readShort(byte[] bytes, int offset, boolean littleEndian) {
+        int first = bytes[offset] & 0xff;
+        int second = bytes[offset + 1] & 0xff;
+        return littleEndian ? first | second << 8 : first << 8 | second;
+    }
+
+    private static int readInt(byte[] bytes, int offset, boolean littleEndian) {
+        int high = readShort(bytes, offset, littleEndian);
+        int low = readShort(bytes, offset + 2, littleEndian);
+        return littleEndian ? low << 16 | high : high << 16 | low;
+    }
+
+    private static String format(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        if (dot < 0)
+            return null;
+        String extension = fileName.substring(dot + 1).toLowerCase(Locale.ROOT);
+        if (extension.equals("jpg") || extension.equals("jpeg"))
+            return "jpeg";
+        if (extension.equals("png"))
+            return "png";
+        return null;
+    }
+
+    /**
+     * Returns the number of files from the minimum size on that were examined.
+     * @return the number of examined files.
+     */
+    public long getFileCount() {
+        return fileCount.get();
+    }
+
+    /**
+     * Returns the number of files sent shrunk.
+     * @return the number of shrunk files.
+     */
+    public long getShrunkCount() {
+        return shrunkCount.get();
+    }
+
+    /**
+     * Returns the bytes of the examined files before processing.
+     * @return the bytes before.
+     */
+    public long getBytesBefore() {
+        return bytesBefore.get();
+    }
+
+    /**
+     * Returns the bytes of the examined files after processing.
+     * @return the bytes after.
+     */
+    public long getBytesAfter() {
+        return bytesAfter.get();
+    }
+
+    @Override
+    public String toString() {
+        return "ImagePreprocessor{files=" + getFileCount() + ", shrunk=" + getShrunkCount()
+                + ", bytesBefore=" + getBytesBefore() + ", bytesAfter=" + getBytesAfter() + "}";
+    }
+}
@@ -0,0 +1,76 @@
+package veryfi.intern;
+
+import org.json.JSONException;
+import org.json.JSONTokener;
+
+/**
+ * A {@link JSONTokener} reading every quoted string, keys and values, through a {@link StringDeduplicator}.
+ * <p>
+ * The characters of a string are decoded into a buffer reused by the whole response, the {@link String} is only
+ * created when the dictionary doesn't have it. Escapes are decoded as {@link JSONTokener#nextString(char)} does.
+ * </p>
+ */
+class DedupingTokener extends JSONTokener {
+
+    private final StringDeduplicator deduplicator;
+    private final StringBuilder buffer = new StringBuilder(64);
+
+    DedupingTokener(String json, StringDeduplicator deduplicator) {
+        super(json);
+        this.deduplicator = deduplicator;
+    }
+
+    @Override
+    public String nextString(char quote) throws JSONException {
+        StringBuilder sb = buffer;
+        sb.setLength(0);
+        for (;;) {
+            char c = next();
+            switch (c) {
+                case 0:
+                case '\n':
+                case '\r':
+                    throw syntaxError("Unterminated string");
+                case '\\':
+                    c = next();
+                    switch (c) {
+                        case 'b':
+                            sb.append('\b');
+                            break;
+                        case 't':
+                            sb.append('\t');
+                            break;
+                        case 'n':
+                            sb.append('\n');
+                            break;
+                        case 'f':
+                            sb.append('\f');
+                            break;
+                        case 'r':
+                            sb.append('\r');
+                            break;
+                        case 'u':
+                            try {
+                                sb.append((char) Integer.parseInt(next(4), 16));
+                            } catch (NumberFormatException e) {
+                                throw syntaxError("Illegal escape.", e);
+                            }
+                            break;
+                        case '"':
+                        case '\'':
+                        case '\\':
+                        case '/':
+                            sb.append(c);
+                            break;
+                        default:
+                            throw syntaxError("Illegal escape.");
+                    }
+                    break;
+                default:
+                    if (c == quote)
+                        return deduplicator.dedupe(sb);
+                    sb.append(c);
+            }
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package veryfi.intern;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded dictionary shared by threads that decode responses, so repeated strings are stored once.
+ * <p>
+ * Across a listing the same vendor names, categories, currency codes, document types and field names are decoded
+ * millions of times, each into a fresh {@link String}. {@link #parseObject(String)} decodes a response with a
+ * tokenizer that looks every string up before creating it: a string seen before is returned from the dictionary
+ * and no copy is allocated, so the decoded records share one instance of every repeated value.
+ * </p>
+ * <p>
+ * The dictionary is a fixed table of slots indexed by the hash of the string, a new string replaces the one in its
+ * slot, so it never grows and keeps the values that recur. Strings longer than the maximum length, such as OCR
+ * text, are never stored. Lookups take no lock: a slot holds an immutable {@link String}, a thread that misses a
+ * concurrent replacement only creates one more copy.
+ * </p>
+ * <p>
+ * Example:
+ * </p>
+ * <pre>{@code
+ * StringDeduplicator deduplicator = new StringDeduplicator();
+ * Stream<JSONObject> documents = Pages.stream(page -> client.getDocumentsAsync(page, 50, false, false, null), 50, 4, deduplicator);
+ * }</pre>
+ */
+public final class StringDeduplicator {
+
+    private final String[] table;
+    private final int mask;
+    private final int maxLength;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Creates an instance of {@link StringDeduplicator} of 4096 slots keeping strings up to 64 characters.
+     */
+    public StringDeduplicator() {
+        this(4096, 64);
+    }
+
+    /**
+     * Creates an instance of {@link StringDeduplicator}.
+     *
+     * @param capacity  The number of slots, rounded up to a power of two.
+     * @param maxLength The length of the longest string kept.
+     */
+    public StringDeduplicator(int capacity, int maxLength) {
+        if (capacity <= 0 || capacity > 1 << 24)
+            throw new IllegalArgumentException("capacity must be between 1 and 16777216");
+        if (maxLength <= 0)
+            throw new IllegalArgumentException("maxLength must be positive");
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity)
+            size <<= 1;
+        this.table = new String[size];
+        this.mask = size - 1;
+        this.maxLength = maxLength;
+    }
+
+    /**
+     * Adds known values, such as {@code Constants.LIST_CATEGORIES}, before decoding.
+     *
+     * @param values The values to add.
+     */
+    public void preload(Collection<String> values) {
+        for (String value : values) {
+            dedupe(value);
+        }
+    }
+
+    /**
+     * Returns the stored instance of a string, storing it when it isn't there.
+     *
+     * @param value The string.
+     * @return an equal string, the stored instance when there is one.
+     */
+    public String dedupe(String value) {
+        if (value == null || value.isEmpty() || value.length() > maxLength)
+            return value;
+        int slot = slot(value.hashCode());
+        String stored = table[slot];
+        if (value.equals(stored)) {
+            hits.increment();
+            return stored;
+        }
+        table[slot] = value;
+        misses.increment();
+        return value;
+    }
+
+    /**
+     * Returns the stored instance of the characters of a string, creating the string only when it isn't there.
+     */
+    String dedupe(CharSequence chars) {
+        int length = chars.length();
+        if (length == 0)
+            return "";
+        if (length > maxLength)
+            return chars.toString();
+        int hash = 0;
+        for (int i = 0; i < length; i++) {
+            hash = 31 * hash + chars.charAt(i);
+        }
+        int slot = slot(hash);
+        String stored = table[slot];
+        if (stored != null && stored.length() == length && stored.hashCode() == hash && stored.contentEquals(chars)) {
+            hits.increment();
+            return stored;
+        }
+        String value = chars.toString();
+        table[slot] = value;
+        misses.increment();
+        return value;
+    }
+
+    /**
+     * Decodes a json object, its repeated strings deduplicated.
+     *
+     * @param json The json string of the object.
+     * @return the decoded {@link JSONObject}.
+     * @throws JSONException when the string isn't a json object.
+     */
+    public JSONObject parseObject(String json) {
+        return new JSONObject(new DedupingTokener(json, this));
+    }
+
+    /**
+     * Decodes a json array, its repeated strings deduplicated.
+     *
+     * @param json The json string of the array.
+     * @return the decoded {@link JSONArray}.
+     * @throws JSONException when the string isn't a json array.
+     */
+    public JSONArray parseArray(String json) {
+        return new JSONArray(new DedupingTokener(json, this));
+    }
+
+    /**
+     * Returns the number of strings returned from the dictionary.
+     * @return the number of hits.
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns the number of strings stored in the dictionary, replacements included.
+     * @return the number of misses.
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    private int slot(int hash) {
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    @Override
+    public String toString() {
+        return "StringDeduplicator{capacity=" + table.length + ", maxLength=" + maxLength + ", hits=" + getHitCount()
+                + ", misses=" + getMissCount() + "}";
+    }
+}
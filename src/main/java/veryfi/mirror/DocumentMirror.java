@@ -0,0 +1,610 @@
+package veryfi.mirror;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+/**
+ * Local persistent copy of the documents and line items read through the client.
+ * <p>
+ * Responses are appended to a log file in the mirror directory and located through an in-memory index by key,
+ * plus secondary indexes by {@code external_id} and vendor name. Only the offsets are kept in memory, the bodies
+ * are read back from the log. Reopening the directory replays the log, so a restarted process serves its reads
+ * locally instead of stampeding the API.
+ * </p>
+ * <p>
+ * A read older than {@link #setRevalidateAfter(Duration)} is still served locally, and the entry is refreshed in the
+ * background with at most {@link #setMaxRevalidations(int)} refreshes at a time. Mutations invalidate the entry,
+ * and a read started before an invalidation never stores its stale result. The log is compacted once more than half
+ * of it is superseded records.
+ * </p>
+ * <p>
+ * Example:
+ * </p>
+ * <pre>{@code
+ * DocumentMirror mirror = new DocumentMirror(Paths.get("veryfi-mirror"));
+ * ((ClientImpl) client).setDocumentMirror(mirror);
+ * }</pre>
+ */
+public class DocumentMirror implements Closeable {
+
+    private static final String LOG_FILE = "mirror.log";
+    private static final long COMPACT_MIN_BYTES = 1 << 20;
+    private static final String DOCUMENT_PREFIX = "document:";
+    private static final String LINE_ITEMS_PREFIX = "line_items:";
+
+    private final Logger logger = Logger.getLogger("DocumentMirror");
+    private final Path logPath;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> byExternalId = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> byVendor = new ConcurrentHashMap<>();
+    private final Map<String, Long> generations = new ConcurrentHashMap<>();
+    private final Set<String> revalidating = ConcurrentHashMap.newKeySet();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong revalidations = new AtomicLong();
+    private final ExecutorService executor;
+    private FileChannel channel;
+    private long size;
+    private long garbage;
+    private Duration revalidateAfter = Duration.ofMinutes(10);
+    private Semaphore revalidationPermits = new Semaphore(4);
+
+    /**
+     * Opens the mirror stored in a directory, replaying its log.
+     *
+     * @param directory the {@link Path} of the mirror directory, created if missing.
+     * @throws IOException when the log can't be read.
+     */
+    public DocumentMirror(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        logPath = directory.resolve(LOG_FILE);
+        channel = FileChannel.open(logPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        replay();
+        executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "veryfi-mirror-revalidation");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * By default entries are revalidated in the background when read 10 minutes after they were fetched.
+     * @param revalidateAfter the age after which a read entry is refreshed
+     */
+    public void setRevalidateAfter(Duration revalidateAfter) {
+        this.revalidateAfter = revalidateAfter;
+    }
+
+    /**
+     * By default at most 4 entries are refreshed at the same time, reads of other stale entries skip their refresh.
+     * @param maxRevalidations the maximum number of concurrent background refreshes
+     */
+    public void setMaxRevalidations(int maxRevalidations) {
+        this.revalidationPermits = new Semaphore(maxRevalidations);
+    }
+
+    /**
+     * Returns the key of a document.
+     *
+     * @param documentId ID of the document.
+     * @return the key {@link String}
+     */
+    public static String documentKey(String documentId) {
+        return DOCUMENT_PREFIX + documentId;
+    }
+
+    /**
+     * Returns the key of the line items of a document.
+     *
+     * @param documentId ID of the document.
+     * @return the key {@link String}
+     */
+    public static String lineItemsKey(String documentId) {
+        return LINE_ITEMS_PREFIX + documentId;
+    }
+
+    /**
+     * Returns the local copy of an entry, or loads and stores it when missing.
+     *
+     * @param key    The key of the entry.
+     * @param loader Requests the entry from the API, also run in the background to revalidate it.
+     * @return the json string of the entry {@link String}
+     */
+    public String get(String key, Supplier<String> loader) {
+        String body = lookup(key, () -> CompletableFuture.supplyAsync(loader, executor));
+        if (body != null)
+            return body;
+        long generation = generation(key);
+        String loaded = loader.get();
+        store(key, loaded, generation);
+        return loaded;
+    }
+
+    /**
+     * Returns the local copy of an entry, or loads and stores it when missing.
+     *
+     * @param key    The key of the entry.
+     * @param loader Requests the entry from the API, also used to revalidate it.
+     * @return the json string of the entry {@link CompletableFuture}{@code <String>}
+     */
+    public CompletableFuture<String> getAsync(String key, Supplier<CompletableFuture<String>> loader) {
+        String body = lookup(key, loader);
+        if (body != null)
+            return CompletableFuture.completedFuture(body);
+        long generation = generation(key);
+        return loader.get().thenApply(loaded -> {
+            store(key, loaded, generation);
+            return loaded;
+        });
+    }
+
+    /**
+     * Drops the document and its line items, to call once the document was changed or deleted.
+     *
+     * @param documentId ID of the document.
+     */
+    public void invalidateDocument(String documentId) {
+        invalidate(documentKey(documentId), lineItemsKey(documentId));
+    }
+
+    /**
+     * Drops entries, loads started before this call won't store their result.
+     *
+     * @param keys The keys of the entries.
+     */
+    public void invalidate(String... keys) {
+        lock.writeLock().lock();
+        try {
+            for (String key : keys) {
+                generations.merge(key, 1L, Long::sum);
+                Entry entry = entries.remove(key);
+                if (entry != null) {
+                    unindex(key, entry);
+                    garbage += entry.recordLength;
+                    JSONObject header = new JSONObject().put("op", "del").put("key", key);
+                    garbage += append(header, null);
+                }
+            }
+        } catch (IOException e) {
+            logger.severe("invalidate: " + e.getMessage());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the local documents with an external ID, without calling the API.
+     *
+     * @param externalId the external ID set when the documents were processed.
+     * @return the json strings of the documents.
+     */
+    public List<String> findByExternalId(String externalId) {
+        return find(byExternalId, externalId);
+    }
+
+    /**
+     * Returns the local documents of a vendor, without calling the API.
+     *
+     * @param vendorName the vendor name, compared ignoring case.
+     * @return the json strings of the documents.
+     */
+    public List<String> findByVendor(String vendorName) {
+        return find(byVendor, vendorName.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Returns the number of entries in the mirror.
+     *
+     * @return the number of entries.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the number of reads served locally.
+     *
+     * @return the number of hits.
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Returns the number of reads sent to the API.
+     *
+     * @return the number of misses.
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Returns the number of background refreshes started.
+     *
+     * @return the number of revalidations.
+     */
+    public long getRevalidations() {
+        return revalidations.get();
+    }
+
+    /**
+     * Rewrites the log with the live entries only.
+     *
+     * @throws IOException when the log can't be rewritten.
+     */
+    public void compact() throws IOException {
+        lock.writeLock().lock();
+        try {
+            Path temp = logPath.resolveSibling(LOG_FILE + ".tmp");
+            Map<String, Entry> compacted = new HashMap<>();
+            long position = 0;
+            try (FileChannel target = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                for (Map.Entry<String, Entry> item : entries.entrySet()) {
+                    Entry entry = item.getValue();
+                    byte[] header = (entry.header(item.getKey()).toString() + "\n").getBytes(StandardCharsets.UTF_8);
+                    writeFully(target, ByteBuffer.wrap(header), position);
+                    long bodyOffset = position + header.length;
+                    writeFully(target, ByteBuffer.wrap(readBody(entry)), bodyOffset);
+                    writeFully(target, ByteBuffer.wrap(new byte[]{'\n'}), bodyOffset + entry.length);
+                    long recordLength = header.length + entry.length + 1L;
+                    compacted.put(item.getKey(), entry.moved(bodyOffset, recordLength));
+                    position += recordLength;
+                }
+                target.force(true);
+            }
+            channel.close();
+            Files.move(temp, logPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            channel = FileChannel.open(logPath, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            entries.putAll(compacted);
+            size = position;
+            garbage = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Flushes the log and stops the background refreshes.
+     *
+     * @throws IOException when the log can't be flushed.
+     */
+    @Override
+    public void close() throws IOException {
+        executor.shutdownNow();
+        lock.writeLock().lock();
+        try {
+            if (channel.isOpen()) {
+                channel.force(true);
+                channel.close();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private String lookup(String key, Supplier<CompletableFuture<String>> refresher) {
+        Entry entry = null;
+        String body;
+        lock.readLock().lock();
+        try {
+            entry = entries.get(key);
+            body = entry == null ? null : new String(readBody(entry), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            logger.warning("lookup: " + e.getMessage());
+            body = null;
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (body == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        if (System.currentTimeMillis() - entry.fetchedAt >= revalidateAfter.toMillis())
+            revalidate(key, body, refresher);
+        return body;
+    }
+
+    private void revalidate(String key, String body, Supplier<CompletableFuture<String>> refresher) {
+        if (!revalidating.add(key))
+            return;
+        Semaphore permits = revalidationPermits;
+        if (!permits.tryAcquire()) {
+            revalidating.remove(key);
+            return;
+        }
+        revalidations.incrementAndGet();
+        long generation = generation(key);
+        CompletableFuture<String> refreshed;
+        try {
+            refreshed = refresher.get();
+        } catch (RuntimeException e) {
+            permits.release();
+            revalidating.remove(key);
+            logger.warning("revalidate: " + e.getMessage());
+            return;
+        }
+        refreshed.whenComplete((loaded, error) -> {
+            try {
+                if (error != null) {
+                    logger.warning("revalidate: " + error.getMessage());
+                } else if (body.equals(loaded)) {
+                    touch(key, generation);
+                } else {
+                    store(key, loaded, generation);
+                }
+            } finally {
+                permits.release();
+                revalidating.remove(key);
+            }
+        });
+    }
+
+    private long generation(String key) {
+        return generations.getOrDefault(key, 0L);
+    }
+
+    private void touch(String key, long generation) {
+        lock.writeLock().lock();
+        try {
+            Entry entry = entries.get(key);
+            if (entry != null && generation(key) == generation)
+                entries.put(key, entry.fetched(System.currentTimeMillis()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void store(String key, String body, long generation) {
+        if (!isCacheable(body))
+            return;
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        lock.writeLock().lock();
+        try {
+            if (!channel.isOpen() || generation(key) != generation)
+                return;
+            long fetchedAt = System.currentTimeMillis();
+            String externalId = null;
+            String vendor = null;
+            if (key.startsWith(DOCUMENT_PREFIX)) {
+                JSONObject document = new JSONObject(body);
+                externalId = emptyToNull(document.optString("external_id", null));
+                JSONObject vendorObject = document.optJSONObject("vendor");
+                vendor = vendorObject == null ? null : emptyToNull(vendorObject.optString("name", null));
+            }
+            Entry entry = new Entry(0, bytes.length, 0, fetchedAt, externalId, vendor);
+            long offset = size;
+            long recordLength = append(entry.header(key), bytes);
+            Entry previous = entries.put(key, entry.moved(offset + recordLength - bytes.length - 1, recordLength));
+            if (previous != null) {
+                unindex(key, previous);
+                garbage += previous.recordLength;
+            }
+            index(byExternalId, externalId, key);
+            index(byVendor, vendor == null ? null : vendor.toLowerCase(Locale.ROOT), key);
+            if (garbage > COMPACT_MIN_BYTES && garbage * 2 > size)
+                compact();
+        } catch (IOException e) {
+            logger.severe("store: " + e.getMessage());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private long append(JSONObject header, byte[] body) throws IOException {
+        byte[] headerBytes = (header.toString() + "\n").getBytes(StandardCharsets.UTF_8);
+        long start = size;
+        writeFully(channel, ByteBuffer.wrap(headerBytes), start);
+        long length = headerBytes.length;
+        if (body != null) {
+            writeFully(channel, ByteBuffer.wrap(body), start + length);
+            writeFully(channel, ByteBuffer.wrap(new byte[]{'\n'}), start + length + body.length);
+            length += body.length + 1L;
+        }
+        size += length;
+        return length;
+    }
+
+    private byte[] readBody(Entry entry) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(entry.length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, entry.offset + buffer.position()) < 0)
+                throw new IOException("mirror log truncated at " + entry.offset);
+        }
+        return buffer.array();
+    }
+
+    private List<String> find(Map<String, Set<String>> index, String value) {
+        Set<String> keys = index.get(value);
+        if (keys == null)
+            return Collections.emptyList();
+        List<String> documents = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (String key : keys) {
+                Entry entry = entries.get(key);
+                if (entry != null)
+                    documents.add(new String(readBody(entry), StandardCharsets.UTF_8));
+            }
+        } catch (IOException e) {
+            logger.warning("find: " + e.getMessage());
+        } finally {
+            lock.readLock().unlock();
+        }
+        return documents;
+    }
+
+    private void index(Map<String, Set<String>> index, String value, String key) {
+        if (value != null)
+            index.computeIfAbsent(value, ignored -> ConcurrentHashMap.newKeySet()).add(key);
+    }
+
+    private void unindex(String key, Entry entry) {
+        unindex(byExternalId, entry.externalId, key);
+        unindex(byVendor, entry.vendor == null ? null : entry.vendor.toLowerCase(Locale.ROOT), key);
+    }
+
+    private void unindex(Map<String, Set<String>> index, String value, String key) {
+        if (value == null)
+            return;
+        index.computeIfPresent(value, (ignored, keys) -> {
+            keys.remove(key);
+            return keys.isEmpty() ? null : keys;
+        });
+    }
+
+    /**
+     * Rebuilds the indexes from the log, reading the record headers only. A record cut by a crash is dropped.
+     */
+    private void replay() throws IOException {
+        long fileSize = channel.size();
+        long position = 0;
+        InputStream input = new BufferedInputStream(Channels.newInputStream(channel.position(0)));
+        try {
+            while (position < fileSize) {
+                byte[] headerBytes = readLine(input);
+                if (headerBytes == null)
+                    break;
+                JSONObject header = new JSONObject(new String(headerBytes, StandardCharsets.UTF_8));
+                String key = header.getString("key");
+                long recordLength = headerBytes.length + 1L;
+                if ("put".equals(header.getString("op"))) {
+                    int length = header.getInt("length");
+                    if (position + recordLength + length + 1 > fileSize)
+                        break;
+                    input.skipNBytes(length + 1L);
+                    Entry entry = new Entry(position + recordLength, length, recordLength + length + 1,
+                            header.getLong("at"), header.optString("external_id", null), header.optString("vendor", null));
+                    recordLength += length + 1;
+                    Entry previous = entries.put(key, entry);
+                    if (previous != null) {
+                        unindex(key, previous);
+                        garbage += previous.recordLength;
+                    }
+                    index(byExternalId, entry.externalId, key);
+                    index(byVendor, entry.vendor == null ? null : entry.vendor.toLowerCase(Locale.ROOT), key);
+                } else {
+                    Entry previous = entries.remove(key);
+                    if (previous != null) {
+                        unindex(key, previous);
+                        garbage += previous.recordLength;
+                    }
+                    garbage += recordLength;
+                }
+                position += recordLength;
+            }
+        } catch (JSONException e) {
+            logger.warning("replay: dropping unreadable record at " + position);
+        }
+        if (position < fileSize) {
+            logger.warning("replay: truncating mirror log from " + fileSize + " to " + position + " bytes");
+            channel.truncate(position);
+        }
+        size = position;
+    }
+
+    private static byte[] readLine(InputStream input) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int read;
+        while ((read = input.read()) != '\n') {
+            if (read < 0)
+                return null;
+            line.write(read);
+        }
+        return line.toByteArray();
+    }
+
+    private static void writeFully(FileChannel target, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += target.write(buffer, position);
+        }
+    }
+
+    private static boolean isCacheable(String body) {
+        if (body == null || body.isEmpty() || body.charAt(0) != '{')
+            return false;
+        try {
+            JSONObject json = new JSONObject(body);
+            return !"fail".equals(json.optString("status")) && !json.has("error");
+        } catch (JSONException e) {
+            return false;
+        }
+    }
+
+    private static String emptyToNull(String value) {
+        return value == null || value.isEmpty() ? null : value;
+    }
+
+    /**
+     * Location of an entry in the log.
+     */
+    private static class Entry {
+        private final long offset;
+        private final int length;
+        private final long recordLength;
+        private final long fetchedAt;
+        private final String externalId;
+        private final String vendor;
+
+        private Entry(long offset, int length, long recordLength, long fetchedAt, String externalId, String vendor) {
+            this.offset = offset;
+            this.length = length;
+            this.recordLength = recordLength;
+            this.fetchedAt = fetchedAt;
+            this.externalId = externalId;
+            this.vendor = vendor;
+        }
+
+        private Entry moved(long newOffset, long newRecordLength) {
+            return new Entry(newOffset, length, newRecordLength, fetchedAt, externalId, vendor);
+        }
+
+        private Entry fetched(long newFetchedAt) {
+            return new Entry(offset, length, recordLength, newFetchedAt, externalId, vendor);
+        }
+
+        private JSONObject header(String key) {
+            JSONObject header = new JSONObject().put("op", "put").put("key", key).put("at", fetchedAt).put("length", length);
+            if (externalId != null)
+                header.put("external_id", externalId);
+            if (vendor != null)
+                header.put("vendor", vendor);
+            return header;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package veryfi.models;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of the synchronisation of the line items of a document with a desired list.
+ */
+public class LineItemSyncResult {
+
+    /**
+     * The id of the document.
+     */
+    public final String documentId;
+    /**
+     * The number of line items added successfully.
+     */
+    public final int added;
+    /**
+     * The number of line items updated successfully with their changed fields.
+     */
+    public final int updated;
+    /**
+     * The number of line items deleted successfully.
+     */
+    public final int deleted;
+    /**
+     * The number of line items already as desired, which needed no request.
+     */
+    public final int unchanged;
+    /**
+     * The reasons of the failed requests, empty on success.
+     */
+    public final List<String> errors;
+
+    /**
+     * Creates an instance of {@link LineItemSyncResult}.
+     *
+     * @param documentId The id of the document.
+     * @param added      The number of line items added.
+     * @param updated    The number of line items updated.
+     * @param deleted    The number of line items deleted.
+     * @param unchanged  The number of line items already as desired.
+     * @param errors     The reasons of the failed requests.
+     */
+    public LineItemSyncResult(String documentId, int added, int updated, int deleted, int unchanged, List<String> errors) {
+        this.documentId = documentId;
+        this.added = added;
+        this.updated = updated;
+        this.deleted = deleted;
+        this.unchanged = unchanged;
+        this.errors = Collections.unmodifiableList(errors);
+    }
+
+    /**
+     * Returns whether every request succeeded.
+     *
+     * @return true when the line items of the document are as desired.
+     */
+    public boolean isSuccess() {
+        return errors.isEmpty();
+    }
+
+    /**
+     * Returns the number of requests sent, the fetch of the current line items excluded.
+     *
+     * @return the number of adds, updates and deletes, failed ones included.
+     */
+    public int getRequestCount() {
+        return added + updated + deleted + errors.size();
+    }
+
+    @Override
+    public String toString() {
+        return "LineItemSyncResult{documentId=" + documentId + ", added=" + added + ", updated=" + updated
+                + ", deleted=" + deleted + ", unchanged=" + unchanged + ", errors=" + errors + "}";
+    }
+}
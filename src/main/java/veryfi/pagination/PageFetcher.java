@@ -0,0 +1,22 @@
+package veryfi.pagination;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Fetches one page of a Veryfi list endpoint.
+ * <p>
+ * Implementations usually delegate to one of the {@code get*Async(page, pageSize, ...)} methods
+ * of {@link veryfi.Client}. They may be called concurrently for different pages.
+ * </p>
+ */
+@FunctionalInterface
+public interface PageFetcher {
+
+    /**
+     * Requests a page.
+     *
+     * @param page The page number, starting from 1.
+     * @return the json string of the page {@link CompletableFuture}{@code <String>}
+     */
+    CompletableFuture<String> fetch(int page);
+}
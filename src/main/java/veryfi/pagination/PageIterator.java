@@ -0,0 +1,175 @@
+package veryfi.pagination;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import veryfi.intern.StringDeduplicator;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+/**
+ * Iterator over every record of a Veryfi list endpoint.
+ * <p>
+ * Pages are requested asynchronously through a {@link PageFetcher}: while the records of page N
+ * are consumed, pages N+1 to N+prefetchDepth are already in flight. Pages are parsed on the
+ * thread that completes the request, not on the consumer thread. Pages are never requested
+ * past the total announced by the API. {@link #close()} cancels the pages still in flight.
+ * </p>
+ * <p>
+ * A failed page request, or a page the API answers with a failure, is rethrown from {@link #hasNext()} or
+ * {@link #next()} as a {@link CompletionException} and closes the iterator.
+ * This class is not thread-safe.
+ * </p>
+ */
+public class PageIterator implements Iterator<JSONObject>, AutoCloseable {
+
+    private final PageFetcher fetcher;
+    private final int pageSize;
+    private final int prefetchDepth;
+    private final Function<String, JSONObject> parser;
+    private final Deque<PendingPage> inFlight = new ArrayDeque<>();
+    private Iterator<Object> records = Collections.emptyIterator();
+    private int nextPageToRequest = 1;
+    private int lastPage = Integer.MAX_VALUE;
+    private int pageNumber = 0;
+    private long seen = 0;
+    private boolean exhausted = false;
+
+    /**
+     * Creates an instance of {@link PageIterator}. No request is sent before the first call to {@link #hasNext()}.
+     *
+     * @param fetcher       the {@link PageFetcher} of the list endpoint.
+     * @param pageSize      The number of records per page.
+     * @param prefetchDepth The number of pages requested ahead of the page being consumed, 0 to disable prefetching.
+     */
+    public PageIterator(PageFetcher fetcher, int pageSize, int prefetchDepth) {
+        this(fetcher, pageSize, prefetchDepth, null);
+    }
+
+    /**
+     * Creates an instance of {@link PageIterator} decoding the pages through a {@link StringDeduplicator}.
+     * No request is sent before the first call to {@link #hasNext()}.
+     *
+     * @param fetcher       the {@link PageFetcher} of the list endpoint.
+     * @param pageSize      The number of records per page.
+     * @param prefetchDepth The number of pages requested ahead of the page being consumed, 0 to disable prefetching.
+     * @param deduplicator  the {@link StringDeduplicator} shared by the records, null to decode without one.
+     */
+    public PageIterator(PageFetcher fetcher, int pageSize, int prefetchDepth, StringDeduplicator deduplicator) {
+        if (pageSize <= 0)
+            throw new IllegalArgumentException("pageSize must be positive");
+        if (prefetchDepth < 0)
+            throw new IllegalArgumentException("prefetchDepth can't be negative");
+        this.fetcher = fetcher;
+        this.pageSize = pageSize;
+        this.prefetchDepth = prefetchDepth;
+        this.parser = deduplicator == null ? JSONObject::new : deduplicator::parseObject;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!records.hasNext()) {
+            if (exhausted)
+                return false;
+            advance();
+        }
+        return true;
+    }
+
+    @Override
+    public JSONObject next() {
+        if (!hasNext())
+            throw new NoSuchElementException();
+        return (JSONObject) records.next();
+    }
+
+    /**
+     * Returns the number of the last page received.
+     *
+     * @return the page number, 0 before the first page.
+     */
+    public int getPageNumber() {
+        return pageNumber;
+    }
+
+    /**
+     * Stops the iteration and cancels the pages still in flight.
+     */
+    @Override
+    public void close() {
+        exhausted = true;
+        records = Collections.emptyIterator();
+        cancelInFlight();
+    }
+
+    private void advance() {
+        request(Math.max(1, prefetchDepth));
+        PendingPage pending = inFlight.poll();
+        if (pending == null) {
+            exhausted = true;
+            return;
+        }
+        JSONObject page;
+        try {
+            page = pending.page.join();
+        } catch (RuntimeException e) {
+            close();
+            throw e;
+        }
+        pageNumber++;
+        String failure = Pages.failureOf(page);
+        if (failure != null) {
+            close();
+            throw new CompletionException(new IOException("page " + pageNumber + " failed: " + failure));
+        }
+        JSONArray pageRecords = Pages.records(page);
+        records = pageRecords.iterator();
+        seen += pageRecords.length();
+        if (Pages.isLastPage(page, pageNumber, pageSize, seen)) {
+            exhausted = true;
+            cancelInFlight();
+            return;
+        }
+        if (pageNumber == 1) {
+            // The API caps the page size, so the first full page tells the real one.
+            int totalPages = Pages.totalPages(page, pageRecords.length());
+            if (totalPages >= 0)
+                lastPage = totalPages;
+        }
+        request(prefetchDepth);
+    }
+
+    private void request(int depth) {
+        while (inFlight.size() < depth && nextPageToRequest <= lastPage) {
+            inFlight.add(new PendingPage(fetcher.fetch(nextPageToRequest++), parser));
+        }
+    }
+
+    private void cancelInFlight() {
+        PendingPage pending;
+        while ((pending = inFlight.poll()) != null) {
+            pending.response.cancel(true);
+            pending.page.cancel(true);
+        }
+    }
+
+    /**
+     * A requested page, keeping the raw response so cancellation reaches the http exchange.
+     */
+    private static class PendingPage {
+        private final CompletableFuture<String> response;
+        private final CompletableFuture<JSONObject> page;
+
+        private PendingPage(CompletableFuture<String> response, Function<String, JSONObject> parser) {
+            this.response = response;
+            this.page = response.thenApply(parser);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package veryfi.pagination;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import veryfi.intern.StringDeduplicator;
+
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Helpers to read the pages returned by the Veryfi list endpoints.
+ * <p>
+ * The list endpoints answer with one of three shapes: {@code {"documents": [...], "meta": {"total_pages": n}}},
+ * {@code {"count": n, "next": "...", "results": [...]}} or the same object wrapped in {@code "data"}.
+ * </p>
+ */
+public final class Pages {
+
+    /**
+     * The maximum number of records per page returned by the API.
+     */
+    public static final int MAX_PAGE_SIZE = 50;
+
+    private Pages() {
+        // private constructor
+    }
+
+    /**
+     * Creates a lazily evaluated {@link Stream} over every record of a list endpoint.
+     * Closing the stream cancels the pages still in flight.
+     *
+     * @param fetcher       the {@link PageFetcher} of the list endpoint.
+     * @param pageSize      The number of records per page.
+     * @param prefetchDepth The number of pages requested ahead of the page being consumed.
+     * @return the {@link Stream} of records.
+     */
+    public static Stream<JSONObject> stream(PageFetcher fetcher, int pageSize, int prefetchDepth) {
+        PageIterator iterator = new PageIterator(fetcher, pageSize, prefetchDepth);
+        Spliterator<JSONObject> spliterator = Spliterators.spliteratorUnknownSize(iterator,
+                Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false).onClose(iterator::close);
+    }
+
+    /**
+     * Creates a lazily evaluated {@link Stream} over every record of a list endpoint, the pages decoded through a
+     * {@link StringDeduplicator} so the records share their repeated strings.
+     * Closing the stream cancels the pages still in flight.
+     *
+     * @param fetcher       the {@link PageFetcher} of the list endpoint.
+     * @param pageSize      The number of records per page.
+     * @param prefetchDepth The number of pages requested ahead of the page being consumed.
+     * @param deduplicator  the {@link StringDeduplicator} shared by the records.
+     * @return the {@link Stream} of records.
+     */
+    public static Stream<JSONObject> stream(PageFetcher fetcher, int pageSize, int prefetchDepth,
+                                            StringDeduplicator deduplicator) {
+        PageIterator iterator = new PageIterator(fetcher, pageSize, prefetchDepth, deduplicator);
+        Spliterator<JSONObject> spliterator = Spliterators.spliteratorUnknownSize(iterator,
+                Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false).onClose(iterator::close);
+    }
+
+    /**
+     * Returns why the API refused a page request. A refused request has no records, so it must be checked before
+     * {@link #records(JSONObject)} to tell it from the end of the listing.
+     *
+     * @param page the page returned by a list endpoint.
+     * @return the failure message, or null when the page is a listing.
+     */
+    public static String failureOf(JSONObject page) {
+        if ("fail".equals(page.optString("status")))
+            return page.optString("message", page.has("error") ? String.valueOf(page.get("error")) : "fail");
+        if (page.has("error"))
+            return String.valueOf(page.get("error"));
+        return null;
+    }
+
+    /**
+     * Returns the records of a page.
+     *
+     * @param page the page returned by a list endpoint.
+     * @return the records {@link JSONArray}, empty when the page has none.
+     */
+    public static JSONArray records(JSONObject page) {
+        JSONObject body = body(page);
+        JSONArray records = body.optJSONArray("results");
+        if (records == null)
+            records = body.optJSONArray("documents");
+        return records == null ? new JSONArray() : records;
+    }
+
+    /**
+     * Returns the total number of pages announced by a page.
+     *
+     * @param page     the page returned by a list endpoint.
+     * @param pageSize The number of records per page requested.
+     * @return the number of pages, or -1 when the page doesn't say.
+     */
+    public static int totalPages(JSONObject page, int pageSize) {
+        JSONObject meta = page.optJSONObject("meta");
+        if (meta != null && meta.has("total_pages"))
+            return meta.getInt("total_pages");
+        long count = totalRecords(page);
+        if (count < 0 || pageSize <= 0)
+            return -1;
+        return (int) ((count + pageSize - 1) / pageSize);
+    }
+
+    /**
+     * Returns the total number of records announced by a page.
+     *
+     * @param page the page returned by a list endpoint.
+     * @return the number of records, or -1 when the page doesn't say.
+     */
+    public static long totalRecords(JSONObject page) {
+        JSONObject meta = page.optJSONObject("meta");
+        if (meta != null && meta.has("total_results"))
+            return meta.getLong("total_results");
+        JSONObject body = body(page);
+        return body.has("count") ? body.getLong("count") : -1;
+    }
+
+    /**
+     * Returns whether a page is the last one of the listing.
+     *
+     * @param page       the page returned by a list endpoint.
+     * @param pageNumber The page number of the page.
+     * @param pageSize   The number of records per page requested.
+     * @param seen       The number of records received so far, including this page.
+     * @return true when no more pages must be requested.
+     * @throws IllegalArgumentException when the page is a failed response, see {@link #failureOf(JSONObject)}.
+     */
+    public static boolean isLastPage(JSONObject page, int pageNumber, int pageSize, long seen) {
+        String failure = failureOf(page);
+        if (failure != null)
+            throw new IllegalArgumentException("page " + pageNumber + " failed: " + failure);
+        int recordCount = records(page).length();
+        if (recordCount == 0)
+            return true;
+        JSONObject meta = page.optJSONObject("meta");
+        if (meta != null && meta.has("total_pages"))
+            return pageNumber >= meta.getInt("total_pages");
+        long count = totalRecords(page);
+        if (count >= 0)
+            return seen >= count;
+        return recordCount < pageSize;
+    }
+
+    /**
+     * Copies the additional request parameters, the list services add the page to them.
+     *
+     * @param parameters Additional request parameters, may be null.
+     * @return a new {@link JSONObject}
+     */
+    public static JSONObject copy(JSONObject parameters) {
+        return parameters == null ? new JSONObject() : new JSONObject(parameters.toString());
+    }
+
+    private static JSONObject body(JSONObject page) {
+        JSONObject data = page.optJSONObject("data");
+        return data == null ? page : data;
+    }
+}
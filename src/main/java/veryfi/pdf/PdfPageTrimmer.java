@@ -0,0 +1,198 @@
+package veryfi.pdf;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.interactive.annotation.PDAnnotation;
+import org.apache.pdfbox.pdmodel.interactive.annotation.PDAnnotationLink;
+import veryfi.FileSource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Cuts PDFs down to the pages the API is asked to process before they are encoded and uploaded.
+ * <p>
+ * The max_pages_to_process argument only tells the API how many pages to read, the whole file is still sent.
+ * When it is set, PDFs with more pages are rewritten with Apache PDFBox keeping only the first pages, so the
+ * upload is as large as the pages that are processed. Only what the kept pages use is written: links and
+ * the back references of annotations, which could pull the dropped pages in, are removed.
+ * Encrypted PDFs are sent as they are, as is the original whenever the rewrite isn't smaller.
+ * </p>
+ * <p>
+ * PDFBox is an optional dependency of this library, add {@code org.apache.pdfbox:pdfbox} to use this class.
+ * </p>
+ * <p>
+ * Example:
+ * </p>
+ * <pre>{@code
+ * client.setPdfPageTrimmer(new PdfPageTrimmer());
+ * client.processBankStatement(filePath, new JSONObject().put("max_pages_to_process", 2));
+ * }</pre>
+ */
+public class PdfPageTrimmer {
+
+    private final Logger logger = Logger.getLogger("PdfPageTrimmer");
+    private long minBytes = 64 * 1024;
+    private final AtomicLong fileCount = new AtomicLong();
+    private final AtomicLong trimmedCount = new AtomicLong();
+    private final AtomicLong bytesBefore = new AtomicLong();
+    private final AtomicLong bytesAfter = new AtomicLong();
+
+    /**
+     * By default PDFs under 64 KiB are sent as they are.
+     * @param minBytes the size from which PDFs are trimmed
+     */
+    public void setMinBytes(long minBytes) {
+        this.minBytes = minBytes;
+    }
+
+    /**
+     * Returns whether a file is a PDF, from its extension.
+     *
+     * @param fileName Name of the file.
+     * @return true for PDF files.
+     */
+    public boolean accepts(String fileName) {
+        return fileName.toLowerCase(Locale.ROOT).endsWith(".pdf");
+    }
+
+    /**
+     * Returns the source to upload in place of the given one.
+     *
+     * @param source   the {@link FileSource} of the file.
+     * @param maxPages How many pages of the document are processed, starting from page 1, 0 for all of them.
+     * @return the same source when it isn't a PDF with more pages, otherwise the trimmed content.
+     * @throws IOException when the content can't be read.
+     */
+    public FileSource trim(FileSource source, int maxPages) throws IOException {
+        if (maxPages <= 0 || !accepts(source.getFileName()))
+            return source;
+        long length = source.getLength();
+        if (length >= 0 && length < minBytes)
+            return source;
+        byte[] content = source.readBytes();
+        byte[] result = trim(source.getFileName(), content, maxPages);
+        // A stream can't be read again, its content is sent from the array.
+        if (result == content && length >= 0)
+            return source;
+        return FileSource.fromBytes(source.getFileName(), result);
+    }
+
+    /**
+     * Returns the content to upload in place of the given one.
+     *
+     * @param fileName Name of the file, its extension gives the format.
+     * @param content  The content of the file.
+     * @param maxPages How many pages of the document are processed, starting from page 1, 0 for all of them.
+     * @return the same array when the file isn't a PDF with more pages or can't be trimmed, otherwise the new content.
+     */
+    public byte[] trim(String fileName, byte[] content, int maxPages) {
+        if (maxPages <= 0 || !accepts(fileName) || content.length < minBytes)
+            return content;
+        byte[] result = content;
+        try {
+            byte[] trimmed = firstPages(content, maxPages);
+            if (trimmed != null && trimmed.length < content.length)
+                result = trimmed;
+        } catch (IOException | RuntimeException e) {
+            logger.warning("trim: keeping " + fileName + " as is: " + e.getMessage());
+        }
+        fileCount.incrementAndGet();
+        bytesBefore.addAndGet(content.length);
+        bytesAfter.addAndGet(result.length);
+        if (result != content) {
+            trimmedCount.incrementAndGet();
+            logger.info("trim: " + fileName + " to " + maxPages + " pages, " + content.length + " -> " + result.length + " bytes");
+        }
+        return result;
+    }
+
+    private byte[] firstPages(byte[] content, int maxPages) throws IOException {
+        try (PDDocument document = Loader.loadPDF(content)) {
+            if (document.isEncrypted() || document.getNumberOfPages() <= maxPages)
+                return null;
+            try (PDDocument trimmed = new PDDocument()) {
+                trimmed.setVersion(document.getVersion());
+                for (int i = 0; i < maxPages; i++) {
+                    trimmed.importPage(detach(document.getPage(i)));
+                }
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                trimmed.save(out);
+                return out.toByteArray();
+            }
+        }
+    }
+
+    /**
+     * Makes a page stand on its own: the attributes it inherits from the page tree are set on it and
+     * the entries referencing other pages are removed.
+     */
+    private static PDPage detach(PDPage page) throws IOException {
+        page.setResources(page.getResources());
+        page.setMediaBox(page.getMediaBox());
+        page.setCropBox(page.getCropBox());
+        page.setRotation(page.getRotation());
+        page.getCOSObject().removeItem(COSName.B);
+        List<PDAnnotation> annotations = new ArrayList<>();
+        for (PDAnnotation annotation : page.getAnnotations()) {
+            if (annotation instanceof PDAnnotationLink)
+                continue;
+            annotation.getCOSObject().removeItem(COSName.P);
+            annotation.getCOSObject().removeItem(COSName.PARENT);
+            annotation.getCOSObject().removeItem(COSName.POPUP);
+            annotation.getCOSObject().removeItem(COSName.IRT);
+            annotations.add(annotation);
+        }
+        if (annotations.isEmpty()) {
+            page.getCOSObject().removeItem(COSName.ANNOTS);
+        } else {
+            page.setAnnotations(annotations);
+        }
+        return page;
+    }
+
+    /**
+     * Returns the number of PDFs from the minimum size on that were examined.
+     * @return the number of examined files.
+     */
+    public long getFileCount() {
+        return fileCount.get();
+    }
+
+    /**
+     * Returns the number of PDFs sent trimmed.
+     * @return the number of trimmed files.
+     */
+    public long getTrimmedCount() {
+        return trimmedCount.get();
+    }
+
+    /**
+     * Returns the bytes of the examined PDFs before trimming.
+     * @return the bytes before.
+     */
+    public long getBytesBefore() {
+        return bytesBefore.get();
+    }
+
+    /**
+     * Returns the bytes of the examined PDFs after trimming.
+     * @return the bytes after.
+     */
+    public long getBytesAfter() {
+        return bytesAfter.get();
+    }
+
+    @Override
+    public String toString() {
+        return "PdfPageTrimmer{files=" + getFileCount() + ", trimmed=" + getTrimmedCount()
+                + ", bytesBefore=" + getBytesBefore() + ", bytesAfter=" + getBytesAfter() + "}";
+    }
+}
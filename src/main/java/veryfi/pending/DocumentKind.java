@@ -0,0 +1,89 @@
+package veryfi.pending;
+
+import org.json.JSONObject;
+import veryfi.Client;
+import veryfi.FileSource;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiFunction;
+
+/**
+ * The document types a {@link StatusPoller} submits and polls, with their process, get and delete methods.
+ */
+public enum DocumentKind {
+
+    /**
+     * Receipts and invoices, {@code processDocument}, {@code getDocumentAsync} and {@code deleteDocumentAsync}.
+     */
+    DOCUMENT((client, source, parameters) -> client.processDocument(source, (List<String>) null, false, parameters),
+            Client::getDocumentAsync, Client::deleteDocumentAsync),
+    /**
+     * AnyDocs, {@code processAnyDocument} with the "blueprint_name" of the parameters,
+     * {@code getAnyDocumentAsync} and {@code deleteAnyDocumentAsync}.
+     */
+    ANY_DOCUMENT((client, source, parameters) -> client.processAnyDocument(source,
+            (String) parameters.remove("blueprint_name"), parameters), Client::getAnyDocumentAsync, Client::deleteAnyDocumentAsync),
+    /**
+     * Bank statements, {@code processBankStatement}, {@code getBankStatementAsync} and {@code deleteBankStatementAsync}.
+     */
+    BANK_STATEMENT(Client::processBankStatement, Client::getBankStatementAsync, Client::deleteBankStatementAsync),
+    /**
+     * Business cards, {@code processBusinessCard}, {@code getBusinessCardAsync} and {@code deleteBusinessCardAsync}.
+     */
+    BUSINESS_CARD(Client::processBusinessCard, Client::getBusinessCardAsync, Client::deleteBusinessCardAsync),
+    /**
+     * Checks, {@code processCheck}, {@code getCheckAsync} and {@code deleteCheckAsync}.
+     */
+    CHECK(Client::processCheck, Client::getCheckAsync, Client::deleteCheckAsync),
+    /**
+     * W-2 forms, {@code processW2}, {@code getW2Async} and {@code deleteW2Async}.
+     */
+    W2(Client::processW2, Client::getW2Async, Client::deleteW2Async),
+    /**
+     * W-8BEN-E forms, {@code processW8BenE}, {@code getW8BenEAsync} and {@code deleteW8BenEAsync}.
+     */
+    W8BENE(Client::processW8BenE, Client::getW8BenEAsync, Client::deleteW8BenEAsync),
+    /**
+     * W-9 forms, {@code processW9}, {@code getW9Async} and {@code deleteW9Async}.
+     */
+    W9(Client::processW9, Client::getW9Async, Client::deleteW9Async),
+    /**
+     * Contracts, {@code processContract}, {@code getContractAsync} and {@code deleteContractAsync}.
+     */
+    CONTRACT(Client::processContract, Client::getContractAsync, Client::deleteContractAsync);
+
+    private final Submitter submitter;
+    private final BiFunction<Client, String, CompletableFuture<String>> fetcher;
+    private final BiFunction<Client, String, CompletableFuture<String>> deleter;
+
+    DocumentKind(Submitter submitter, BiFunction<Client, String, CompletableFuture<String>> fetcher,
+                 BiFunction<Client, String, CompletableFuture<String>> deleter) {
+        this.submitter = submitter;
+        this.fetcher = fetcher;
+        this.deleter = deleter;
+    }
+
+    String submit(Client client, FileSource source, JSONObject parameters) {
+        return submitter.submit(client, source, parameters);
+    }
+
+    CompletableFuture<String> fetch(Client client, String documentId) {
+        return fetcher.apply(client, documentId);
+    }
+
+    /**
+     * Deletes a document of this type.
+     *
+     * @param client     the {@link Client} deleting the document.
+     * @param documentId ID of the document.
+     * @return the response data. {@link CompletableFuture}{@code <String>}
+     */
+    public CompletableFuture<String> delete(Client client, String documentId) {
+        return deleter.apply(client, documentId);
+    }
+
+    private interface Submitter {
+        String submit(Client client, FileSource source, JSONObject parameters);
+    }
+}
@@ -0,0 +1,77 @@
+package veryfi.pending;
+
+import org.json.JSONObject;
+
+import java.time.Instant;
+
+/**
+ * A document submitted for asynchronous processing, whose result a {@link StatusPoller} waits for.
+ * <p>
+ * Handles are plain values, they are written to a {@link PendingStore} and read back by another process.
+ * </p>
+ */
+public class PendingHandle {
+
+    /**
+     * The type of the document, which selects the get method polling it.
+     */
+    public final DocumentKind kind;
+    /**
+     * The id of the document returned by the submission.
+     */
+    public final String documentId;
+    /**
+     * The external_id sent with the submission, null without one.
+     */
+    public final String externalId;
+    /**
+     * The time of the submission.
+     */
+    public final Instant submittedAt;
+
+    /**
+     * Creates an instance of {@link PendingHandle}.
+     *
+     * @param kind        The type of the document.
+     * @param documentId  The id of the document.
+     * @param externalId  The external_id sent with the submission, or null.
+     * @param submittedAt The time of the submission.
+     */
+    public PendingHandle(DocumentKind kind, String documentId, String externalId, Instant submittedAt) {
+        if (kind == null || documentId == null)
+            throw new IllegalArgumentException("kind and documentId are required");
+        this.kind = kind;
+        this.documentId = documentId;
+        this.externalId = externalId;
+        this.submittedAt = submittedAt;
+    }
+
+    /**
+     * Returns the key of the handle, a document id is only unique within its type.
+     * @return the type and the id of the document.
+     */
+    public String key() {
+        return kind + ":" + documentId;
+    }
+
+    JSONObject toJson() {
+        JSONObject json = new JSONObject();
+        json.put("kind", kind.name());
+        json.put("document_id", documentId);
+        if (externalId != null)
+            json.put("external_id", externalId);
+        json.put("submitted_at", submittedAt.toString());
+        return json;
+    }
+
+    static PendingHandle fromJson(JSONObject json) {
+        return new PendingHandle(DocumentKind.valueOf(json.getString("kind")), json.getString("document_id"),
+                json.optString("external_id", null), Instant.parse(json.getString("submitted_at")));
+    }
+
+    @Override
+    public String toString() {
+        return "PendingHandle{kind=" + kind + ", documentId=" + documentId + ", externalId=" + externalId
+                + ", submittedAt=" + submittedAt + "}";
+    }
+}
@@ -0,0 +1,77 @@
+package veryfi.pending;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * File holding the {@link PendingHandle}s of a {@link StatusPoller} between runs.
+ * <p>
+ * The file is replaced atomically, so a crash never leaves a partially written list of handles.
+ * </p>
+ */
+public class PendingStore {
+
+    private final Path path;
+
+    /**
+     * Creates an instance of {@link PendingStore}.
+     *
+     * @param path the {@link Path} of the file, created on the first save.
+     */
+    public PendingStore(Path path) {
+        this.path = path;
+    }
+
+    /**
+     * Reads the pending handles.
+     *
+     * @return the {@link PendingHandle}s, empty when nothing was saved yet.
+     * @throws IOException when the file can't be read.
+     */
+    public List<PendingHandle> load() throws IOException {
+        List<PendingHandle> handles = new ArrayList<>();
+        if (!Files.exists(path))
+            return handles;
+        JSONArray pending = new JSONObject(Files.readString(path, StandardCharsets.UTF_8)).optJSONArray("pending");
+        if (pending != null) {
+            for (int i = 0; i < pending.length(); i++) {
+                handles.add(PendingHandle.fromJson(pending.getJSONObject(i)));
+            }
+        }
+        return handles;
+    }
+
+    /**
+     * Saves the pending handles, replacing the saved ones.
+     *
+     * @param handles the {@link PendingHandle}s.
+     * @throws IOException when the file can't be written.
+     */
+    public void save(Collection<PendingHandle> handles) throws IOException {
+        JSONArray pending = new JSONArray();
+        for (PendingHandle handle : handles) {
+            pending.put(handle.toJson());
+        }
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        Files.writeString(temp, new JSONObject().put("pending", pending).toString(), StandardCharsets.UTF_8);
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Deletes the file.
+     *
+     * @throws IOException when the file can't be deleted.
+     */
+    public void clear() throws IOException {
+        Files.deleteIfExists(path);
+    }
+}
@@ -0,0 +1,496 @@
+package veryfi.pending;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import veryfi.Client;
+import veryfi.Constants;
+import veryfi.FileSource;
+import veryfi.batch.BatchProcessor;
+import veryfi.pagination.Pages;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.logging.Logger;
+
+/**
+ * Submits documents for asynchronous processing and waits for their results.
+ * <p>
+ * A submission sends the "async" flag, so the API answers with the id of the document instead of holding the
+ * connection until the extraction is done, and returns a {@link PendingHandle} right away. The handles are polled
+ * with the get method of their {@link DocumentKind} until the status of the document is no longer in progress,
+ * then the future of the handle completes with the document.
+ * </p>
+ * <p>
+ * The polls of every handle are scheduled on a hashed timer wheel turned by a single thread, which keeps thousands
+ * of pending handles cheap to schedule. The delay between the polls of a handle grows while the document is in
+ * progress, and at most a fixed number of polls start on a tick, the due handles beyond it wait for the next ticks.
+ * The API has no status endpoint for many documents at once, so that cap is how the polls of many handles are
+ * batched. With a {@link PendingStore} the pending handles are saved periodically and on {@link #close()}, and
+ * {@link #resume()} tracks them again in the next process. A webhook reporting a document processed polls it
+ * right away through {@link #pollNow(String, String)}.
+ * </p>
+ * <p>
+ * Example:
+ * </p>
+ * <pre>{@code
+ * StatusPoller poller = new StatusPoller(client, new PendingStore(Path.of("pending.json")), Duration.ofMillis(100));
+ * poller.resume().forEach((handle, future) -> future.thenAccept(this::store));
+ * PendingHandle handle = poller.submit(DocumentKind.W2, FileSource.fromPath(path), null);
+ * poller.resultOf(handle).thenAccept(this::store);
+ * }</pre>
+ */
+public class StatusPoller implements AutoCloseable {
+
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+    private static final int WHEEL_SIZE = 512;
+
+    private final Logger logger = Logger.getLogger("StatusPoller");
+    private final Client client;
+    private final PendingStore store;
+    private final long tickNanos;
+    private final long origin = System.nanoTime();
+    private final ScheduledThreadPoolExecutor scheduler;
+    private final Map<String, Tracked> pending = new ConcurrentHashMap<>();
+    private final Map<String, Tracked> byDocumentId = new ConcurrentHashMap<>();
+    private final Map<String, Tracked> byExternalId = new ConcurrentHashMap<>();
+    private final Queue<Timer> incoming = new ConcurrentLinkedQueue<>();
+    private final List<ArrayDeque<Timer>> wheel;
+    private final ArrayDeque<Timer> due = new ArrayDeque<>();
+    private long currentTick = 0;
+    private volatile long lastFlush = System.nanoTime();
+    private volatile boolean dirty = false;
+    private volatile boolean closed = false;
+    private volatile Duration initialDelay = Duration.ofSeconds(5);
+    private volatile Duration maxDelay = Duration.ofMinutes(1);
+    private volatile double backoffMultiplier = 1.5;
+    private volatile Duration timeout = Duration.ofMinutes(30);
+    private volatile int maxPollsPerTick = 50;
+    private volatile Duration flushInterval = Duration.ofSeconds(1);
+    private volatile BiConsumer<PendingHandle, String> listener = (handle, document) -> { };
+    private final AtomicLong pollCount = new AtomicLong();
+    private final AtomicLong completedCount = new AtomicLong();
+
+    /**
+     * Creates an instance of {@link StatusPoller} turning its wheel every 100 milliseconds, without a store.
+     *
+     * @param client the {@link Client} submitting and polling the documents.
+     */
+    public StatusPoller(Client client) {
+        this(client, null, Duration.ofMillis(100));
+    }
+
+    /**
+     * Creates an instance of {@link StatusPoller} and starts its wheel.
+     *
+     * @param client the {@link Client} submitting and polling the documents.
+     * @param store  the {@link PendingStore} saving the pending handles, or null to keep them in memory only.
+     * @param tick   the time between two turns of the wheel, the precision of the poll delays.
+     */
+    public StatusPoller(Client client, PendingStore store, Duration tick) {
+        if (tick.isNegative() || tick.isZero())
+            throw new IllegalArgumentException("tick must be positive");
+        this.client = client;
+        this.store = store;
+        this.tickNanos = tick.toNanos();
+        List<ArrayDeque<Timer>> buckets = new ArrayList<>(WHEEL_SIZE);
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            buckets.add(new ArrayDeque<>());
+        }
+        this.wheel = List.copyOf(buckets);
+        this.scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "veryfi-poller-" + THREAD_COUNT.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(this::turn, tickNanos, tickNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * By default a handle is first polled 5 seconds after it is tracked.
+     * @param initialDelay the delay before the first poll
+     */
+    public void setInitialDelay(Duration initialDelay) {
+        this.initialDelay = initialDelay;
+    }
+
+    /**
+     * By default the delay between polls grows up to 1 minute.
+     * @param maxDelay the longest delay between polls
+     */
+    public void setMaxDelay(Duration maxDelay) {
+        this.maxDelay = maxDelay;
+    }
+
+    /**
+     * By default the delay between polls grows 1.5 times after every poll of a document in progress.
+     * @param backoffMultiplier the growth of the delay, 1 polls at a fixed rate
+     */
+    public void setBackoffMultiplier(double backoffMultiplier) {
+        if (backoffMultiplier < 1)
+            throw new IllegalArgumentException("backoffMultiplier must be at least 1");
+        this.backoffMultiplier = backoffMultiplier;
+    }
+
+    /**
+     * By default a handle is given up on 30 minutes after it is tracked.
+     * @param timeout the time after which the future of a handle completes with a {@link TimeoutException}
+     */
+    public void setTimeout(Duration timeout) {
+        this.timeout = timeout;
+    }
+
+    /**
+     * By default at most 50 polls start on a tick.
+     * @param maxPollsPerTick the maximum number of polls started on a tick
+     */
+    public void setMaxPollsPerTick(int maxPollsPerTick) {
+        if (maxPollsPerTick <= 0)
+            throw new IllegalArgumentException("maxPollsPerTick must be positive");
+        this.maxPollsPerTick = maxPollsPerTick;
+    }
+
+    /**
+     * By default the pending handles are saved at most once a second when they change.
+     * @param flushInterval the minimum time between two saves of the store
+     */
+    public void setFlushInterval(Duration flushInterval) {
+        this.flushInterval = flushInterval;
+    }
+
+    /**
+     * By default nothing is notified, the results only come from the futures.
+     * @param listener called with the handle and the document json of every processed document, before its future
+     *                 completes, from the thread of the poll response
+     */
+    public void setListener(BiConsumer<PendingHandle, String> listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Submits a file for asynchronous processing and tracks its document.
+     *
+     * @param kind       the {@link DocumentKind} selecting the process method.
+     * @param source     the {@link FileSource} of the file.
+     * @param parameters Additional request parameters, an external_id is kept in the handle.
+     * @return the {@link PendingHandle} of the document, its result comes from {@link #resultOf(PendingHandle)} while
+     * it is pending and from the listener.
+     * @throws IllegalStateException when the submission fails.
+     */
+    public PendingHandle submit(DocumentKind kind, FileSource source, JSONObject parameters) {
+        JSONObject submitParameters = Pages.copy(parameters);
+        submitParameters.put("async", true);
+        String externalId = submitParameters.optString("external_id", null);
+        String response = kind.submit(client, source, submitParameters);
+        String documentId = idOf(response);
+        if (documentId == null)
+            throw new IllegalStateException("submit failed: " + source.getFileName() + ": " + response);
+        PendingHandle handle = new PendingHandle(kind, documentId, externalId, Instant.now());
+        track(handle);
+        return handle;
+    }
+
+    /**
+     * Tracks a handle until its document is processed, tracking the same document twice returns the same future.
+     *
+     * @param handle the {@link PendingHandle} of the document.
+     * @return the {@link CompletableFuture} of the document json, cancelling it stops the tracking.
+     */
+    public CompletableFuture<String> track(PendingHandle handle) {
+        if (closed)
+            return CompletableFuture.failedFuture(new CancellationException("poller closed"));
+        Tracked created = new Tracked(handle, System.nanoTime());
+        Tracked tracked = pending.putIfAbsent(handle.key(), created);
+        if (tracked != null)
+            return tracked.future;
+        dirty = true;
+        byDocumentId.put(handle.documentId, created);
+        if (handle.externalId != null)
+            byExternalId.put(handle.externalId, created);
+        created.future.whenComplete((document, e) -> {
+            if (pending.remove(handle.key(), created))
+                dirty = true;
+            byDocumentId.remove(handle.documentId, created);
+            if (handle.externalId != null)
+                byExternalId.remove(handle.externalId, created);
+            if (e == null)
+                completedCount.incrementAndGet();
+        });
+        schedule(created, initialDelay.toMillis());
+        return created.future;
+    }
+
+    /**
+     * Tracks the handles saved in the store by a previous process.
+     *
+     * @return the {@link CompletableFuture}s of the saved {@link PendingHandle}s, empty without a store.
+     * @throws IOException when the store can't be read.
+     */
+    public Map<PendingHandle, CompletableFuture<String>> resume() throws IOException {
+        Map<PendingHandle, CompletableFuture<String>> futures = new LinkedHashMap<>();
+        if (store == null)
+            return futures;
+        for (PendingHandle handle : store.load()) {
+            futures.put(handle, track(handle));
+        }
+        return futures;
+    }
+
+    /**
+     * Polls a pending document now instead of at its scheduled time, for example when a webhook reports it
+     * processed. The document is matched by its id, then by its external_id, and its future completes once the
+     * poll finds it processed; otherwise the polls go on from the initial delay.
+     *
+     * @param documentId The id of the document, or null.
+     * @param externalId The external_id of the document, or null.
+     * @return true when a pending handle matched.
+     */
+    public boolean pollNow(String documentId, String externalId) {
+        Tracked tracked = documentId == null ? null : byDocumentId.get(documentId);
+        if (tracked == null && externalId != null)
+            tracked = byExternalId.get(externalId);
+        if (tracked == null || tracked.future.isDone())
+            return false;
+        // Superseding the deadline drops the poll already on the wheel.
+        tracked.deadline = Long.MIN_VALUE;
+        tracked.delayMillis = 0;
+        poll(tracked);
+        return true;
+    }
+
+    /**
+     * Returns the future of a tracked handle.
+     *
+     * @param handle the {@link PendingHandle} of the document.
+     * @return the {@link CompletableFuture} of the document json, null when the handle isn't pending anymore.
+     */
+    public CompletableFuture<String> resultOf(PendingHandle handle) {
+        Tracked tracked = pending.get(handle.key());
+        return tracked == null ? null : tracked.future;
+    }
+
+    /**
+     * Saves the pending handles to the store now.
+     *
+     * @throws IOException when the store can't be written.
+     */
+    public synchronized void flush() throws IOException {
+        if (store == null)
+            return;
+        dirty = false;
+        List<PendingHandle> handles = new ArrayList<>(pending.size());
+        for (Tracked tracked : pending.values()) {
+            handles.add(tracked.handle);
+        }
+        store.save(handles);
+        lastFlush = System.nanoTime();
+    }
+
+    /**
+     * Stops polling and saves the pending handles, the futures in progress complete with a
+     * {@link CancellationException}.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        scheduler.shutdownNow();
+        try {
+            flush();
+        } catch (IOException e) {
+            logger.severe("close: pending handles not saved: " + e.getMessage());
+        }
+        for (Tracked tracked : pending.values()) {
+            tracked.future.completeExceptionally(new CancellationException("poller closed"));
+        }
+    }
+
+    private void schedule(Tracked tracked, long delayMillis) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMillis);
+        tracked.delayMillis = delayMillis;
+        tracked.deadline = deadline;
+        incoming.add(new Timer(tracked, deadline));
+        if (closed)
+            tracked.future.completeExceptionally(new CancellationException("poller closed"));
+    }
+
+    /**
+     * Runs on the wheel thread: places the new deadlines, expires the buckets up to now and starts the due polls.
+     */
+    private void turn() {
+        try {
+            Timer timer;
+            while ((timer = incoming.poll()) != null) {
+                long tick = Math.max(currentTick + 1, -Math.floorDiv(origin - timer.deadline, tickNanos));
+                timer.deadlineTick = tick;
+                wheel.get((int) (tick & (WHEEL_SIZE - 1))).add(timer);
+            }
+            long now = System.nanoTime();
+            long target = (now - origin) / tickNanos;
+            while (currentTick < target) {
+                currentTick++;
+                Iterator<Timer> bucket = wheel.get((int) (currentTick & (WHEEL_SIZE - 1))).iterator();
+                while (bucket.hasNext()) {
+                    Timer next = bucket.next();
+                    if (next.deadlineTick <= currentTick) {
+                        bucket.remove();
+                        due.add(next);
+                    }
+                }
+            }
+            int started = 0;
+            long timeoutNanos = timeout.toNanos();
+            while (started < maxPollsPerTick && (timer = due.poll()) != null) {
+                Tracked tracked = timer.tracked;
+                if (tracked.future.isDone() || tracked.deadline != timer.deadline)
+                    continue;
+                if (now - tracked.start >= timeoutNanos) {
+                    tracked.future.completeExceptionally(new TimeoutException(
+                            tracked.handle.key() + " not processed after " + timeout));
+                    continue;
+                }
+                poll(tracked);
+                started++;
+            }
+            if (dirty && store != null && now - lastFlush >= flushInterval.toNanos())
+                flush();
+        } catch (IOException e) {
+            logger.warning("turn: pending handles not saved: " + e.getMessage());
+        } catch (RuntimeException e) {
+            logger.severe("turn: " + e);
+        }
+    }
+
+    private void poll(Tracked tracked) {
+        pollCount.incrementAndGet();
+        PendingHandle handle = tracked.handle;
+        try {
+            handle.kind.fetch(client, handle.documentId).whenComplete((response, e) -> {
+                if (e == null && isProcessed(response)) {
+                    notify(handle, response);
+                    tracked.future.complete(response);
+                } else {
+                    if (e != null || BatchProcessor.failureOf(response) != null)
+                        logger.warning("poll: " + handle.key() + ": " + (e != null ? e : response));
+                    schedule(tracked, nextDelay(tracked));
+                }
+            });
+        } catch (RuntimeException e) {
+            tracked.future.completeExceptionally(e);
+        }
+    }
+
+    private void notify(PendingHandle handle, String document) {
+        try {
+            listener.accept(handle, document);
+        } catch (RuntimeException e) {
+            logger.warning("notify: " + handle.key() + ": " + e);
+        }
+    }
+
+    private long nextDelay(Tracked tracked) {
+        long initial = initialDelay.toMillis();
+        return Math.min(maxDelay.toMillis(), Math.max(initial, (long) (tracked.delayMillis * backoffMultiplier)));
+    }
+
+    private static boolean isProcessed(String response) {
+        if (response == null || BatchProcessor.failureOf(response) != null)
+            return false;
+        try {
+            JSONObject json = new JSONObject(response);
+            JSONObject data = json.optJSONObject("data");
+            String status = (data != null ? data : json).optString("status", "");
+            return !Constants.PENDING_STATUSES.contains(status.toLowerCase());
+        } catch (JSONException e) {
+            return false;
+        }
+    }
+
+    private static String idOf(String response) {
+        if (response == null || BatchProcessor.failureOf(response) != null)
+            return null;
+        try {
+            JSONObject json = new JSONObject(response);
+            JSONObject data = json.optJSONObject("data");
+            JSONObject document = data != null ? data : json;
+            return document.has("id") ? String.valueOf(document.get("id")) : null;
+        } catch (JSONException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the number of handles being tracked.
+     * @return the number of pending handles.
+     */
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Returns the number of polls of pending handles.
+     * @return the number of polls.
+     */
+    public long getPollCount() {
+        return pollCount.get();
+    }
+
+    /**
+     * Returns the number of handles whose document was processed.
+     * @return the number of completed handles.
+     */
+    public long getCompletedCount() {
+        return completedCount.get();
+    }
+
+    @Override
+    public String toString() {
+        return "StatusPoller{pending=" + getPendingCount() + ", polls=" + getPollCount() + ", completed=" + getCompletedCount() + "}";
+    }
+
+    /**
+     * State of a tracked handle, a timer whose deadline isn't the last one of its handle is dropped when due.
+     */
+    private static class Tracked {
+        private final PendingHandle handle;
+        private final long start;
+        private final CompletableFuture<String> future = new CompletableFuture<>();
+        private volatile long delayMillis;
+        private volatile long deadline;
+
+        private Tracked(PendingHandle handle, long start) {
+            this.handle = handle;
+            this.start = start;
+        }
+    }
+
+    /**
+     * Entry of the wheel, only touched by the wheel thread once queued.
+     */
+    private static class Timer {
+        private final Tracked tracked;
+        private final long deadline;
+        private long deadlineTick;
+
+        private Timer(Tracked tracked, long deadline) {
+            this.tracked = tracked;
+            this.deadline = deadline;
+        }
+    }
+}
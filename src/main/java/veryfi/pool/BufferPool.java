@@ -0,0 +1,236 @@
+package veryfi.pool;
+
+import java.lang.ref.Cleaner;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Pool of reusable direct {@link ByteBuffer}s in power of two size classes.
+ * <p>
+ * Request bodies of uploads are as large as the files, so allocating them for every request fills the heap
+ * with short-lived humongous arrays. Borrowing direct buffers from a pool keeps them off the heap and reuses
+ * them across requests. A borrowed {@link PooledBuffer} must be closed once the exchange finishes; one that
+ * becomes unreachable without being closed is reported as a leak and its buffer left to the garbage collector.
+ * </p>
+ * <p>
+ * Sizes from 64 KiB to the largest class are pooled, larger requests get a buffer of their own that isn't kept.
+ * Idle buffers are kept up to a total number of bytes, past it released buffers are dropped.
+ * </p>
+ */
+public class BufferPool {
+
+    private static final Cleaner CLEANER = Cleaner.create();
+    private static final int MIN_CLASS_SHIFT = 16;
+    private static final int DEFAULT_MAX_CLASS_SHIFT = 26;
+    private static final int MAX_LEAK_FRAMES = 12;
+
+    private final Logger logger = Logger.getLogger("BufferPool");
+    private final int maxClassShift;
+    private final long maxPooledBytes;
+    private final List<Queue<ByteBuffer>> classes;
+    private final AtomicLong pooledBytes = new AtomicLong();
+    private final AtomicLong borrowedBytes = new AtomicLong();
+    private final AtomicLong acquireCount = new AtomicLong();
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong leakCount = new AtomicLong();
+    private volatile boolean leakTracking = false;
+
+    /**
+     * Creates an instance of {@link BufferPool} pooling buffers up to 64 MiB.
+     *
+     * @param maxPooledBytes The maximum number of bytes of idle buffers kept.
+     */
+    public BufferPool(long maxPooledBytes) {
+        this(maxPooledBytes, 1 << DEFAULT_MAX_CLASS_SHIFT);
+    }
+
+    /**
+     * Creates an instance of {@link BufferPool}.
+     *
+     * @param maxPooledBytes The maximum number of bytes of idle buffers kept.
+     * @param maxBufferSize  The size of the largest pooled buffer, rounded up to a power of two.
+     */
+    public BufferPool(long maxPooledBytes, int maxBufferSize) {
+        if (maxPooledBytes < 0)
+            throw new IllegalArgumentException("maxPooledBytes must not be negative");
+        if (maxBufferSize <= 0)
+            throw new IllegalArgumentException("maxBufferSize must be positive");
+        this.maxPooledBytes = maxPooledBytes;
+        this.maxClassShift = Math.max(MIN_CLASS_SHIFT, classShift(maxBufferSize));
+        int classCount = maxClassShift - MIN_CLASS_SHIFT + 1;
+        List<Queue<ByteBuffer>> queues = new ArrayList<>(classCount);
+        for (int i = 0; i < classCount; i++) {
+            queues.add(new ConcurrentLinkedQueue<>());
+        }
+        this.classes = List.copyOf(queues);
+    }
+
+    /**
+     * By default leaks are reported without the place the buffer was borrowed from.
+     * @param leakTracking records the stack of every acquire to report it with a leak, at the cost of a stack trace per acquire
+     */
+    public void setLeakTracking(boolean leakTracking) {
+        this.leakTracking = leakTracking;
+    }
+
+    /**
+     * Borrows a cleared buffer.
+     *
+     * @param minCapacity The minimum capacity of the buffer.
+     * @return the {@link PooledBuffer} to close when done with it.
+     */
+    public PooledBuffer acquire(int minCapacity) {
+        if (minCapacity < 0)
+            throw new IllegalArgumentException("minCapacity must not be negative");
+        acquireCount.incrementAndGet();
+        int shift = Math.max(MIN_CLASS_SHIFT, classShift(minCapacity));
+        ByteBuffer buffer = null;
+        if (shift <= maxClassShift) {
+            buffer = classes.get(shift - MIN_CLASS_SHIFT).poll();
+            if (buffer != null) {
+                pooledBytes.addAndGet(-buffer.capacity());
+                hitCount.incrementAndGet();
+            } else {
+                buffer = ByteBuffer.allocateDirect(1 << shift);
+            }
+        } else {
+            buffer = ByteBuffer.allocateDirect(minCapacity);
+        }
+        borrowedBytes.addAndGet(buffer.capacity());
+        Lease lease = new Lease(this, buffer.capacity(), leakTracking ? new Throwable("acquired here") : null);
+        PooledBuffer pooled = new PooledBuffer(this, buffer, lease);
+        pooled.cleanable = CLEANER.register(pooled, lease);
+        return pooled;
+    }
+
+    void release(ByteBuffer buffer) {
+        int capacity = buffer.capacity();
+        borrowedBytes.addAndGet(-capacity);
+        int shift = classShift(capacity);
+        if (capacity != 1 << shift || shift < MIN_CLASS_SHIFT || shift > maxClassShift)
+            return;
+        if (pooledBytes.addAndGet(capacity) > maxPooledBytes) {
+            pooledBytes.addAndGet(-capacity);
+            return;
+        }
+        buffer.clear();
+        classes.get(shift - MIN_CLASS_SHIFT).offer(buffer);
+    }
+
+    private void leaked(int capacity, Throwable site) {
+        borrowedBytes.addAndGet(-capacity);
+        leakCount.incrementAndGet();
+        if (site != null) {
+            StringBuilder stack = new StringBuilder();
+            StackTraceElement[] elements = site.getStackTrace();
+            for (int i = 0; i < Math.min(elements.length, MAX_LEAK_FRAMES); i++) {
+                stack.append("\n\tat ").append(elements[i]);
+            }
+            logger.warning("leak: a buffer of " + capacity + " bytes was never released, acquired" + stack);
+        } else {
+            logger.warning("leak: a buffer of " + capacity + " bytes was never released, enable leak tracking to see where it was acquired");
+        }
+    }
+
+    /**
+     * Returns the number of acquires.
+     * @return the number of acquires.
+     */
+    public long getAcquireCount() {
+        return acquireCount.get();
+    }
+
+    /**
+     * Returns the number of acquires served by an idle buffer.
+     * @return the number of reused buffers.
+     */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * Returns the share of acquires served by an idle buffer.
+     * @return the hit ratio, 0 before the first acquire.
+     */
+    public double getHitRatio() {
+        long acquires = acquireCount.get();
+        return acquires == 0 ? 0 : (double) hitCount.get() / acquires;
+    }
+
+    /**
+     * Returns the number of buffers that became unreachable without being released.
+     * @return the number of leaks.
+     */
+    public long getLeakCount() {
+        return leakCount.get();
+    }
+
+    /**
+     * Returns the capacity of the buffers currently borrowed.
+     * @return the borrowed bytes.
+     */
+    public long getBorrowedBytes() {
+        return borrowedBytes.get();
+    }
+
+    /**
+     * Returns the capacity of the idle buffers kept for reuse.
+     * @return the pooled bytes.
+     */
+    public long getPooledBytes() {
+        return pooledBytes.get();
+    }
+
+    /**
+     * Returns the share of the buffers held by the pool that are borrowed.
+     * @return the utilization, 0 when the pool holds nothing.
+     */
+    public double getUtilization() {
+        long borrowed = borrowedBytes.get();
+        long total = borrowed + pooledBytes.get();
+        return total == 0 ? 0 : (double) borrowed / total;
+    }
+
+    @Override
+    public String toString() {
+        return "BufferPool{acquires=" + getAcquireCount() + ", hitRatio=" + getHitRatio() + ", leaks=" + getLeakCount()
+                + ", borrowedBytes=" + getBorrowedBytes() + ", pooledBytes=" + getPooledBytes() + "}";
+    }
+
+    private static int classShift(int capacity) {
+        return capacity <= 1 ? 0 : 32 - Integer.numberOfLeadingZeros(capacity - 1);
+    }
+
+    /**
+     * Release state of a borrowed buffer, run as the cleaning action of its {@link PooledBuffer}.
+     * It doesn't reference the buffer, a leaked buffer may still be in use by whoever dropped it.
+     */
+    static class Lease implements Runnable {
+        private final BufferPool pool;
+        private final int capacity;
+        private final Throwable site;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Lease(BufferPool pool, int capacity, Throwable site) {
+            this.pool = pool;
+            this.capacity = capacity;
+            this.site = site;
+        }
+
+        boolean release() {
+            return released.compareAndSet(false, true);
+        }
+
+        @Override
+        public void run() {
+            if (release())
+                pool.leaked(capacity, site);
+        }
+    }
+}
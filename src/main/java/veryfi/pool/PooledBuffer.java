@@ -0,0 +1,108 @@
+package veryfi.pool;
+
+import java.lang.ref.Cleaner;
+import java.net.http.HttpRequest;
+import java.nio.ByteBuffer;
+import java.util.concurrent.Flow;
+
+/**
+ * A direct {@link ByteBuffer} borrowed from a {@link BufferPool}, returned to it by {@link #close()}.
+ */
+public class PooledBuffer implements AutoCloseable {
+
+    private static final int SLICE_BYTES = 64 * 1024;
+
+    private final BufferPool pool;
+    private final ByteBuffer buffer;
+    private final BufferPool.Lease lease;
+    Cleaner.Cleanable cleanable;
+
+    PooledBuffer(BufferPool pool, ByteBuffer buffer, BufferPool.Lease lease) {
+        this.pool = pool;
+        this.buffer = buffer;
+        this.lease = lease;
+    }
+
+    /**
+     * Returns the borrowed buffer, it must not be used after {@link #close()}.
+     * @return the {@link ByteBuffer}.
+     */
+    public ByteBuffer buffer() {
+        return buffer;
+    }
+
+    /**
+     * Returns a body publishing the bytes written so far, from 0 to the position of the buffer, without copying them.
+     * The buffer must stay borrowed until the exchange sending the body finishes.
+     *
+     * @return the {@link HttpRequest.BodyPublisher} of the content.
+     */
+    public HttpRequest.BodyPublisher bodyPublisher() {
+        ByteBuffer content = buffer.duplicate().flip().asReadOnlyBuffer();
+        return HttpRequest.BodyPublishers.fromPublisher(subscriber -> subscriber.onSubscribe(
+                new SliceSubscription(content.duplicate(), subscriber)), content.remaining());
+    }
+
+    /**
+     * Returns the buffer to the pool, closing twice has no effect.
+     */
+    @Override
+    public void close() {
+        if (lease.release()) {
+            pool.release(buffer);
+            cleanable.clean();
+        }
+    }
+
+    /**
+     * Emits the content in read-only slices as they are requested.
+     */
+    private static class SliceSubscription implements Flow.Subscription {
+        private final ByteBuffer content;
+        private final Flow.Subscriber<? super ByteBuffer> subscriber;
+        private long demand = 0;
+        private boolean emitting = false;
+        private boolean done = false;
+
+        private SliceSubscription(ByteBuffer content, Flow.Subscriber<? super ByteBuffer> subscriber) {
+            this.content = content;
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public synchronized void request(long n) {
+            if (done)
+                return;
+            if (n <= 0) {
+                done = true;
+                subscriber.onError(new IllegalArgumentException("non-positive request: " + n));
+                return;
+            }
+            demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+            // A subscriber requesting more from onNext only raises the demand of the running loop.
+            if (emitting)
+                return;
+            emitting = true;
+            try {
+                while (demand > 0 && !done && content.hasRemaining()) {
+                    demand--;
+                    ByteBuffer slice = content.slice();
+                    slice.limit(Math.min(SLICE_BYTES, slice.remaining()));
+                    content.position(content.position() + slice.remaining());
+                    subscriber.onNext(slice);
+                }
+                if (!done && !content.hasRemaining()) {
+                    done = true;
+                    subscriber.onComplete();
+                }
+            } finally {
+                emitting = false;
+            }
+        }
+
+        @Override
+        public synchronized void cancel() {
+            done = true;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package veryfi.pool;
+
+import java.io.Writer;
+import java.nio.ByteBuffer;
+
+/**
+ * Writes characters as UTF-8 into a {@link PooledBuffer}, moving to a buffer twice as large when it is full.
+ * <p>
+ * Serializing a request with {@code JSONObject.write(writer)} this way skips the JSON string and its UTF-8 copy.
+ * </p>
+ */
+public class PooledBufferWriter extends Writer {
+
+    private final BufferPool pool;
+    private PooledBuffer pooled;
+    private ByteBuffer buffer;
+    private char highSurrogate = 0;
+
+    /**
+     * Creates an instance of {@link PooledBufferWriter}.
+     *
+     * @param pool            the {@link BufferPool} lending the buffers.
+     * @param initialCapacity The expected number of bytes, a good guess saves moving to larger buffers.
+     */
+    public PooledBufferWriter(BufferPool pool, int initialCapacity) {
+        this.pool = pool;
+        this.pooled = pool.acquire(initialCapacity);
+        this.buffer = pooled.buffer();
+    }
+
+    @Override
+    public void write(int c) {
+        writeChar((char) c);
+    }
+
+    @Override
+    public void write(char[] chars, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            writeChar(chars[i]);
+        }
+    }
+
+    @Override
+    public void write(String string, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            writeChar(string.charAt(i));
+        }
+    }
+
+    /**
+     * Appends bytes already encoded as UTF-8, such as a pre-encoded part of a body, without decoding them.
+     *
+     * @param bytes The UTF-8 bytes.
+     */
+    public void writeEncoded(byte[] bytes) {
+        if (highSurrogate != 0) {
+            highSurrogate = 0;
+            put('?');
+        }
+        ensure(bytes.length);
+        buffer.put(bytes);
+    }
+
+    /**
+     * Hands the written bytes over, the writer can't be used afterwards.
+     *
+     * @return the {@link PooledBuffer} holding the bytes from 0 to its position, to close once sent.
+     */
+    public PooledBuffer detach() {
+        if (highSurrogate != 0) {
+            highSurrogate = 0;
+            put('?');
+        }
+        PooledBuffer detached = pooled;
+        pooled = null;
+        buffer = null;
+        return detached;
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    /**
+     * Returns the buffer to the pool unless it was detached.
+     */
+    @Override
+    public void close() {
+        if (pooled != null) {
+            pooled.close();
+            pooled = null;
+            buffer = null;
+        }
+    }
+
+    private void writeChar(char c) {
+        if (highSurrogate != 0) {
+            char high = highSurrogate;
+            highSurrogate = 0;
+            if (Character.isLowSurrogate(c)) {
+                int codePoint = Character.toCodePoint(high, c);
+                ensure(4);
+                buffer.put((byte) (0xf0 | (codePoint >> 18)));
+                buffer.put((byte) (0x80 | ((codePoint >> 12) & 0x3f)));
+                buffer.put((byte) (0x80 | ((codePoint >> 6) & 0x3f)));
+                buffer.put((byte) (0x80 | (codePoint & 0x3f)));
+                return;
+            }
+            put('?');
+        }
+        if (c < 0x80) {
+            put((byte) c);
+        } else if (c < 0x800) {
+            ensure(2);
+            buffer.put((byte) (0xc0 | (c >> 6)));
+            buffer.put((byte) (0x80 | (c & 0x3f)));
+        } else if (Character.isHighSurrogate(c)) {
+            highSurrogate = c;
+        } else if (Character.isLowSurrogate(c)) {
+            put('?');
+        } else {
+            ensure(3);
+            buffer.put((byte) (0xe0 | (c >> 12)));
+            buffer.put((byte) (0x80 | ((c >> 6) & 0x3f)));
+            buffer.put((byte) (0x80 | (c & 0x3f)));
+        }
+    }
+
+    private void put(byte b) {
+        if (!buffer.hasRemaining())
+            ensure(1);
+        buffer.put(b);
+    }
+
+    private void put(char c) {
+        put((byte) c);
+    }
+
+    private void ensure(int bytes) {
+        if (buffer.remaining() >= bytes)
+            return;
+        long needed = Math.max((long) buffer.capacity() * 2, (long) buffer.position() + bytes);
+        if (needed > Integer.MAX_VALUE - 8)
+            throw new IllegalStateException("request body too large");
+        PooledBuffer larger = pool.acquire((int) needed);
+        buffer.flip();
+        larger.buffer().put(buffer);
+        pooled.close();
+        pooled = larger;
+        buffer = larger.buffer();
+    }
+}
@@ -0,0 +1,246 @@
+package veryfi.routing;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import veryfi.FileSource;
+import veryfi.batch.BatchProcessor;
+import veryfi.services.ClientImpl;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.logging.Logger;
+
+/**
+ * Classifies files and sends each one to the process method of its document type.
+ * <p>
+ * A file is read and encoded once, the same file_data is sent to the classification and then to the extraction
+ * through the fileName and fileData variants of the process methods. A document type is routed when the score of
+ * the classification reaches the minimum confidence of its route; types without a route, low scores and failed
+ * classifications go to the fallback, {@code processDocument} by default.
+ * </p>
+ * <p>
+ * W-2, W-9, check, bank statement, business card and contract types are routed to their process methods from the
+ * start. Many files are processed with a window of files in progress, so the classification of the next files
+ * overlaps the extraction of the current ones.
+ * </p>
+ * <p>
+ * Example:
+ * </p>
+ * <pre>{@code
+ * DocumentRouter router = new DocumentRouter(client);
+ * router.setMinConfidence(0.8);
+ * router.route("invoice", (fileName, fileData) -> client.processDocumentAsync(fileName, fileData, invoiceTemplate, null));
+ * List<RoutedDocument> documents = router.processAll(sources, 4);
+ * }</pre>
+ */
+public class DocumentRouter {
+
+    /**
+     * The route of the files sent to the fallback.
+     */
+    public static final String FALLBACK = "fallback";
+
+    private final Logger logger = Logger.getLogger("DocumentRouter");
+    private final ClientImpl client;
+    private final Map<String, Route> routes = new ConcurrentHashMap<>();
+    private volatile BiFunction<String, String, CompletableFuture<String>> fallback;
+    private volatile double minConfidence = 0.5;
+    private volatile Executor executor;
+    private final AtomicLong routedCount = new AtomicLong();
+    private final AtomicLong fallbackCount = new AtomicLong();
+
+    /**
+     * Creates an instance of {@link DocumentRouter} with the routes of the specialised process methods.
+     *
+     * @param client the {@link ClientImpl} encoding, classifying and extracting the files.
+     */
+    public DocumentRouter(ClientImpl client) {
+        this.client = client;
+        this.executor = client.getFileExecutor();
+        this.fallback = (fileName, fileData) -> client.processDocumentAsync(fileName, fileData, (List<String>) null, false, null);
+        route("w2", (fileName, fileData) -> client.processW2Async(fileName, fileData, null));
+        route("w9", (fileName, fileData) -> client.processW9Async(fileName, fileData, null));
+        route("check", (fileName, fileData) -> client.processCheckAsync(fileName, fileData, null));
+        route("bank_statement", (fileName, fileData) -> client.processBankStatementAsync(fileName, fileData, null));
+        route("business_card", (fileName, fileData) -> client.processBusinessCardAsync(fileName, fileData, null));
+        route("contract", (fileName, fileData) -> client.processContractAsync(fileName, fileData, null));
+    }
+
+    /**
+     * Sends a document type to a process method, at the minimum confidence of the router.
+     *
+     * @param documentType The document type returned by the classification, for example "w2".
+     * @param extractor    Submits the file from its name and encoded data, for example
+     *                     {@code (fileName, fileData) -> client.processW2Async(fileName, fileData, null)}.
+     */
+    public void route(String documentType, BiFunction<String, String, CompletableFuture<String>> extractor) {
+        route(documentType, Double.NaN, extractor);
+    }
+
+    /**
+     * Sends a document type to a process method when its score reaches a minimum.
+     *
+     * @param documentType  The document type returned by the classification, for example "w2".
+     * @param minConfidence The minimum score of the document type, lower scores go to the fallback.
+     * @param extractor     Submits the file from its name and encoded data.
+     */
+    public void route(String documentType, double minConfidence, BiFunction<String, String, CompletableFuture<String>> extractor) {
+        routes.put(documentType, new Route(minConfidence, extractor));
+    }
+
+    /**
+     * Sends a document type to the fallback.
+     *
+     * @param documentType The document type returned by the classification.
+     */
+    public void removeRoute(String documentType) {
+        routes.remove(documentType);
+    }
+
+    /**
+     * By default files go to {@code processDocument} when they aren't routed.
+     * @param fallback submits the files of unrouted types, low scores and failed classifications
+     */
+    public void setFallback(BiFunction<String, String, CompletableFuture<String>> fallback) {
+        this.fallback = fallback;
+    }
+
+    /**
+     * By default a document type is routed from a score of 0.5.
+     * @param minConfidence the minimum score of the routes added without their own
+     */
+    public void setMinConfidence(double minConfidence) {
+        this.minConfidence = minConfidence;
+    }
+
+    /**
+     * By default files are read and encoded on the file executor of the client, away from the common fork join pool.
+     * @param executor the {@link Executor} reading and encoding the files
+     */
+    public void setExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Classifies a file and extracts it with the process method of its type.
+     *
+     * @param source the {@link FileSource} of the file.
+     * @return the {@link RoutedDocument}, failures included, the future doesn't complete exceptionally.
+     */
+    public CompletableFuture<RoutedDocument> process(FileSource source) {
+        long start = System.nanoTime();
+        String fileName = source.getFileName();
+        return CompletableFuture.supplyAsync(() -> encode(source), executor)
+                .thenCompose(fileData -> client.classifyDocumentAsync(fileName, fileData, null)
+                        .thenCompose(classification -> dispatch(fileName, fileData, classification, start)))
+                .exceptionally(e -> {
+                    Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                    logger.warning("process: " + fileName + ": " + cause);
+                    return new RoutedDocument(fileName, null, 0, null, false, "", cause.toString(),
+                            Duration.ofNanos(System.nanoTime() - start));
+                });
+    }
+
+    /**
+     * Classifies and extracts many files with a bounded number in progress and waits for the last one.
+     *
+     * @param sources     the {@link FileSource}s of the files, pulled lazily.
+     * @param concurrency The maximum number of files in progress, 2 already overlaps a classification with an extraction.
+     * @return the {@link RoutedDocument}s in input order.
+     * @throws InterruptedException when the calling thread is interrupted, the files in progress are abandoned.
+     */
+    public List<RoutedDocument> processAll(Iterable<FileSource> sources, int concurrency) throws InterruptedException {
+        if (concurrency <= 0)
+            throw new IllegalArgumentException("concurrency must be positive");
+        Semaphore slots = new Semaphore(concurrency);
+        List<CompletableFuture<RoutedDocument>> futures = new ArrayList<>();
+        for (FileSource source : sources) {
+            slots.acquire();
+            futures.add(process(source).whenComplete((document, e) -> slots.release()));
+        }
+        List<RoutedDocument> documents = new ArrayList<>(futures.size());
+        for (CompletableFuture<RoutedDocument> future : futures) {
+            documents.add(future.join());
+        }
+        return documents;
+    }
+
+    private String encode(FileSource source) {
+        try {
+            return client.encodeFile(source);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private CompletableFuture<RoutedDocument> dispatch(String fileName, String fileData, String classification, long start) {
+        String documentType = null;
+        double confidence = 0;
+        try {
+            JSONObject json = new JSONObject(classification);
+            JSONObject type = json.has("data") ? json.getJSONObject("data").optJSONObject("document_type")
+                    : json.optJSONObject("document_type");
+            if (type != null) {
+                documentType = type.optString("value", null);
+                confidence = type.optDouble("score", 0);
+            }
+        } catch (JSONException e) {
+            logger.warning("dispatch: " + fileName + " wasn't classified: " + e.getMessage());
+        }
+        Route route = documentType == null ? null : routes.get(documentType);
+        double threshold = route == null || Double.isNaN(route.minConfidence) ? minConfidence : route.minConfidence;
+        boolean routed = route != null && confidence >= threshold;
+        (routed ? routedCount : fallbackCount).incrementAndGet();
+        String routeName = routed ? documentType : FALLBACK;
+        BiFunction<String, String, CompletableFuture<String>> extractor = routed ? route.extractor : fallback;
+        String type = documentType;
+        double score = confidence;
+        return extractor.apply(fileName, fileData).thenApply(response -> {
+            String error = BatchProcessor.failureOf(response);
+            return new RoutedDocument(fileName, type, score, routeName, error == null, response == null ? "" : response,
+                    error, Duration.ofNanos(System.nanoTime() - start));
+        });
+    }
+
+    /**
+     * Returns the number of files sent to the process method of their type.
+     * @return the number of routed files.
+     */
+    public long getRoutedCount() {
+        return routedCount.get();
+    }
+
+    /**
+     * Returns the number of files sent to the fallback.
+     * @return the number of fallback files.
+     */
+    public long getFallbackCount() {
+        return fallbackCount.get();
+    }
+
+    @Override
+    public String toString() {
+        return "DocumentRouter{routes=" + routes.keySet() + ", routed=" + getRoutedCount() + ", fallback=" + getFallbackCount() + "}";
+    }
+
+    private static class Route {
+        private final double minConfidence;
+        private final BiFunction<String, String, CompletableFuture<String>> extractor;
+
+        private Route(double minConfidence, BiFunction<String, String, CompletableFuture<String>> extractor) {
+            this.minConfidence = minConfidence;
+            this.extractor = extractor;
+        }
+    }
+}
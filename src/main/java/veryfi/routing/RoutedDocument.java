@@ -0,0 +1,72 @@
+package veryfi.routing;
+
+import java.time.Duration;
+
+/**
+ * Outcome of one file classified and extracted by a {@link DocumentRouter}.
+ */
+public class RoutedDocument {
+
+    /**
+     * Name of the file.
+     */
+    public final String fileName;
+    /**
+     * The document type returned by the classification, null when the classification failed.
+     */
+    public final String documentType;
+    /**
+     * The score of the document type, 0 when the classification failed.
+     */
+    public final double confidence;
+    /**
+     * The route the file was sent to, the document type or {@link DocumentRouter#FALLBACK}.
+     */
+    public final String route;
+    /**
+     * Whether the extraction returned a successful response.
+     */
+    public final boolean success;
+    /**
+     * The json string of the extraction response, empty when no response was received.
+     */
+    public final String response;
+    /**
+     * The reason of the failure, null on success.
+     */
+    public final String error;
+    /**
+     * The time spent on the file, from encoding to the extraction response.
+     */
+    public final Duration latency;
+
+    /**
+     * Creates an instance of {@link RoutedDocument}.
+     *
+     * @param fileName     Name of the file.
+     * @param documentType The document type returned by the classification.
+     * @param confidence   The score of the document type.
+     * @param route        The route the file was sent to.
+     * @param success      Whether the extraction returned a successful response.
+     * @param response     The json string of the extraction response.
+     * @param error        The reason of the failure, null on success.
+     * @param latency      The time spent on the file.
+     */
+    public RoutedDocument(String fileName, String documentType, double confidence, String route, boolean success,
+                          String response, String error, Duration latency) {
+        this.fileName = fileName;
+        this.documentType = documentType;
+        this.confidence = confidence;
+        this.route = route;
+        this.success = success;
+        this.response = response;
+        this.error = error;
+        this.latency = latency;
+    }
+
+    @Override
+    public String toString() {
+        return "RoutedDocument{fileName=" + fileName + ", documentType=" + documentType + ", confidence=" + confidence
+                + ", route=" + route + ", success=" + success + ", error=" + error + ", latency=" + latency + "}";
+    }
+}
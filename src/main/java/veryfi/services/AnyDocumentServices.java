@@ -2,6 +2,7 @@ package veryfi.services;
 
 import org.json.JSONObject;
 import veryfi.Credentials;
+import veryfi.FileSource;
 import veryfi.NetworkClient;
 import veryfi.enums.Endpoint;
 import veryfi.enums.HttpMethod;
@@ -125,9 +126,43 @@ class AnyDocumentServices extends NetworkClient {
      * @return the data extracted from the Any Document {@link CompletableFuture}{@code <String>}
      */
     protected CompletableFuture<String> processAnyDocumentAsync(String filePath, String blueprintName, JSONObject parameters) {
-        parameters = addFileToParameters(filePath, parameters);
+        JSONObject arguments = copyParameters(parameters);
+        return prepareAsync(() -> {
+            JSONObject requestArguments = addFileToParameters(filePath, arguments);
+            requestArguments.put("blueprint_name", blueprintName);
+            return requestAsync(HttpMethod.POST, Endpoint.anyDocuments.path, requestArguments);
+        });
+    }
+
+    /**
+     * Process a Any Document and extract all the fields from it. https://docs.veryfi.com/api/anydocs/process-A-doc/
+     *
+     * @param source        the {@link FileSource} of the file to submit for data extraction, encoded when the request is prepared.
+     * @param blueprintName The name of the extraction blueprints.
+     * @param parameters    Additional request parameters.
+     * @return the data extracted from the Any Document {@link String}
+     */
+    protected String processAnyDocument(FileSource source, String blueprintName, JSONObject parameters) {
+        parameters = addFileToParameters(source, parameters);
         parameters.put("blueprint_name", blueprintName);
-        return requestAsync(HttpMethod.POST, Endpoint.anyDocuments.path, parameters);
+        return request(HttpMethod.POST, Endpoint.anyDocuments.path, parameters);
+    }
+
+    /**
+     * Process a Any Document and extract all the fields from it. https://docs.veryfi.com/api/anydocs/process-A-doc/
+     *
+     * @param source        the {@link FileSource} of the file to submit for data extraction, encoded when the request is prepared.
+     * @param blueprintName The name of the extraction blueprints.
+     * @param parameters    Additional request parameters.
+     * @return the data extracted from the Any Document {@link CompletableFuture}{@code <String>}
+     */
+    protected CompletableFuture<String> processAnyDocumentAsync(FileSource source, String blueprintName, JSONObject parameters) {
+        JSONObject arguments = copyParameters(parameters);
+        return prepareAsync(() -> {
+            JSONObject requestArguments = addFileToParameters(source, arguments);
+            requestArguments.put("blueprint_name", blueprintName);
+            return requestAsync(HttpMethod.POST, Endpoint.anyDocuments.path, requestArguments);
+        });
     }
 
     /**
@@ -2,6 +2,7 @@ package veryfi.services;
 
 import org.json.JSONObject;
 import veryfi.Credentials;
+import veryfi.FileSource;
 import veryfi.NetworkClient;
 import veryfi.enums.Endpoint;
 import veryfi.enums.HttpMethod;
@@ -122,8 +123,32 @@ class BankStatementServices extends NetworkClient {
      * @return the data extracted from the Bank Statement {@link CompletableFuture}{@code <String>}
      */
     protected CompletableFuture<String> processBankStatementAsync(String filePath, JSONObject parameters) {
-        parameters = addFileToParameters(filePath, parameters);
-        return requestAsync(HttpMethod.POST, Endpoint.bankStatements.path, parameters);
+        JSONObject arguments = copyParameters(parameters);
+        return prepareAsync(() -> requestAsync(HttpMethod.POST, Endpoint.bankStatements.path, addFileToParameters(filePath, arguments)));
+    }
+
+    /**
+     * Process a Bank Statement and extract all the fields from it. https://docs.veryfi.com/api/bank-statements/process-a-bank-statement/
+     *
+     * @param source        the {@link FileSource} of the file to submit for data extraction, encoded when the request is prepared.
+     * @param parameters    Additional request parameters.
+     * @return the data extracted from the Bank Statement {@link String}
+     */
+    protected String processBankStatement(FileSource source, JSONObject parameters) {
+        parameters = addFileToParameters(source, parameters);
+        return request(HttpMethod.POST, Endpoint.bankStatements.path, parameters);
+    }
+
+    /**
+     * Process a Bank Statement and extract all the fields from it. https://docs.veryfi.com/api/bank-statements/process-a-bank-statement/
+     *
+     * @param source        the {@link FileSource} of the file to submit for data extraction, encoded when the request is prepared.
+     * @param parameters    Additional request parameters.
+     * @return the data extracted from the Bank Statement {@link CompletableFuture}{@code <String>}
+     */
+    protected CompletableFuture<String> processBankStatementAsync(FileSource source, JSONObject parameters) {
+        JSONObject arguments = copyParameters(parameters);
+        return prepareAsync(() -> requestAsync(HttpMethod.POST, Endpoint.bankStatements.path, addFileToParameters(source, arguments)));
     }
 
     /**
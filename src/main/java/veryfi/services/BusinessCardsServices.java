@@ -2,6 +2,7 @@ package veryfi.services;
 
 import org.json.JSONObject;
 import veryfi.Credentials;
+import veryfi.FileSource;
 import veryfi.NetworkClient;
 import veryfi.enums.Endpoint;
 import veryfi.enums.HttpMethod;
@@ -122,8 +123,32 @@ class BusinessCardsServices extends NetworkClient {
      * @return the data extracted from the Business Card {@link CompletableFuture}{@code <String>}
      */
     protected CompletableFuture<String> processBusinessCardAsync(String filePath, JSONObject parameters) {
-        parameters = addFileToParameters(filePath, parameters);
-        return requestAsync(HttpMethod.POST, Endpoint.businessCards.path, parameters);
+        JSONObject arguments = copyParameters(parameters);
+        return prepareAsync(() -> requestAsync(HttpMethod.POST, Endpoint.businessCards.path, addFileToParameters(filePath, arguments)));
+    }
+
+    /**
+     * Process a Business Card and extract all the fields from it. https://docs.veryfi.com/api/business-cards/process-a-business-card/
+     *
+     * @param source        the {@link FileSource} of the file to submit for data extraction, encoded when the request is prepared.
+     * @param parameters    Additional request parameters.
+     * @return the data extracted from the Business Card {@link String}
+     */
+    protected String processBusinessCard(FileSource source, JSONObject parameters) {
+        parameters = addFileToParameters(source, parameters);
+        return request(HttpMethod.POST, Endpoint.businessCards.path, parameters);
+    }
+
+    /**
+     * Process a Business Card and extract all the fields from it. https://docs.veryfi.com/api/business-cards/process-a-business-card/
+     *
+     * @param source        the {@link FileSource} of the file to submit for data extraction, encoded when the request is prepared.
+     * @param parameters    Additional request parameters.
+     * @return the data extracted from the Business Card {@link CompletableFuture}{@code <String>}
+     */
+    protected CompletableFuture<String> processBusinessCardAsync(FileSource source, JSONObject parameters) {
+        JSONObject arguments = copyParameters(parameters);
+        return prepareAsync(() -> requestAsync(HttpMethod.POST, Endpoint.businessCards.path, addFileToParameters(source, arguments)));
     }
 
     /**
@@ -2,6 +2,7 @@ package veryfi.services;
 
 import org.json.JSONObject;
 import veryfi.Credentials;
+import veryfi.FileSource;
 import veryfi.NetworkClient;
 import veryfi.enums.Endpoint;
 import veryfi.enums.HttpMethod;
@@ -122,8 +123,32 @@ class CheckServices extends NetworkClient {
      * @return the data extracted from the Check {@link CompletableFuture}{@code <String>}
      */
     protected CompletableFuture<String> processCheckAsync(String filePath, JSONObject parameters) {
-        parameters = addFileToParameters(filePath, parameters);
-        return requestAsync(HttpMethod.POST, Endpoint.checks.path, parameters);
+        JSONObject arguments = copyParameters(parameters);
+        return prepareAsync(() -> requestAsync(HttpMethod.POST, Endpoint.checks.path, addFileToParameters(filePath, arguments)));
+    }
+
+    /**
+     * Process a Check and extract all the fields from it. https://docs.veryfi.com/api/checks/process-a-check/
+     *
+     * @param source        the {@link FileSource} of the file to submit for data extraction, encoded when the request is prepared.
+     * @param parameters    Additional request parameters.
+     * @return the data extracted from the Check {@link String}
+     */
+    protected String processCheck(FileSource source, JSONObject parameters) {
+        parameters = addFileToParameters(source, parameters);
+        return request(HttpMethod.POST, Endpoint.checks.path, parameters);
+    }
+
+    /**
+     * Process a Check and extract all the fields from it. https://docs.veryfi.com/api/checks/process-a-check/
+     *
+     * @param source        the {@link FileSource} of the file to submit for data extraction, encoded when the request is prepared.
+     * @param parameters    Additional request parameters.
+     * @return the data extracted from the Check {@link CompletableFuture}{@code <String>}
+     */
+    protected CompletableFuture<String> processCheckAsync(FileSource source, JSONObject parameters) {
+        JSONObject arguments = copyParameters(parameters);
+        return prepareAsync(() -> requestAsync(HttpMethod.POST, Endpoint.checks.path, addFileToParameters(source, arguments)));
     }
 
     /**
@@ -2,10 +2,12 @@ package veryfi.services;
 
 import org.json.JSONObject;
 import veryfi.Credentials;
+import veryfi.FileSource;
 import veryfi.NetworkClient;
 import veryfi.enums.Endpoint;
 import veryfi.enums.HttpMethod;
 
+import java.io.IOException;
 import java.net.http.HttpClient;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
@@ -56,8 +58,8 @@ class ClassifyServices extends NetworkClient {
      * @return the data extracted from the document {@link CompletableFuture}{@code <String>}
      */
     protected CompletableFuture<String> classifyDocumentAsync(String filePath, JSONObject parameters) {
-        parameters = addFileToParameters(filePath, parameters);
-        return requestAsync(HttpMethod.POST, Endpoint.classify.path, parameters);
+        JSONObject arguments = copyParameters(parameters);
+        return prepareAsync(() -> requestAsync(HttpMethod.POST, Endpoint.classify.path, addFileToParameters(filePath, arguments)));
     }
 
     /**
@@ -112,4 +114,13 @@ class ClassifyServices extends NetworkClient {
         return requestAsync(HttpMethod.POST, Endpoint.classify.path, parameters);
     }
 
+    /**
+     * Encodes a file once, so the same file_data can be sent to the classification and to the extraction.
+     * @param source        the {@link FileSource} of the file to submit.
+     * @return Base64 encoded string with data URI prefix {@link String}
+     * @throws IOException when the file can't be read.
+     */
+    protected String encode(FileSource source) throws IOException {
+        return encodeFile(source);
+    }
 }
@@ -3,13 +3,28 @@ package veryfi.services;
 import org.json.JSONObject;
 import veryfi.Client;
 import veryfi.Credentials;
+import veryfi.FileSource;
+import veryfi.RequestTemplate;
+import veryfi.batch.BatchProcessor;
+import veryfi.batch.BatchReport;
+import veryfi.cache.ResponseCache;
+import veryfi.image.ImagePreprocessor;
+import veryfi.mirror.DocumentMirror;
 import veryfi.models.AddLineItem;
+import veryfi.models.LineItemSyncResult;
 import veryfi.models.NotValidModelException;
+import veryfi.models.SharedLineItem;
 import veryfi.models.UpdateLineItem;
+import veryfi.pagination.Pages;
+import veryfi.pdf.PdfPageTrimmer;
+import veryfi.pool.BufferPool;
 
+import java.io.IOException;
 import java.net.http.HttpClient;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
 
 /**
  * Veryfi API client for Java.
@@ -29,6 +44,7 @@ public class ClientImpl implements Client {
     private final ContractServices contractServices;
     private final ClassifyServices classifyServices;
     private final SplitServices splitServices;
+    private DocumentMirror documentMirror;
 
     /**
      * Creates an instance of {@link ClientImpl}.
@@ -83,6 +99,130 @@ public class ClientImpl implements Client {
         splitServices = new SplitServices(credentials, apiVersion, httpClient);
     }
 
+    /**
+     * By default, the base URL is https://api.veryfi.com/api/;
+     * @param baseUrl for the Veryfi API, used by every endpoint
+     */
+    public void setBaseUrl(String baseUrl) {
+        documentServices.setBaseUrl(baseUrl);
+        lineItemServices.setBaseUrl(baseUrl);
+        tagServices.setBaseUrl(baseUrl);
+        anyDocumentServices.setBaseUrl(baseUrl);
+        bankStatementServices.setBaseUrl(baseUrl);
+        businessCardsServices.setBaseUrl(baseUrl);
+        checkServices.setBaseUrl(baseUrl);
+        w2Services.setBaseUrl(baseUrl);
+        w9Services.setBaseUrl(baseUrl);
+        w8BenEServices.setBaseUrl(baseUrl);
+        contractServices.setBaseUrl(baseUrl);
+        classifyServices.setBaseUrl(baseUrl);
+        splitServices.setBaseUrl(baseUrl);
+    }
+
+    /**
+     * By default GET responses aren't cached.
+     * @param responseCache the {@link ResponseCache} shared by every endpoint, so mutations invalidate across them, null to disable it
+     */
+    public void setResponseCache(ResponseCache responseCache) {
+        documentServices.setResponseCache(responseCache);
+        lineItemServices.setResponseCache(responseCache);
+        tagServices.setResponseCache(responseCache);
+        anyDocumentServices.setResponseCache(responseCache);
+        bankStatementServices.setResponseCache(responseCache);
+        businessCardsServices.setResponseCache(responseCache);
+        checkServices.setResponseCache(responseCache);
+        w2Services.setResponseCache(responseCache);
+        w9Services.setResponseCache(responseCache);
+        w8BenEServices.setResponseCache(responseCache);
+        contractServices.setResponseCache(responseCache);
+        classifyServices.setResponseCache(responseCache);
+        splitServices.setResponseCache(responseCache);
+    }
+
+    /**
+     * By default files are read and encoded on a shared pool with one daemon thread per processor, at least 2.
+     * @param fileExecutor the {@link Executor} preparing the requests of the async methods taking a file path
+     */
+    public void setFileExecutor(Executor fileExecutor) {
+        documentServices.setFileExecutor(fileExecutor);
+        anyDocumentServices.setFileExecutor(fileExecutor);
+        bankStatementServices.setFileExecutor(fileExecutor);
+        businessCardsServices.setFileExecutor(fileExecutor);
+        checkServices.setFileExecutor(fileExecutor);
+        w2Services.setFileExecutor(fileExecutor);
+        w9Services.setFileExecutor(fileExecutor);
+        w8BenEServices.setFileExecutor(fileExecutor);
+        contractServices.setFileExecutor(fileExecutor);
+        classifyServices.setFileExecutor(fileExecutor);
+        splitServices.setFileExecutor(fileExecutor);
+    }
+
+    /**
+     * Returns the executor reading and encoding the files of the async methods taking a file path.
+     *
+     * @return the file {@link Executor}.
+     */
+    public Executor getFileExecutor() {
+        return documentServices.getFileExecutor();
+    }
+
+    /**
+     * By default request bodies are built as strings on the heap.
+     * @param bufferPool the {@link BufferPool} lending the direct buffers POST and PUT bodies are serialized into, null to disable it
+     */
+    public void setBufferPool(BufferPool bufferPool) {
+        documentServices.setBufferPool(bufferPool);
+        lineItemServices.setBufferPool(bufferPool);
+        tagServices.setBufferPool(bufferPool);
+        anyDocumentServices.setBufferPool(bufferPool);
+        bankStatementServices.setBufferPool(bufferPool);
+        businessCardsServices.setBufferPool(bufferPool);
+        checkServices.setBufferPool(bufferPool);
+        w2Services.setBufferPool(bufferPool);
+        w9Services.setBufferPool(bufferPool);
+        w8BenEServices.setBufferPool(bufferPool);
+        contractServices.setBufferPool(bufferPool);
+        classifyServices.setBufferPool(bufferPool);
+        splitServices.setBufferPool(bufferPool);
+    }
+
+    /**
+     * By default files are uploaded as they are.
+     * @param imagePreprocessor the {@link ImagePreprocessor} shrinking large images before they are encoded, null to disable it
+     */
+    public void setImagePreprocessor(ImagePreprocessor imagePreprocessor) {
+        documentServices.setImagePreprocessor(imagePreprocessor);
+        anyDocumentServices.setImagePreprocessor(imagePreprocessor);
+        bankStatementServices.setImagePreprocessor(imagePreprocessor);
+        businessCardsServices.setImagePreprocessor(imagePreprocessor);
+        checkServices.setImagePreprocessor(imagePreprocessor);
+        w2Services.setImagePreprocessor(imagePreprocessor);
+        w9Services.setImagePreprocessor(imagePreprocessor);
+        w8BenEServices.setImagePreprocessor(imagePreprocessor);
+        contractServices.setImagePreprocessor(imagePreprocessor);
+        classifyServices.setImagePreprocessor(imagePreprocessor);
+        splitServices.setImagePreprocessor(imagePreprocessor);
+    }
+
+    /**
+     * By default PDFs are uploaded whole, whatever max_pages_to_process is.
+     * Applies to the documents, bank statements and contracts processed from a file.
+     * @param pdfPageTrimmer the {@link PdfPageTrimmer} cutting PDFs down to max_pages_to_process pages before they are encoded, null to disable it
+     */
+    public void setPdfPageTrimmer(PdfPageTrimmer pdfPageTrimmer) {
+        documentServices.setPdfPageTrimmer(pdfPageTrimmer);
+        bankStatementServices.setPdfPageTrimmer(pdfPageTrimmer);
+        contractServices.setPdfPageTrimmer(pdfPageTrimmer);
+    }
+
+    /**
+     * By default every read goes to the API.
+     * @param documentMirror the {@link DocumentMirror} serving getDocument and getLineItems locally, null to disable it
+     */
+    public void setDocumentMirror(DocumentMirror documentMirror) {
+        this.documentMirror = documentMirror;
+    }
+
     /**
      * Returns a json string {@link String} with the list of documents. https://docs.veryfi.com/api/receipts-invoices/search-documents/
      *
@@ -113,6 +253,22 @@ public class ClientImpl implements Client {
         return documentServices.getDocumentsAsync(page, pageSize, boundingBoxes, confidenceDetails, parameters);
     }
 
+    /**
+     * Returns a lazily evaluated {@link Stream} over all the documents, requesting the following pages while the current one is consumed. https://docs.veryfi.com/api/receipts-invoices/search-documents/
+     * Closing the stream cancels the pages still in flight.
+     *
+     * @param pageSize The number of records per page. The response is capped to maximum of 50 results per page.
+     * @param boundingBoxes A field used to determine whether or not to return bounding_box and bounding_region for extracted fields in the Document response.
+     * @param confidenceDetails A field used to determine whether or not to return the score and ocr_score fields in the Document response.
+     * @param parameters Additional request parameters.
+     * @param prefetchDepth The number of pages requested ahead of the page being consumed, 0 to disable prefetching.
+     * @return the records of every page {@link Stream}{@code <JSONObject>}
+     */
+    @Override
+    public Stream<JSONObject> getDocumentsStream(int pageSize, boolean boundingBoxes, boolean confidenceDetails, JSONObject parameters, int prefetchDepth) {
+        return Pages.stream(page -> documentServices.getDocumentsAsync(page, pageSize, boundingBoxes, confidenceDetails, Pages.copy(parameters)), pageSize, prefetchDepth);
+    }
+
     /**
      * Returns a json string {@link String} document information. https://docs.veryfi.com/api/receipts-invoices/get-a-document/
      *
@@ -121,7 +277,9 @@ public class ClientImpl implements Client {
      */
     @Override
     public String getDocument(String documentId) {
-        return documentServices.getDocument(documentId);
+        if (documentMirror == null)
+            return documentServices.getDocument(documentId);
+        return documentMirror.get(DocumentMirror.documentKey(documentId), () -> documentServices.getDocument(documentId));
     }
 
     /**
@@ -132,7 +290,9 @@ public class ClientImpl implements Client {
      */
     @Override
     public CompletableFuture<String> getDocumentAsync(String documentId) {
-        return documentServices.getDocumentAsync(documentId);
+        if (documentMirror == null)
+            return documentServices.getDocumentAsync(documentId);
+        return documentMirror.getAsync(DocumentMirror.documentKey(documentId), () -> documentServices.getDocumentAsync(documentId));
     }
 
     /**
@@ -165,6 +325,53 @@ public class ClientImpl implements Client {
         return documentServices.processDocumentAsync(filePath, categories, deleteAfterProcessing, parameters);
     }
 
+    /**
+     * Process a document and extract all the fields from it. https://docs.veryfi.com/api/receipts-invoices/process-a-document/
+     *
+     * @param source                the {@link FileSource} of the file to submit for data extraction, encoded when the request is prepared
+     * @param categories            List of categories Veryfi can use to categorize the document
+     * @param deleteAfterProcessing Delete this document from Veryfi after data has been extracted
+     * @param parameters            Additional request parameters
+     * @return the data extracted from the Document {@link String}
+     */
+    @Override
+    public String processDocument(FileSource source, List<String> categories, boolean deleteAfterProcessing,
+                                  JSONObject parameters) {
+        return documentServices.processDocument(source, categories, deleteAfterProcessing, parameters);
+    }
+
+    /**
+     * Process a document and extract all the fields from it. https://docs.veryfi.com/api/receipts-invoices/process-a-document/
+     *
+     * @param source                the {@link FileSource} of the file to submit for data extraction, encoded when the request is prepared
+     * @param categories            List of categories Veryfi can use to categorize the document
+     * @param deleteAfterProcessing Delete this document from Veryfi after data has been extracted
+     * @param parameters            Additional request parameters
+     * @return the data extracted from the Document {@link CompletableFuture}{@code <String>}
+     */
+    @Override
+    public CompletableFuture<String> processDocumentAsync(FileSource source, List<String> categories,
+                                                          boolean deleteAfterProcessing, JSONObject parameters) {
+        return documentServices.processDocumentAsync(source, categories, deleteAfterProcessing, parameters);
+    }
+
+    /**
+     * Process many Documents from disk with a bounded number of files in progress. https://docs.veryfi.com/api/receipts-invoices/process-a-document/
+     * A file that fails is retried and reported without stopping the others.
+     *
+     * @param filePaths             Paths on disk to the files to submit for data extraction, pulled lazily.
+     * @param categories            List of categories Veryfi can use to categorize the documents
+     * @param deleteAfterProcessing Delete the documents from Veryfi after data has been extracted
+     * @param parameters            Additional request parameters, applied to every file.
+     * @param concurrency           The maximum number of files in progress.
+     * @return the per-file outcomes {@link BatchReport}
+     * @throws InterruptedException when the calling thread is interrupted.
+     */
+    @Override
+    public BatchReport processDocuments(Iterable<String> filePaths, List<String> categories, boolean deleteAfterProcessing, JSONObject parameters, int concurrency) throws InterruptedException {
+        return new BatchProcessor(concurrency).process(filePaths, filePath -> documentServices.processDocument(filePath, categories, deleteAfterProcessing, Pages.copy(parameters)));
+    }
+
     /**
      * Process a document and extract all the fields from it. https://docs.veryfi.com/api/receipts-invoices/process-a-document/
      *
@@ -241,6 +448,114 @@ public class ClientImpl implements Client {
                 maxPagesToProcess, boostMode, externalId, parameters);
     }
 
+    /**
+     * Process a document with a reusable {@link RequestTemplate} and extract all the fields from it. https://docs.veryfi.com/api/receipts-invoices/process-a-document/
+     *
+     * @param filePath   Path on disk to a file to submit for data extraction
+     * @param template   Fixed request arguments such as categories or auto delete, see {@link RequestTemplate#builder()}
+     * @param parameters Additional request parameters for this document only
+     * @return the data extracted from the Document {@link String}
+     */
+    @Override
+    public String processDocument(String filePath, RequestTemplate template, JSONObject parameters) {
+        return documentServices.processDocument(filePath, template, parameters);
+    }
+
+    /**
+     * Process a document with a reusable {@link RequestTemplate} and extract all the fields from it. https://docs.veryfi.com/api/receipts-invoices/process-a-document/
+     *
+     * @param filePath   Path on disk to a file to submit for data extraction
+     * @param template   Fixed request arguments such as categories or auto delete, see {@link RequestTemplate#builder()}
+     * @param parameters Additional request parameters for this document only
+     * @return the data extracted from the Document {@link CompletableFuture}{@code <String>}
+     */
+    @Override
+    public CompletableFuture<String> processDocumentAsync(String filePath, RequestTemplate template, JSONObject parameters) {
+        return documentServices.processDocumentAsync(filePath, template, parameters);
+    }
+
+    /**
+     * Process a document with a reusable {@link RequestTemplate} and extract all the fields from it. https://docs.veryfi.com/api/receipts-invoices/process-a-document/
+     *
+     * @param source     the {@link FileSource} of the file to submit for data extraction, encoded when the request is prepared
+     * @param template   Fixed request arguments such as categories or auto delete, see {@link RequestTemplate#builder()}
+     * @param parameters Additional request parameters for this document only
+     * @return the data extracted from the Document {@link String}
+     */
+    @Override
+    public String processDocument(FileSource source, RequestTemplate template, JSONObject parameters) {
+        return documentServices.processDocument(source, template, parameters);
+    }
+
+    /**
+     * Process a document with a reusable {@link RequestTemplate} and extract all the fields from it. https://docs.veryfi.com/api/receipts-invoices/process-a-document/
+     *
+     * @param source     the {@link FileSource} of the file to submit for data extraction, encoded when the request is prepared
+     * @param template   Fixed request arguments such as categories or auto delete, see {@link RequestTemplate#builder()}
+     * @param parameters Additional request parameters for this document only
+     * @return the data extracted from the Document {@link CompletableFuture}{@code <String>}
+     */
+    @Override
+    public CompletableFuture<String> processDocumentAsync(FileSource source, RequestTemplate template, JSONObject parameters) {
+        return documentServices.processDocumentAsync(source, template, parameters);
+    }
+
+    /**
+     * Process a document with a reusable {@link RequestTemplate} and extract all the fields from it. https://docs.veryfi.com/api/receipts-invoices/process-a-document/
+     *
+     * @param fileName   Name of the file to upload to the Veryfi API
+     * @param fileData   Base64 encoded file data
+     * @param template   Fixed request arguments such as categories or auto delete, see {@link RequestTemplate#builder()}
+     * @param parameters Additional request parameters for this document only
+     * @return the data extracted from the Document {@link String}
+     */
+    @Override
+    public String processDocument(String fileName, String fileData, RequestTemplate template, JSONObject parameters) {
+        return documentServices.processDocument(fileName, fileData, template, parameters);
+    }
+
+    /**
+     * Process a document with a reusable {@link RequestTemplate} and extract all the fields from it. https://docs.veryfi.com/api/receipts-invoices/process-a-document/
+     *
+     * @param fileName   Name of the file to upload to the Veryfi API
+     * @param fileData   Base64 encoded file data
+     * @param template   Fixed request arguments such as categories or auto delete, see {@link RequestTemplate#builder()}
+     * @param parameters Additional request parameters for this document only
+     * @return the data extracted from the Document {@link CompletableFuture}{@code <String>}
+     */
+    @Override
+    public CompletableFuture<String> processDocumentAsync(String fileName, String fileData, RequestTemplate template, JSONObject parameters) {
+        return documentServices.processDocumentAsync(fileName, fileData, template, parameters);
+    }
+
+    /**
+     * Process Document from url with a reusable {@link RequestTemplate} and extract all the fields from it. https://docs.veryfi.com/api/receipts-invoices/process-a-document/
+     *
+     * @param fileUrl    Required if file_urls isn't specified. Publicly accessible URL to a file, e.g. "https://cdn.example.com/receipt.jpg".
+     * @param fileUrls   Required if file_url isn't specifies. List of publicly accessible URLs to multiple files, e.g. ["https://cdn.example.com/receipt1.jpg", "https://cdn.example.com/receipt2.jpg"]
+     * @param template   Fixed request arguments such as categories or boost mode, see {@link RequestTemplate#builder()}
+     * @param parameters Additional request parameters for this document only
+     * @return the data extracted from the Document {@link String}
+     */
+    @Override
+    public String processDocumentUrl(String fileUrl, List<String> fileUrls, RequestTemplate template, JSONObject parameters) {
+        return documentServices.processDocumentUrl(fileUrl, fileUrls, template, parameters);
+    }
+
+    /**
+     * Process Document from url with a reusable {@link RequestTemplate} and extract all the fields from it. https://docs.veryfi.com/api/receipts-invoices/process-a-document/
+     *
+     * @param fileUrl    Required if file_urls isn't specified. Publicly accessible URL to a file, e.g. "https://cdn.example.com/receipt.jpg".
+     * @param fileUrls   Required if file_url isn't specifies. List of publicly accessible URLs to multiple files, e.g. ["https://cdn.example.com/receipt1.jpg", "https://cdn.example.com/receipt2.jpg"]
+     * @param template   Fixed request arguments such as categories or boost mode, see {@link RequestTemplate#builder()}
+     * @param parameters Additional request parameters for this document only
+     * @return the data extracted from the Document {@link CompletableFuture}{@code <String>}
+     */
+    @Override
+    public CompletableFuture<String> processDocumentUrlAsync(String fileUrl, List<String> fileUrls, RequestTemplate template, JSONObject parameters) {
+        return documentServices.processDocumentUrlAsync(fileUrl, fileUrls, template, parameters);
+    }
+
     /**
      * Delete Document from Veryfi. https://docs.veryfi.com/api/receipts-invoices/delete-a-document/
      *
@@ -249,7 +564,7 @@ public class ClientImpl implements Client {
      */
     @Override
     public String deleteDocument(String documentId) {
-        return documentServices.deleteDocument(documentId);
+        return invalidated(documentId, documentServices.deleteDocument(documentId));
     }
 
     /**
@@ -260,7 +575,7 @@ public class ClientImpl implements Client {
      */
     @Override
     public CompletableFuture<String> deleteDocumentAsync(String documentId) {
-        return documentServices.deleteDocumentAsync(documentId);
+        return invalidated(documentId, documentServices.deleteDocumentAsync(documentId));
     }
 
     /**
@@ -272,7 +587,7 @@ public class ClientImpl implements Client {
      */
     @Override
     public String updateDocument(String documentId, JSONObject parameters) {
-        return documentServices.updateDocument(documentId, parameters);
+        return invalidated(documentId, documentServices.updateDocument(documentId, parameters));
     }
 
     /**
@@ -284,7 +599,7 @@ public class ClientImpl implements Client {
      */
     @Override
     public CompletableFuture<String> updateDocumentAsync(String documentId, JSONObject parameters) {
-        return documentServices.updateDocumentAsync(documentId, parameters);
+        return invalidated(documentId, documentServices.updateDocumentAsync(documentId, parameters));
     }
 
     /**
@@ -295,7 +610,9 @@ public class ClientImpl implements Client {
      */
     @Override
     public String getLineItems(String documentId) {
-        return lineItemServices.getLineItems(documentId);
+        if (documentMirror == null)
+            return lineItemServices.getLineItems(documentId);
+        return documentMirror.get(DocumentMirror.lineItemsKey(documentId), () -> lineItemServices.getLineItems(documentId));
     }
 
     /**
@@ -306,7 +623,9 @@ public class ClientImpl implements Client {
      */
     @Override
     public CompletableFuture<String> getLineItemsAsync(String documentId) {
-        return lineItemServices.getLineItemsAsync(documentId);
+        if (documentMirror == null)
+            return lineItemServices.getLineItemsAsync(documentId);
+        return documentMirror.getAsync(DocumentMirror.lineItemsKey(documentId), () -> lineItemServices.getLineItemsAsync(documentId));
     }
 
     /**
@@ -343,7 +662,7 @@ public class ClientImpl implements Client {
      */
     @Override
     public String addLineItem(String documentId, AddLineItem payload) throws NotValidModelException {
-        return lineItemServices.addLineItem(documentId, payload);
+        return invalidated(documentId, lineItemServices.addLineItem(documentId, payload));
     }
 
     /**
@@ -356,7 +675,7 @@ public class ClientImpl implements Client {
      */
     @Override
     public CompletableFuture<String> addLineItemAsync(String documentId, AddLineItem payload) throws NotValidModelException {
-        return lineItemServices.addLineItemAsync(documentId, payload);
+        return invalidated(documentId, lineItemServices.addLineItemAsync(documentId, payload));
     }
 
     /**
@@ -370,7 +689,7 @@ public class ClientImpl implements Client {
      */
     @Override
     public String updateLineItem(String documentId, String lineItemId, UpdateLineItem payload) throws NotValidModelException {
-        return lineItemServices.updateLineItem(documentId, lineItemId, payload);
+        return invalidated(documentId, lineItemServices.updateLineItem(documentId, lineItemId, payload));
     }
 
     /**
@@ -384,7 +703,7 @@ public class ClientImpl implements Client {
      */
     @Override
     public CompletableFuture<String> updateLineItemAsync(String documentId, String lineItemId, UpdateLineItem payload) throws NotValidModelException {
-        return lineItemServices.updateLineItemAsync(documentId, lineItemId, payload);
+        return invalidated(documentId, lineItemServices.updateLineItemAsync(documentId, lineItemId, payload));
     }
 
     /**
@@ -395,7 +714,7 @@ public class ClientImpl implements Client {
      */
     @Override
     public String deleteLineItems(String documentId) {
-        return lineItemServices.deleteLineItems(documentId);
+        return invalidated(documentId, lineItemServices.deleteLineItems(documentId));
     }
 
     /**
@@ -406,7 +725,7 @@ public class ClientImpl implements Client {
      */
     @Override
     public CompletableFuture<String> deleteLineItemsAsync(String documentId) {
-        return lineItemServices.deleteLineItemsAsync(documentId);
+        return invalidated(documentId, lineItemServices.deleteLineItemsAsync(documentId));
     }
 
     /**
@@ -418,7 +737,7 @@ public class ClientImpl implements Client {
      */
     @Override
     public String deleteLineItem(String documentId, String lineItemId) {
-        return lineItemServices.deleteLineItem(documentId, lineItemId);
+        return invalidated(documentId, lineItemServices.deleteLineItem(documentId, lineItemId));
     }
 
     /**
@@ -430,7 +749,37 @@ public class ClientImpl implements Client {
      */
     @Override
     public CompletableFuture<String> deleteLineItemAsync(String documentId, String lineItemId) {
-        return lineItemServices.deleteLineItemAsync(documentId, lineItemId);
+        return invalidated(documentId, lineItemServices.deleteLineItemAsync(documentId, lineItemId));
+    }
+
+    /**
+     * Make the line items of a document match a desired list, sending only the adds, the changed fields and the
+     * deletes, up to 8 requests at a time. Line items are matched by their order and the ones kept keep their ids.
+     *
+     * @param documentId ID of the document you'd like to update.
+     * @param lineItems  the desired line items, {@link AddLineItem}s and {@link UpdateLineItem}s with distinct orders.
+     * @return the counts of the requests and the failed ones {@link LineItemSyncResult}
+     * @throws NotValidModelException when a model is not valid, has no order or shares its order with another.
+     */
+    @Override
+    public LineItemSyncResult syncLineItems(String documentId, List<? extends SharedLineItem> lineItems) throws NotValidModelException {
+        return syncLineItemsAsync(documentId, lineItems).join();
+    }
+
+    /**
+     * Make the line items of a document match a desired list, sending only the adds, the changed fields and the
+     * deletes, up to 8 requests at a time. Line items are matched by their order and the ones kept keep their ids.
+     *
+     * @param documentId ID of the document you'd like to update.
+     * @param lineItems  the desired line items, {@link AddLineItem}s and {@link UpdateLineItem}s with distinct orders.
+     * @return the counts of the requests and the failed ones {@link CompletableFuture}{@code <LineItemSyncResult>}
+     * @throws NotValidModelException when a model is not valid, has no order or shares its order with another.
+     */
+    @Override
+    public CompletableFuture<LineItemSyncResult> syncLineItemsAsync(String documentId, List<? extends SharedLineItem> lineItems) throws NotValidModelException {
+        CompletableFuture<LineItemSyncResult> result = lineItemServices.syncLineItemsAsync(documentId, lineItems, LineItemServices.SYNC_CONCURRENCY);
+        DocumentMirror mirror = documentMirror;
+        return mirror == null ? result : result.whenComplete((synced, error) -> mirror.invalidateDocument(documentId));
     }
 
     /**
@@ -441,7 +790,7 @@ public class ClientImpl implements Client {
      */
     @Override
     public String replaceTags(String documentId, List<String> tags) {
-        return tagServices.replaceTags(documentId, tags);
+        return invalidated(documentId, tagServices.replaceTags(documentId, tags));
     }
 
     /**
@@ -452,7 +801,7 @@ public class ClientImpl implements Client {
      */
     @Override
     public CompletableFuture<String> replaceTagsAsync(String documentId, List<String> tags) {
-        return tagServices.replaceTagsAsync(documentId, tags);
+        return invalidated(documentId, tagServices.replaceTagsAsync(documentId, tags));
     }
 
     /**
@@ -463,7 +812,7 @@ public class ClientImpl implements Client {
      */
     @Override
     public String addTags(String documentId, List<String> tags) {
-        return tagServices.addTags(documentId, tags);
+        return invalidated(documentId, tagServices.addTags(documentId, tags));
     }
 
     /**
@@ -474,7 +823,7 @@ public class ClientImpl implements Client {
      */
     @Override
     public CompletableFuture<String> addTagsAsync(String documentId, List<String> tags) {
-        return tagServices.addTagsAsync(documentId, tags);
+        return invalidated(documentId, tagServices.addTagsAsync(documentId, tags));
     }
 
     /**
@@ -505,6 +854,22 @@ public class ClientImpl implements Client {
         return anyDocumentServices.getAnyDocumentsAsync(page, pageSize, boundingBoxes, confidenceDetails, parameters);
     }
 
+    /**
+     * Returns a lazily evaluated {@link Stream} over all the Any Documents, requesting the following pages while the current one is consumed. https://docs.veryfi.com/api/anydocs/get-A-docs/
+     * Closing the stream cancels the pages still in flight.
+     *
+     * @param pageSize The number of records per page. The response is capped to maximum of 50 results per page.
+     * @param boundingBoxes A field used to determine whether or not to return bounding_box and bounding_region for extracted fields in the Document response.
+     * @param confidenceDetails A field used to determine whether or not to return the score and ocr_score fields in the Document response.
+     * @param parameters Additional request parameters.
+     * @param prefetchDepth The number of pages requested ahead of the page being consumed, 0 to disable prefetching.
+     * @return the records of every page {@link Stream}{@code <JSONObject>}
+     */
+    @Override
+    public Stream<JSONObject> getAnyDocumentsStream(int pageSize, boolean boundingBoxes, boolean confidenceDetails, JSONObject parameters, int prefetchDepth) {
+        return Pages.stream(page -> anyDocumentServices.getAnyDocumentsAsync(page, pageSize, boundingBoxes, confidenceDetails, Pages.copy(parameters)), pageSize, prefetchDepth);
+    }
+
     /**
      * Returns a json string {@link String} AnyDocument information. https://docs.veryfi.com/api/anydocs/get-a-A-doc/
      *
@@ -549,6 +914,22 @@ public class ClientImpl implements Client {
         return anyDocumentServices.processAnyDocumentAsync(filePath, blueprintName, parameters);
     }
 
+    /**
+     * Process many Any Documents from disk with a bounded number of files in progress. https://docs.veryfi.com/api/anydocs/process-A-doc/
+     * A file that fails is retried and reported without stopping the others.
+     *
+     * @param filePaths             Paths on disk to the files to submit for data extraction, pulled lazily.
+     * @param blueprintName The name of the extraction blueprint.
+     * @param parameters            Additional request parameters, applied to every file.
+     * @param concurrency           The maximum number of files in progress.
+     * @return the per-file outcomes {@link BatchReport}
+     * @throws InterruptedException when the calling thread is interrupted.
+     */
+    @Override
+    public BatchReport processAnyDocuments(Iterable<String> filePaths, String blueprintName, JSONObject parameters, int concurrency) throws InterruptedException {
+        return new BatchProcessor(concurrency).process(filePaths, filePath -> anyDocumentServices.processAnyDocument(filePath, blueprintName, Pages.copy(parameters)));
+    }
+
     /**
      * Process a AnyDocument and extract all the fields from it. https://docs.veryfi.com/api/anydocs/process-A-doc/
      *
@@ -575,6 +956,32 @@ public class ClientImpl implements Client {
         return anyDocumentServices.processAnyDocumentAsync(fileName, fileData, blueprintName, parameters);
     }
 
+    /**
+     * Process a AnyDocument and extract all the fields from it. https://docs.veryfi.com/api/anydocs/process-A-doc/
+     *
+     * @param source        the {@link FileSource} of the file to submit for data extraction, encoded when the request is prepared.
+     * @param blueprintName The name of the extraction blueprints.
+     * @param parameters    Additional request parameters.
+     * @return the data extracted from the AnyDocument {@link String}
+     */
+    @Override
+    public String processAnyDocument(FileSource source, String blueprintName, JSONObject parameters) {
+        return anyDocumentServices.processAnyDocument(source, blueprintName, parameters);
+    }
+
+    /**
+     * Process a AnyDocument and extract all the fields from it. https://docs.veryfi.com/api/anydocs/process-A-doc/
+     *
+     * @param source        the {@link FileSource} of the file to submit for data extraction, encoded when the request is prepared.
+     * @param blueprintName The name of the extraction blueprints.
+     * @param parameters    Additional request parameters.
+     * @return the data extracted from the AnyDocument {@link CompletableFuture}{@code <String>}
+     */
+    @Override
+    public CompletableFuture<String> processAnyDocumentAsync(FileSource source, String blueprintName, JSONObject parameters) {
+        return anyDocumentServices.processAnyDocumentAsync(source, blueprintName, parameters);
+    }
+
     /**
      * Process AnyDocument from url and extract all the fields from it. https://docs.veryfi.com/api/anydocs/process-A-doc/
      *
@@ -649,6 +1056,22 @@ public class ClientImpl implements Client {
         return bankStatementServices.getBankStatementsAsync(page, pageSize, boundingBoxes, confidenceDetails, parameters);
     }
 
+    /**
+     * Returns a lazily evaluated {@link Stream} over all the bank statements, requesting the following pages while the current one is consumed. https://docs.veryfi.com/api/bank-statements/get-bank-statements/
+     * Closing the stream cancels the pages still in flight.
+     *
+     * @param pageSize The number of records per page. The response is capped to maximum of 50 results per page.
+     * @param boundingBoxes A field used to determine whether or not to return bounding_box and bounding_region for extracted fields in the Document response.
+     * @param confidenceDetails A field used to determine whether or not to return the score and ocr_score fields in the Document response.
+     * @param parameters Additional request parameters.
+     * @param prefetchDepth The number of pages requested ahead of the page being consumed, 0 to disable prefetching.
+     * @return the records of every page {@link Stream}{@code <JSONObject>}
+     */
+    @Override
+    public Stream<JSONObject> getBankStatementsStream(int pageSize, boolean boundingBoxes, boolean confidenceDetails, JSONObject parameters, int prefetchDepth) {
+        return Pages.stream(page -> bankStatementServices.getBankStatementsAsync(page, pageSize, boundingBoxes, confidenceDetails, Pages.copy(parameters)), pageSize, prefetchDepth);
+    }
+
     /**
      * Returns a json string {@link String} BankStatement information. https://docs.veryfi.com/api/bank-statements/get-a-bank-statement/
      *
@@ -691,6 +1114,21 @@ public class ClientImpl implements Client {
         return bankStatementServices.processBankStatementAsync(filePath, parameters);
     }
 
+    /**
+     * Process many Bank Statements from disk with a bounded number of files in progress. https://docs.veryfi.com/api/bank-statements/process-a-bank-statement/
+     * A file that fails is retried and reported without stopping the others.
+     *
+     * @param filePaths             Paths on disk to the files to submit for data extraction, pulled lazily.
+     * @param parameters            Additional request parameters, applied to every file.
+     * @param concurrency           The maximum number of files in progress.
+     * @return the per-file outcomes {@link BatchReport}
+     * @throws InterruptedException when the calling thread is interrupted.
+     */
+    @Override
+    public BatchReport processBankStatements(Iterable<String> filePaths, JSONObject parameters, int concurrency) throws InterruptedException {
+        return new BatchProcessor(concurrency).process(filePaths, filePath -> bankStatementServices.processBankStatement(filePath, Pages.copy(parameters)));
+    }
+
     /**
      * Process a Bank Statement and extract all the fields from it. https://docs.veryfi.com/api/bank-statements/process-a-bank-statement/
      *
@@ -715,6 +1153,30 @@ public class ClientImpl implements Client {
         return bankStatementServices.processBankStatementAsync(fileName, fileData, parameters);
     }
 
+    /**
+     * Process a Bank Statement and extract all the fields from it. https://docs.veryfi.com/api/bank-statements/process-a-bank-statement/
+     *
+     * @param source        the {@link FileSource} of the file to submit for data extraction, encoded when the request is prepared.
+     * @param parameters    Additional request parameters.
+     * @return the data extracted from the Bank Statement {@link String}
+     */
+    @Override
+    public String processBankStatement(FileSource source, JSONObject parameters) {
+        return bankStatementServices.processBankStatement(source, parameters);
+    }
+
+    /**
+     * Process a Bank Statement and extract all the fields from it. https://docs.veryfi.com/api/bank-statements/process-a-bank-statement/
+     *
+     * @param source        the {@link FileSource} of the file to submit for data extraction, encoded when the request is prepared.
+     * @param parameters    Additional request parameters.
+     * @return the data extracted from the Bank Statement {@link CompletableFuture}{@code <String>}
+     */
+    @Override
+    public CompletableFuture<String> processBankStatementAsync(FileSource source, JSONObject parameters) {
+        return bankStatementServices.processBankStatementAsync(source, parameters);
+    }
+
     /**
      * Process BankStatement from url and extract all the fields from it. https://docs.veryfi.com/api/bank-statements/process-a-bank-statement/
      *
@@ -787,6 +1249,22 @@ public class ClientImpl implements Client {
         return businessCardsServices.getBusinessCardsAsync(page, pageSize, boundingBoxes, confidenceDetails, parameters);
     }
 
+    /**
+     * Returns a lazily evaluated {@link Stream} over all the business cards, requesting the following pages while the current one is consumed. https://docs.veryfi.com/api/business-cards/get-business-cards/
+     * Closing the stream cancels the pages still in flight.
+     *
+     * @param pageSize The number of records per page. The response is capped to maximum of 50 results per page.
+     * @param boundingBoxes A field used to determine whether or not to return bounding_box and bounding_region for extracted fields in the Document response.
+     * @param confidenceDetails A field used to determine whether or not to return the score and ocr_score fields in the Document response.
+     * @param parameters Additional request parameters.
+     * @param prefetchDepth The number of pages requested ahead of the page being consumed, 0 to disable prefetching.
+     * @return the records of every page {@link Stream}{@code <JSONObject>}
+     */
+    @Override
+    public Stream<JSONObject> getBusinessCardsStream(int pageSize, boolean boundingBoxes, boolean confidenceDetails, JSONObject parameters, int prefetchDepth) {
+        return Pages.stream(page -> businessCardsServices.getBusinessCardsAsync(page, pageSize, boundingBoxes, confidenceDetails, Pages.copy(parameters)), pageSize, prefetchDepth);
+    }
+
     /**
      * Returns a json string {@link String} Business Card information. https://docs.veryfi.com/api/business-cards/get-a-business-card/
      *
@@ -829,6 +1307,21 @@ public class ClientImpl implements Client {
         return businessCardsServices.processBusinessCardAsync(filePath, parameters);
     }
 
+    /**
+     * Process many Business Cards from disk with a bounded number of files in progress. https://docs.veryfi.com/api/business-cards/process-a-business-card/
+     * A file that fails is retried and reported without stopping the others.
+     *
+     * @param filePaths             Paths on disk to the files to submit for data extraction, pulled lazily.
+     * @param parameters            Additional request parameters, applied to every file.
+     * @param concurrency           The maximum number of files in progress.
+     * @return the per-file outcomes {@link BatchReport}
+     * @throws InterruptedException when the calling thread is interrupted.
+     */
+    @Override
+    public BatchReport processBusinessCards(Iterable<String> filePaths, JSONObject parameters, int concurrency) throws InterruptedException {
+        return new BatchProcessor(concurrency).process(filePaths, filePath -> businessCardsServices.processBusinessCard(filePath, Pages.copy(parameters)));
+    }
+
     /**
      * Process a Business Card and extract all the fields from it. https://docs.veryfi.com/api/business-cards/process-a-business-card/
      *
@@ -853,6 +1346,30 @@ public class ClientImpl implements Client {
         return businessCardsServices.processBusinessCardAsync(fileName, fileData, parameters);
     }
 
+    /**
+     * Process a Business Card and extract all the fields from it. https://docs.veryfi.com/api/business-cards/process-a-business-card/
+     *
+     * @param source        the {@link FileSource} of the file to submit for data extraction, encoded when the request is prepared.
+     * @param parameters    Additional request parameters.
+     * @return the data extracted from the Business Card {@link String}
+     */
+    @Override
+    public String processBusinessCard(FileSource source, JSONObject parameters) {
+        return businessCardsServices.processBusinessCard(source, parameters);
+    }
+
+    /**
+     * Process a Business Card and extract all the fields from it. https://docs.veryfi.com/api/business-cards/process-a-business-card/
+     *
+     * @param source        the {@link FileSource} of the file to submit for data extraction, encoded when the request is prepared.
+     * @param parameters    Additional request parameters.
+     * @return the data extracted from the Business Card {@link CompletableFuture}{@code <String>}
+     */
+    @Override
+    public CompletableFuture<String> processBusinessCardAsync(FileSource source, JSONObject parameters) {
+        return businessCardsServices.processBusinessCardAsync(source, parameters);
+    }
+
     /**
      * Process Business Card from url and extract all the fields from it. https://docs.veryfi.com/api/business-cards/process-a-business-card/
      *
@@ -925,6 +1442,22 @@ public class ClientImpl implements Client {
         return checkServices.getChecksAsync(page, pageSize, boundingBoxes, confidenceDetails, parameters);
     }
 
+    /**
+     * Returns a lazily evaluated {@link Stream} over all the checks, requesting the following pages while the current one is consumed. https://docs.veryfi.com/api/checks/get-checks/
+     * Closing the stream cancels the pages still in flight.
+     *
+     * @param pageSize The number of records per page. The response is capped to maximum of 50 results per page.
+     * @param boundingBoxes A field used to determine whether or not to return bounding_box and bounding_region for extracted fields in the Document response.
+     * @param confidenceDetails A field used to determine whether or not to return the score and ocr_score fields in the Document response.
+     * @param parameters Additional request parameters.
+     * @param prefetchDepth The number of pages requested ahead of the page being consumed, 0 to disable prefetching.
+     * @return the records of every page {@link Stream}{@code <JSONObject>}
+     */
+    @Override
+    public Stream<JSONObject> getChecksStream(int pageSize, boolean boundingBoxes, boolean confidenceDetails, JSONObject parameters, int prefetchDepth) {
+        return Pages.stream(page -> checkServices.getChecksAsync(page, pageSize, boundingBoxes, confidenceDetails, Pages.copy(parameters)), pageSize, prefetchDepth);
+    }
+
     /**
      * Returns a json string {@link String} Check information. https://docs.veryfi.com/api/checks/get-a-check/
      *
@@ -967,6 +1500,21 @@ public class ClientImpl implements Client {
         return checkServices.processCheckAsync(filePath, parameters);
     }
 
+    /**
+     * Process many Checks from disk with a bounded number of files in progress. https://docs.veryfi.com/api/checks/process-a-check/
+     * A file that fails is retried and reported without stopping the others.
+     *
+     * @param filePaths             Paths on disk to the files to submit for data extraction, pulled lazily.
+     * @param parameters            Additional request parameters, applied to every file.
+     * @param concurrency           The maximum number of files in progress.
+     * @return the per-file outcomes {@link BatchReport}
+     * @throws InterruptedException when the calling thread is interrupted.
+     */
+    @Override
+    public BatchReport processChecks(Iterable<String> filePaths, JSONObject parameters, int concurrency) throws InterruptedException {
+        return new BatchProcessor(concurrency).process(filePaths, filePath -> checkServices.processCheck(filePath, Pages.copy(parameters)));
+    }
+
     /**
      * Process a Check and extract all the fields from it. https://docs.veryfi.com/api/checks/process-a-check/
      *
@@ -993,6 +1541,30 @@ public class ClientImpl implements Client {
         return checkServices.processCheckAsync(fileName, fileData, parameters);
     }
 
+    /**
+     * Process a Check and extract all the fields from it. https://docs.veryfi.com/api/checks/process-a-check/
+     *
+     * @param source        the {@link FileSource} of the file to submit for data extraction, encoded when the request is prepared.
+     * @param parameters    Additional request parameters.
+     * @return the data extracted from the Check {@link String}
+     */
+    @Override
+    public String processCheck(FileSource source, JSONObject parameters) {
+        return checkServices.processCheck(source, parameters);
+    }
+
+    /**
+     * Process a Check and extract all the fields from it. https://docs.veryfi.com/api/checks/process-a-check/
+     *
+     * @param source        the {@link FileSource} of the file to submit for data extraction, encoded when the request is prepared.
+     * @param parameters    Additional request parameters.
+     * @return the data extracted from the Check {@link CompletableFuture}{@code <String>}
+     */
+    @Override
+    public CompletableFuture<String> processCheckAsync(FileSource source, JSONObject parameters) {
+        return checkServices.processCheckAsync(source, parameters);
+    }
+
     /**
      * Process Check from url and extract all the fields from it. https://docs.veryfi.com/api/checks/process-a-check/
      *
@@ -1065,6 +1637,22 @@ public class ClientImpl implements Client {
         return w2Services.getW2sAsync(page, pageSize, boundingBoxes, confidenceDetails, parameters);
     }
 
+    /**
+     * Returns a lazily evaluated {@link Stream} over all the W2s, requesting the following pages while the current one is consumed. https://docs.veryfi.com/api/w2s/get-w-2-s/
+     * Closing the stream cancels the pages still in flight.
+     *
+     * @param pageSize The number of records per page. The response is capped to maximum of 50 results per page.
+     * @param boundingBoxes A field used to determine whether or not to return bounding_box and bounding_region for extracted fields in the Document response.
+     * @param confidenceDetails A field used to determine whether or not to return the score and ocr_score fields in the Document response.
+     * @param parameters Additional request parameters.
+     * @param prefetchDepth The number of pages requested ahead of the page being consumed, 0 to disable prefetching.
+     * @return the records of every page {@link Stream}{@code <JSONObject>}
+     */
+    @Override
+    public Stream<JSONObject> getW2sStream(int pageSize, boolean boundingBoxes, boolean confidenceDetails, JSONObject parameters, int prefetchDepth) {
+        return Pages.stream(page -> w2Services.getW2sAsync(page, pageSize, boundingBoxes, confidenceDetails, Pages.copy(parameters)), pageSize, prefetchDepth);
+    }
+
     /**
      * Returns a json string {@link String} W2 information. https://docs.veryfi.com/api/w2s/get-a-w-2/
      *
@@ -1107,6 +1695,21 @@ public class ClientImpl implements Client {
         return w2Services.processW2Async(filePath, parameters);
     }
 
+    /**
+     * Process many W2s from disk with a bounded number of files in progress. https://docs.veryfi.com/api/w2s/process-a-w-2/
+     * A file that fails is retried and reported without stopping the others.
+     *
+     * @param filePaths             Paths on disk to the files to submit for data extraction, pulled lazily.
+     * @param parameters            Additional request parameters, applied to every file.
+     * @param concurrency           The maximum number of files in progress.
+     * @return the per-file outcomes {@link BatchReport}
+     * @throws InterruptedException when the calling thread is interrupted.
+     */
+    @Override
+    public BatchReport processW2s(Iterable<String> filePaths, JSONObject parameters, int concurrency) throws InterruptedException {
+        return new BatchProcessor(concurrency).process(filePaths, filePath -> w2Services.processW2(filePath, Pages.copy(parameters)));
+    }
+
     /**
      * Process W2 from url and extract all the fields from it. https://docs.veryfi.com/api/w2s/process-a-w-2/
      *
@@ -1179,6 +1782,22 @@ public class ClientImpl implements Client {
         return w8BenEServices.getW8BenEsAsync(page, pageSize, boundingBoxes, confidenceDetails, parameters);
     }
 
+    /**
+     * Returns a lazily evaluated {@link Stream} over all the W-8BEN-Es, requesting the following pages while the current one is consumed. https://docs.veryfi.com/api/w-8ben-e/get-w-8-ben-es/
+     * Closing the stream cancels the pages still in flight.
+     *
+     * @param pageSize The number of records per page. The response is capped to maximum of 50 results per page.
+     * @param boundingBoxes A field used to determine whether or not to return bounding_box and bounding_region for extracted fields in the Document response.
+     * @param confidenceDetails A field used to determine whether or not to return the score and ocr_score fields in the Document response.
+     * @param parameters Additional request parameters.
+     * @param prefetchDepth The number of pages requested ahead of the page being consumed, 0 to disable prefetching.
+     * @return the records of every page {@link Stream}{@code <JSONObject>}
+     */
+    @Override
+    public Stream<JSONObject> getW8BenEsStream(int pageSize, boolean boundingBoxes, boolean confidenceDetails, JSONObject parameters, int prefetchDepth) {
+        return Pages.stream(page -> w8BenEServices.getW8BenEsAsync(page, pageSize, boundingBoxes, confidenceDetails, Pages.copy(parameters)), pageSize, prefetchDepth);
+    }
+
     /**
      * Returns a json string {@link String} W-8BEN-E information. https://docs.veryfi.com/api/w-8ben-e/get-a-w-8-ben-e/
      *
@@ -1221,6 +1840,21 @@ public class ClientImpl implements Client {
         return w8BenEServices.processW8BenEAsync(filePath, parameters);
     }
 
+    /**
+     * Process many W-8BEN-E forms from disk with a bounded number of files in progress. https://docs.veryfi.com/api/w-8ben-e/process-a-w-8-ben-e/
+     * A file that fails is retried and reported without stopping the others.
+     *
+     * @param filePaths             Paths on disk to the files to submit for data extraction, pulled lazily.
+     * @param parameters            Additional request parameters, applied to every file.
+     * @param concurrency           The maximum number of files in progress.
+     * @return the per-file outcomes {@link BatchReport}
+     * @throws InterruptedException when the calling thread is interrupted.
+     */
+    @Override
+    public BatchReport processW8BenEs(Iterable<String> filePaths, JSONObject parameters, int concurrency) throws InterruptedException {
+        return new BatchProcessor(concurrency).process(filePaths, filePath -> w8BenEServices.processW8BenE(filePath, Pages.copy(parameters)));
+    }
+
     /**
      * Process a W-8BEN-E and extract all the fields from it. https://docs.veryfi.com/api/w-8ben-e/process-a-w-8-ben-e/
      *
@@ -1245,6 +1879,30 @@ public class ClientImpl implements Client {
         return w8BenEServices.processW8BenEAsync(fileName, fileData, parameters);
     }
 
+    /**
+     * Process a W-8BEN-E and extract all the fields from it. https://docs.veryfi.com/api/w-8ben-e/process-a-w-8-ben-e/
+     *
+     * @param source        the {@link FileSource} of the file to submit for data extraction, encoded when the request is prepared.
+     * @param parameters    Additional request parameters.
+     * @return the data extracted from the W-8BEN-E {@link String}
+     */
+    @Override
+    public String processW8BenE(FileSource source, JSONObject parameters) {
+        return w8BenEServices.processW8BenE(source, parameters);
+    }
+
+    /**
+     * Process a W-8BEN-E and extract all the fields from it. https://docs.veryfi.com/api/w-8ben-e/process-a-w-8-ben-e/
+     *
+     * @param source        the {@link FileSource} of the file to submit for data extraction, encoded when the request is prepared.
+     * @param parameters    Additional request parameters.
+     * @return the data extracted from the W-8BEN-E {@link CompletableFuture}{@code <String>}
+     */
+    @Override
+    public CompletableFuture<String> processW8BenEAsync(FileSource source, JSONObject parameters) {
+        return w8BenEServices.processW8BenEAsync(source, parameters);
+    }
+
     /**
      * Process W-8BEN-E from url and extract all the fields from it. https://docs.veryfi.com/api/w-8ben-e/process-a-w-8-ben-e/
      *
@@ -1317,6 +1975,22 @@ public class ClientImpl implements Client {
         return w9Services.getW9sAsync(page, pageSize, boundingBoxes, confidenceDetails, parameters);
     }
 
+    /**
+     * Returns a lazily evaluated {@link Stream} over all the W9s, requesting the following pages while the current one is consumed. https://docs.veryfi.com/api/w9s/get-w-9-s/
+     * Closing the stream cancels the pages still in flight.
+     *
+     * @param pageSize The number of records per page. The response is capped to maximum of 50 results per page.
+     * @param boundingBoxes A field used to determine whether or not to return bounding_box and bounding_region for extracted fields in the Document response.
+     * @param confidenceDetails A field used to determine whether or not to return the score and ocr_score fields in the Document response.
+     * @param parameters Additional request parameters.
+     * @param prefetchDepth The number of pages requested ahead of the page being consumed, 0 to disable prefetching.
+     * @return the records of every page {@link Stream}{@code <JSONObject>}
+     */
+    @Override
+    public Stream<JSONObject> getW9sStream(int pageSize, boolean boundingBoxes, boolean confidenceDetails, JSONObject parameters, int prefetchDepth) {
+        return Pages.stream(page -> w9Services.getW9sAsync(page, pageSize, boundingBoxes, confidenceDetails, Pages.copy(parameters)), pageSize, prefetchDepth);
+    }
+
     /**
      * Returns a json string {@link String} W9 information. https://docs.veryfi.com/api/w9s/get-a-w-9/
      *
@@ -1359,6 +2033,21 @@ public class ClientImpl implements Client {
         return w9Services.processW9Async(filePath, parameters);
     }
 
+    /**
+     * Process many W9s from disk with a bounded number of files in progress. https://docs.veryfi.com/api/w9s/process-a-w-9/
+     * A file that fails is retried and reported without stopping the others.
+     *
+     * @param filePaths             Paths on disk to the files to submit for data extraction, pulled lazily.
+     * @param parameters            Additional request parameters, applied to every file.
+     * @param concurrency           The maximum number of files in progress.
+     * @return the per-file outcomes {@link BatchReport}
+     * @throws InterruptedException when the calling thread is interrupted.
+     */
+    @Override
+    public BatchReport processW9s(Iterable<String> filePaths, JSONObject parameters, int concurrency) throws InterruptedException {
+        return new BatchProcessor(concurrency).process(filePaths, filePath -> w9Services.processW9(filePath, Pages.copy(parameters)));
+    }
+
     /**
      * Process a W9 and extract all the fields from it. https://docs.veryfi.com/api/w9s/process-a-w-9/
      *
@@ -1383,6 +2072,30 @@ public class ClientImpl implements Client {
         return w9Services.processW9Async(fileName, fileData, parameters);
     }
 
+    /**
+     * Process a W9 and extract all the fields from it. https://docs.veryfi.com/api/w9s/process-a-w-9/
+     *
+     * @param source        the {@link FileSource} of the file to submit for data extraction, encoded when the request is prepared.
+     * @param parameters    Additional request parameters.
+     * @return the data extracted from the W9 {@link String}
+     */
+    @Override
+    public String processW9(FileSource source, JSONObject parameters) {
+        return w9Services.processW9(source, parameters);
+    }
+
+    /**
+     * Process a W9 and extract all the fields from it. https://docs.veryfi.com/api/w9s/process-a-w-9/
+     *
+     * @param source        the {@link FileSource} of the file to submit for data extraction, encoded when the request is prepared.
+     * @param parameters    Additional request parameters.
+     * @return the data extracted from the W9 {@link CompletableFuture}{@code <String>}
+     */
+    @Override
+    public CompletableFuture<String> processW9Async(FileSource source, JSONObject parameters) {
+        return w9Services.processW9Async(source, parameters);
+    }
+
     /**
      * Process W9 from url and extract all the fields from it. https://docs.veryfi.com/api/w9s/process-a-w-9/
      *
@@ -1451,6 +2164,20 @@ public class ClientImpl implements Client {
         return contractServices.getContractsAsync(page, pageSize, parameters);
     }
 
+    /**
+     * Returns a lazily evaluated {@link Stream} over all the Contracts, requesting the following pages while the current one is consumed.
+     * Closing the stream cancels the pages still in flight.
+     *
+     * @param pageSize The number of records per page. The response is capped to maximum of 50 results per page.
+     * @param parameters Additional request parameters.
+     * @param prefetchDepth The number of pages requested ahead of the page being consumed, 0 to disable prefetching.
+     * @return the records of every page {@link Stream}{@code <JSONObject>}
+     */
+    @Override
+    public Stream<JSONObject> getContractsStream(int pageSize, JSONObject parameters, int prefetchDepth) {
+        return Pages.stream(page -> contractServices.getContractsAsync(page, pageSize, Pages.copy(parameters)), pageSize, prefetchDepth);
+    }
+
     /**
      * Returns a json string {@link String} with the Contract information.
      *
@@ -1493,6 +2220,21 @@ public class ClientImpl implements Client {
         return contractServices.processContractAsync(filePath, parameters);
     }
 
+    /**
+     * Process many Contracts from disk with a bounded number of files in progress. https://docs.veryfi.com/api/contracts/process-a-contract/
+     * A file that fails is retried and reported without stopping the others.
+     *
+     * @param filePaths             Paths on disk to the files to submit for data extraction, pulled lazily.
+     * @param parameters            Additional request parameters, applied to every file.
+     * @param concurrency           The maximum number of files in progress.
+     * @return the per-file outcomes {@link BatchReport}
+     * @throws InterruptedException when the calling thread is interrupted.
+     */
+    @Override
+    public BatchReport processContracts(Iterable<String> filePaths, JSONObject parameters, int concurrency) throws InterruptedException {
+        return new BatchProcessor(concurrency).process(filePaths, filePath -> contractServices.processContract(filePath, Pages.copy(parameters)));
+    }
+
     /**
      * Process a Contract and extract all the fields from it.
      *
@@ -1517,6 +2259,30 @@ public class ClientImpl implements Client {
         return contractServices.processContractAsync(fileName, fileData, parameters);
     }
 
+    /**
+     * Process a Contract and extract all the fields from it.
+     *
+     * @param source        the {@link FileSource} of the file to submit for data extraction, encoded when the request is prepared.
+     * @param parameters    Additional request parameters.
+     * @return the data extracted from the Contract {@link String}
+     */
+    @Override
+    public String processContract(FileSource source, JSONObject parameters) {
+        return contractServices.processContract(source, parameters);
+    }
+
+    /**
+     * Process a Contract and extract all the fields from it.
+     *
+     * @param source        the {@link FileSource} of the file to submit for data extraction, encoded when the request is prepared.
+     * @param parameters    Additional request parameters.
+     * @return the data extracted from the Contract {@link CompletableFuture}{@code <String>}
+     */
+    @Override
+    public CompletableFuture<String> processContractAsync(FileSource source, JSONObject parameters) {
+        return contractServices.processContractAsync(source, parameters);
+    }
+
     /**
      * Process a W2 and extract all the fields from it. https://docs.veryfi.com/api/w2s/process-a-w-2/
      *
@@ -1541,6 +2307,30 @@ public class ClientImpl implements Client {
         return w2Services.processW2Async(fileName, fileData, parameters);
     }
 
+    /**
+     * Process a W2 and extract all the fields from it. https://docs.veryfi.com/api/w2s/process-a-w-2/
+     *
+     * @param source        the {@link FileSource} of the file to submit for data extraction, encoded when the request is prepared.
+     * @param parameters    Additional request parameters.
+     * @return the data extracted from the W2 {@link String}
+     */
+    @Override
+    public String processW2(FileSource source, JSONObject parameters) {
+        return w2Services.processW2(source, parameters);
+    }
+
+    /**
+     * Process a W2 and extract all the fields from it. https://docs.veryfi.com/api/w2s/process-a-w-2/
+     *
+     * @param source        the {@link FileSource} of the file to submit for data extraction, encoded when the request is prepared.
+     * @param parameters    Additional request parameters.
+     * @return the data extracted from the W2 {@link CompletableFuture}{@code <String>}
+     */
+    @Override
+    public CompletableFuture<String> processW2Async(FileSource source, JSONObject parameters) {
+        return w2Services.processW2Async(source, parameters);
+    }
+
     /**
      * Process Contract from url and extract all the fields from it.
      *
@@ -1660,6 +2450,18 @@ public class ClientImpl implements Client {
         return classifyServices.classifyDocumentUrlAsync(fileUrl, fileUrls, parameters);
     }
 
+    /**
+     * Encodes a file as a data URI for the file_data argument the way the process methods do, shrinking a large image
+     * first, so a single encoding can be sent to several endpoints through their fileName and fileData variants.
+     *
+     * @param source the {@link FileSource} of the file to submit
+     * @return Base64 encoded string with data URI prefix
+     * @throws IOException when the file can't be read
+     */
+    public String encodeFile(FileSource source) throws IOException {
+        return classifyServices.encode(source);
+    }
+
     // SplitServices methods
     /**
      * Split document PDF from url and extract all the fields from it. https://docs.veryfi.com/api/receipts-invoices/split-and-process-a-pdf/
@@ -1767,6 +2569,22 @@ public class ClientImpl implements Client {
         return splitServices.getSplitDocumentsAsync(page, pageSize, boundingBoxes, confidenceDetails, parameters);
     }
 
+    /**
+     * Returns a lazily evaluated {@link Stream} over all the documents from split PDFs, requesting the following pages while the current one is consumed. https://docs.veryfi.com/api/receipts-invoices/get-submitted-pdf/
+     * Closing the stream cancels the pages still in flight.
+     *
+     * @param pageSize The number of records per page. The response is capped to maximum of 50 results per page.
+     * @param boundingBoxes A field used to determine whether or not to return bounding_box and bounding_region for extracted fields in the Document response.
+     * @param confidenceDetails A field used to determine whether or not to return the score and ocr_score fields in the Document response.
+     * @param parameters Additional request parameters.
+     * @param prefetchDepth The number of pages requested ahead of the page being consumed, 0 to disable prefetching.
+     * @return the records of every page {@link Stream}{@code <JSONObject>}
+     */
+    @Override
+    public Stream<JSONObject> getSplitDocumentsStream(int pageSize, boolean boundingBoxes, boolean confidenceDetails, JSONObject parameters, int prefetchDepth) {
+        return Pages.stream(page -> splitServices.getSplitDocumentsAsync(page, pageSize, boundingBoxes, confidenceDetails, Pages.copy(parameters)), pageSize, prefetchDepth);
+    }
+
     /**
      * Veryfi's Get a Documents from PDF endpoint allows you to retrieve a collection of previously processed documents. https://docs.veryfi.com/api/receipts-invoices/get-documents-from-pdf/
      *
@@ -1789,4 +2607,16 @@ public class ClientImpl implements Client {
         return splitServices.getSplitDocumentAsync(documentId);
     }
 
+    private String invalidated(String documentId, String response) {
+        if (documentMirror != null)
+            documentMirror.invalidateDocument(documentId);
+        return response;
+    }
+
+    private CompletableFuture<String> invalidated(String documentId, CompletableFuture<String> response) {
+        DocumentMirror mirror = documentMirror;
+        if (mirror == null)
+            return response;
+        return response.whenComplete((result, error) -> mirror.invalidateDocument(documentId));
+    }
 }
@@ -2,6 +2,7 @@ package veryfi.services;
 
 import org.json.JSONObject;
 import veryfi.Credentials;
+import veryfi.FileSource;
 import veryfi.NetworkClient;
 import veryfi.enums.Endpoint;
 import veryfi.enums.HttpMethod;
@@ -114,8 +115,32 @@ class ContractServices extends NetworkClient {
      * @return the data extracted from the Contract {@link CompletableFuture}{@code <String>}
      */
     protected CompletableFuture<String> processContractAsync(String filePath, JSONObject parameters) {
-        parameters = addFileToParameters(filePath, parameters);
-        return requestAsync(HttpMethod.POST, Endpoint.contracts.path, parameters);
+        JSONObject arguments = copyParameters(parameters);
+        return prepareAsync(() -> requestAsync(HttpMethod.POST, Endpoint.contracts.path, addFileToParameters(filePath, arguments)));
+    }
+
+    /**
+     * Process a Contract and extract all the fields from it.
+     *
+     * @param source        the {@link FileSource} of the file to submit for data extraction, encoded when the request is prepared.
+     * @param parameters    Additional request parameters.
+     * @return the data extracted from the Contract {@link String}
+     */
+    protected String processContract(FileSource source, JSONObject parameters) {
+        parameters = addFileToParameters(source, parameters);
+        return request(HttpMethod.POST, Endpoint.contracts.path, parameters);
+    }
+
+    /**
+     * Process a Contract and extract all the fields from it.
+     *
+     * @param source        the {@link FileSource} of the file to submit for data extraction, encoded when the request is prepared.
+     * @param parameters    Additional request parameters.
+     * @return the data extracted from the Contract {@link CompletableFuture}{@code <String>}
+     */
+    protected CompletableFuture<String> processContractAsync(FileSource source, JSONObject parameters) {
+        JSONObject arguments = copyParameters(parameters);
+        return prepareAsync(() -> requestAsync(HttpMethod.POST, Endpoint.contracts.path, addFileToParameters(source, arguments)));
     }
 
     /**
@@ -1,16 +1,22 @@
 package veryfi.services;
 
 import org.json.JSONObject;
-import veryfi.Base64Helper;
+import veryfi.FileSource;
 import veryfi.Credentials;
 import veryfi.NetworkClient;
+import veryfi.RequestTemplate;
 import veryfi.enums.Endpoint;
 import veryfi.enums.HttpMethod;
 
 import java.io.File;
 import java.net.http.HttpClient;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
 import static veryfi.Constants.*;
 
@@ -19,6 +25,17 @@ import static veryfi.Constants.*;
  */
 class DocumentServices extends NetworkClient {
 
+    private static final RequestTemplate DEFAULT_TEMPLATE = RequestTemplate.builder()
+            .categories(LIST_CATEGORIES)
+            .deleteAfterProcessing(false)
+            .build();
+    private static final RequestTemplate DEFAULT_AUTO_DELETE_TEMPLATE = RequestTemplate.builder()
+            .categories(LIST_CATEGORIES)
+            .deleteAfterProcessing(true)
+            .build();
+    private static final int MAX_CACHED_TEMPLATES = 256;
+    private static final Map<List<Object>, RequestTemplate> TEMPLATES = new ConcurrentHashMap<>();
+
     /**
      * Creates an instance of {@link DocumentServices}.
      *
@@ -117,8 +134,8 @@ class DocumentServices extends NetworkClient {
      */
     protected String processDocument(String filePath, List<String> categories, boolean deleteAfterProcessing,
                                   JSONObject parameters) {
-        JSONObject requestArguments = getProcessDocumentArguments(filePath, categories, deleteAfterProcessing, parameters);
-        return request(HttpMethod.POST, Endpoint.documents.path, requestArguments);
+        RequestTemplate template = getProcessDocumentTemplate(categories, deleteAfterProcessing);
+        return processDocument(filePath, template, parameters);
     }
 
     /**
@@ -132,8 +149,38 @@ class DocumentServices extends NetworkClient {
      */
     protected CompletableFuture<String> processDocumentAsync(String filePath, List<String> categories,
                                                           boolean deleteAfterProcessing, JSONObject parameters) {
-        JSONObject requestArguments = getProcessDocumentArguments(filePath, categories, deleteAfterProcessing, parameters);
-        return requestAsync(HttpMethod.POST, Endpoint.documents.path, requestArguments);
+        RequestTemplate template = getProcessDocumentTemplate(categories, deleteAfterProcessing);
+        return processDocumentAsync(filePath, template, parameters);
+    }
+
+    /**
+     * Process a document and extract all the fields from it. https://docs.veryfi.com/api/receipts-invoices/process-a-document/
+     *
+     * @param source                the {@link FileSource} of the file to submit for data extraction, encoded when the request is prepared
+     * @param categories            List of categories Veryfi can use to categorize the document
+     * @param deleteAfterProcessing Delete this document from Veryfi after data has been extracted
+     * @param parameters            Additional request parameters
+     * @return the data extracted from the Document {@link String}
+     */
+    protected String processDocument(FileSource source, List<String> categories, boolean deleteAfterProcessing,
+                                     JSONObject parameters) {
+        RequestTemplate template = getProcessDocumentTemplate(categories, deleteAfterProcessing);
+        return processDocument(source, template, parameters);
+    }
+
+    /**
+     * Process a document and extract all the fields from it. https://docs.veryfi.com/api/receipts-invoices/process-a-document/
+     *
+     * @param source                the {@link FileSource} of the file to submit for data extraction, encoded when the request is prepared
+     * @param categories            List of categories Veryfi can use to categorize the document
+     * @param deleteAfterProcessing Delete this document from Veryfi after data has been extracted
+     * @param parameters            Additional request parameters
+     * @return the data extracted from the Document {@link CompletableFuture}{@code <String>}
+     */
+    protected CompletableFuture<String> processDocumentAsync(FileSource source, List<String> categories,
+                                                             boolean deleteAfterProcessing, JSONObject parameters) {
+        RequestTemplate template = getProcessDocumentTemplate(categories, deleteAfterProcessing);
+        return processDocumentAsync(source, template, parameters);
     }
 
     /**
@@ -148,8 +195,8 @@ class DocumentServices extends NetworkClient {
      */
     protected String processDocument(String fileName, String fileData, List<String> categories,
                                      boolean deleteAfterProcessing, JSONObject parameters) {
-        JSONObject requestArguments = getProcessDocumentArguments(fileName, fileData, categories, deleteAfterProcessing, parameters);
-        return request(HttpMethod.POST, Endpoint.documents.path, requestArguments);
+        RequestTemplate template = getProcessDocumentTemplate(categories, deleteAfterProcessing);
+        return processDocument(fileName, fileData, template, parameters);
     }
 
     /**
@@ -164,8 +211,8 @@ class DocumentServices extends NetworkClient {
      */
     protected CompletableFuture<String> processDocumentAsync(String fileName, String fileData, List<String> categories,
                                                              boolean deleteAfterProcessing, JSONObject parameters) {
-        JSONObject requestArguments = getProcessDocumentArguments(fileName, fileData, categories, deleteAfterProcessing, parameters);
-        return requestAsync(HttpMethod.POST, Endpoint.documents.path, requestArguments);
+        RequestTemplate template = getProcessDocumentTemplate(categories, deleteAfterProcessing);
+        return processDocumentAsync(fileName, fileData, template, parameters);
     }
 
     /**
@@ -184,8 +231,8 @@ class DocumentServices extends NetworkClient {
     protected String processDocumentUrl(String fileUrl, List<String> fileUrls, List<String> categories,
                                      boolean deleteAfterProcessing, int maxPagesToProcess,
                                      boolean boostMode, String externalId, JSONObject parameters) {
-        JSONObject requestArguments = getProcessDocumentUrlArguments(fileUrl, fileUrls, categories, deleteAfterProcessing, maxPagesToProcess, boostMode, externalId, parameters);
-        return request(HttpMethod.POST, Endpoint.documents.path, requestArguments);
+        RequestTemplate template = getProcessDocumentUrlTemplate(categories, deleteAfterProcessing, maxPagesToProcess, boostMode);
+        return processDocumentUrl(fileUrl, fileUrls, template, getExternalIdParameters(externalId, parameters));
     }
 
     /**
@@ -205,8 +252,120 @@ class DocumentServices extends NetworkClient {
                                                              List<String> categories, boolean deleteAfterProcessing,
                                                              int maxPagesToProcess, boolean boostMode,
                                                              String externalId, JSONObject parameters) {
-        JSONObject requestArguments = getProcessDocumentUrlArguments(fileUrl, fileUrls, categories, deleteAfterProcessing, maxPagesToProcess, boostMode, externalId, parameters);
-        return requestAsync(HttpMethod.POST, Endpoint.documents.path, requestArguments);
+        RequestTemplate template = getProcessDocumentUrlTemplate(categories, deleteAfterProcessing, maxPagesToProcess, boostMode);
+        return processDocumentUrlAsync(fileUrl, fileUrls, template, getExternalIdParameters(externalId, parameters));
+    }
+
+    /**
+     * Process a document with a reusable {@link RequestTemplate} and extract all the fields from it. https://docs.veryfi.com/api/receipts-invoices/process-a-document/
+     *
+     * @param filePath   Path on disk to a file to submit for data extraction
+     * @param template   Fixed request arguments such as categories or auto delete
+     * @param parameters Additional request parameters for this document only
+     * @return the data extracted from the Document {@link String}
+     */
+    protected String processDocument(String filePath, RequestTemplate template, JSONObject parameters) {
+        JSONObject requestArguments = getProcessDocumentArguments(filePath, template, parameters);
+        return request(HttpMethod.POST, Endpoint.documents.path, template, requestArguments);
+    }
+
+    /**
+     * Process a document with a reusable {@link RequestTemplate} and extract all the fields from it. https://docs.veryfi.com/api/receipts-invoices/process-a-document/
+     *
+     * @param filePath   Path on disk to a file to submit for data extraction
+     * @param template   Fixed request arguments such as categories or auto delete
+     * @param parameters Additional request parameters for this document only
+     * @return the data extracted from the Document {@link CompletableFuture}{@code <String>}
+     */
+    protected CompletableFuture<String> processDocumentAsync(String filePath, RequestTemplate template, JSONObject parameters) {
+        JSONObject arguments = copyParameters(parameters);
+        return prepareAsync(() -> requestAsync(HttpMethod.POST, Endpoint.documents.path, template,
+                getProcessDocumentArguments(filePath, template, arguments)));
+    }
+
+    /**
+     * Process a document with a reusable {@link RequestTemplate} and extract all the fields from it. https://docs.veryfi.com/api/receipts-invoices/process-a-document/
+     *
+     * @param source     the {@link FileSource} of the file to submit for data extraction, encoded when the request is prepared
+     * @param template   Fixed request arguments such as categories or auto delete
+     * @param parameters Additional request parameters for this document only
+     * @return the data extracted from the Document {@link String}
+     */
+    protected String processDocument(FileSource source, RequestTemplate template, JSONObject parameters) {
+        JSONObject requestArguments = getProcessDocumentArguments(source, template, parameters);
+        return request(HttpMethod.POST, Endpoint.documents.path, template, requestArguments);
+    }
+
+    /**
+     * Process a document with a reusable {@link RequestTemplate} and extract all the fields from it. https://docs.veryfi.com/api/receipts-invoices/process-a-document/
+     *
+     * @param source     the {@link FileSource} of the file to submit for data extraction, encoded when the request is prepared
+     * @param template   Fixed request arguments such as categories or auto delete
+     * @param parameters Additional request parameters for this document only
+     * @return the data extracted from the Document {@link CompletableFuture}{@code <String>}
+     */
+    protected CompletableFuture<String> processDocumentAsync(FileSource source, RequestTemplate template, JSONObject parameters) {
+        JSONObject arguments = copyParameters(parameters);
+        return prepareAsync(() -> requestAsync(HttpMethod.POST, Endpoint.documents.path, template,
+                getProcessDocumentArguments(source, template, arguments)));
+    }
+
+    /**
+     * Process a document with a reusable {@link RequestTemplate} and extract all the fields from it. https://docs.veryfi.com/api/receipts-invoices/process-a-document/
+     *
+     * @param fileName   Name of the file to upload to the Veryfi API
+     * @param fileData   Base64 encoded file data
+     * @param template   Fixed request arguments such as categories or auto delete
+     * @param parameters Additional request parameters for this document only
+     * @return the data extracted from the Document {@link String}
+     */
+    protected String processDocument(String fileName, String fileData, RequestTemplate template, JSONObject parameters) {
+        JSONObject requestArguments = getProcessDocumentArguments(fileName, fileData, parameters);
+        return request(HttpMethod.POST, Endpoint.documents.path, template, requestArguments);
+    }
+
+    /**
+     * Process a document with a reusable {@link RequestTemplate} and extract all the fields from it. https://docs.veryfi.com/api/receipts-invoices/process-a-document/
+     *
+     * @param fileName   Name of the file to upload to the Veryfi API
+     * @param fileData   Base64 encoded file data
+     * @param template   Fixed request arguments such as categories or auto delete
+     * @param parameters Additional request parameters for this document only
+     * @return the data extracted from the Document {@link CompletableFuture}{@code <String>}
+     */
+    protected CompletableFuture<String> processDocumentAsync(String fileName, String fileData, RequestTemplate template,
+                                                             JSONObject parameters) {
+        JSONObject requestArguments = getProcessDocumentArguments(fileName, fileData, parameters);
+        return requestAsync(HttpMethod.POST, Endpoint.documents.path, template, requestArguments);
+    }
+
+    /**
+     * Process Document from url with a reusable {@link RequestTemplate} and extract all the fields from it. https://docs.veryfi.com/api/receipts-invoices/process-a-document/
+     *
+     * @param fileUrl    Required if file_urls isn't specified. Publicly accessible URL to a file, e.g. "https://cdn.example.com/receipt.jpg".
+     * @param fileUrls   Required if file_url isn't specifies. List of publicly accessible URLs to multiple files, e.g. ["https://cdn.example.com/receipt1.jpg", "https://cdn.example.com/receipt2.jpg"]
+     * @param template   Fixed request arguments such as categories or boost mode
+     * @param parameters Additional request parameters for this document only
+     * @return the data extracted from the Document {@link String}
+     */
+    protected String processDocumentUrl(String fileUrl, List<String> fileUrls, RequestTemplate template, JSONObject parameters) {
+        JSONObject requestArguments = getProcessDocumentUrlArguments(fileUrl, fileUrls, parameters);
+        return request(HttpMethod.POST, Endpoint.documents.path, template, requestArguments);
+    }
+
+    /**
+     * Process Document from url with a reusable {@link RequestTemplate} and extract all the fields from it. https://docs.veryfi.com/api/receipts-invoices/process-a-document/
+     *
+     * @param fileUrl    Required if file_urls isn't specified. Publicly accessible URL to a file, e.g. "https://cdn.example.com/receipt.jpg".
+     * @param fileUrls   Required if file_url isn't specifies. List of publicly accessible URLs to multiple files, e.g. ["https://cdn.example.com/receipt1.jpg", "https://cdn.example.com/receipt2.jpg"]
+     * @param template   Fixed request arguments such as categories or boost mode
+     * @param parameters Additional request parameters for this document only
+     * @return the data extracted from the Document {@link CompletableFuture}{@code <String>}
+     */
+    protected CompletableFuture<String> processDocumentUrlAsync(String fileUrl, List<String> fileUrls, RequestTemplate template,
+                                                                JSONObject parameters) {
+        JSONObject requestArguments = getProcessDocumentUrlArguments(fileUrl, fileUrls, parameters);
+        return requestAsync(HttpMethod.POST, Endpoint.documents.path, template, requestArguments);
     }
 
     /**
@@ -260,88 +419,162 @@ class DocumentServices extends NetworkClient {
     }
 
     /**
-     * Creates the JSON Object for the parameters of the request
+     * Returns the template for the categories and auto delete flag, reusing the pre-encoded
+     * default template when no categories are given.
      *
-     * @param fileName              Name of the file to upload to the Veryfi API
-     * @param fileData              Base64 encoded file data
      * @param categories            List of categories Veryfi can use to categorize the document
      * @param deleteAfterProcessing Delete this document from Veryfi after data has been extracted
-     * @param parameters            Additional request parameters
-     * @return the JSON object of the parameters of the request
+     * @return the {@link RequestTemplate} of the request
      */
-    private JSONObject getProcessDocumentArguments(String fileName, String fileData, List<String> categories,
-                                                   boolean deleteAfterProcessing, JSONObject parameters) {
+    private RequestTemplate getProcessDocumentTemplate(List<String> categories, boolean deleteAfterProcessing) {
         if (categories == null || categories.isEmpty()) {
-            categories = LIST_CATEGORIES;
+            return deleteAfterProcessing ? DEFAULT_AUTO_DELETE_TEMPLATE : DEFAULT_TEMPLATE;
         }
+        List<String> templateCategories = categories;
+        return cachedTemplate(Arrays.asList("file", new ArrayList<>(categories), deleteAfterProcessing),
+                () -> RequestTemplate.builder()
+                        .categories(templateCategories)
+                        .deleteAfterProcessing(deleteAfterProcessing)
+                        .build());
+    }
+
+    /**
+     * Returns the template for a document processed from url.
+     *
+     * @param categories            List of categories to use when categorizing the document
+     * @param deleteAfterProcessing Delete this document from Veryfi after data has been extracted
+     * @param maxPagesToProcess     When sending a long document to Veryfi for processing, this parameter controls how many pages of the document will be read and processed, starting from page 1.
+     * @param boostMode             Flag that tells Veryfi whether boost mode should be enabled. When set to 1, Veryfi will skip data enrichment steps, but will process the document faster. Default value for this flag is 0
+     * @return the {@link RequestTemplate} of the request
+     */
+    private RequestTemplate getProcessDocumentUrlTemplate(List<String> categories, boolean deleteAfterProcessing,
+                                                          int maxPagesToProcess, boolean boostMode) {
+        List<String> templateCategories = categories == null || categories.isEmpty() ? LIST_CATEGORIES : categories;
+        return cachedTemplate(Arrays.asList("url", new ArrayList<>(templateCategories), deleteAfterProcessing,
+                maxPagesToProcess, boostMode), () -> RequestTemplate.builder()
+                .deleteAfterProcessing(deleteAfterProcessing)
+                .boostMode(boostMode)
+                .categories(templateCategories)
+                .maxPagesToProcess(maxPagesToProcess)
+                .build());
+    }
+
+    /**
+     * Returns the pre-encoded template of a combination of arguments, encoding it on first use. Only the first
+     * combinations are kept, so callers varying the categories on every request don't grow the cache.
+     *
+     * @param key      The arguments of the template.
+     * @param template Builds the template.
+     * @return the {@link RequestTemplate} of the arguments
+     */
+    private static RequestTemplate cachedTemplate(List<Object> key, Supplier<RequestTemplate> template) {
+        RequestTemplate cached = TEMPLATES.get(key);
+        if (cached != null)
+            return cached;
+        RequestTemplate built = template.get();
+        if (TEMPLATES.size() < MAX_CACHED_TEMPLATES)
+            TEMPLATES.putIfAbsent(key, built);
+        return built;
+    }
+
+    /**
+     * Creates the JSON Object for the parameters of the request
+     *
+     * @param fileName   Name of the file to upload to the Veryfi API
+     * @param fileData   Base64 encoded file data
+     * @param parameters Additional request parameters
+     * @return the JSON object of the parameters of the request
+     */
+    private JSONObject getProcessDocumentArguments(String fileName, String fileData, JSONObject parameters) {
         JSONObject requestArguments = new JSONObject();
         requestArguments.put(FILE_NAME, fileName);
         requestArguments.put(FILE_DATA, fileData);
-        requestArguments.put(CATEGORIES, categories);
-        requestArguments.put(AUTO_DELETE, deleteAfterProcessing);
-
-        if (parameters != null && !parameters.isEmpty()) {
-            for (String key : JSONObject.getNames(parameters)) {
-                requestArguments.put(key, parameters.get(key));
-            }
-        }
-        return requestArguments;
+        return withParameters(requestArguments, parameters);
     }
 
     /**
      * Creates the JSON Object for the parameters of the request
      *
-     * @param filePath              Path on disk to a file to submit for data extraction
-     * @param categories            List of categories Veryfi can use to categorize the document
-     * @param deleteAfterProcessing Delete this document from Veryfi after data has been extracted
-     * @param parameters            Additional request parameters
+     * @param filePath   Path on disk to a file to submit for data extraction
+     * @param template   Fixed request arguments, its max_pages_to_process applies unless the parameters set it
+     * @param parameters Additional request parameters
      * @return the JSON object of the parameters of the request
      */
-    private JSONObject getProcessDocumentArguments(String filePath, List<String> categories,
-                                                  boolean deleteAfterProcessing, JSONObject parameters) {
+    private JSONObject getProcessDocumentArguments(String filePath, RequestTemplate template, JSONObject parameters) {
         String fileName = filePath.replaceAll("^.*[/\\\\]", "");
         File file = new File(filePath);
         String fileData = "";
         try {
-            fileData = Base64Helper.getBase64FileContent(file);
+            fileData = encodeFile(FileSource.fromPath(file.toPath()), maxPagesToProcess(template, parameters));
         } catch (Exception e) {
             logger.severe(e.getMessage());
         }
-        return getProcessDocumentArguments(fileName, fileData, categories, deleteAfterProcessing, parameters);
+        return getProcessDocumentArguments(fileName, fileData, parameters);
+    }
+
+    /**
+     * Creates the JSON Object for the parameters of the request
+     *
+     * @param source     the {@link FileSource} of the file to submit for data extraction
+     * @param template   Fixed request arguments, its max_pages_to_process applies unless the parameters set it
+     * @param parameters Additional request parameters
+     * @return the JSON object of the parameters of the request
+     */
+    private JSONObject getProcessDocumentArguments(FileSource source, RequestTemplate template, JSONObject parameters) {
+        String fileData = "";
+        try {
+            fileData = encodeFile(source, maxPagesToProcess(template, parameters));
+        } catch (Exception e) {
+            logger.severe(e.getMessage());
+        }
+        return getProcessDocumentArguments(source.getFileName(), fileData, parameters);
+    }
+
+    private static int maxPagesToProcess(RequestTemplate template, JSONObject parameters) {
+        int maxPages = maxPagesToProcess(parameters);
+        return maxPages > 0 || template == null ? maxPages : template.maxPagesToProcess();
     }
 
     /**
      * Creates the JSON object of the parameters of the request
      *
-     * @param fileUrl               Required if file_urls isn't specified. Publicly accessible URL to a file, e.g. "https://cdn.example.com/receipt.jpg".
-     * @param fileUrls              Required if file_url isn't specifies. List of publicly accessible URLs to multiple files, e.g. ["https://cdn.example.com/receipt1.jpg", "https://cdn.example.com/receipt2.jpg"]
-     * @param categories            List of categories to use when categorizing the document
-     * @param deleteAfterProcessing Delete this document from Veryfi after data has been extracted
-     * @param maxPagesToProcess     When sending a long document to Veryfi for processing, this parameter controls how many pages of the document will be read and processed, starting from page 1.
-     * @param boostMode             Flag that tells Veryfi whether boost mode should be enabled. When set to 1, Veryfi will skip data enrichment steps, but will process the document faster. Default value for this flag is 0
-     * @param externalId            Optional custom document identifier. Use this if you would like to assign your own ID to documents
-     * @param parameters            Additional request parameters
+     * @param fileUrl    Required if file_urls isn't specified. Publicly accessible URL to a file, e.g. "https://cdn.example.com/receipt.jpg".
+     * @param fileUrls   Required if file_url isn't specifies. List of publicly accessible URLs to multiple files, e.g. ["https://cdn.example.com/receipt1.jpg", "https://cdn.example.com/receipt2.jpg"]
+     * @param parameters Additional request parameters
      * @return JSON object of the request arguments
      */
-    private JSONObject getProcessDocumentUrlArguments(String fileUrl, List<String> fileUrls, List<String> categories,
-                                                     boolean deleteAfterProcessing, int maxPagesToProcess,
-                                                     boolean boostMode, String externalId, JSONObject parameters) {
-        if (categories == null || categories.isEmpty()) {
-            categories = LIST_CATEGORIES;
-        }
+    private JSONObject getProcessDocumentUrlArguments(String fileUrl, List<String> fileUrls, JSONObject parameters) {
         JSONObject requestArguments = new JSONObject();
-        requestArguments.put(AUTO_DELETE, deleteAfterProcessing);
-        requestArguments.put(BOOST_MODE, boostMode);
-        requestArguments.put(CATEGORIES, categories);
-        requestArguments.put(EXTERNAL_ID, externalId);
         requestArguments.put(FILE_URL, fileUrl);
         if (fileUrls != null) {
             requestArguments.put(FILE_URLS, fileUrls);
         }
-        requestArguments.put(MAX_PAGES_TO_PROCESS, maxPagesToProcess);
+        return withParameters(requestArguments, parameters);
+    }
+
+    /**
+     * Adds the external id to a copy of the additional request parameters.
+     *
+     * @param externalId Optional custom document identifier. Use this if you would like to assign your own ID to documents
+     * @param parameters Additional request parameters
+     * @return JSON object of the request parameters
+     */
+    private JSONObject getExternalIdParameters(String externalId, JSONObject parameters) {
+        JSONObject requestArguments = new JSONObject();
+        requestArguments.put(EXTERNAL_ID, externalId);
+        return withParameters(requestArguments, parameters);
+    }
 
+    /**
+     * Copies the caller parameters into the request arguments, caller values win.
+     *
+     * @param requestArguments JSON object of the request arguments
+     * @param parameters       Additional request parameters
+     * @return the request arguments
+     */
+    private JSONObject withParameters(JSONObject requestArguments, JSONObject parameters) {
         if (parameters != null && !parameters.isEmpty()) {
-            for (String key : JSONObject.getNames(parameters)) {
+            for (String key : parameters.keySet()) {
                 requestArguments.put(key, parameters.get(key));
             }
         }
@@ -1,22 +1,38 @@
 package veryfi.services;
 
+import org.json.JSONArray;
+import org.json.JSONException;
 import org.json.JSONObject;
 import veryfi.Credentials;
 import veryfi.NetworkClient;
+import veryfi.batch.BatchProcessor;
 import veryfi.enums.Endpoint;
 import veryfi.enums.HttpMethod;
 import veryfi.models.AddLineItem;
+import veryfi.models.LineItemSyncResult;
 import veryfi.models.NotValidModelException;
+import veryfi.models.SharedLineItem;
 import veryfi.models.UpdateLineItem;
 
 import java.net.http.HttpClient;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 /**
  * API services for line items
  */
 class LineItemServices extends NetworkClient {
 
+    /**
+     * The maximum number of requests in progress of a line item sync of the client.
+     */
+    static final int SYNC_CONCURRENCY = 8;
+
     /**
      * Creates an instance of {@link LineItemServices}.
      *
@@ -197,5 +213,162 @@ class LineItemServices extends NetworkClient {
         return requestAsync(HttpMethod.DELETE, endpointName, requestArguments);
     }
 
+    /**
+     * Makes the line items of a document match a desired list with the fewest requests.
+     * <p>
+     * The current line items are fetched once and matched to the desired ones by their order. A desired
+     * {@link AddLineItem} without a match is added, a match is updated with only the fields of
+     * {@code toJsonObject} that differ, and nothing is sent when none do. A desired {@link UpdateLineItem} only
+     * updates the fields it sets and needs a match. Current line items without a desired one are deleted. The adds,
+     * updates and deletes run concurrently, unlike deleting every line item and adding them back, and the line
+     * items kept keep their ids.
+     * </p>
+     *
+     * @param documentId  ID of the document you'd like to update.
+     * @param lineItems   The desired line items, {@link AddLineItem}s and {@link UpdateLineItem}s with distinct orders.
+     * @param concurrency The maximum number of requests in progress.
+     * @return the {@link LineItemSyncResult}, the failed requests are in its errors. {@link CompletableFuture}
+     * @throws NotValidModelException when a model is not valid or has no order, or when two share an order.
+     */
+    protected CompletableFuture<LineItemSyncResult> syncLineItemsAsync(String documentId, List<? extends SharedLineItem> lineItems,
+                                                                       int concurrency) throws NotValidModelException {
+        if (concurrency <= 0)
+            throw new IllegalArgumentException("concurrency must be positive");
+        Map<Integer, JSONObject> desired = new LinkedHashMap<>();
+        Map<Integer, Boolean> addable = new LinkedHashMap<>();
+        for (SharedLineItem lineItem : lineItems) {
+            Integer order;
+            JSONObject fields;
+            if (lineItem instanceof AddLineItem) {
+                order = ((AddLineItem) lineItem).order;
+                fields = ((AddLineItem) lineItem).toJsonObject();
+            } else if (lineItem instanceof UpdateLineItem) {
+                order = ((UpdateLineItem) lineItem).order;
+                fields = ((UpdateLineItem) lineItem).toJsonObject();
+            } else {
+                throw new NotValidModelException("line items must be AddLineItem or UpdateLineItem");
+            }
+            if (order == null)
+                throw new NotValidModelException("order can't be null");
+            if (desired.put(order, fields) != null)
+                throw new NotValidModelException("order " + order + " is repeated");
+            addable.put(order, lineItem instanceof AddLineItem);
+        }
+        String endpointName = Endpoint.documents.path + documentId + "/line-items/";
+        return getLineItemsAsync(documentId).thenCompose(response -> {
+            List<JSONObject> current;
+            try {
+                current = currentLineItems(response);
+            } catch (JSONException e) {
+                return CompletableFuture.completedFuture(new LineItemSyncResult(documentId, 0, 0, 0, 0,
+                        List.of("line items not fetched: " + e.getMessage())));
+            }
+            List<String> labels = new ArrayList<>();
+            List<Supplier<CompletableFuture<String>>> requests = new ArrayList<>();
+            List<String> errors = Collections.synchronizedList(new ArrayList<>());
+            Map<Integer, JSONObject> unmatched = new LinkedHashMap<>(desired);
+            int unchanged = 0;
+            for (JSONObject item : current) {
+                String lineItemId = String.valueOf(item.get("id"));
+                JSONObject fields = item.has("order") && !item.isNull("order") ? unmatched.remove(item.getInt("order")) : null;
+                if (fields == null) {
+                    labels.add("delete");
+                    requests.add(() -> requestAsync(HttpMethod.DELETE, endpointName + lineItemId, new JSONObject()));
+                    continue;
+                }
+                JSONObject changes = changedFields(item, fields);
+                if (changes.isEmpty()) {
+                    unchanged++;
+                    continue;
+                }
+                labels.add("update");
+                requests.add(() -> requestAsync(HttpMethod.PUT, endpointName + lineItemId, changes));
+            }
+            for (Map.Entry<Integer, JSONObject> entry : unmatched.entrySet()) {
+                if (!addable.get(entry.getKey())) {
+                    errors.add("update order " + entry.getKey() + ": no line item with this order");
+                    continue;
+                }
+                labels.add("add");
+                requests.add(() -> requestAsync(HttpMethod.POST, endpointName, entry.getValue()));
+            }
+            int unchangedCount = unchanged;
+            return runWindowed(requests, concurrency).thenApply(responses -> {
+                Map<String, Integer> succeeded = new LinkedHashMap<>();
+                for (int i = 0; i < responses.size(); i++) {
+                    String failure = BatchProcessor.failureOf(responses.get(i));
+                    if (failure == null) {
+                        succeeded.merge(labels.get(i), 1, Integer::sum);
+                    } else {
+                        errors.add(labels.get(i) + ": " + failure);
+                    }
+                }
+                return new LineItemSyncResult(documentId, succeeded.getOrDefault("add", 0), succeeded.getOrDefault("update", 0),
+                        succeeded.getOrDefault("delete", 0), unchangedCount, new ArrayList<>(errors));
+            });
+        });
+    }
 
+    /**
+     * Reads the line items of a getLineItems response.
+     */
+    private static List<JSONObject> currentLineItems(String response) {
+        String failure = BatchProcessor.failureOf(response);
+        if (failure != null)
+            throw new JSONException(failure);
+        JSONObject json = new JSONObject(response);
+        JSONArray items = json.has("line_items") ? json.getJSONArray("line_items") : json.getJSONObject("data").getJSONArray("line_items");
+        List<JSONObject> lineItems = new ArrayList<>(items.length());
+        for (int i = 0; i < items.length(); i++) {
+            lineItems.add(items.getJSONObject(i));
+        }
+        return lineItems;
+    }
+
+    /**
+     * Returns the desired fields whose value differs from the current line item, numbers compared as the floats of the models.
+     */
+    private static JSONObject changedFields(JSONObject current, JSONObject desired) {
+        JSONObject changes = new JSONObject();
+        for (String key : desired.keySet()) {
+            Object value = desired.get(key);
+            Object existing = current.opt(key);
+            boolean same;
+            if (value instanceof Number && existing instanceof Number) {
+                same = (float) ((Number) value).doubleValue() == (float) ((Number) existing).doubleValue();
+            } else {
+                same = existing != null && !JSONObject.NULL.equals(existing) && value.toString().equals(existing.toString());
+            }
+            if (!same)
+                changes.put(key, value);
+        }
+        return changes;
+    }
+
+    /**
+     * Runs requests with at most {@code concurrency} in progress, each lane sending its share of the requests one after
+     * the other. A failed request answers with an empty body.
+     */
+    private static CompletableFuture<List<String>> runWindowed(List<Supplier<CompletableFuture<String>>> requests, int concurrency) {
+        String[] responses = new String[requests.size()];
+        CompletableFuture<?>[] lanes = new CompletableFuture<?>[Math.min(concurrency, requests.size())];
+        for (int lane = 0; lane < lanes.length; lane++) {
+            CompletableFuture<Void> chain = CompletableFuture.completedFuture(null);
+            for (int index = lane; index < requests.size(); index += lanes.length) {
+                int request = index;
+                chain = chain.thenCompose(ignored -> send(requests.get(request)))
+                        .thenAccept(response -> responses[request] = response);
+            }
+            lanes[lane] = chain;
+        }
+        return CompletableFuture.allOf(lanes).thenApply(ignored -> List.of(responses));
+    }
+
+    private static CompletableFuture<String> send(Supplier<CompletableFuture<String>> request) {
+        try {
+            return request.get().handle((response, e) -> e == null && response != null ? response : "");
+        } catch (RuntimeException e) {
+            return CompletableFuture.completedFuture("");
+        }
+    }
 }
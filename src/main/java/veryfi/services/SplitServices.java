@@ -56,8 +56,8 @@ public class SplitServices extends NetworkClient {
      * @return the data extracted from the document {@link CompletableFuture}{@code <String>}
      */
     protected CompletableFuture<String> splitDocumentAsync(String filePath, JSONObject parameters) {
-        parameters = addFileToParameters(filePath, parameters);
-        return requestAsync(HttpMethod.POST, Endpoint.split.path, parameters);
+        JSONObject arguments = copyParameters(parameters);
+        return prepareAsync(() -> requestAsync(HttpMethod.POST, Endpoint.split.path, addFileToParameters(filePath, arguments)));
     }
 
     /**
@@ -2,6 +2,7 @@ package veryfi.services;
 
 import org.json.JSONObject;
 import veryfi.Credentials;
+import veryfi.FileSource;
 import veryfi.NetworkClient;
 import veryfi.enums.Endpoint;
 import veryfi.enums.HttpMethod;
@@ -122,8 +123,32 @@ class W2Services extends NetworkClient {
      * @return the data extracted from the W2 {@link CompletableFuture}{@code <String>}
      */
     protected CompletableFuture<String> processW2Async(String filePath, JSONObject parameters) {
-        parameters = addFileToParameters(filePath, parameters);
-        return requestAsync(HttpMethod.POST, Endpoint.w2s.path, parameters);
+        JSONObject arguments = copyParameters(parameters);
+        return prepareAsync(() -> requestAsync(HttpMethod.POST, Endpoint.w2s.path, addFileToParameters(filePath, arguments)));
+    }
+
+    /**
+     * Process a W2 and extract all the fields from it. https://docs.veryfi.com/api/w2s/process-a-w-2/
+     *
+     * @param source        the {@link FileSource} of the file to submit for data extraction, encoded when the request is prepared.
+     * @param parameters    Additional request parameters.
+     * @return the data extracted from the W2 {@link String}
+     */
+    protected String processW2(FileSource source, JSONObject parameters) {
+        parameters = addFileToParameters(source, parameters);
+        return request(HttpMethod.POST, Endpoint.w2s.path, parameters);
+    }
+
+    /**
+     * Process a W2 and extract all the fields from it. https://docs.veryfi.com/api/w2s/process-a-w-2/
+     *
+     * @param source        the {@link FileSource} of the file to submit for data extraction, encoded when the request is prepared.
+     * @param parameters    Additional request parameters.
+     * @return the data extracted from the W2 {@link CompletableFuture}{@code <String>}
+     */
+    protected CompletableFuture<String> processW2Async(FileSource source, JSONObject parameters) {
+        JSONObject arguments = copyParameters(parameters);
+        return prepareAsync(() -> requestAsync(HttpMethod.POST, Endpoint.w2s.path, addFileToParameters(source, arguments)));
     }
 
     /**
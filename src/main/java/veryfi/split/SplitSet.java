@@ -0,0 +1,60 @@
+package veryfi.split;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * The documents a split request produced, assembled by a {@link SplitTracker}.
+ */
+public class SplitSet {
+
+    /**
+     * The id of the split request.
+     */
+    public final String splitId;
+    /**
+     * The last status of the split request, "processed" once it is done.
+     */
+    public final String status;
+    /**
+     * The ids of the child documents, in the order of the split response.
+     */
+    public final List<String> documentIds;
+    /**
+     * The json strings of the child documents, in the order of their ids.
+     */
+    public final List<String> documents;
+    /**
+     * The number of times the split request was polled.
+     */
+    public final int polls;
+    /**
+     * The time from the start of the tracking to the last child document.
+     */
+    public final Duration elapsed;
+
+    /**
+     * Creates an instance of {@link SplitSet}.
+     *
+     * @param splitId     The id of the split request.
+     * @param status      The last status of the split request.
+     * @param documentIds The ids of the child documents.
+     * @param documents   The json strings of the child documents.
+     * @param polls       The number of times the split request was polled.
+     * @param elapsed     The time from the start of the tracking to the last child document.
+     */
+    public SplitSet(String splitId, String status, List<String> documentIds, List<String> documents, int polls, Duration elapsed) {
+        this.splitId = splitId;
+        this.status = status;
+        this.documentIds = documentIds;
+        this.documents = documents;
+        this.polls = polls;
+        this.elapsed = elapsed;
+    }
+
+    @Override
+    public String toString() {
+        return "SplitSet{splitId=" + splitId + ", status=" + status + ", documentIds=" + documentIds
+                + ", polls=" + polls + ", elapsed=" + elapsed + "}";
+    }
+}
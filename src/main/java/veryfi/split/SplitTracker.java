@@ -0,0 +1,344 @@
+package veryfi.split;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import veryfi.Client;
+import veryfi.batch.BatchProcessor;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Waits for split requests to produce their documents and fetches them.
+ * <p>
+ * Every tracked split request is polled with {@code getSplitDocumentAsync} from a single scheduler thread, the
+ * requests themselves are asynchronous, so any number of split sets share that thread. The delay between polls
+ * grows while nothing changes and goes back to the initial delay when new child documents appear. Each child
+ * document is fetched with {@code getDocumentAsync} as soon as its id appears, in parallel with the others and
+ * with the next polls. The future of a split set completes once the split is processed and every child
+ * document is fetched, with the child documents of a failed split too, or exceptionally with a
+ * {@link TimeoutException}.
+ * </p>
+ * <p>
+ * Example:
+ * </p>
+ * <pre>{@code
+ * SplitTracker tracker = new SplitTracker(client);
+ * tracker.splitAndTrack("/statements/2023.pdf", null).thenAccept(set -> set.documents.forEach(this::store));
+ * }</pre>
+ */
+public class SplitTracker implements AutoCloseable {
+
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+    private static final Set<String> TERMINAL_STATUSES = Set.of("processed", "failed", "error");
+
+    private final Logger logger = Logger.getLogger("SplitTracker");
+    private final Client client;
+    private final ScheduledThreadPoolExecutor scheduler;
+    private final Set<Tracked> tracked = ConcurrentHashMap.newKeySet();
+    private volatile Duration initialDelay = Duration.ofSeconds(1);
+    private volatile Duration maxDelay = Duration.ofSeconds(30);
+    private volatile double backoffMultiplier = 1.5;
+    private volatile Duration timeout = Duration.ofMinutes(10);
+    private final AtomicLong pollCount = new AtomicLong();
+    private final AtomicLong fetchCount = new AtomicLong();
+
+    /**
+     * Creates an instance of {@link SplitTracker} with its scheduler thread.
+     *
+     * @param client the {@link Client} polling the split requests and fetching the documents.
+     */
+    public SplitTracker(Client client) {
+        this.client = client;
+        this.scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "veryfi-split-" + THREAD_COUNT.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * By default the first poll happens after 1 second, as does the next one after new child documents appear.
+     * @param initialDelay the delay before the first poll
+     */
+    public void setInitialDelay(Duration initialDelay) {
+        this.initialDelay = initialDelay;
+    }
+
+    /**
+     * By default the delay between polls grows up to 30 seconds.
+     * @param maxDelay the longest delay between polls
+     */
+    public void setMaxDelay(Duration maxDelay) {
+        this.maxDelay = maxDelay;
+    }
+
+    /**
+     * By default the delay between polls grows 1.5 times after every poll without new child documents.
+     * @param backoffMultiplier the growth of the delay, 1 polls at a fixed rate
+     */
+    public void setBackoffMultiplier(double backoffMultiplier) {
+        if (backoffMultiplier < 1)
+            throw new IllegalArgumentException("backoffMultiplier must be at least 1");
+        this.backoffMultiplier = backoffMultiplier;
+    }
+
+    /**
+     * By default a split set is given up on after 10 minutes.
+     * @param timeout the time after which the future of a split set completes with a {@link TimeoutException}
+     */
+    public void setTimeout(Duration timeout) {
+        this.timeout = timeout;
+    }
+
+    /**
+     * Splits a file and tracks the split request.
+     *
+     * @param filePath   Path on disk to a file to split.
+     * @param parameters Additional request parameters.
+     * @return the {@link CompletableFuture} of the {@link SplitSet}.
+     */
+    public CompletableFuture<SplitSet> splitAndTrack(String filePath, JSONObject parameters) {
+        return client.splitDocumentAsync(filePath, parameters).thenCompose(response -> {
+            String splitId = splitIdOf(response);
+            if (splitId == null)
+                return CompletableFuture.failedFuture(new IllegalStateException("split failed: " + response));
+            return track(splitId);
+        });
+    }
+
+    /**
+     * Tracks a split request until its documents are fetched.
+     *
+     * @param splitId The id of the split request.
+     * @return the {@link CompletableFuture} of the {@link SplitSet}, cancelling it stops the tracking.
+     */
+    public CompletableFuture<SplitSet> track(String splitId) {
+        Tracked split = new Tracked(splitId, System.nanoTime());
+        tracked.add(split);
+        try {
+            ScheduledFuture<?> expiry = scheduler.schedule(() -> split.future.completeExceptionally(
+                    new TimeoutException("split " + splitId + " not done after " + timeout)), timeout.toMillis(), TimeUnit.MILLISECONDS);
+            split.future.whenComplete((set, e) -> {
+                tracked.remove(split);
+                expiry.cancel(false);
+            });
+        } catch (RejectedExecutionException e) {
+            tracked.remove(split);
+            split.future.completeExceptionally(new CancellationException("tracker closed"));
+            return split.future;
+        }
+        schedule(split, initialDelay.toMillis());
+        return split.future;
+    }
+
+    /**
+     * Stops tracking, the futures of the split sets in progress complete with a {@link CancellationException}.
+     */
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        for (Tracked split : tracked) {
+            split.future.completeExceptionally(new CancellationException("tracker closed"));
+        }
+    }
+
+    /**
+     * Both a poll and a failed fetch can ask for the next poll, only the first one schedules it.
+     */
+    private void schedule(Tracked split, long delayMillis) {
+        if (!split.pollScheduled.compareAndSet(false, true))
+            return;
+        split.delayMillis = delayMillis;
+        try {
+            scheduler.schedule(() -> poll(split), delayMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            split.future.completeExceptionally(new CancellationException("tracker closed"));
+        }
+    }
+
+    private void poll(Tracked split) {
+        split.pollScheduled.set(false);
+        if (split.future.isDone())
+            return;
+        split.polls.incrementAndGet();
+        pollCount.incrementAndGet();
+        client.getSplitDocumentAsync(split.splitId).whenComplete((response, e) -> {
+            try {
+                onPoll(split, e == null ? response : null);
+            } catch (RuntimeException unexpected) {
+                split.future.completeExceptionally(unexpected);
+            }
+        });
+    }
+
+    private void onPoll(Tracked split, String response) {
+        JSONObject data = dataOf(response);
+        if (data == null) {
+            logger.warning("poll: split " + split.splitId + ": " + response);
+            schedule(split, nextDelay(split, false));
+            return;
+        }
+        List<String> ids = new ArrayList<>();
+        JSONArray documentIds = data.optJSONArray("documents_id");
+        if (documentIds != null) {
+            for (int i = 0; i < documentIds.length(); i++) {
+                ids.add(String.valueOf(documentIds.get(i)));
+            }
+        }
+        boolean progress = false;
+        for (String id : ids) {
+            if (!split.documents.containsKey(id) && split.fetching.add(id)) {
+                progress = true;
+                fetch(split, id);
+            }
+        }
+        String status = data.optString("status", "");
+        synchronized (split) {
+            split.documentIds = ids;
+            split.status = status;
+            split.done = TERMINAL_STATUSES.contains(status);
+        }
+        // A done split with failed fetches is polled again, which fetches the missing documents.
+        if (!complete(split) && (!split.isDone() || split.isDoneAndSettled()))
+            schedule(split, nextDelay(split, progress));
+    }
+
+    private void fetch(Tracked split, String documentId) {
+        fetchCount.incrementAndGet();
+        client.getDocumentAsync(documentId).whenComplete((response, e) -> {
+            boolean fetched = e == null && BatchProcessor.failureOf(response) == null;
+            if (fetched) {
+                split.documents.put(documentId, response);
+            } else {
+                logger.warning("fetch: document " + documentId + " of split " + split.splitId + ": " + (e != null ? e : response));
+            }
+            split.fetching.remove(documentId);
+            if (!complete(split) && !fetched && split.isDoneAndSettled())
+                schedule(split, nextDelay(split, false));
+        });
+    }
+
+    /**
+     * Completes the future once the split is done and every child document is fetched.
+     */
+    private boolean complete(Tracked split) {
+        List<String> ids;
+        String status;
+        synchronized (split) {
+            if (!split.done)
+                return false;
+            ids = split.documentIds;
+            status = split.status;
+        }
+        List<String> documents = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            String document = split.documents.get(id);
+            if (document == null)
+                return false;
+            documents.add(document);
+        }
+        return split.future.complete(new SplitSet(split.splitId, status, List.copyOf(ids), documents, split.polls.get(),
+                Duration.ofNanos(System.nanoTime() - split.start)));
+    }
+
+    private long nextDelay(Tracked split, boolean progress) {
+        long initial = initialDelay.toMillis();
+        if (progress)
+            return initial;
+        return Math.min(maxDelay.toMillis(), Math.max(initial, (long) (split.delayMillis * backoffMultiplier)));
+    }
+
+    private static String splitIdOf(String response) {
+        JSONObject data = dataOf(response);
+        return data == null || !data.has("id") ? null : String.valueOf(data.get("id"));
+    }
+
+    private static JSONObject dataOf(String response) {
+        if (response == null || BatchProcessor.failureOf(response) != null)
+            return null;
+        try {
+            JSONObject json = new JSONObject(response);
+            JSONObject data = json.optJSONObject("data");
+            return data != null ? data : json;
+        } catch (JSONException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the number of split sets in progress.
+     * @return the number of tracked split sets.
+     */
+    public int getTrackedCount() {
+        return tracked.size();
+    }
+
+    /**
+     * Returns the number of polls of split requests.
+     * @return the number of polls.
+     */
+    public long getPollCount() {
+        return pollCount.get();
+    }
+
+    /**
+     * Returns the number of child document fetches.
+     * @return the number of fetches.
+     */
+    public long getFetchCount() {
+        return fetchCount.get();
+    }
+
+    @Override
+    public String toString() {
+        return "SplitTracker{tracked=" + getTrackedCount() + ", polls=" + getPollCount() + ", fetches=" + getFetchCount() + "}";
+    }
+
+    /**
+     * State of a tracked split request, updated from the scheduler and the response threads.
+     */
+    private static class Tracked {
+        private final String splitId;
+        private final long start;
+        private final CompletableFuture<SplitSet> future = new CompletableFuture<>();
+        private final Map<String, String> documents = new ConcurrentHashMap<>();
+        private final Set<String> fetching = ConcurrentHashMap.newKeySet();
+        private final AtomicInteger polls = new AtomicInteger();
+        private final AtomicBoolean pollScheduled = new AtomicBoolean();
+        private volatile long delayMillis;
+        private List<String> documentIds = List.of();
+        private String status = "";
+        private boolean done = false;
+
+        private Tracked(String splitId, long start) {
+            this.splitId = splitId;
+            this.start = start;
+        }
+
+        private synchronized boolean isDone() {
+            return done;
+        }
+
+        private synchronized boolean isDoneAndSettled() {
+            return done && fetching.isEmpty();
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package veryfi.sync;
+
+import org.json.JSONObject;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Fetches one page of a Veryfi list endpoint with filter parameters.
+ * <p>
+ * Implementations usually delegate to one of the {@code get*Async(page, pageSize, ..., parameters)}
+ * methods of {@link veryfi.Client}, for example
+ * {@code (page, parameters) -> client.getDocumentsAsync(page, 50, false, false, parameters)}.
+ * </p>
+ */
+@FunctionalInterface
+public interface ListFetcher {
+
+    /**
+     * Requests a page.
+     *
+     * @param page       The page number, starting from 1.
+     * @param parameters Additional request parameters, a new object for every call.
+     * @return the json string of the page {@link CompletableFuture}{@code <String>}
+     */
+    CompletableFuture<String> fetch(int page, JSONObject parameters);
+}
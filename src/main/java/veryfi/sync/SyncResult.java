@@ -0,0 +1,53 @@
+package veryfi.sync;
+
+import java.time.Duration;
+
+/**
+ * Summary of a run of an {@link IncrementalSync}.
+ */
+public class SyncResult {
+
+    /**
+     * The number of documents upserted to the sink.
+     */
+    public final int upserts;
+    /**
+     * The number of documents deleted from the sink.
+     */
+    public final int deletes;
+    /**
+     * The number of documents skipped because the previous sync already applied them.
+     */
+    public final int skipped;
+    /**
+     * The watermark saved by this run, null when nothing was ever synced.
+     */
+    public final Watermark watermark;
+    /**
+     * The wall-clock time of this run.
+     */
+    public final Duration elapsed;
+
+    /**
+     * Creates an instance of {@link SyncResult}.
+     *
+     * @param upserts   The number of documents upserted to the sink.
+     * @param deletes   The number of documents deleted from the sink.
+     * @param skipped   The number of documents skipped.
+     * @param watermark The watermark saved by this run.
+     * @param elapsed   The wall-clock time of this run.
+     */
+    public SyncResult(int upserts, int deletes, int skipped, Watermark watermark, Duration elapsed) {
+        this.upserts = upserts;
+        this.deletes = deletes;
+        this.skipped = skipped;
+        this.watermark = watermark;
+        this.elapsed = elapsed;
+    }
+
+    @Override
+    public String toString() {
+        return "SyncResult{upserts=" + upserts + ", deletes=" + deletes + ", skipped=" + skipped
+                + ", watermark=" + watermark + ", elapsed=" + elapsed + "}";
+    }
+}
@@ -0,0 +1,40 @@
+package veryfi.sync;
+
+import org.json.JSONObject;
+
+import java.io.IOException;
+
+/**
+ * Destination of the changes found by an {@link IncrementalSync}.
+ * <p>
+ * The sync calls the sink from a single thread. A document may be upserted more than once,
+ * for example when a sync is interrupted before its watermark is saved, so upserts must be idempotent.
+ * </p>
+ */
+public interface SyncSink {
+
+    /**
+     * Inserts or replaces a document.
+     *
+     * @param document the document as returned by the list endpoint.
+     * @throws IOException when the document can't be written, which stops the sync.
+     */
+    void upsert(JSONObject document) throws IOException;
+
+    /**
+     * Removes a document.
+     *
+     * @param documentId ID of the deleted document.
+     * @throws IOException when the document can't be removed, which stops the sync.
+     */
+    void delete(String documentId) throws IOException;
+
+    /**
+     * Called once every change of a sync was applied, before the new watermark is saved.
+     *
+     * @throws IOException when the changes can't be made durable, the watermark is then not saved.
+     */
+    default void flush() throws IOException {
+        // nothing to flush by default
+    }
+}
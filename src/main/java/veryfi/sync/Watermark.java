@@ -0,0 +1,52 @@
+package veryfi.sync;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Position of an {@link IncrementalSync}: the latest change date seen and the documents changed at that date.
+ * <p>
+ * The API dates have a one second resolution, so the next sync asks for documents changed at or after
+ * the watermark and skips the ones already applied at exactly that date.
+ * </p>
+ */
+public class Watermark {
+
+    private final String value;
+    private final Set<String> boundaryIds;
+
+    /**
+     * Creates an instance of {@link Watermark}.
+     *
+     * @param value       The latest change date seen, as returned by the API.
+     * @param boundaryIds IDs of the documents changed at exactly that date.
+     */
+    public Watermark(String value, Set<String> boundaryIds) {
+        this.value = value;
+        this.boundaryIds = Collections.unmodifiableSet(new LinkedHashSet<>(boundaryIds));
+    }
+
+    /**
+     * Returns the latest change date seen.
+     *
+     * @return the date string, for example {@code 2021-11-09 17:30:12}.
+     */
+    public String getValue() {
+        return value;
+    }
+
+    /**
+     * Returns the documents changed at exactly the watermark date.
+     *
+     * @return an unmodifiable {@link Set} of document IDs.
+     */
+    public Set<String> getBoundaryIds() {
+        return boundaryIds;
+    }
+
+    @Override
+    public String toString() {
+        return "Watermark{value=" + value + ", boundaryIds=" + boundaryIds + "}";
+    }
+}
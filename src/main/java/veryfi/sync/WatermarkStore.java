@@ -0,0 +1,76 @@
+package veryfi.sync;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * File holding the {@link Watermark} of an {@link IncrementalSync} between runs.
+ * <p>
+ * The file is replaced atomically, so a crash never leaves a partially written watermark.
+ * </p>
+ */
+public class WatermarkStore {
+
+    private final Path path;
+
+    /**
+     * Creates an instance of {@link WatermarkStore}.
+     *
+     * @param path the {@link Path} of the watermark file, created on the first save.
+     */
+    public WatermarkStore(Path path) {
+        this.path = path;
+    }
+
+    /**
+     * Reads the watermark.
+     *
+     * @return the {@link Watermark}, null when nothing was synced yet.
+     * @throws IOException when the watermark file can't be read.
+     */
+    public Watermark load() throws IOException {
+        if (!Files.exists(path))
+            return null;
+        JSONObject json = new JSONObject(Files.readString(path, StandardCharsets.UTF_8));
+        Set<String> boundaryIds = new LinkedHashSet<>();
+        JSONArray ids = json.optJSONArray("boundary_ids");
+        if (ids != null) {
+            for (int i = 0; i < ids.length(); i++) {
+                boundaryIds.add(ids.getString(i));
+            }
+        }
+        return new Watermark(json.getString("value"), boundaryIds);
+    }
+
+    /**
+     * Saves the watermark.
+     *
+     * @param watermark the {@link Watermark}.
+     * @throws IOException when the watermark file can't be written.
+     */
+    public void save(Watermark watermark) throws IOException {
+        JSONObject json = new JSONObject();
+        json.put("value", watermark.getValue());
+        json.put("boundary_ids", new JSONArray(watermark.getBoundaryIds()));
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        Files.writeString(temp, json.toString(), StandardCharsets.UTF_8);
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Deletes the watermark, the next sync starts from the beginning.
+     *
+     * @throws IOException when the watermark file can't be deleted.
+     */
+    public void clear() throws IOException {
+        Files.deleteIfExists(path);
+    }
+}
@@ -0,0 +1,284 @@
+package veryfi.tags;
+
+import veryfi.Client;
+import veryfi.batch.BatchProcessor;
+import veryfi.batch.RateLimiter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * Tags many documents with a bounded number of requests in progress and a maximum request rate.
+ * <p>
+ * Operations are queued per document and merged, so a document gets one request however many times it is queued:
+ * added tags are united, a replacement discards the earlier operations and tags added after a replacement are
+ * added to it. {@link #run()} sends the merged operations with {@code addTags} or {@code replaceTags}, retries the
+ * failed ones and reports every document. With a {@link TagCheckpoint} every tagged document is recorded as soon
+ * as it is tagged, and the documents it lists are skipped by the next run.
+ * </p>
+ * <p>
+ * Example:
+ * </p>
+ * <pre>{@code
+ * BulkTagger tagger = new BulkTagger(client, 8);
+ * tagger.setCheckpoint(new TagCheckpoint(Path.of("month-end.tags")));
+ * tagger.addTags(costCentres);
+ * TagReport report = tagger.run();
+ * }</pre>
+ */
+public class BulkTagger {
+
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+    private final Logger logger = Logger.getLogger("BulkTagger");
+    private final Client client;
+    private final int concurrency;
+    private final Map<String, Operation> operations = new LinkedHashMap<>();
+    private int mergedCount = 0;
+    private RateLimiter rateLimiter = new RateLimiter(10);
+    private TagCheckpoint checkpoint;
+    private int maxRetries = 2;
+    private Duration retryDelay = Duration.ofSeconds(1);
+
+    /**
+     * Creates an instance of {@link BulkTagger}.
+     *
+     * @param client      the {@link Client} tagging the documents.
+     * @param concurrency The maximum number of requests in progress.
+     */
+    public BulkTagger(Client client, int concurrency) {
+        if (concurrency <= 0)
+            throw new IllegalArgumentException("concurrency must be positive");
+        this.client = client;
+        this.concurrency = concurrency;
+    }
+
+    /**
+     * By default at most 10 requests start every second, retries included.
+     * @param requestsPerSecond the maximum request rate
+     */
+    public void setRequestsPerSecond(double requestsPerSecond) {
+        this.rateLimiter = new RateLimiter(requestsPerSecond);
+    }
+
+    /**
+     * By default there is no checkpoint and every run tags every queued document.
+     * @param checkpoint the {@link TagCheckpoint} recording the tagged documents
+     */
+    public void setCheckpoint(TagCheckpoint checkpoint) {
+        this.checkpoint = checkpoint;
+    }
+
+    /**
+     * By default a failed document is retried 2 times.
+     * @param maxRetries the number of retries of a failed document
+     */
+    public void setMaxRetries(int maxRetries) {
+        this.maxRetries = maxRetries;
+    }
+
+    /**
+     * By default a failed document is retried after 1 second, doubled on every retry.
+     * @param retryDelay the delay before the first retry
+     */
+    public void setRetryDelay(Duration retryDelay) {
+        this.retryDelay = retryDelay;
+    }
+
+    /**
+     * Queues tags to add to a document.
+     *
+     * @param documentId ID of the document.
+     * @param tags       The tags to add, blank and repeated tags are dropped.
+     */
+    public synchronized void addTags(String documentId, Collection<String> tags) {
+        queue(documentId, tags, false);
+    }
+
+    /**
+     * Queues tags to add to many documents.
+     *
+     * @param tagsByDocument The tags to add by document id.
+     */
+    public synchronized void addTags(Map<String, ? extends Collection<String>> tagsByDocument) {
+        tagsByDocument.forEach((documentId, tags) -> queue(documentId, tags, false));
+    }
+
+    /**
+     * Queues tags to replace those of a document.
+     *
+     * @param documentId ID of the document.
+     * @param tags       The tags of the document, blank and repeated tags are dropped.
+     */
+    public synchronized void replaceTags(String documentId, Collection<String> tags) {
+        queue(documentId, tags, true);
+    }
+
+    /**
+     * Queues tags to replace those of many documents.
+     *
+     * @param tagsByDocument The tags of the documents by document id.
+     */
+    public synchronized void replaceTags(Map<String, ? extends Collection<String>> tagsByDocument) {
+        tagsByDocument.forEach((documentId, tags) -> queue(documentId, tags, true));
+    }
+
+    /**
+     * Returns the number of documents queued for the next run.
+     * @return the number of queued documents.
+     */
+    public synchronized int getQueuedCount() {
+        return operations.size();
+    }
+
+    /**
+     * Tags the queued documents and waits for the last one, the queue is empty afterwards.
+     *
+     * @return the {@link TagReport} of the documents in queue order.
+     * @throws IOException          when the checkpoint can't be read or written, the documents in progress are abandoned.
+     * @throws InterruptedException when the calling thread is interrupted, the documents in progress are abandoned.
+     */
+    public TagReport run() throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        List<Operation> queued;
+        int merged;
+        synchronized (this) {
+            queued = new ArrayList<>(operations.values());
+            merged = mergedCount;
+            operations.clear();
+            mergedCount = 0;
+        }
+        TagCheckpoint checkpoint = this.checkpoint;
+        Set<String> tagged = checkpoint == null ? Set.of() : checkpoint.load();
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency, runnable -> {
+            Thread thread = new Thread(runnable, "veryfi-tags-" + THREAD_COUNT.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        Semaphore slots = new Semaphore(concurrency);
+        List<Future<TagResult>> futures = new ArrayList<>(queued.size());
+        try {
+            for (Operation operation : queued) {
+                if (tagged.contains(operation.documentId)) {
+                    futures.add(CompletableFuture.completedFuture(new TagResult(operation.documentId,
+                            List.copyOf(operation.tags), operation.replace, true, true, "", null, 0)));
+                    continue;
+                }
+                slots.acquire();
+                futures.add(executor.submit(() -> {
+                    try {
+                        return tag(operation, checkpoint);
+                    } finally {
+                        slots.release();
+                    }
+                }));
+            }
+            List<TagResult> items = new ArrayList<>(futures.size());
+            for (Future<TagResult> future : futures) {
+                try {
+                    items.add(future.get());
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof UncheckedIOException)
+                        throw ((UncheckedIOException) e.getCause()).getCause();
+                    throw new IllegalStateException(e.getCause());
+                }
+            }
+            return new TagReport(items, merged, Duration.ofNanos(System.nanoTime() - start));
+        } finally {
+            executor.shutdownNow();
+            if (checkpoint != null)
+                checkpoint.close();
+        }
+    }
+
+    private void queue(String documentId, Collection<String> tags, boolean replace) {
+        if (documentId == null || documentId.isEmpty())
+            throw new IllegalArgumentException("documentId is required");
+        Operation operation = operations.get(documentId);
+        if (operation == null) {
+            operation = new Operation(documentId);
+            operations.put(documentId, operation);
+        } else {
+            mergedCount++;
+        }
+        if (replace) {
+            operation.replace = true;
+            operation.tags.clear();
+        }
+        for (String tag : tags) {
+            if (tag != null && !tag.isBlank())
+                operation.tags.add(tag.trim());
+        }
+    }
+
+    /**
+     * Tags one document, retrying it on failure.
+     */
+    private TagResult tag(Operation operation, TagCheckpoint checkpoint) throws InterruptedException {
+        List<String> tags = List.copyOf(operation.tags);
+        String response = "";
+        String error = null;
+        long delay = retryDelay.toMillis();
+        for (int attempt = 0; ; attempt++) {
+            rateLimiter.acquire();
+            try {
+                response = operation.replace ? client.replaceTags(operation.documentId, tags)
+                        : client.addTags(operation.documentId, tags);
+                error = BatchProcessor.failureOf(response);
+            } catch (RuntimeException e) {
+                response = "";
+                error = e.toString();
+            }
+            if (error == null) {
+                if (checkpoint != null) {
+                    try {
+                        checkpoint.append(operation.documentId);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+                return new TagResult(operation.documentId, tags, operation.replace, true, false, response, null, attempt);
+            }
+            if (attempt >= maxRetries)
+                return new TagResult(operation.documentId, tags, operation.replace, false, false, response, error, attempt);
+            logger.warning("tag: retrying " + operation.documentId + ": " + error);
+            Thread.sleep(delay);
+            delay *= 2;
+        }
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "BulkTagger{queued=" + operations.size() + ", merged=" + mergedCount + ", concurrency=" + concurrency
+                + ", " + rateLimiter + "}";
+    }
+
+    /**
+     * The merged operations on a document, only changed while queued.
+     */
+    private static class Operation {
+        private final String documentId;
+        private final Set<String> tags = new LinkedHashSet<>();
+        private boolean replace = false;
+
+        private Operation(String documentId) {
+            this.documentId = documentId;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package veryfi.tags;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * File listing the documents a {@link BulkTagger} has tagged, so an interrupted run resumes without them.
+ * <p>
+ * A run tags thousands of documents, so every tagged document is appended as a line instead of rewriting the
+ * file. A line cut short by a crash is ignored, its document is tagged again.
+ * </p>
+ */
+public class TagCheckpoint implements AutoCloseable {
+
+    private final Path path;
+    private BufferedWriter writer;
+
+    /**
+     * Creates an instance of {@link TagCheckpoint}.
+     *
+     * @param path the {@link Path} of the checkpoint file, created on the first append.
+     */
+    public TagCheckpoint(Path path) {
+        this.path = path;
+    }
+
+    /**
+     * Reads the tagged documents.
+     *
+     * @return the ids of the tagged documents, empty when nothing was tagged yet.
+     * @throws IOException when the checkpoint file can't be read.
+     */
+    public Set<String> load() throws IOException {
+        Set<String> documentIds = new HashSet<>();
+        if (!Files.exists(path))
+            return documentIds;
+        String content = Files.readString(path, StandardCharsets.UTF_8);
+        List<String> lines = content.lines().toList();
+        int complete = content.endsWith("\n") ? lines.size() : lines.size() - 1;
+        for (int i = 0; i < complete; i++) {
+            if (!lines.get(i).isEmpty())
+                documentIds.add(lines.get(i));
+        }
+        return documentIds;
+    }
+
+    /**
+     * Records a tagged document, written through before returning.
+     *
+     * @param documentId the id of the document.
+     * @throws IOException when the checkpoint file can't be written.
+     */
+    public synchronized void append(String documentId) throws IOException {
+        if (writer == null)
+            writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        writer.write(documentId);
+        writer.write('\n');
+        writer.flush();
+    }
+
+    /**
+     * Closes the checkpoint file, the next append opens it again.
+     *
+     * @throws IOException when the checkpoint file can't be closed.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (writer != null) {
+            writer.close();
+            writer = null;
+        }
+    }
+
+    /**
+     * Deletes the checkpoint, the next run tags every document.
+     *
+     * @throws IOException when the checkpoint file can't be deleted.
+     */
+    public synchronized void clear() throws IOException {
+        close();
+        Files.deleteIfExists(path);
+    }
+}
@@ -0,0 +1,98 @@
+package veryfi.tags;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Per-document outcomes of a run of a {@link BulkTagger}, in the order the documents were first queued.
+ */
+public class TagReport {
+
+    private final List<TagResult> items;
+    private final int mergedCount;
+    private final Duration elapsed;
+
+    /**
+     * Creates an instance of {@link TagReport}.
+     *
+     * @param items       The outcome of every document.
+     * @param mergedCount The number of queued operations merged into the operation of an earlier one.
+     * @param elapsed     The wall-clock time of the run.
+     */
+    public TagReport(List<TagResult> items, int mergedCount, Duration elapsed) {
+        this.items = Collections.unmodifiableList(items);
+        this.mergedCount = mergedCount;
+        this.elapsed = elapsed;
+    }
+
+    /**
+     * Returns the outcome of every document.
+     *
+     * @return an unmodifiable {@link List} in queue order.
+     */
+    public List<TagResult> getItems() {
+        return items;
+    }
+
+    /**
+     * Returns the outcomes of the documents that failed after their retries.
+     *
+     * @return a {@link List} of failed items.
+     */
+    public List<TagResult> getFailures() {
+        return items.stream().filter(item -> !item.success).collect(Collectors.toList());
+    }
+
+    /**
+     * Returns the number of tagged documents, resumed ones included.
+     *
+     * @return the number of successes.
+     */
+    public int getSuccessCount() {
+        return (int) items.stream().filter(item -> item.success).count();
+    }
+
+    /**
+     * Returns the number of documents that failed after their retries.
+     *
+     * @return the number of failures.
+     */
+    public int getFailureCount() {
+        return items.size() - getSuccessCount();
+    }
+
+    /**
+     * Returns the number of documents skipped because the checkpoint lists them.
+     *
+     * @return the number of resumed documents.
+     */
+    public int getResumedCount() {
+        return (int) items.stream().filter(item -> item.resumed).count();
+    }
+
+    /**
+     * Returns the number of queued operations that didn't need a request of their own.
+     *
+     * @return the number of merged operations.
+     */
+    public int getMergedCount() {
+        return mergedCount;
+    }
+
+    /**
+     * Returns the wall-clock time of the run.
+     *
+     * @return the elapsed {@link Duration}.
+     */
+    public Duration getElapsed() {
+        return elapsed;
+    }
+
+    @Override
+    public String toString() {
+        return "TagReport{items=" + items.size() + ", successes=" + getSuccessCount() + ", failures=" + getFailureCount()
+                + ", resumed=" + getResumedCount() + ", merged=" + mergedCount + ", elapsed=" + elapsed + "}";
+    }
+}
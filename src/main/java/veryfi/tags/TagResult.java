@@ -0,0 +1,72 @@
+package veryfi.tags;
+
+import java.util.List;
+
+/**
+ * Outcome of the tagging of one document by a {@link BulkTagger}.
+ */
+public class TagResult {
+
+    /**
+     * The id of the document.
+     */
+    public final String documentId;
+    /**
+     * The tags sent, after merging every operation on the document.
+     */
+    public final List<String> tags;
+    /**
+     * Whether the tags replaced those of the document instead of being added to them.
+     */
+    public final boolean replace;
+    /**
+     * Whether the document is tagged, by this run or by the run of the checkpoint.
+     */
+    public final boolean success;
+    /**
+     * Whether the document was skipped because the checkpoint lists it as tagged.
+     */
+    public final boolean resumed;
+    /**
+     * The json string of the last response, empty when no request was sent.
+     */
+    public final String response;
+    /**
+     * The reason of the failure, null on success.
+     */
+    public final String error;
+    /**
+     * The number of retries after the first attempt.
+     */
+    public final int retries;
+
+    /**
+     * Creates an instance of {@link TagResult}.
+     *
+     * @param documentId The id of the document.
+     * @param tags       The tags sent.
+     * @param replace    Whether the tags replaced those of the document.
+     * @param success    Whether the document is tagged.
+     * @param resumed    Whether the document was skipped because of the checkpoint.
+     * @param response   The json string of the last response.
+     * @param error      The reason of the failure, null on success.
+     * @param retries    The number of retries after the first attempt.
+     */
+    public TagResult(String documentId, List<String> tags, boolean replace, boolean success, boolean resumed,
+                     String response, String error, int retries) {
+        this.documentId = documentId;
+        this.tags = tags;
+        this.replace = replace;
+        this.success = success;
+        this.resumed = resumed;
+        this.response = response;
+        this.error = error;
+        this.retries = retries;
+    }
+
+    @Override
+    public String toString() {
+        return "TagResult{documentId=" + documentId + ", tags=" + tags + ", replace=" + replace + ", success=" + success
+                + ", resumed=" + resumed + ", error=" + error + ", retries=" + retries + "}";
+    }
+}
@@ -0,0 +1,348 @@
+package veryfi.webhook;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import veryfi.pending.StatusPoller;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+import static veryfi.Constants.SHA256;
+import static veryfi.Constants.TIMESTAMP;
+import static veryfi.Constants.X_VERYFI_REQUEST_TIMESTAMP;
+import static veryfi.Constants.X_VERYFI_SIGNATURE;
+
+/**
+ * Receives the webhook requests of Veryfi and completes the matching handles of a {@link StatusPoller}.
+ * <p>
+ * The signature of a request follows the scheme the client signs its own requests with: the base64 HMAC-SHA256,
+ * keyed with the client secret, of the json body with the {@code X-Veryfi-Request-Timestamp} header added as its
+ * {@code "timestamp"} field. Requests without a valid signature, or with a timestamp further than the maximum clock
+ * skew from now, are rejected, so a captured request can't be replayed later. Every document of a
+ * verified request is matched to a pending handle by its id, then by its external_id, through the correlation maps
+ * of the poller, and the matching handle is polled right away so its future completes without waiting for its
+ * next scheduled poll. Documents of other processes are acknowledged and ignored.
+ * </p>
+ * <p>
+ * {@link #handle(byte[], String, String)} doesn't depend on a server, any server can call it. {@link #start(InetSocketAddress)}
+ * serves it from the JDK's {@link HttpServer}.
+ * </p>
+ * <p>
+ * Example:
+ * </p>
+ * <pre>{@code
+ * WebhookReceiver receiver = new WebhookReceiver(clientSecret, poller);
+ * receiver.start(new InetSocketAddress(8080));
+ * }</pre>
+ */
+public class WebhookReceiver implements AutoCloseable {
+
+    /**
+     * The response to a verified request.
+     */
+    public static final int OK = 200;
+    /**
+     * The response to a body that isn't a json object.
+     */
+    public static final int BAD_REQUEST = 400;
+    /**
+     * The response to a missing or invalid signature.
+     */
+    public static final int UNAUTHORIZED = 401;
+    /**
+     * The response to a request method other than POST.
+     */
+    public static final int METHOD_NOT_ALLOWED = 405;
+    /**
+     * The response to a body larger than the maximum.
+     */
+    public static final int PAYLOAD_TOO_LARGE = 413;
+
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+    private final Logger logger = Logger.getLogger("WebhookReceiver");
+    private final byte[] clientSecret;
+    private final StatusPoller poller;
+    private volatile String path = "/";
+    private volatile int threads = 4;
+    private volatile int maxBodyBytes = 1024 * 1024;
+    private volatile Duration maxClockSkew = Duration.ofMinutes(5);
+    private HttpServer server;
+    private ExecutorService executor;
+    private final AtomicLong receivedCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private final AtomicLong matchedCount = new AtomicLong();
+    private final AtomicLong unmatchedCount = new AtomicLong();
+
+    /**
+     * Creates an instance of {@link WebhookReceiver}.
+     *
+     * @param clientSecret the client secret provided by Veryfi, the key of the signatures.
+     * @param poller       the {@link StatusPoller} tracking the pending handles.
+     */
+    public WebhookReceiver(String clientSecret, StatusPoller poller) {
+        if (clientSecret == null || clientSecret.isEmpty())
+            throw new IllegalArgumentException("clientSecret is required");
+        this.clientSecret = clientSecret.getBytes(StandardCharsets.UTF_8);
+        this.poller = poller;
+    }
+
+    /**
+     * By default the webhook is served at the root path.
+     * @param path the path of the webhook, set before {@link #start(InetSocketAddress)}
+     */
+    public void setPath(String path) {
+        this.path = path;
+    }
+
+    /**
+     * By default 4 threads handle the requests.
+     * @param threads the number of threads of the server, set before {@link #start(InetSocketAddress)}
+     */
+    public void setThreads(int threads) {
+        if (threads <= 0)
+            throw new IllegalArgumentException("threads must be positive");
+        this.threads = threads;
+    }
+
+    /**
+     * By default bodies up to 1 MiB are accepted.
+     * @param maxBodyBytes the largest body read by the server
+     */
+    public void setMaxBodyBytes(int maxBodyBytes) {
+        this.maxBodyBytes = maxBodyBytes;
+    }
+
+    /**
+     * By default requests timestamped more than 5 minutes away from now are rejected.
+     * @param maxClockSkew the largest difference between the timestamp of a request and the local clock
+     */
+    public void setMaxClockSkew(Duration maxClockSkew) {
+        if (maxClockSkew.isNegative())
+            throw new IllegalArgumentException("maxClockSkew can't be negative");
+        this.maxClockSkew = maxClockSkew;
+    }
+
+    /**
+     * Starts serving the webhook.
+     *
+     * @param address the {@link InetSocketAddress} to listen on, port 0 picks a free port.
+     * @throws IOException when the server can't bind the address.
+     */
+    public synchronized void start(InetSocketAddress address) throws IOException {
+        if (server != null)
+            throw new IllegalStateException("receiver already started");
+        executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "veryfi-webhook-" + THREAD_COUNT.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        server = HttpServer.create(address, 0);
+        server.createContext(path, this::exchange);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    /**
+     * Returns the port the webhook is served on.
+     * @return the bound port, -1 before {@link #start(InetSocketAddress)}.
+     */
+    public synchronized int getPort() {
+        return server == null ? -1 : server.getAddress().getPort();
+    }
+
+    /**
+     * Stops the server, the requests in progress are abandoned.
+     */
+    @Override
+    public synchronized void close() {
+        if (server == null)
+            return;
+        server.stop(0);
+        executor.shutdownNow();
+        server = null;
+    }
+
+    /**
+     * Verifies a webhook request and polls the pending handles of its documents.
+     *
+     * @param body      The raw body of the request.
+     * @param signature The value of the X-Veryfi-Signature header, or null.
+     * @param timestamp The value of the X-Veryfi-Request-Timestamp header in milliseconds since the epoch, or null.
+     * @return the HTTP status to answer with, {@link #OK}, {@link #BAD_REQUEST} or {@link #UNAUTHORIZED}.
+     */
+    public int handle(byte[] body, String signature, String timestamp) {
+        receivedCount.incrementAndGet();
+        if (closingBrace(body) < 0) {
+            logger.warning("handle: the body isn't a json object");
+            return BAD_REQUEST;
+        }
+        long timeStamp;
+        try {
+            timeStamp = timestamp == null ? -1 : Long.parseLong(timestamp.trim());
+        } catch (NumberFormatException e) {
+            timeStamp = -1;
+        }
+        if (signature == null || timeStamp < 0
+                || Math.abs(System.currentTimeMillis() - timeStamp) > maxClockSkew.toMillis()
+                || !MessageDigest.isEqual(sign(body, timeStamp).getBytes(StandardCharsets.UTF_8),
+                signature.getBytes(StandardCharsets.UTF_8))) {
+            rejectedCount.incrementAndGet();
+            return UNAUTHORIZED;
+        }
+        List<JSONObject> documents;
+        try {
+            documents = documentsOf(new JSONObject(new String(body, StandardCharsets.UTF_8)));
+        } catch (JSONException e) {
+            logger.warning("handle: " + e.getMessage());
+            return BAD_REQUEST;
+        }
+        for (JSONObject document : documents) {
+            String documentId = document.has("id") ? String.valueOf(document.get("id")) : null;
+            String externalId = document.optString("external_id", null);
+            (poller.pollNow(documentId, externalId) ? matchedCount : unmatchedCount).incrementAndGet();
+        }
+        return OK;
+    }
+
+    /**
+     * Signs a body the way Veryfi signs its webhook requests.
+     *
+     * @param body      The raw body, a json object.
+     * @param timeStamp The request timestamp in milliseconds since the epoch.
+     * @return the base64 HMAC-SHA256 of the body with its "timestamp" field, keyed with the client secret.
+     */
+    public String sign(byte[] body, long timeStamp) {
+        int brace = closingBrace(body);
+        if (brace < 0)
+            throw new IllegalArgumentException("the body isn't a json object");
+        int open = 0;
+        while (Character.isWhitespace(body[open])) {
+            open++;
+        }
+        boolean empty = true;
+        for (int i = open + 1; i < brace && empty; i++) {
+            empty = Character.isWhitespace(body[i]);
+        }
+        byte[] timeStampBytes = ((empty ? "" : ",") + "\"" + TIMESTAMP + "\":\"" + timeStamp + "\"}")
+                .getBytes(StandardCharsets.UTF_8);
+        try {
+            Mac mac = Mac.getInstance(SHA256);
+            mac.init(new SecretKeySpec(clientSecret, SHA256));
+            mac.update(body, 0, brace);
+            return Base64.getEncoder().encodeToString(mac.doFinal(timeStampBytes));
+        } catch (NoSuchAlgorithmException | InvalidKeyException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * The index of the closing brace of a json object body, or -1 when the body isn't one.
+     */
+    private static int closingBrace(byte[] body) {
+        int start = 0;
+        while (start < body.length && Character.isWhitespace(body[start])) {
+            start++;
+        }
+        int end = body.length - 1;
+        while (end > start && Character.isWhitespace(body[end])) {
+            end--;
+        }
+        return end > start && body[start] == '{' && body[end] == '}' ? end : -1;
+    }
+
+    private void exchange(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            int status;
+            if (!"POST".equalsIgnoreCase(exchange.getRequestMethod())) {
+                status = METHOD_NOT_ALLOWED;
+            } else {
+                byte[] body;
+                try (InputStream in = exchange.getRequestBody()) {
+                    body = in.readNBytes(maxBodyBytes + 1);
+                }
+                status = body.length > maxBodyBytes ? PAYLOAD_TOO_LARGE
+                        : handle(body, exchange.getRequestHeaders().getFirst(X_VERYFI_SIGNATURE),
+                        exchange.getRequestHeaders().getFirst(X_VERYFI_REQUEST_TIMESTAMP));
+            }
+            exchange.sendResponseHeaders(status, -1);
+        } catch (RuntimeException e) {
+            logger.severe("exchange: " + e);
+            throw e;
+        }
+    }
+
+    /**
+     * The documents of a webhook body, its "data" is a document or a list of documents.
+     */
+    private static List<JSONObject> documentsOf(JSONObject json) {
+        List<JSONObject> documents = new ArrayList<>();
+        Object data = json.opt("data");
+        if (data instanceof JSONArray) {
+            JSONArray array = (JSONArray) data;
+            for (int i = 0; i < array.length(); i++) {
+                documents.add(array.getJSONObject(i));
+            }
+        } else {
+            documents.add(data instanceof JSONObject ? (JSONObject) data : json);
+        }
+        return documents;
+    }
+
+    /**
+     * Returns the number of requests handled.
+     * @return the number of requests.
+     */
+    public long getReceivedCount() {
+        return receivedCount.get();
+    }
+
+    /**
+     * Returns the number of requests rejected for their signature.
+     * @return the number of rejected requests.
+     */
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    /**
+     * Returns the number of documents matched to a pending handle.
+     * @return the number of matched documents.
+     */
+    public long getMatchedCount() {
+        return matchedCount.get();
+    }
+
+    /**
+     * Returns the number of documents without a pending handle.
+     * @return the number of unmatched documents.
+     */
+    public long getUnmatchedCount() {
+        return unmatchedCount.get();
+    }
+
+    @Override
+    public String toString() {
+        return "WebhookReceiver{port=" + getPort() + ", received=" + getReceivedCount() + ", rejected=" + getRejectedCount()
+                + ", matched=" + getMatchedCount() + ", unmatched=" + getUnmatchedCount() + "}";
+    }
+}
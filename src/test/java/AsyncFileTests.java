@@ -0,0 +1,156 @@
+import org.json.JSONObject;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import veryfi.VeryfiClientFactory;
+import veryfi.services.ClientImpl;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AsyncFileTests {
+    String clientId = "your_client_id";
+    String clientSecret = "your_client_secret";
+    String username = "your_username";
+    String apiKey = "your_password";
+    int apiVersion = 8;
+    HttpClient httpClient;
+    ClientImpl client;
+    Queue<Runnable> tasks;
+    AtomicReference<String> sendingThread;
+
+    @BeforeEach
+    void setup() throws IOException, InterruptedException {
+        httpClient = mock(HttpClient.class);
+        client = (ClientImpl) VeryfiClientFactory.createClient(clientId, clientSecret, username, apiKey, apiVersion, httpClient);
+        tasks = new ArrayDeque<>();
+        sendingThread = new AtomicReference<>();
+        client.setFileExecutor(tasks::add);
+        HttpResponse<String> httpResponse = mock(HttpResponse.class);
+        when(httpResponse.statusCode()).thenReturn(200);
+        when(httpResponse.body()).thenReturn("{\"id\": 1}");
+        when(httpClient.sendAsync(any(HttpRequest.class), ArgumentMatchers.<HttpResponse.BodyHandler<String>>any())).thenAnswer(invocation -> {
+            sendingThread.set(Thread.currentThread().getName());
+            return CompletableFuture.completedFuture(httpResponse);
+        });
+    }
+
+    @Test
+    void processDocumentAsyncReturnsBeforeReadingTest() throws Exception {
+        CompletableFuture<String> future = client.processDocumentAsync(getFilePath("documents/receipt.jpeg"),
+                Arrays.asList("Meals"), false, new JSONObject());
+        Assertions.assertFalse(future.isDone());
+        Assertions.assertEquals(1, tasks.size());
+        verify(httpClient, never()).sendAsync(any(HttpRequest.class), ArgumentMatchers.<HttpResponse.BodyHandler<String>>any());
+
+        Thread worker = new Thread(tasks.poll(), "file-worker");
+        worker.start();
+        worker.join();
+        Assertions.assertEquals("file-worker", sendingThread.get());
+        Assertions.assertEquals(1, new JSONObject(future.join()).getInt("id"));
+    }
+
+    @Test
+    void everyTypePreparedOnFileExecutorTest() {
+        String filePath = getFilePath("w2s/w2.png");
+        client.processAnyDocumentAsync(filePath, "us_driver_license", null);
+        client.processBankStatementAsync(filePath, null);
+        client.processBusinessCardAsync(filePath, null);
+        client.processCheckAsync(filePath, null);
+        client.processW2Async(filePath, null);
+        client.processW8BenEAsync(filePath, null);
+        client.processW9Async(filePath, null);
+        client.processContractAsync(filePath, null);
+        client.classifyDocumentAsync(filePath, null);
+        client.splitDocumentAsync(filePath, null);
+        Assertions.assertEquals(10, tasks.size());
+        Assertions.assertNull(sendingThread.get());
+    }
+
+    @Test
+    void defaultExecutorTest() {
+        client = (ClientImpl) VeryfiClientFactory.createClient(clientId, clientSecret, username, apiKey, apiVersion, httpClient);
+        String response = client.processW2Async(getFilePath("w2s/w2.png"), null).join();
+        Assertions.assertEquals(1, new JSONObject(response).getInt("id"));
+        Assertions.assertTrue(sendingThread.get().startsWith("veryfi-file-"));
+    }
+
+    @Test
+    void sharedParametersTest() throws Exception {
+        List<JSONObject> bodies = new CopyOnWriteArrayList<>();
+        HttpResponse<String> httpResponse = mock(HttpResponse.class);
+        when(httpResponse.statusCode()).thenReturn(200);
+        when(httpResponse.body()).thenReturn("{\"id\": 1}");
+        when(httpClient.sendAsync(any(HttpRequest.class), ArgumentMatchers.<HttpResponse.BodyHandler<String>>any())).thenAnswer(invocation -> {
+            HttpRequest request = invocation.getArgument(0);
+            bodies.add(new JSONObject(FileHelper.getRequestBody(request.bodyPublisher().orElseThrow())));
+            return CompletableFuture.completedFuture(httpResponse);
+        });
+        JSONObject parameters = new JSONObject().put("external_id", "backfill");
+        CompletableFuture<String> w2 = client.processW2Async(getFilePath("w2s/w2.png"), parameters);
+        CompletableFuture<String> receipt = client.processW2Async(getFilePath("documents/receipt.jpeg"), parameters);
+        // Edits made after the calls returned don't reach the requests.
+        parameters.put("external_id", "changed");
+
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (Runnable task : tasks) {
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                task.run();
+            });
+            worker.start();
+            workers.add(worker);
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        w2.join();
+        receipt.join();
+
+        Assertions.assertEquals(2, bodies.size());
+        Set<String> fileNames = new HashSet<>();
+        for (JSONObject body : bodies) {
+            fileNames.add(body.getString("file_name"));
+            Assertions.assertEquals("backfill", body.getString("external_id"));
+            String expected = body.getString("file_name").equals("w2.png") ? "w2s/w2.png" : "documents/receipt.jpeg";
+            Assertions.assertEquals(Base64.getEncoder().encodeToString(Files.readAllBytes(Path.of(getFilePath(expected)))),
+                    body.getString("file_data").replaceAll("^data:[^,]*,", ""));
+        }
+        Assertions.assertEquals(Set.of("w2.png", "receipt.jpeg"), fileNames);
+        Assertions.assertEquals(Set.of("external_id"), parameters.keySet());
+    }
+
+    private String getFilePath(String resource) {
+        ClassLoader classLoader = getClass().getClassLoader();
+        return classLoader.getResource(resource).getPath();
+    }
+}
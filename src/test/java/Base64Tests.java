@@ -0,0 +1,85 @@
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import veryfi.Base64Helper;
+import veryfi.ParallelBase64Encoder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.logging.Logger;
+
+class Base64Tests {
+    private static final int CHUNK_BYTES = 3 << 20;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void parallelEncodingMatchesJdkTest() throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            int[] sizes = {0, 1, 2, 3, 4, CHUNK_BYTES - 1, CHUNK_BYTES, CHUNK_BYTES + 1, 2 * CHUNK_BYTES + 2, 5 * CHUNK_BYTES + 7};
+            Random random = new Random(42);
+            for (int size : sizes) {
+                byte[] content = new byte[size];
+                random.nextBytes(content);
+                Path file = tempDir.resolve("file" + size + ".pdf");
+                Files.write(file, content);
+                String expected = "data:image/pdf;base64," + Base64.getEncoder().encodeToString(content);
+                Assertions.assertEquals(expected, ParallelBase64Encoder.encode(file, "data:image/pdf;base64,", pool), "size " + size);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void largeFileUsesParallelEncoderTest() throws IOException {
+        byte[] content = new byte[2 * CHUNK_BYTES + 5];
+        new Random(7).nextBytes(content);
+        Path file = tempDir.resolve("contract.pdf");
+        Files.write(file, content);
+        String expected = "data:image/pdf;base64," + Base64.getEncoder().encodeToString(content);
+        Assertions.assertEquals(expected, Base64Helper.getBase64FileContent(file.toFile()));
+    }
+
+    @Test
+    void encodingThroughputTest() throws IOException {
+        Random random = new Random(3);
+        for (int size : new int[]{CHUNK_BYTES, 2 * CHUNK_BYTES, 8 * CHUNK_BYTES}) {
+            byte[] content = new byte[size];
+            random.nextBytes(content);
+            Path file = tempDir.resolve("throughput" + size + ".pdf");
+            Files.write(file, content);
+            // Warm up both encoders before measuring.
+            Assertions.assertEquals(Base64.getEncoder().encodeToString(Files.readAllBytes(file)),
+                    ParallelBase64Encoder.encode(file, ""));
+            double jdk = throughput(() -> Base64.getEncoder().encodeToString(Files.readAllBytes(file)), size);
+            double parallel = throughput(() -> ParallelBase64Encoder.encode(file, ""), size);
+            Logger.getLogger("Base64Tests").info(String.format("%d MiB on %d cores: JDK %.0f MiB/s, parallel %.0f MiB/s (%.1fx)",
+                    size >> 20, Runtime.getRuntime().availableProcessors(), jdk, parallel, parallel / jdk));
+        }
+    }
+
+    @Test
+    void missingFileTest() {
+        Assertions.assertThrows(IOException.class, () -> ParallelBase64Encoder.encode(tempDir.resolve("missing.pdf"), ""));
+    }
+
+    private static double throughput(Encoding encoding, int size) throws IOException {
+        int runs = 5;
+        long start = System.nanoTime();
+        for (int i = 0; i < runs; i++) {
+            Assertions.assertEquals((size + 2) / 3 * 4, encoding.encode().length());
+        }
+        return (double) runs * size / (1 << 20) / ((System.nanoTime() - start) / 1e9);
+    }
+
+    private interface Encoding {
+        String encode() throws IOException;
+    }
+}
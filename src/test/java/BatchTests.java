@@ -0,0 +1,197 @@
+import org.json.JSONObject;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentMatchers;
+import veryfi.Client;
+import veryfi.VeryfiClientFactory;
+import veryfi.batch.BatchItemResult;
+import veryfi.batch.BatchProcessor;
+import veryfi.batch.BatchReport;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class BatchTests {
+    String clientId = "your_client_id";
+    String clientSecret = "your_client_secret";
+    String username = "your_username";
+    String apiKey = "your_password";
+    int apiVersion = 8;
+    HttpClient httpClient;
+    Client client;
+    AtomicInteger requests;
+    AtomicInteger inFlight;
+    AtomicInteger maxInFlight;
+
+    @TempDir
+    Path folder;
+
+    @BeforeEach
+    void setup() throws IOException, InterruptedException {
+        httpClient = mock(HttpClient.class);
+        client = VeryfiClientFactory.createClient(clientId, clientSecret, username, apiKey, apiVersion, httpClient);
+        requests = new AtomicInteger();
+        inFlight = new AtomicInteger();
+        maxInFlight = new AtomicInteger();
+        when(httpClient.send(any(HttpRequest.class), ArgumentMatchers.<HttpResponse.BodyHandler<String>>any())).thenAnswer(invocation -> {
+            int current = inFlight.incrementAndGet();
+            maxInFlight.accumulateAndGet(current, Math::max);
+            try {
+                Thread.sleep(20);
+                return respond("{\"id\": " + requests.incrementAndGet() + ", \"status\": \"processed\"}");
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        });
+    }
+
+    @Test
+    void processW2sTest() throws Exception {
+        List<String> filePaths = files(12);
+        BatchReport report = client.processW2s(filePaths, null, 3);
+        Assertions.assertEquals(12, report.getSuccessCount());
+        Assertions.assertEquals(0, report.getFailureCount());
+        Assertions.assertEquals(12, requests.get());
+        Assertions.assertTrue(maxInFlight.get() <= 3);
+        Assertions.assertTrue(maxInFlight.get() > 1);
+        for (int i = 0; i < filePaths.size(); i++) {
+            BatchItemResult item = report.getItems().get(i);
+            Assertions.assertEquals(filePaths.get(i), item.filePath);
+            Assertions.assertEquals("processed", new JSONObject(item.response).getString("status"));
+        }
+    }
+
+    @Test
+    void missingFileReportedTest() throws Exception {
+        List<String> filePaths = files(2);
+        filePaths.add(1, folder.resolve("missing.pdf").toString());
+        BatchReport report = client.processDocuments(filePaths, List.of("Meals"), false, new JSONObject(), 2);
+        Assertions.assertEquals(2, report.getSuccessCount());
+        Assertions.assertEquals(1, report.getFailureCount());
+        BatchItemResult failure = report.getFailures().get(0);
+        Assertions.assertEquals(filePaths.get(1), failure.filePath);
+        Assertions.assertFalse(failure.success);
+        Assertions.assertEquals(0, failure.retries);
+        Assertions.assertEquals(2, requests.get());
+    }
+
+    @Test
+    void failedFileRetriedTest() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        BatchProcessor processor = new BatchProcessor(2);
+        processor.setRetryDelay(Duration.ZERO);
+        processor.setMaxRetries(3);
+        BatchReport report = processor.process(files(1), filePath -> attempts.incrementAndGet() < 3
+                ? "{\"status\": \"fail\", \"message\": \"Throttled\"}"
+                : "{\"id\": 1}");
+        Assertions.assertEquals(1, report.getSuccessCount());
+        Assertions.assertEquals(2, report.getItems().get(0).retries);
+    }
+
+    @Test
+    void retriesExhaustedTest() throws Exception {
+        BatchProcessor processor = new BatchProcessor(2);
+        processor.setRetryDelay(Duration.ZERO);
+        BatchReport report = processor.process(files(2), filePath -> {
+            if (filePath.endsWith("0.pdf"))
+                throw new UncheckedIOException(new IOException("connection reset"));
+            return "{\"status\": \"fail\", \"message\": \"Internal Server Error\"}";
+        });
+        Assertions.assertEquals(2, report.getFailureCount());
+        Assertions.assertTrue(report.getItems().get(0).error.contains("connection reset"));
+        Assertions.assertEquals(2, report.getItems().get(0).retries);
+        Assertions.assertEquals("Internal Server Error", report.getItems().get(1).error);
+        Assertions.assertEquals(2, report.getItems().get(1).retries);
+    }
+
+    @Test
+    void permanentFailuresNotRetriedTest() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        BatchProcessor processor = new BatchProcessor(1);
+        processor.setRetryDelay(Duration.ZERO);
+        BatchReport report = processor.process(files(3), filePath -> {
+            attempts.incrementAndGet();
+            if (filePath.endsWith("0.pdf"))
+                throw new IllegalStateException("boom");
+            return filePath.endsWith("1.pdf") ? "" : "{\"status\": \"fail\", \"error\": \"Invalid file type\"}";
+        });
+        Assertions.assertEquals(3, attempts.get());
+        Assertions.assertEquals(3, report.getFailureCount());
+        Assertions.assertEquals("no response", report.getItems().get(1).error);
+        Assertions.assertEquals(0, report.getItems().get(2).retries);
+
+        Assertions.assertTrue(BatchProcessor.isRetryable("{\"status\": \"fail\", \"code\": 429, \"message\": \"Slow down\"}"));
+        Assertions.assertTrue(BatchProcessor.isRetryable("<html>502 Bad Gateway</html>"));
+        Assertions.assertFalse(BatchProcessor.isRetryable("{\"status\": \"fail\", \"status_code\": 400, \"message\": \"Server error\"}"));
+    }
+
+    @Test
+    void resultsConsumedAsTheyFinishTest() throws Exception {
+        List<String> filePaths = files(6);
+        List<BatchItemResult> consumed = new CopyOnWriteArrayList<>();
+        Set<String> consumerThreads = ConcurrentHashMap.newKeySet();
+        BatchProcessor processor = new BatchProcessor(3);
+        processor.setRetryDelay(Duration.ZERO);
+        processor.setMaxRetries(0);
+        processor.setResultConsumer(result -> {
+            consumed.add(result);
+            consumerThreads.add(Thread.currentThread().getName());
+        });
+        BatchReport report = processor.process(filePaths, filePath -> filePath.endsWith("5.pdf")
+                ? "{\"status\": \"fail\", \"message\": \"Throttled\"}"
+                : client.processW2(filePath, null));
+
+        Assertions.assertEquals(6, consumed.size());
+        for (BatchItemResult result : consumed) {
+            Assertions.assertNotNull(result.response);
+        }
+        Assertions.assertTrue(consumerThreads.stream().allMatch(name -> name.startsWith("veryfi-batch-")));
+        Assertions.assertEquals(5, report.getSuccessCount());
+        for (int i = 0; i < 5; i++) {
+            Assertions.assertEquals(filePaths.get(i), report.getItems().get(i).filePath);
+            Assertions.assertNull(report.getItems().get(i).response);
+        }
+        Assertions.assertEquals("Throttled", report.getFailures().get(0).error);
+        Assertions.assertTrue(report.getFailures().get(0).response.contains("Throttled"));
+    }
+
+    @Test
+    void invalidConcurrencyTest() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new BatchProcessor(0));
+    }
+
+    private List<String> files(int count) throws IOException {
+        List<String> filePaths = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Path file = folder.resolve("file" + i + ".pdf");
+            Files.write(file, ("content " + i).getBytes());
+            filePaths.add(file.toString());
+        }
+        return filePaths;
+    }
+
+    private HttpResponse<String> respond(String body) {
+        HttpResponse<String> httpResponse = mock(HttpResponse.class);
+        when(httpResponse.statusCode()).thenReturn(200);
+        when(httpResponse.body()).thenReturn(body);
+        return httpResponse;
+    }
+}
@@ -0,0 +1,185 @@
+import org.json.JSONObject;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import veryfi.RequestTemplate;
+import veryfi.VeryfiClientFactory;
+import veryfi.pool.BufferPool;
+import veryfi.pool.PooledBuffer;
+import veryfi.pool.PooledBufferWriter;
+import veryfi.services.ClientImpl;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class BufferPoolTests {
+    String clientId = "your_client_id";
+    String clientSecret = "your_client_secret";
+    String username = "your_username";
+    String apiKey = "your_password";
+    int apiVersion = 8;
+    HttpClient httpClient;
+    ClientImpl client;
+    BufferPool pool;
+    List<HttpRequest> requests;
+    List<String> bodies;
+
+    @BeforeEach
+    void setup() throws IOException, InterruptedException {
+        httpClient = mock(HttpClient.class);
+        client = (ClientImpl) VeryfiClientFactory.createClient(clientId, clientSecret, username, apiKey, apiVersion, httpClient);
+        pool = new BufferPool(16 * 1024 * 1024);
+        client.setBufferPool(pool);
+        requests = new ArrayList<>();
+        bodies = new ArrayList<>();
+        HttpResponse<String> httpResponse = mock(HttpResponse.class);
+        when(httpResponse.statusCode()).thenReturn(200);
+        when(httpResponse.body()).thenReturn("{\"id\": 1}");
+        when(httpClient.send(any(HttpRequest.class), ArgumentMatchers.<HttpResponse.BodyHandler<String>>any())).thenAnswer(invocation -> {
+            sent(invocation.getArgument(0));
+            return httpResponse;
+        });
+        when(httpClient.sendAsync(any(HttpRequest.class), ArgumentMatchers.<HttpResponse.BodyHandler<String>>any())).thenAnswer(invocation -> {
+            sent(invocation.getArgument(0));
+            return CompletableFuture.completedFuture(httpResponse);
+        });
+    }
+
+    @Test
+    void buffersReusedBySizeClassTest() {
+        PooledBuffer first = pool.acquire(100_000);
+        Assertions.assertEquals(128 * 1024, first.buffer().capacity());
+        Assertions.assertTrue(first.buffer().isDirect());
+        Assertions.assertEquals(1.0, pool.getUtilization());
+        first.buffer().put((byte) 1);
+        first.close();
+        first.close();
+        Assertions.assertEquals(0, pool.getBorrowedBytes());
+        Assertions.assertEquals(128 * 1024, pool.getPooledBytes());
+
+        PooledBuffer second = pool.acquire(70_000);
+        Assertions.assertEquals(0, second.buffer().position());
+        Assertions.assertEquals(1, pool.getHitCount());
+        PooledBuffer small = pool.acquire(10);
+        Assertions.assertEquals(64 * 1024, small.buffer().capacity());
+        second.close();
+        small.close();
+        Assertions.assertEquals(3, pool.getAcquireCount());
+    }
+
+    @Test
+    void idleBytesBoundedTest() {
+        BufferPool bounded = new BufferPool(128 * 1024, 256 * 1024);
+        PooledBuffer a = bounded.acquire(64 * 1024);
+        PooledBuffer b = bounded.acquire(64 * 1024);
+        PooledBuffer c = bounded.acquire(64 * 1024);
+        PooledBuffer huge = bounded.acquire(1024 * 1024);
+        Assertions.assertEquals(1024 * 1024, huge.buffer().capacity());
+        a.close();
+        b.close();
+        c.close();
+        huge.close();
+        Assertions.assertEquals(128 * 1024, bounded.getPooledBytes());
+        Assertions.assertEquals(0, bounded.getBorrowedBytes());
+    }
+
+    @Test
+    void leakDetectedTest() throws InterruptedException {
+        BufferPool leaky = new BufferPool(1024 * 1024);
+        leaky.setLeakTracking(true);
+        leaky.acquire(1000);
+        for (int i = 0; i < 100 && leaky.getLeakCount() == 0; i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+        Assertions.assertEquals(1, leaky.getLeakCount());
+        Assertions.assertEquals(0, leaky.getBorrowedBytes());
+    }
+
+    @Test
+    void writerEncodesUtf8AcrossBuffersTest() throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            text.append("aé€😀");
+        }
+        PooledBufferWriter writer = new PooledBufferWriter(pool, 16);
+        writer.write(text.toString());
+        PooledBuffer written = writer.detach();
+        ByteBuffer content = written.buffer().duplicate().flip();
+        byte[] bytes = new byte[content.remaining()];
+        content.get(bytes);
+        written.close();
+        Assertions.assertArrayEquals(text.toString().getBytes(StandardCharsets.UTF_8), bytes);
+        Assertions.assertEquals(0, pool.getBorrowedBytes());
+    }
+
+    @Test
+    void uploadBodyFromPoolTest() {
+        String fileData = "x".repeat(300_000);
+        JSONObject parameters = new JSONObject().put("file_name", "receipt.jpeg").put("file_data", fileData);
+        client.processW2("receipt.jpeg", fileData, parameters);
+        client.processW2Async("receipt.jpeg", fileData, new JSONObject()).join();
+
+        Assertions.assertEquals(2, pool.getAcquireCount());
+        Assertions.assertEquals(1, pool.getHitCount());
+        Assertions.assertEquals(0, pool.getBorrowedBytes());
+        Assertions.assertEquals(2, bodies.size());
+        for (int i = 0; i < bodies.size(); i++) {
+            Assertions.assertEquals(fileData, new JSONObject(bodies.get(i)).getString("file_data"));
+            Assertions.assertTrue(requests.get(i).headers().firstValue("X-Veryfi-Request-Signature").isPresent());
+        }
+    }
+
+    @Test
+    void processDocumentBodyFromPoolTest() {
+        String fileData = "x".repeat(300_000);
+        RequestTemplate template = RequestTemplate.builder().categories(List.of("Meals")).deleteAfterProcessing(true).build();
+        client.processDocument("receipt.jpeg", fileData, template, new JSONObject().put("external_id", "42"));
+        client.processDocumentAsync("receipt.jpeg", fileData, template, null).join();
+        client.processDocument("receipt.jpeg", fileData, List.of("Travel"), false, null);
+        // Overriding a key of the template merges the arguments, still into a pooled buffer.
+        client.processDocument("receipt.jpeg", fileData, template, new JSONObject().put("categories", List.of("Fuel")));
+
+        Assertions.assertEquals(4, pool.getAcquireCount());
+        Assertions.assertEquals(0, pool.getBorrowedBytes());
+        Assertions.assertEquals(4, bodies.size());
+        List<JSONObject> sent = new ArrayList<>();
+        for (int i = 0; i < bodies.size(); i++) {
+            sent.add(new JSONObject(bodies.get(i)));
+            Assertions.assertEquals(fileData, sent.get(i).getString("file_data"));
+            Assertions.assertEquals("receipt.jpeg", sent.get(i).getString("file_name"));
+            Assertions.assertTrue(requests.get(i).headers().firstValue("X-Veryfi-Request-Signature").isPresent());
+        }
+        Assertions.assertEquals(List.of("Meals"), sent.get(0).getJSONArray("categories").toList());
+        Assertions.assertTrue(sent.get(0).getBoolean("auto_delete"));
+        Assertions.assertEquals("42", sent.get(0).getString("external_id"));
+        Assertions.assertFalse(sent.get(1).has("external_id"));
+        Assertions.assertEquals(List.of("Travel"), sent.get(2).getJSONArray("categories").toList());
+        Assertions.assertEquals(List.of("Fuel"), sent.get(3).getJSONArray("categories").toList());
+    }
+
+    @Test
+    void readsNotPooledTest() {
+        client.getW2s(1, 50, false, false, null);
+        client.addTags("1", List.of("audited"));
+        Assertions.assertEquals(1, pool.getAcquireCount());
+    }
+
+    private void sent(HttpRequest request) {
+        requests.add(request);
+        if (request.bodyPublisher().isPresent() && request.bodyPublisher().get().contentLength() > 0)
+            bodies.add(FileHelper.getRequestBody(request));
+    }
+}
@@ -0,0 +1,254 @@
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentMatchers;
+import veryfi.Client;
+import veryfi.VeryfiClientFactory;
+import veryfi.deletion.BulkDeleter;
+import veryfi.deletion.DeletionJournal;
+import veryfi.deletion.DeletionReport;
+import veryfi.pending.DocumentKind;
+
+import javax.net.ssl.SSLSession;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+class BulkDeleterTests {
+    String clientId = "your_client_id";
+    String clientSecret = "your_client_secret";
+    String username = "your_username";
+    String apiKey = "your_password";
+    int apiVersion = 8;
+    HttpClient httpClient;
+    Client client;
+    List<String> requests;
+    Set<String> notFound;
+    Set<String> unreachable;
+    Map<String, AtomicInteger> failuresLeft;
+    AtomicInteger inFlight;
+    AtomicInteger maxInFlight;
+
+    @TempDir
+    Path directory;
+
+    @BeforeEach
+    void setup() throws IOException, InterruptedException {
+        // Stub only, the throughput test makes thousands of calls that don't need to be recorded.
+        httpClient = mock(HttpClient.class, withSettings().stubOnly());
+        client = VeryfiClientFactory.createClient(clientId, clientSecret, username, apiKey, apiVersion, httpClient);
+        requests = new CopyOnWriteArrayList<>();
+        notFound = ConcurrentHashMap.newKeySet();
+        unreachable = ConcurrentHashMap.newKeySet();
+        failuresLeft = new ConcurrentHashMap<>();
+        inFlight = new AtomicInteger();
+        maxInFlight = new AtomicInteger();
+        when(httpClient.sendAsync(any(HttpRequest.class), ArgumentMatchers.<HttpResponse.BodyHandler<String>>any())).thenAnswer(invocation -> {
+            HttpRequest request = invocation.getArgument(0);
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            String path = request.uri().getPath().replaceAll("^.*/partner", "");
+            requests.add(request.method() + " " + path);
+            String id = path.split("/")[2];
+            if (unreachable.contains(id)) {
+                inFlight.decrementAndGet();
+                return CompletableFuture.failedFuture(new IOException("proxy: host not found"));
+            }
+            AtomicInteger left = failuresLeft.get(id);
+            String body = notFound.contains(id) ? "{\"status\": \"fail\", \"error\": \"Document not found\"}"
+                    : left != null && left.getAndDecrement() > 0 ? "{\"status\": \"fail\", \"message\": \"Internal error\"}"
+                    : "{\"status\": \"ok\", \"message\": \"Document has been deleted\"}";
+            return CompletableFuture.supplyAsync(() -> {
+                inFlight.decrementAndGet();
+                return new StubResponse(request, body);
+            }, CompletableFuture.delayedExecutor(1, TimeUnit.MILLISECONDS));
+        });
+    }
+
+    @Test
+    void deleteWithRetriesTest() throws IOException, InterruptedException {
+        notFound.add("5");
+        failuresLeft.put("7", new AtomicInteger(2));
+        failuresLeft.put("9", new AtomicInteger(Integer.MAX_VALUE));
+        BulkDeleter deleter = deleter(4);
+
+        DeletionReport report = deleter.run(DocumentKind.W2, ids(1, 20));
+
+        Assertions.assertEquals(19, report.getDeletedCount());
+        Assertions.assertEquals(1, report.getNotFoundCount());
+        Assertions.assertEquals(Map.of("9", "Internal error"), report.getFailures());
+        Assertions.assertEquals(4, report.getRetryCount());
+        Assertions.assertEquals(24, requests.size());
+        Assertions.assertTrue(requests.contains("DELETE /w2s/7/"));
+        Assertions.assertTrue(maxInFlight.get() <= 4, "in flight: " + maxInFlight.get());
+        Assertions.assertTrue(report.getDocumentsPerSecond() > 0);
+
+        requests.clear();
+        deleter.run(DocumentKind.CONTRACT, List.of("11"));
+        deleter.run(DocumentKind.ANY_DOCUMENT, List.of("12"));
+        Assertions.assertEquals(List.of("DELETE /contracts/11/", "DELETE /any-documents/12/"), requests);
+    }
+
+    @Test
+    void transportErrorIsNotNotFoundTest() throws IOException, InterruptedException {
+        notFound.add("2");
+        unreachable.add("3");
+        BulkDeleter deleter = deleter(2);
+
+        DeletionReport report = deleter.run(DocumentKind.BANK_STATEMENT, ids(1, 4));
+
+        Assertions.assertEquals(3, report.getDeletedCount());
+        Assertions.assertEquals(1, report.getNotFoundCount());
+        Assertions.assertEquals(Set.of("3"), report.getFailures().keySet());
+        Assertions.assertTrue(report.getFailures().get("3").contains("host not found"), report.getFailures().toString());
+        Assertions.assertTrue(report.getRetryCount() > 0);
+    }
+
+    @Test
+    void resumeFromJournalTest() throws IOException, InterruptedException {
+        Path path = directory.resolve("retention.journal");
+        DeletionJournal journal = new DeletionJournal(path, 4);
+        BulkDeleter deleter = deleter(2);
+        deleter.setJournal(journal);
+        failuresLeft.put("3", new AtomicInteger(Integer.MAX_VALUE));
+        deleter.run(DocumentKind.CHECK, ids(1, 10));
+        // A crash cuts the last line short.
+        Files.writeString(path, "CHECK:1", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        Assertions.assertEquals(9, journal.load().size());
+        Assertions.assertFalse(journal.load().contains("CHECK:3"));
+
+        requests.clear();
+        failuresLeft.clear();
+        DeletionReport report = deleter.run(DocumentKind.CHECK, ids(1, 15));
+        Assertions.assertEquals(9, report.getResumedCount());
+        Assertions.assertEquals(6, report.getDeletedCount());
+        Assertions.assertEquals(Set.of("DELETE /checks/3/", "DELETE /checks/11/", "DELETE /checks/12/",
+                "DELETE /checks/13/", "DELETE /checks/14/", "DELETE /checks/15/"), Set.copyOf(requests));
+
+        // The same ids of another kind are other documents.
+        requests.clear();
+        Assertions.assertEquals(0, deleter.run(DocumentKind.W9, ids(1, 3)).getResumedCount());
+        Assertions.assertEquals(3, requests.size());
+        journal.clear();
+        Assertions.assertFalse(Files.exists(path));
+    }
+
+    @Test
+    void streamingThroughputTest() throws IOException, InterruptedException {
+        int documents = 20000;
+        int concurrency = 32;
+        AtomicInteger read = new AtomicInteger();
+        // A lazy source, every id is read when a slot is free and sent right away.
+        Iterable<String> source = () -> new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return read.get() < documents;
+            }
+
+            @Override
+            public String next() {
+                return String.valueOf(read.incrementAndGet());
+            }
+        };
+        BulkDeleter deleter = deleter(concurrency);
+        deleter.setJournal(new DeletionJournal(directory.resolve("throughput.journal")));
+        DeletionReport report = deleter.run(DocumentKind.DOCUMENT, source);
+
+        Assertions.assertEquals(documents, report.getDeletedCount());
+        Assertions.assertEquals(0, report.getFailureCount());
+        Assertions.assertTrue(maxInFlight.get() <= concurrency);
+        Assertions.assertEquals(documents, Files.readAllLines(directory.resolve("throughput.journal")).size());
+        Logger.getLogger("BulkDeleterTests").info(String.format("%d deletes in %.2f s, %.0f per second", documents,
+                report.getElapsed().toNanos() / 1e9, report.getDocumentsPerSecond()));
+    }
+
+    private BulkDeleter deleter(int concurrency) {
+        BulkDeleter deleter = new BulkDeleter(client, concurrency);
+        deleter.setRequestsPerSecond(1_000_000);
+        deleter.setRetryDelay(Duration.ofMillis(5));
+        return deleter;
+    }
+
+    private static List<String> ids(int from, int to) {
+        return IntStream.rangeClosed(from, to).mapToObj(String::valueOf).collect(Collectors.toList());
+    }
+
+    /**
+     * A response without the cost of a mock, the throughput test creates thousands of them.
+     */
+    private static class StubResponse implements HttpResponse<String> {
+        private final HttpRequest request;
+        private final String body;
+
+        private StubResponse(HttpRequest request, String body) {
+            this.request = request;
+            this.body = body;
+        }
+
+        @Override
+        public int statusCode() {
+            return 200;
+        }
+
+        @Override
+        public HttpRequest request() {
+            return request;
+        }
+
+        @Override
+        public Optional<HttpResponse<String>> previousResponse() {
+            return Optional.empty();
+        }
+
+        @Override
+        public HttpHeaders headers() {
+            return HttpHeaders.of(Map.of(), (name, value) -> true);
+        }
+
+        @Override
+        public String body() {
+            return body;
+        }
+
+        @Override
+        public Optional<SSLSession> sslSession() {
+            return Optional.empty();
+        }
+
+        @Override
+        public URI uri() {
+            return request.uri();
+        }
+
+        @Override
+        public HttpClient.Version version() {
+            return HttpClient.Version.HTTP_1_1;
+        }
+    }
+}
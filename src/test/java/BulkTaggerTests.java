@@ -0,0 +1,155 @@
+import org.json.JSONObject;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentMatchers;
+import veryfi.Client;
+import veryfi.VeryfiClientFactory;
+import veryfi.tags.BulkTagger;
+import veryfi.tags.TagCheckpoint;
+import veryfi.tags.TagReport;
+import veryfi.tags.TagResult;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class BulkTaggerTests {
+    String clientId = "your_client_id";
+    String clientSecret = "your_client_secret";
+    String username = "your_username";
+    String apiKey = "your_password";
+    int apiVersion = 8;
+    HttpClient httpClient;
+    Client client;
+    List<String> requests;
+    Set<String> failing;
+    AtomicInteger inFlight;
+    AtomicInteger maxInFlight;
+
+    @TempDir
+    Path directory;
+
+    @BeforeEach
+    void setup() throws IOException, InterruptedException {
+        httpClient = mock(HttpClient.class);
+        client = VeryfiClientFactory.createClient(clientId, clientSecret, username, apiKey, apiVersion, httpClient);
+        requests = new CopyOnWriteArrayList<>();
+        failing = ConcurrentHashMap.newKeySet();
+        inFlight = new AtomicInteger();
+        maxInFlight = new AtomicInteger();
+        when(httpClient.send(any(HttpRequest.class), ArgumentMatchers.<HttpResponse.BodyHandler<String>>any())).thenAnswer(invocation -> {
+            HttpRequest request = invocation.getArgument(0);
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            Thread.sleep(10);
+            String path = request.uri().getPath().replaceAll("^.*/partner", "");
+            requests.add(request.method() + " " + path + " " + new JSONObject(FileHelper.getRequestBody(request)).getJSONArray("tags").toList());
+            String id = path.split("/")[2];
+            HttpResponse<String> httpResponse = mock(HttpResponse.class);
+            when(httpResponse.statusCode()).thenReturn(200);
+            when(httpResponse.body()).thenReturn(failing.contains(id) ? "{\"status\": \"fail\", \"message\": \"Document not found\"}"
+                    : "{\"id\": " + id + "}");
+            inFlight.decrementAndGet();
+            return httpResponse;
+        });
+    }
+
+    @Test
+    void mergeOperationsTest() throws IOException, InterruptedException {
+        BulkTagger tagger = new BulkTagger(client, 2);
+        tagger.setRequestsPerSecond(1000);
+        tagger.addTags("1", List.of("cc-100", "month-end"));
+        tagger.addTags("1", List.of("month-end", " cc-200 ", ""));
+        tagger.replaceTags("2", List.of("old"));
+        tagger.replaceTags("2", List.of("cc-300"));
+        tagger.addTags("2", List.of("month-end"));
+        tagger.addTags("3", List.of("cc-100"));
+        tagger.replaceTags("3", List.of("cc-400"));
+        Map<String, List<String>> costCentres = new LinkedHashMap<>();
+        costCentres.put("4", List.of("cc-500"));
+        costCentres.put("1", List.of("cc-100"));
+        tagger.addTags(costCentres);
+        Assertions.assertEquals(4, tagger.getQueuedCount());
+
+        TagReport report = tagger.run();
+
+        Assertions.assertEquals(Set.of("POST /documents/1/tags/ [cc-100, month-end, cc-200]",
+                "PUT /documents/2/ [cc-300, month-end]", "PUT /documents/3/ [cc-400]", "POST /documents/4/tags/ [cc-500]"),
+                Set.copyOf(requests));
+        Assertions.assertEquals(4, requests.size());
+        Assertions.assertEquals(List.of("1", "2", "3", "4"), report.getItems().stream().map(item -> item.documentId).toList());
+        Assertions.assertEquals(5, report.getMergedCount());
+        Assertions.assertEquals(4, report.getSuccessCount());
+        Assertions.assertTrue(report.getItems().get(1).replace);
+        Assertions.assertEquals(0, tagger.getQueuedCount());
+    }
+
+    @Test
+    void boundedAndRateLimitedTest() throws IOException, InterruptedException {
+        BulkTagger tagger = new BulkTagger(client, 3);
+        tagger.setRequestsPerSecond(100);
+        for (int i = 0; i < 40; i++) {
+            tagger.addTags(String.valueOf(i), List.of("cc-" + i % 4));
+        }
+        TagReport report = tagger.run();
+
+        Assertions.assertEquals(40, report.getSuccessCount());
+        Assertions.assertTrue(maxInFlight.get() <= 3);
+        // 40 requests spaced 10 ms apart.
+        Assertions.assertTrue(report.getElapsed().toMillis() >= 380, "elapsed: " + report.getElapsed());
+    }
+
+    @Test
+    void resumeFromCheckpointTest() throws IOException, InterruptedException {
+        Path path = directory.resolve("month-end.tags");
+        failing.add("13");
+        BulkTagger tagger = new BulkTagger(client, 4);
+        tagger.setRequestsPerSecond(1000);
+        tagger.setMaxRetries(1);
+        tagger.setRetryDelay(Duration.ofMillis(1));
+        tagger.setCheckpoint(new TagCheckpoint(path));
+        for (int i = 10; i < 20; i++) {
+            tagger.addTags(String.valueOf(i), List.of("cc-100"));
+        }
+        TagReport first = tagger.run();
+
+        Assertions.assertEquals(9, first.getSuccessCount());
+        TagResult failure = first.getFailures().get(0);
+        Assertions.assertEquals("13", failure.documentId);
+        Assertions.assertEquals("Document not found", failure.error);
+        Assertions.assertEquals(1, failure.retries);
+        Assertions.assertEquals(11, requests.size());
+        Assertions.assertEquals(9, new TagCheckpoint(path).load().size());
+
+        // A crash in the middle of an append leaves a partial line, its document is tagged again.
+        Files.writeString(path, "1", StandardOpenOption.APPEND);
+        failing.clear();
+        requests.clear();
+        for (int i = 10; i < 20; i++) {
+            tagger.addTags(String.valueOf(i), List.of("cc-100"));
+        }
+        TagReport second = tagger.run();
+
+        Assertions.assertEquals(List.of("POST /documents/13/tags/ [cc-100]"), requests);
+        Assertions.assertEquals(10, second.getSuccessCount());
+        Assertions.assertEquals(9, second.getResumedCount());
+        Assertions.assertEquals(10, new TagCheckpoint(path).load().size());
+    }
+}
@@ -0,0 +1,158 @@
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import veryfi.Constants;
+import veryfi.columnar.DocumentColumns;
+import veryfi.columnar.LineItemColumns;
+import veryfi.columnar.StringDictionary;
+import veryfi.pagination.Pages;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.logging.Logger;
+
+class ColumnarTests {
+
+    @Test
+    void lineItemsTest() throws IOException {
+        LineItemColumns lineItems = new LineItemColumns(4);
+        String response = resource("lineItems/getLineItems.json");
+        Assertions.assertEquals(6, lineItems.addResponse(125344108, response));
+        Assertions.assertEquals(2, lineItems.addResponse(125344109, resource("documents/getDocument.json")));
+
+        Assertions.assertEquals(8, lineItems.size());
+        Assertions.assertEquals(125344108, lineItems.documentId(0));
+        Assertions.assertEquals(101170751, lineItems.id(0));
+        Assertions.assertEquals(2f, lineItems.get(LineItemColumns.Measure.QUANTITY, 3));
+        Assertions.assertEquals("service", lineItems.get(LineItemColumns.Dimension.CATEGORY, 0));
+        Assertions.assertNull(lineItems.get(LineItemColumns.Dimension.SKU, 0));
+
+        double expected = 0;
+        for (int i = 0; i < lineItems.size(); i++) {
+            expected += lineItems.get(LineItemColumns.Measure.TOTAL, i);
+        }
+        Assertions.assertEquals(expected, lineItems.sum(LineItemColumns.Measure.TOTAL), 1e-3);
+        Map<String, Double> byCategory = lineItems.sumByCategory(LineItemColumns.Measure.TOTAL);
+        double service = 0;
+        JSONArray items = new JSONObject(response).getJSONArray("line_items");
+        for (int i = 0; i < items.length(); i++) {
+            if ("service".equals(items.getJSONObject(i).getString("type")))
+                service += items.getJSONObject(i).getDouble("total");
+        }
+        Assertions.assertEquals(service, byCategory.get("service"), 1e-3);
+        Assertions.assertEquals(expected, byCategory.values().stream().mapToDouble(Double::doubleValue).sum(), 1e-3);
+        // No line item has a sku, they are all under the missing value.
+        Map<String, Double> bySku = lineItems.sumBy(LineItemColumns.Dimension.SKU, LineItemColumns.Measure.TOTAL);
+        Assertions.assertEquals(1, bySku.size());
+        Assertions.assertEquals(expected, bySku.get(null), 1e-3);
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> lineItems.id(8));
+    }
+
+    @Test
+    void documentsTest() throws IOException {
+        DocumentColumns documents = new DocumentColumns();
+        String page = resource("documents/getDocuments.json");
+        JSONArray records = Pages.records(new JSONObject(page));
+        Assertions.assertEquals(records.length(), documents.addPage(page));
+
+        double total = 0;
+        for (int i = 0; i < records.length(); i++) {
+            total += records.getJSONObject(i).optDouble("total", 0);
+        }
+        Assertions.assertEquals(total, documents.sum(DocumentColumns.Measure.TOTAL), 1e-6);
+        Assertions.assertEquals(total, documents.sumBy(DocumentColumns.Dimension.CURRENCY_CODE, DocumentColumns.Measure.TOTAL)
+                .values().stream().mapToDouble(Double::doubleValue).sum(), 1e-6);
+        JSONObject first = records.getJSONObject(0);
+        Assertions.assertEquals(first.getLong("id"), documents.id(0));
+        Assertions.assertEquals(first.getJSONObject("vendor").optString("name", null), documents.get(DocumentColumns.Dimension.VENDOR, 0));
+        Assertions.assertEquals(LocalDate.parse(first.getString("date").substring(0, 10)).toEpochDay(), documents.epochDay(0));
+    }
+
+    @Test
+    void dictionaryTest() {
+        StringDictionary dictionary = new StringDictionary();
+        Assertions.assertEquals(0, dictionary.encode(null));
+        Assertions.assertEquals(0, dictionary.encode(""));
+        Assertions.assertEquals(1, dictionary.encode("Travel"));
+        Assertions.assertEquals(2, dictionary.encode("Grocery"));
+        Assertions.assertEquals(1, dictionary.encode(new String("Travel")));
+        Assertions.assertEquals(-1, dictionary.codeOf("Payroll"));
+        Assertions.assertEquals("Grocery", dictionary.decode(2));
+        Assertions.assertNull(dictionary.decode(0));
+        Assertions.assertEquals(3, dictionary.size());
+    }
+
+    @Test
+    void millionsOfRowsTest() {
+        int rows = 1_000_000;
+        List<String> categories = Constants.LIST_CATEGORIES;
+        Random random = new Random(42);
+        LineItemColumns lineItems = new LineItemColumns();
+        double[] expected = new double[categories.size()];
+        double expectedTotal = 0;
+        for (int i = 0; i < rows; i++) {
+            int category = random.nextInt(categories.size());
+            float total = random.nextInt(100_000) / 100f;
+            expected[category] += total;
+            expectedTotal += total;
+            lineItems.add(i / 4, lineItem(i, categories.get(category), total));
+        }
+        lineItems.trimToSize();
+
+        // Warm up, then time the aggregates over the primitive columns.
+        for (int i = 0; i < 20; i++) {
+            lineItems.sum(LineItemColumns.Measure.TOTAL);
+            lineItems.sumByCode(LineItemColumns.Dimension.CATEGORY, LineItemColumns.Measure.TOTAL);
+        }
+        long start = System.nanoTime();
+        double total = lineItems.sum(LineItemColumns.Measure.TOTAL);
+        long sumNanos = System.nanoTime() - start;
+        start = System.nanoTime();
+        Map<String, Double> byCategory = lineItems.sumByCategory(LineItemColumns.Measure.TOTAL);
+        long groupNanos = System.nanoTime() - start;
+
+        Assertions.assertEquals(expectedTotal, total, 1e-3);
+        Assertions.assertEquals(categories.size(), byCategory.size());
+        for (int c = 0; c < categories.size(); c++) {
+            Assertions.assertEquals(expected[c], byCategory.get(categories.get(c)), 1e-3);
+        }
+        Assertions.assertEquals(56L * rows, lineItems.columnBytes());
+
+        // The same line items as parsed objects, measured on a sample.
+        int sample = 50_000;
+        long before = usedHeap();
+        List<JSONObject> parsed = new ArrayList<>(sample);
+        for (int i = 0; i < sample; i++) {
+            parsed.add(new JSONObject(lineItem(i, categories.get(i % categories.size()), i / 100f).toString()));
+        }
+        long perObject = (usedHeap() - before) / sample;
+        Assertions.assertEquals(sample, parsed.size());
+        Logger.getLogger("ColumnarTests").info(String.format("%d line items: sum %.2f ms, group by category %.2f ms, "
+                + "%d bytes per row in columns, about %d bytes per parsed JSONObject", rows, sumNanos / 1e6, groupNanos / 1e6,
+                lineItems.columnBytes() / rows, perObject));
+    }
+
+    private static JSONObject lineItem(int id, String category, float total) {
+        return new JSONObject().put("id", id).put("description", "item " + id).put("category", category)
+                .put("total", total).put("price", total).put("quantity", 1.0).put("tax", 0.0).put("tax_rate", 0.0)
+                .put("discount_rate", 0.0).put("sku", "SKU-" + (id % 500)).put("unit_of_measure", "ea").put("hsn", "");
+    }
+
+    private static String resource(String name) throws IOException {
+        InputStream fileStream = ClassLoader.getSystemResourceAsStream(name);
+        assert fileStream != null;
+        return new String(fileStream.readAllBytes());
+    }
+
+    private static long usedHeap() {
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
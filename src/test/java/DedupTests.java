@@ -0,0 +1,169 @@
+import org.json.JSONObject;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import veryfi.dedup.ContentHashIndex;
+import veryfi.dedup.DocumentDeduplicator;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class DedupTests {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void indexPersistsAndGrowsTest() throws IOException {
+        Path path = tempDir.resolve("hashes.idx");
+        try (ContentHashIndex index = new ContentHashIndex(path, 16)) {
+            for (int i = 1; i <= 1000; i++) {
+                index.put(hash(i), i);
+            }
+            index.put(hash(7), 70);
+            Assertions.assertEquals(1000, index.size());
+        }
+        try (ContentHashIndex index = new ContentHashIndex(path)) {
+            Assertions.assertEquals(1000, index.size());
+            Assertions.assertEquals(70, index.get(hash(7)));
+            Assertions.assertEquals(999, index.get(hash(999)));
+            Assertions.assertEquals(-1, index.get(hash(5000)));
+        }
+        Assertions.assertFalse(Files.exists(tempDir.resolve("hashes.idx.tmp")));
+    }
+
+    @Test
+    void duplicateSkipsUploadTest() throws IOException {
+        Path receipt = Files.write(tempDir.resolve("receipt.jpeg"), "receipt bytes".getBytes());
+        Path forwarded = Files.write(tempDir.resolve("forwarded.jpeg"), "receipt bytes".getBytes());
+        AtomicInteger uploads = new AtomicInteger();
+        List<String> lookups = new ArrayList<>();
+        try (ContentHashIndex index = new ContentHashIndex(tempDir.resolve("hashes.idx"))) {
+            DocumentDeduplicator deduplicator = new DocumentDeduplicator(index, id -> {
+                lookups.add(id);
+                return new JSONObject().put("id", Long.parseLong(id)).put("existing", true).toString();
+            });
+            String first = deduplicator.process(receipt.toString(), () -> {
+                uploads.incrementAndGet();
+                return "{\"id\": 44691518}";
+            });
+            String second = deduplicator.process(forwarded.toString(), () -> {
+                uploads.incrementAndGet();
+                return "{\"id\": 1}";
+            });
+            Assertions.assertEquals(44691518, new JSONObject(first).getLong("id"));
+            Assertions.assertTrue(new JSONObject(second).getBoolean("existing"));
+            Assertions.assertEquals(1, uploads.get());
+            Assertions.assertEquals(List.of("44691518"), lookups);
+
+            deduplicator.setExternalIdUpdater((id, externalId) -> new JSONObject().put("id", id).put("external_id", externalId).toString());
+            String attached = deduplicator.process(receipt.toString(), "email-2", () -> "{}");
+            Assertions.assertEquals("email-2", new JSONObject(attached).getString("external_id"));
+        }
+    }
+
+    @Test
+    void failedUploadNotIndexedTest() throws IOException {
+        Path receipt = Files.write(tempDir.resolve("receipt.jpeg"), new byte[200_000]);
+        AtomicInteger uploads = new AtomicInteger();
+        try (ContentHashIndex index = new ContentHashIndex(tempDir.resolve("hashes.idx"))) {
+            DocumentDeduplicator deduplicator = new DocumentDeduplicator(index, id -> "{}");
+            deduplicator.process(receipt.toString(), () -> {
+                uploads.incrementAndGet();
+                return "{\"status\": \"fail\", \"message\": \"Not Authorized\"}";
+            });
+            deduplicator.process(receipt.toString(), () -> {
+                uploads.incrementAndGet();
+                return "";
+            });
+            Assertions.assertEquals(2, uploads.get());
+            Assertions.assertEquals(0, index.size());
+        }
+    }
+
+    @Test
+    void deletedDocumentUploadedAgainTest() throws IOException {
+        Path receipt = Files.write(tempDir.resolve("receipt.jpeg"), "deleted receipt bytes".getBytes());
+        AtomicInteger uploads = new AtomicInteger();
+        List<String> lookups = new ArrayList<>();
+        try (ContentHashIndex index = new ContentHashIndex(tempDir.resolve("hashes.idx"))) {
+            index.put(DocumentDeduplicator.hash(receipt), 31);
+            DocumentDeduplicator deduplicator = new DocumentDeduplicator(index, id -> {
+                lookups.add(id);
+                return id.equals("31")
+                        ? "{\"status\": \"fail\", \"error\": \"Not found.\"}"
+                        : new JSONObject().put("id", Long.parseLong(id)).put("existing", true).toString();
+            });
+            String uploaded = deduplicator.process(receipt.toString(), () -> {
+                uploads.incrementAndGet();
+                return "{\"id\": 32}";
+            });
+            Assertions.assertEquals(32, new JSONObject(uploaded).getLong("id"));
+            Assertions.assertEquals(32, index.get(DocumentDeduplicator.hash(receipt)));
+
+            deduplicator.setExternalIdUpdater((id, externalId) -> "{\"error\": \"Not found.\"}");
+            deduplicator.process(receipt.toString(), "email-3", () -> {
+                uploads.incrementAndGet();
+                return "{\"id\": 33}";
+            });
+            Assertions.assertEquals(2, uploads.get());
+            Assertions.assertEquals(33, index.get(DocumentDeduplicator.hash(receipt)));
+            Assertions.assertEquals(List.of("31"), lookups);
+        }
+    }
+
+    @Test
+    void concurrentDuplicatesUploadOnceTest() throws Exception {
+        Path receipt = Files.write(tempDir.resolve("receipt.jpeg"), "same content".getBytes());
+        AtomicInteger uploads = new AtomicInteger();
+        CountDownLatch uploadStarted = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try (ContentHashIndex index = new ContentHashIndex(tempDir.resolve("hashes.idx"))) {
+            DocumentDeduplicator deduplicator = new DocumentDeduplicator(index, id -> "{\"id\": " + id + "}");
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                results.add(executor.submit(() -> deduplicator.process(receipt.toString(), () -> {
+                    uploads.incrementAndGet();
+                    uploadStarted.countDown();
+                    try {
+                        Thread.sleep(100);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return "{\"id\": 12}";
+                })));
+            }
+            for (Future<String> result : results) {
+                Assertions.assertEquals(12, new JSONObject(result.get()).getInt("id"));
+            }
+            Assertions.assertEquals(1, uploads.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void hashIsContentBasedTest() throws IOException {
+        Path a = Files.write(tempDir.resolve("a.pdf"), new byte[100_000]);
+        Path b = Files.write(tempDir.resolve("b.pdf"), new byte[100_001]);
+        Assertions.assertEquals(32, DocumentDeduplicator.hash(a).length);
+        Assertions.assertFalse(java.util.Arrays.equals(DocumentDeduplicator.hash(a), DocumentDeduplicator.hash(b)));
+    }
+
+    private static byte[] hash(int value) {
+        byte[] hash = new byte[32];
+        for (int i = 0; i < 16; i++) {
+            hash[i] = (byte) ((value * 31L + i) >>> (i % 4 * 8));
+        }
+        hash[16] = (byte) value;
+        return hash;
+    }
+}
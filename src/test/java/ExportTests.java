@@ -0,0 +1,198 @@
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import veryfi.export.ExportResult;
+import veryfi.export.PageCheckpoint;
+import veryfi.export.ParallelPageExporter;
+import veryfi.pagination.PageFetcher;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class ExportTests {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void exportOrderedTest() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            AtomicInteger inFlight = new AtomicInteger();
+            AtomicInteger maxInFlight = new AtomicInteger();
+            PageFetcher fetcher = page -> CompletableFuture.supplyAsync(() -> {
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                sleep((11 - page) * 3L);
+                inFlight.decrementAndGet();
+                return page(page, 5, 48).toString();
+            }, executor);
+            ParallelPageExporter exporter = new ParallelPageExporter(fetcher, 5, 3);
+            List<Integer> written = new ArrayList<>();
+            List<Integer> ids = new ArrayList<>();
+            ExportResult result = exporter.export((page, records) -> {
+                written.add(page);
+                records.forEach(record -> ids.add(((JSONObject) record).getInt("id")));
+            });
+            Assertions.assertEquals(List.of(1, 2, 3, 4, 5, 6, 7, 8, 9, 10), written);
+            Assertions.assertEquals(48, ids.size());
+            Assertions.assertEquals(48, ids.get(47));
+            Assertions.assertEquals(10, result.pages);
+            Assertions.assertEquals(48, result.records);
+            Assertions.assertEquals(10, result.lastCompletedPage);
+            Assertions.assertTrue(maxInFlight.get() <= 3);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void exportUnorderedTest() throws Exception {
+        Map<Integer, CompletableFuture<String>> futures = new ConcurrentHashMap<>();
+        futures.put(1, CompletableFuture.completedFuture(page(1, 2, 6).toString()));
+        PageFetcher fetcher = page -> futures.computeIfAbsent(page, key -> new CompletableFuture<>());
+        ParallelPageExporter exporter = new ParallelPageExporter(fetcher, 2, 2);
+        exporter.setOrdered(false);
+        exporter.setCheckpoint(new PageCheckpoint(tempDir.resolve("unordered.checkpoint")));
+        List<Integer> written = new ArrayList<>();
+        Executor delayed = CompletableFuture.delayedExecutor(50, TimeUnit.MILLISECONDS);
+        CompletableFuture.runAsync(() -> {
+            futures.computeIfAbsent(3, key -> new CompletableFuture<>()).complete(page(3, 2, 6).toString());
+            sleep(20);
+            futures.computeIfAbsent(2, key -> new CompletableFuture<>()).complete(page(2, 2, 6).toString());
+        }, delayed);
+        ExportResult result = exporter.export((page, records) -> written.add(page));
+        Assertions.assertEquals(List.of(1, 3, 2), written);
+        Assertions.assertEquals(3, result.lastCompletedPage);
+        Assertions.assertEquals(3, new PageCheckpoint(tempDir.resolve("unordered.checkpoint")).load());
+    }
+
+    @Test
+    void exportResumesFromCheckpointTest() throws Exception {
+        PageCheckpoint checkpoint = new PageCheckpoint(tempDir.resolve("documents.checkpoint"));
+        checkpoint.save(2);
+        List<Integer> requested = new ArrayList<>();
+        PageFetcher fetcher = page -> {
+            synchronized (requested) {
+                requested.add(page);
+            }
+            return CompletableFuture.completedFuture(page(page, 10, 45).toString());
+        };
+        ParallelPageExporter exporter = new ParallelPageExporter(fetcher, 10, 2);
+        exporter.setCheckpoint(checkpoint);
+        List<Integer> written = new ArrayList<>();
+        ExportResult result = exporter.export((page, records) -> written.add(page));
+        Assertions.assertEquals(List.of(3, 4, 5), written);
+        Assertions.assertEquals(List.of(3, 4, 5), requested);
+        Assertions.assertEquals(5, result.lastCompletedPage);
+        Assertions.assertEquals(5, checkpoint.load());
+    }
+
+    @Test
+    void exportRetriesFailedPageTest() throws Exception {
+        AtomicInteger failures = new AtomicInteger();
+        PageFetcher fetcher = page -> page == 2 && failures.getAndIncrement() < 2
+                ? CompletableFuture.failedFuture(new IllegalStateException("down"))
+                : CompletableFuture.completedFuture(page(page, 1, 3).toString());
+        ParallelPageExporter exporter = new ParallelPageExporter(fetcher, 1, 2);
+        List<Integer> written = new ArrayList<>();
+        exporter.export((page, records) -> written.add(page));
+        Assertions.assertEquals(List.of(1, 2, 3), written);
+        Assertions.assertEquals(3, failures.get());
+    }
+
+    @Test
+    void exportFailsAfterRetriesTest() throws IOException {
+        PageCheckpoint checkpoint = new PageCheckpoint(tempDir.resolve("failed.checkpoint"));
+        PageFetcher fetcher = page -> page == 3
+                ? CompletableFuture.failedFuture(new IllegalStateException("down"))
+                : CompletableFuture.completedFuture(page(page, 1, 4).toString());
+        ParallelPageExporter exporter = new ParallelPageExporter(fetcher, 1, 1);
+        exporter.setMaxRetries(1);
+        exporter.setCheckpoint(checkpoint);
+        Assertions.assertThrows(CompletionException.class, () -> exporter.export((page, records) -> { }));
+        Assertions.assertEquals(2, checkpoint.load());
+    }
+
+    @Test
+    void exportRetriesRefusedPageTest() throws Exception {
+        PageCheckpoint checkpoint = new PageCheckpoint(tempDir.resolve("refused.checkpoint"));
+        AtomicInteger refusals = new AtomicInteger();
+        PageFetcher fetcher = page -> CompletableFuture.completedFuture(page >= 2 && refusals.getAndIncrement() < 1
+                ? "{\"status\": \"fail\", \"message\": \"Too many requests\"}"
+                : page(page, 1, 3).toString());
+        ParallelPageExporter exporter = new ParallelPageExporter(fetcher, 1, 2);
+        exporter.setCheckpoint(checkpoint);
+        List<Integer> written = new ArrayList<>();
+        exporter.export((page, records) -> written.add(page));
+        Assertions.assertEquals(List.of(1, 2, 3), written);
+        Assertions.assertEquals(3, checkpoint.load());
+
+        PageCheckpoint refused = new PageCheckpoint(tempDir.resolve("always.checkpoint"));
+        ParallelPageExporter failing = new ParallelPageExporter(page -> CompletableFuture.completedFuture(page == 2
+                ? "{\"error\": \"Not found\"}" : page(page, 1, 3).toString()), 1, 2);
+        failing.setCheckpoint(refused);
+        CompletionException e = Assertions.assertThrows(CompletionException.class,
+                () -> failing.export((page, records) -> { }));
+        Assertions.assertEquals("page 2 failed: Not found", e.getCause().getMessage());
+        Assertions.assertEquals(1, refused.load());
+    }
+
+    @Test
+    void exportWithoutTotalsCappedPageSizeTest() throws Exception {
+        // 100 records per page asked, the API answers with 50.
+        PageFetcher fetcher = page -> {
+            JSONArray records = new JSONArray();
+            for (int id = (page - 1) * 50 + 1; id <= Math.min(120, page * 50); id++) {
+                records.put(new JSONObject().put("id", id));
+            }
+            return CompletableFuture.completedFuture(new JSONObject().put("results", records).toString());
+        };
+        ExportResult result = new ParallelPageExporter(fetcher, 100, 4).export((page, records) -> { });
+        Assertions.assertEquals(3, result.pages);
+        Assertions.assertEquals(120, result.records);
+    }
+
+    @Test
+    void exportWithoutTotalsTest() throws Exception {
+        PageFetcher fetcher = page -> {
+            JSONArray records = new JSONArray();
+            for (int id = (page - 1) * 2 + 1; id <= Math.min(5, page * 2); id++) {
+                records.put(new JSONObject().put("id", id));
+            }
+            return CompletableFuture.completedFuture(new JSONObject().put("results", records).toString());
+        };
+        ExportResult result = new ParallelPageExporter(fetcher, 2, 4).export((page, records) -> { });
+        Assertions.assertEquals(3, result.pages);
+        Assertions.assertEquals(5, result.records);
+    }
+
+    private static JSONObject page(int page, int pageSize, int total) {
+        JSONArray records = new JSONArray();
+        for (int id = (page - 1) * pageSize + 1; id <= Math.min(total, page * pageSize); id++) {
+            records.put(new JSONObject().put("id", id));
+        }
+        JSONObject meta = new JSONObject().put("total_pages", (total + pageSize - 1) / pageSize).put("total_results", total);
+        return new JSONObject().put("documents", records).put("meta", meta);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
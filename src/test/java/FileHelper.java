@@ -1,6 +1,12 @@
 import org.junit.jupiter.api.Assertions;
 import veryfi.Base64Helper;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.net.http.HttpRequest;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
 
 /**
  * Utility class for file operations in tests.
@@ -62,4 +68,50 @@ public class FileHelper {
         return fileData;
     }
 
+    /**
+     * Reads the body of a request sent to a mocked {@link java.net.http.HttpClient}.
+     *
+     * @param request The request passed to the mock
+     * @return The body as a UTF-8 string
+     */
+    protected static String getRequestBody(HttpRequest request) {
+        return getRequestBody(request.bodyPublisher().orElseThrow());
+    }
+
+    /**
+     * Reads a request body by subscribing to its publisher and draining every buffer.
+     *
+     * @param publisher The body publisher of the request
+     * @return The body as a UTF-8 string
+     */
+    protected static String getRequestBody(HttpRequest.BodyPublisher publisher) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        publisher.subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(ByteBuffer item) {
+                byte[] bytes = new byte[item.remaining()];
+                item.get(bytes);
+                out.writeBytes(bytes);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                done.completeExceptionally(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                done.complete(null);
+            }
+        });
+        done.join();
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
 }
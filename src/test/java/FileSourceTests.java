@@ -0,0 +1,109 @@
+import org.json.JSONObject;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentMatchers;
+import veryfi.Base64Helper;
+import veryfi.Client;
+import veryfi.FileSource;
+import veryfi.VeryfiClientFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class FileSourceTests {
+    String clientId = "your_client_id";
+    String clientSecret = "your_client_secret";
+    String username = "your_username";
+    String apiKey = "your_password";
+    int apiVersion = 8;
+    HttpClient httpClient;
+    Client client;
+    List<HttpRequest> requests;
+    byte[] content;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void setup() throws IOException, InterruptedException {
+        httpClient = mock(HttpClient.class);
+        client = VeryfiClientFactory.createClient(clientId, clientSecret, username, apiKey, apiVersion, httpClient);
+        requests = new ArrayList<>();
+        content = new byte[100_001];
+        new Random(3).nextBytes(content);
+        HttpResponse<String> httpResponse = mock(HttpResponse.class);
+        when(httpResponse.statusCode()).thenReturn(200);
+        when(httpResponse.body()).thenReturn("{\"id\": 1}");
+        when(httpClient.send(any(HttpRequest.class), ArgumentMatchers.<HttpResponse.BodyHandler<String>>any())).thenAnswer(invocation -> {
+            requests.add(invocation.getArgument(0));
+            return httpResponse;
+        });
+        when(httpClient.sendAsync(any(HttpRequest.class), ArgumentMatchers.<HttpResponse.BodyHandler<String>>any())).thenAnswer(invocation -> {
+            requests.add(invocation.getArgument(0));
+            return CompletableFuture.completedFuture(httpResponse);
+        });
+    }
+
+    @Test
+    void everySourceEncodesTheSameTest() throws IOException {
+        String expected = "data:image/pdf;base64," + Base64.getEncoder().encodeToString(content);
+        Path file = tempDir.resolve("statement.pdf");
+        Files.write(file, content);
+        ByteBuffer direct = ByteBuffer.allocateDirect(content.length + 10);
+        direct.position(10);
+        direct.put(content);
+        direct.position(10);
+        ByteBuffer heap = ByteBuffer.wrap(content);
+
+        Assertions.assertEquals(expected, FileSource.fromPath(file).encode());
+        Assertions.assertEquals(expected, FileSource.fromStream("statement.pdf", new ByteArrayInputStream(content)).encode());
+        Assertions.assertEquals(expected, FileSource.fromBytes("statement.pdf", content).encode());
+        Assertions.assertEquals(expected, FileSource.fromBuffer("statement.pdf", direct).encode());
+        Assertions.assertEquals(expected, FileSource.fromBuffer("statement.pdf", heap).encode());
+        Assertions.assertEquals(10, direct.position());
+        Assertions.assertEquals("statement.pdf", FileSource.fromPath(file).getFileName());
+        Assertions.assertEquals(expected, Base64Helper.getBase64FileContent(file.toFile()));
+    }
+
+    @Test
+    void processFromStreamTest() {
+        String response = client.processW2(FileSource.fromStream("w2.png", new ByteArrayInputStream(content)), null);
+        Assertions.assertEquals(1, new JSONObject(response).getInt("id"));
+        Assertions.assertEquals(1, requests.size());
+        Assertions.assertTrue(requests.get(0).uri().toString().endsWith("/w2s/"));
+        Assertions.assertTrue(requests.get(0).bodyPublisher().orElseThrow().contentLength() > content.length);
+    }
+
+    @Test
+    void processAsyncFromBytesTest() {
+        client.processDocumentAsync(FileSource.fromBytes("receipt.jpeg", content), List.of("Meals"), false, null).join();
+        client.processAnyDocumentAsync(FileSource.fromBuffer("license.png", ByteBuffer.wrap(content)), "us_driver_license", null).join();
+        client.processContract(FileSource.fromBytes("contract.pdf", content), new JSONObject());
+        Assertions.assertEquals(3, requests.size());
+        Assertions.assertTrue(requests.get(0).uri().toString().endsWith("/documents/"));
+        Assertions.assertTrue(requests.get(1).uri().toString().endsWith("/any-documents/"));
+    }
+
+    @Test
+    void invalidSourcesTest() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> FileSource.fromBytes("", content));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> FileSource.fromStream("a.pdf", null));
+    }
+}
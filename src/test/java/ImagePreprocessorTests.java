@@ -0,0 +1,166 @@
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import veryfi.FileSource;
+import veryfi.VeryfiClientFactory;
+import veryfi.image.ImagePreprocessor;
+import veryfi.services.ClientImpl;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ImagePreprocessorTests {
+    String clientId = "your_client_id";
+    String clientSecret = "your_client_secret";
+    String username = "your_username";
+    String apiKey = "your_password";
+    int apiVersion = 8;
+    ImagePreprocessor preprocessor;
+
+    @BeforeEach
+    void setup() {
+        preprocessor = new ImagePreprocessor();
+    }
+
+    @Test
+    void largePhotoDownscaledTest() throws IOException {
+        byte[] photo = jpeg(noisyImage(3000, 2000), 1.0f, null);
+        preprocessor.setMaxLongEdge(1200);
+        preprocessor.setMinBytes(100 * 1024);
+        byte[] result = preprocessor.process("photo.JPG", photo);
+        BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(result));
+        Assertions.assertEquals(1200, decoded.getWidth());
+        Assertions.assertEquals(800, decoded.getHeight());
+        Assertions.assertTrue(result.length < photo.length);
+        Assertions.assertEquals(1, preprocessor.getFileCount());
+        Assertions.assertEquals(1, preprocessor.getShrunkCount());
+        Assertions.assertEquals(photo.length, preprocessor.getBytesBefore());
+        Assertions.assertEquals(result.length, preprocessor.getBytesAfter());
+    }
+
+    @Test
+    void smallAndOtherFilesSkippedTest() throws IOException {
+        byte[] small = jpeg(noisyImage(100, 100), 0.9f, null);
+        Assertions.assertSame(small, preprocessor.process("small.jpg", small));
+        byte[] pdf = new byte[1024 * 1024];
+        Assertions.assertSame(pdf, preprocessor.process("contract.pdf", pdf));
+        FileSource source = FileSource.fromBytes("small.jpg", small);
+        Assertions.assertSame(source, preprocessor.process(source));
+        Assertions.assertEquals(0, preprocessor.getFileCount());
+    }
+
+    @Test
+    void exifOrientationAppliedTest() throws IOException {
+        BufferedImage landscape = new BufferedImage(400, 200, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < 200; y++) {
+            for (int x = 0; x < 400; x++) {
+                landscape.setRGB(x, y, x < 200 ? 0xff0000 : 0x0000ff);
+            }
+        }
+        byte[] rotated = jpeg(landscape, 1.0f, 6);
+        preprocessor.setMinBytes(0);
+        preprocessor.setQuality(0.5f);
+        byte[] result = preprocessor.process("scan.jpeg", rotated);
+        Assertions.assertNotSame(rotated, result);
+        BufferedImage upright = ImageIO.read(new ByteArrayInputStream(result));
+        Assertions.assertEquals(200, upright.getWidth());
+        Assertions.assertEquals(400, upright.getHeight());
+        Assertions.assertTrue(isRed(upright.getRGB(100, 50)));
+        Assertions.assertFalse(isRed(upright.getRGB(100, 350)));
+    }
+
+    @Test
+    void uploadShrunkTest() throws IOException, InterruptedException {
+        HttpClient httpClient = mock(HttpClient.class);
+        ClientImpl client = (ClientImpl) VeryfiClientFactory.createClient(clientId, clientSecret, username, apiKey, apiVersion, httpClient);
+        preprocessor.setMaxLongEdge(800);
+        preprocessor.setMinBytes(0);
+        client.setImagePreprocessor(preprocessor);
+        List<HttpRequest> requests = new ArrayList<>();
+        HttpResponse<String> httpResponse = mock(HttpResponse.class);
+        when(httpResponse.statusCode()).thenReturn(200);
+        when(httpResponse.body()).thenReturn("{\"id\": 1}");
+        when(httpClient.send(any(HttpRequest.class), ArgumentMatchers.<HttpResponse.BodyHandler<String>>any())).thenAnswer(invocation -> {
+            requests.add(invocation.getArgument(0));
+            return httpResponse;
+        });
+        when(httpClient.sendAsync(any(HttpRequest.class), ArgumentMatchers.<HttpResponse.BodyHandler<String>>any())).thenAnswer(invocation -> {
+            requests.add(invocation.getArgument(0));
+            return CompletableFuture.completedFuture(httpResponse);
+        });
+        byte[] photo = jpeg(noisyImage(2400, 1600), 1.0f, null);
+        client.processDocument(FileSource.fromBytes("photo.jpg", photo), List.of("Meals"), false, null);
+        client.processW2Async(FileSource.fromBytes("w2.png", png(noisyImage(1600, 1600))), null).join();
+        Assertions.assertEquals(2, requests.size());
+        Assertions.assertTrue(requests.get(0).bodyPublisher().orElseThrow().contentLength() < photo.length / 2);
+        Assertions.assertEquals(2, preprocessor.getShrunkCount());
+    }
+
+    private static byte[] png(BufferedImage image) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+
+    private static boolean isRed(int rgb) {
+        return ((rgb >> 16) & 0xff) > 200 && (rgb & 0xff) < 60;
+    }
+
+    private static BufferedImage noisyImage(int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(5);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image.setRGB(x, y, random.nextInt(0x1000000));
+            }
+        }
+        return image;
+    }
+
+    /**
+     * Writes a JPEG, with an EXIF segment holding only the orientation when one is given.
+     */
+    private static byte[] jpeg(BufferedImage image, float quality, Integer orientation) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        byte[] jpeg = out.toByteArray();
+        if (orientation == null)
+            return jpeg;
+        byte[] tiff = {'I', 'I', 42, 0, 8, 0, 0, 0, 1, 0, 0x12, 0x01, 3, 0, 1, 0, 0, 0, (byte) (int) orientation, 0, 0, 0, 0, 0, 0, 0};
+        ByteArrayOutputStream withExif = new ByteArrayOutputStream();
+        withExif.write(jpeg, 0, 2);
+        int length = 2 + 6 + tiff.length;
+        withExif.write(new byte[]{(byte) 0xff, (byte) 0xe1, (byte) (length >> 8), (byte) length, 'E', 'x', 'i', 'f', 0, 0});
+        withExif.write(tiff);
+        withExif.write(jpeg, 2, jpeg.length - 2);
+        return withExif.toByteArray();
+    }
+}
@@ -0,0 +1,208 @@
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import veryfi.VeryfiClientFactory;
+import veryfi.batch.BatchItemResult;
+import veryfi.batch.IngestionPipeline;
+import veryfi.services.ClientImpl;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+class IngestionTests {
+    String clientId = "your_client_id";
+    String clientSecret = "your_client_secret";
+    String username = "your_username";
+    String apiKey = "your_password";
+    int apiVersion = 8;
+    HttpServer server;
+    IngestionPipeline pipeline;
+
+    @TempDir
+    Path inbox;
+
+    @AfterEach
+    void tearDown() {
+        if (pipeline != null)
+            pipeline.close();
+        if (server != null)
+            server.stop(0);
+    }
+
+    @Test
+    void routesToStubServerTest() throws IOException, InterruptedException {
+        ConcurrentHashMap<String, AtomicInteger> paths = new ConcurrentHashMap<>();
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        AtomicInteger ids = new AtomicInteger();
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/", exchange -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                exchange.getRequestBody().readAllBytes();
+                paths.computeIfAbsent(exchange.getRequestURI().getPath(), key -> new AtomicInteger()).incrementAndGet();
+                Thread.sleep(20);
+                byte[] body = ("{\"id\": " + ids.incrementAndGet() + "}").getBytes(StandardCharsets.UTF_8);
+                exchange.sendResponseHeaders(201, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        });
+        server.start();
+        ClientImpl client = (ClientImpl) VeryfiClientFactory.createClient(clientId, clientSecret, username, apiKey, apiVersion, HttpClient.newHttpClient());
+        client.setBaseUrl("http://127.0.0.1:" + server.getAddress().getPort() + "/api/");
+
+        int files = 40;
+        CountDownLatch finished = new CountDownLatch(files);
+        pipeline = new IngestionPipeline(inbox, inbox.resolve("done"), inbox.resolve("failed"), 4);
+        pipeline.setQuietPeriod(Duration.ofMillis(100));
+        pipeline.addRoute("w2_*", filePath -> client.processW2(filePath, null));
+        pipeline.setDefaultRoute(filePath -> client.processDocument(filePath, null, false, null));
+        pipeline.setListener(result -> finished.countDown());
+        Random random = new Random(11);
+        byte[] content = new byte[20_000];
+        for (int i = 0; i < files / 2; i++) {
+            random.nextBytes(content);
+            Files.write(inbox.resolve("receipt_" + i + ".jpg"), content);
+        }
+        long start = System.nanoTime();
+        pipeline.start();
+        for (int i = 0; i < files / 2; i++) {
+            random.nextBytes(content);
+            Files.write(inbox.resolve("w2_" + i + ".png"), content);
+        }
+
+        Assertions.assertTrue(finished.await(30, TimeUnit.SECONDS));
+        double seconds = (System.nanoTime() - start) / 1e9;
+        Logger.getLogger("IngestionTests").info("ingested " + files + " files in " + seconds + "s, "
+                + files / seconds + " files/s, max " + maxInFlight.get() + " in flight");
+        Assertions.assertEquals(files, pipeline.getProcessedCount());
+        Assertions.assertEquals(0, pipeline.getFailedCount());
+        Assertions.assertEquals(files / 2, paths.get("/api/v8/partner/documents/").get());
+        Assertions.assertEquals(files / 2, paths.get("/api/v8/partner/w2s/").get());
+        Assertions.assertTrue(maxInFlight.get() <= 4);
+        Assertions.assertEquals(files * 2, Files.list(inbox.resolve("done")).count());
+        Assertions.assertTrue(Files.readString(inbox.resolve("done").resolve("w2_3.png.json")).startsWith("{\"id\""));
+        Assertions.assertEquals(0, Files.list(inbox).filter(Files::isRegularFile).count());
+    }
+
+    @Test
+    void partialFileDebouncedTest() throws IOException, InterruptedException {
+        List<Long> sizes = new CopyOnWriteArrayList<>();
+        CountDownLatch finished = new CountDownLatch(1);
+        pipeline = new IngestionPipeline(inbox, inbox.resolve("done"), inbox.resolve("failed"), 2);
+        pipeline.setQuietPeriod(Duration.ofMillis(400));
+        pipeline.setDefaultRoute(filePath -> {
+            try {
+                sizes.add(Files.size(Path.of(filePath)));
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            return "{\"id\": 1}";
+        });
+        pipeline.setListener(result -> finished.countDown());
+        pipeline.start();
+        Path file = inbox.resolve("statement.pdf");
+        byte[] chunk = new byte[1000];
+        for (int i = 0; i < 8; i++) {
+            Files.write(file, chunk, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            Thread.sleep(100);
+        }
+        Files.write(inbox.resolve(".statement.pdf.swp"), chunk);
+        Files.write(inbox.resolve("download.pdf.part"), chunk);
+
+        Assertions.assertTrue(finished.await(10, TimeUnit.SECONDS));
+        Thread.sleep(800);
+        Assertions.assertEquals(List.of(8000L), sizes);
+        Assertions.assertTrue(Files.exists(inbox.resolve("done").resolve("statement.pdf")));
+        Assertions.assertTrue(Files.exists(inbox.resolve("download.pdf.part")));
+        Assertions.assertTrue(Files.exists(inbox.resolve(".statement.pdf.swp")));
+    }
+
+    @Test
+    void failedFilesMovedTest() throws IOException, InterruptedException {
+        List<BatchItemResult> results = new CopyOnWriteArrayList<>();
+        CountDownLatch finished = new CountDownLatch(3);
+        AtomicInteger attempts = new AtomicInteger();
+        pipeline = new IngestionPipeline(inbox, inbox.resolve("out/done"), inbox.resolve("out/failed"), 2);
+        pipeline.setQuietPeriod(Duration.ofMillis(50));
+        pipeline.setMaxRetries(1);
+        pipeline.setRetryDelay(Duration.ofMillis(10));
+        pipeline.addRoute("*.pdf", filePath -> {
+            attempts.incrementAndGet();
+            return "{\"status\": \"fail\", \"message\": \"Malformed file\"}";
+        });
+        pipeline.setListener(result -> {
+            results.add(result);
+            finished.countDown();
+        });
+        Files.createDirectories(inbox.resolve("out/failed"));
+        Files.write(inbox.resolve("out/failed/contract.pdf"), new byte[1]);
+        Files.write(inbox.resolve("contract.pdf"), new byte[10]);
+        Files.write(inbox.resolve("notes.txt"), new byte[10]);
+        pipeline.start();
+        Files.write(inbox.resolve("invoice.pdf"), new byte[10]);
+
+        Assertions.assertTrue(finished.await(10, TimeUnit.SECONDS));
+        Path failed = inbox.resolve("out/failed");
+        // A rejected file fails the same way again, it isn't retried.
+        Assertions.assertEquals(2, attempts.get());
+        Assertions.assertEquals(3, pipeline.getFailedCount());
+        Assertions.assertEquals("Malformed file", Files.readString(failed.resolve("contract-1.pdf.error")));
+        Assertions.assertEquals("Malformed file", Files.readString(failed.resolve("invoice.pdf.error")));
+        Assertions.assertEquals("no route", Files.readString(failed.resolve("notes.txt.error")));
+        Assertions.assertEquals(10, Files.size(failed.resolve("contract-1.pdf")));
+        Assertions.assertTrue(results.stream().noneMatch(result -> result.success));
+    }
+
+    @Test
+    void closeAfterWatchStoppedTest() throws IOException, InterruptedException {
+        Path watched = Files.createDirectories(inbox.resolve("watched"));
+        Files.write(watched.resolve("receipt.pdf"), new byte[10]);
+        CountDownLatch finished = new CountDownLatch(1);
+        pipeline = new IngestionPipeline(watched, inbox.resolve("done"), inbox.resolve("failed"), 2);
+        pipeline.setQuietPeriod(Duration.ofMillis(50));
+        pipeline.setDefaultRoute(filePath -> "{\"id\": 1}");
+        pipeline.setListener(result -> finished.countDown());
+        pipeline.start();
+        Assertions.assertTrue(finished.await(10, TimeUnit.SECONDS));
+
+        // The watch thread stops by itself once the inbox is gone.
+        Files.delete(watched);
+        Assertions.assertTrue(joinThreads("veryfi-ingest-watch-"));
+        pipeline.close();
+        Assertions.assertTrue(joinThreads("veryfi-ingest-"));
+    }
+
+    private static boolean joinThreads(String prefix) throws InterruptedException {
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().startsWith(prefix))
+                thread.join(5000);
+        }
+        return Thread.getAllStackTraces().keySet().stream().noneMatch(thread -> thread.getName().startsWith(prefix));
+    }
+}
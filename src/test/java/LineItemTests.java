@@ -5,7 +5,9 @@ import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentMatchers;
 import veryfi.VeryfiClientFactory;
 import veryfi.models.AddLineItem;
+import veryfi.models.LineItemSyncResult;
 import veryfi.models.NotValidModelException;
+import veryfi.models.SharedLineItem;
 import veryfi.models.UpdateLineItem;
 import veryfi.services.ClientImpl;
 
@@ -14,7 +16,12 @@ import java.io.InputStream;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutionException;
 
 import static org.mockito.ArgumentMatchers.any;
@@ -305,4 +312,82 @@ class LineItemTests {
         Assertions.assertThrows(NotValidModelException.class, updateLineItem::toJsonObject);
     }
 
+    @Test
+    void syncLineItemsTest() throws IOException, InterruptedException, NotValidModelException {
+        List<String> requests = mockSync(Set.of());
+        AddLineItem unchanged = new AddLineItem(0, "2YD FL/MONTH-MSW", 116.32f);
+        unchanged.price = 116.32f;
+        AddLineItem corrected = new AddLineItem(1, "FL CASTER SVC", 15f);
+        corrected.price = 5f;
+        corrected.quantity = 3f;
+        UpdateLineItem categorised = new UpdateLineItem();
+        categorised.order = 2;
+        categorised.category = "Fuel";
+        AddLineItem added = new AddLineItem(6, "Disposal fee", 12.5f);
+
+        LineItemSyncResult result = client.syncLineItems("125344108", List.of(unchanged, corrected, categorised,
+                new AddLineItem(3, "2YD FL/MONTH-MSW", 116.32f), added));
+
+        Assertions.assertTrue(result.isSuccess(), result.toString());
+        Assertions.assertEquals(1, result.added);
+        Assertions.assertEquals(2, result.updated);
+        Assertions.assertEquals(2, result.deleted);
+        Assertions.assertEquals(2, result.unchanged);
+        Assertions.assertEquals(5, result.getRequestCount());
+        Assertions.assertEquals(Set.of(
+                "GET /documents/125344108/line-items/ {}",
+                "PUT /documents/125344108/line-items/101170746 {quantity=3, total=15}",
+                "PUT /documents/125344108/line-items/101170748 {category=Fuel}",
+                "DELETE /documents/125344108/line-items/101170751 {}",
+                "DELETE /documents/125344108/line-items/101170752 {}",
+                "POST /documents/125344108/line-items/ {description=Disposal fee, order=6, total=12.5}"),
+                Set.copyOf(requests));
+        Assertions.assertEquals(6, requests.size());
+    }
+
+    @Test
+    void syncLineItemsFailuresTest() throws IOException, InterruptedException, NotValidModelException {
+        mockSync(Set.of("101170752"));
+        UpdateLineItem missing = new UpdateLineItem();
+        missing.order = 9;
+        missing.sku = "A-1";
+        List<AddLineItem> kept = new ArrayList<>();
+        for (int order = 0; order < 5; order++) {
+            kept.add(new AddLineItem(order, "item " + order, 1f));
+        }
+        List<SharedLineItem> desired = new ArrayList<>(kept);
+        desired.add(missing);
+
+        LineItemSyncResult result = client.syncLineItemsAsync("125344108", desired).join();
+
+        Assertions.assertFalse(result.isSuccess());
+        Assertions.assertEquals(List.of("update order 9: no line item with this order", "delete: Line item not found"), result.errors);
+        Assertions.assertEquals(5, result.updated);
+        Assertions.assertEquals(0, result.deleted);
+
+        AddLineItem repeated = new AddLineItem(1, "again", 2f);
+        Assertions.assertThrows(NotValidModelException.class, () -> client.syncLineItems("125344108", List.of(kept.get(1), repeated)));
+        Assertions.assertThrows(NotValidModelException.class, () -> client.syncLineItems("125344108", List.of(new UpdateLineItem())));
+    }
+
+    private List<String> mockSync(Set<String> failing) throws IOException, InterruptedException {
+        InputStream fileStream = ClassLoader.getSystemResourceAsStream("lineItems/getLineItems.json");
+        assert fileStream != null;
+        String lineItems = new String(fileStream.readAllBytes());
+        List<String> requests = new CopyOnWriteArrayList<>();
+        when(httpClient.sendAsync(any(HttpRequest.class), ArgumentMatchers.<HttpResponse.BodyHandler<String>>any())).thenAnswer(invocation -> {
+            HttpRequest request = invocation.getArgument(0);
+            String path = request.uri().getPath().replaceAll("^.*/partner", "");
+            String body = request.bodyPublisher().map(FileHelper::getRequestBody).orElse("{}");
+            // Sorted, the key order of a json object isn't fixed.
+            requests.add(request.method() + " " + path + " " + new TreeMap<>(new JSONObject(body.isEmpty() ? "{}" : body).toMap()));
+            String id = path.replaceAll("^.*/", "");
+            HttpResponse<String> httpResponse = mock(HttpResponse.class);
+            when(httpResponse.statusCode()).thenReturn(200);
+            when(httpResponse.body()).thenReturn(request.method().equals("GET") ? lineItems
+                    : failing.contains(id) ? "{\"status\": \"fail\", \"message\": \"Line item not found\"}" : "{\"status\": \"ok\"}");
+            return CompletableFuture.completedFuture(httpResponse);
+        });
+        return requests;
+    }
 }
@@ -0,0 +1,177 @@
+import org.json.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentMatchers;
+import veryfi.VeryfiClientFactory;
+import veryfi.mirror.DocumentMirror;
+import veryfi.services.ClientImpl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MirrorTests {
+    String clientId = "your_client_id";
+    String clientSecret = "your_client_secret";
+    String username = "your_username";
+    String apiKey = "your_password";
+    int apiVersion = 8;
+    String documentId = "125344108";
+    @TempDir
+    Path tempDir;
+    HttpClient httpClient;
+    ClientImpl client;
+    DocumentMirror mirror;
+    AtomicInteger requests;
+    String document;
+
+    @BeforeEach
+    void setup() throws IOException, InterruptedException {
+        httpClient = mock(HttpClient.class);
+        client = (ClientImpl) VeryfiClientFactory.createClient(clientId, clientSecret, username, apiKey, apiVersion, httpClient);
+        mirror = new DocumentMirror(tempDir);
+        client.setDocumentMirror(mirror);
+        requests = new AtomicInteger();
+        document = getFileAsString("documents/getDocument.json");
+        mockResponses();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        mirror.close();
+    }
+
+    @Test
+    void getDocumentServedLocallyTest() {
+        String first = client.getDocument(documentId);
+        String second = client.getDocument(documentId);
+        Assertions.assertEquals(first, second);
+        Assertions.assertEquals(1, requests.get());
+        Assertions.assertEquals(1, mirror.getHits());
+        Assertions.assertEquals(1, mirror.getMisses());
+        Assertions.assertEquals(Integer.parseInt(documentId), new JSONObject(second).getInt("id"));
+    }
+
+    @Test
+    void getLineItemsAsyncServedLocallyTest() {
+        client.getLineItemsAsync(documentId).join();
+        String lineItems = client.getLineItemsAsync(documentId).join();
+        Assertions.assertEquals(1, requests.get());
+        Assertions.assertTrue(new JSONObject(lineItems).has("line_items"));
+    }
+
+    @Test
+    void mutationsInvalidateTest() throws Exception {
+        client.getDocument(documentId);
+        client.updateDocument(documentId, new JSONObject().put("notes", "checked"));
+        Assertions.assertEquals(0, mirror.size());
+        client.getDocument(documentId);
+        client.addTagsAsync(documentId, List.of("audited")).join();
+        Assertions.assertEquals(0, mirror.size());
+        client.getDocument(documentId);
+        client.deleteLineItem(documentId, "1");
+        client.getDocument(documentId);
+        Assertions.assertEquals(7, requests.get());
+    }
+
+    @Test
+    void mirrorSurvivesRestartTest() throws IOException {
+        client.getDocument(documentId);
+        client.getLineItems(documentId);
+        client.getDocument("1");
+        client.deleteDocument("1");
+        mirror.close();
+
+        mirror = new DocumentMirror(tempDir);
+        client.setDocumentMirror(mirror);
+        requests.set(0);
+        Assertions.assertEquals(2, mirror.size());
+        Assertions.assertEquals(document, client.getDocument(documentId));
+        Assertions.assertEquals(0, requests.get());
+        Assertions.assertEquals(1, mirror.findByVendor("p.c.a productora y comercializadora de").size());
+        Assertions.assertTrue(mirror.findByExternalId("missing").isEmpty());
+    }
+
+    @Test
+    void truncatedLogIsRecoveredTest() throws IOException {
+        client.getDocument(documentId);
+        mirror.close();
+        Files.writeString(tempDir.resolve("mirror.log"), "{\"op\":\"put\",\"key\":\"document:2\",\"at\":0,\"length\":500}\n{\"id\"",
+                StandardOpenOption.APPEND);
+
+        mirror = new DocumentMirror(tempDir);
+        Assertions.assertEquals(1, mirror.size());
+        mirror.compact();
+        mirror.close();
+        mirror = new DocumentMirror(tempDir);
+        client.setDocumentMirror(mirror);
+        requests.set(0);
+        Assertions.assertEquals(document, client.getDocument(documentId));
+        Assertions.assertEquals(0, requests.get());
+    }
+
+    @Test
+    void staleEntryRevalidatedInBackgroundTest() throws Exception {
+        String externalId = "order-42";
+        document = new JSONObject(document).put("external_id", externalId).toString();
+        client.getDocument(documentId);
+        mirror.setRevalidateAfter(Duration.ZERO);
+        document = new JSONObject(document).put("revalidation_marker", "refreshed").toString();
+        String served = client.getDocument(documentId);
+        Assertions.assertFalse(new JSONObject(served).has("revalidation_marker"));
+        for (int i = 0; i < 100 && mirror.findByExternalId(externalId).stream().noneMatch(body -> body.contains("refreshed")); i++) {
+            Thread.sleep(10);
+        }
+        Assertions.assertEquals(1, mirror.getRevalidations());
+        Assertions.assertEquals("refreshed", new JSONObject(mirror.findByExternalId(externalId).get(0)).getString("revalidation_marker"));
+    }
+
+    @Test
+    void failedResponsesNotStoredTest() throws IOException, InterruptedException {
+        document = getFileAsString("documents/badCredentials.json");
+        client.getDocument(documentId);
+        client.getDocument(documentId);
+        Assertions.assertEquals(2, requests.get());
+        Assertions.assertEquals(0, mirror.size());
+    }
+
+    private void mockResponses() throws IOException, InterruptedException {
+        String lineItems = getFileAsString("lineItems/getLineItems.json");
+        when(httpClient.send(any(HttpRequest.class), ArgumentMatchers.<HttpResponse.BodyHandler<String>>any())).thenAnswer(invocation -> {
+            return respond(invocation.getArgument(0), lineItems);
+        });
+        when(httpClient.sendAsync(any(HttpRequest.class), ArgumentMatchers.<HttpResponse.BodyHandler<String>>any())).thenAnswer(invocation -> {
+            return CompletableFuture.completedFuture(respond(invocation.getArgument(0), lineItems));
+        });
+    }
+
+    private HttpResponse<String> respond(HttpRequest request, String lineItems) {
+        requests.incrementAndGet();
+        HttpResponse<String> httpResponse = mock(HttpResponse.class);
+        String path = request.uri().getPath();
+        when(httpResponse.body()).thenReturn(path.contains("line-items") && "GET".equals(request.method()) ? lineItems : document);
+        return httpResponse;
+    }
+
+    private String getFileAsString(String fileName) throws IOException {
+        InputStream fileStream = ClassLoader.getSystemResourceAsStream(fileName);
+        assert fileStream != null;
+        return new String(fileStream.readAllBytes());
+    }
+}
@@ -0,0 +1,165 @@
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import veryfi.VeryfiClientFactory;
+import veryfi.pagination.PageIterator;
+import veryfi.pagination.Pages;
+import veryfi.services.ClientImpl;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PaginationTests {
+    String clientId = "your_client_id";
+    String clientSecret = "your_client_secret";
+    String username = "your_username";
+    String apiKey = "your_password";
+    int apiVersion = 8;
+    HttpClient httpClient;
+    ClientImpl client;
+    List<Integer> requestedPages;
+
+    @BeforeEach
+    void setup() {
+        httpClient = mock(HttpClient.class);
+        client = (ClientImpl) VeryfiClientFactory.createClient(clientId, clientSecret, username, apiKey, apiVersion, httpClient);
+        requestedPages = new ArrayList<>();
+    }
+
+    @Test
+    void getDocumentsStreamTest() {
+        mockPages(7, 3, false);
+        List<Integer> ids;
+        try (Stream<JSONObject> documents = client.getDocumentsStream(3, false, false, null, 2)) {
+            ids = documents.map(document -> document.getInt("id")).collect(Collectors.toList());
+        }
+        Assertions.assertEquals(List.of(1, 2, 3, 4, 5, 6, 7), ids);
+        Assertions.assertEquals(List.of(1, 2, 3), requestedPages);
+    }
+
+    @Test
+    void getW2sStreamWithCountTest() {
+        mockPages(5, 2, true);
+        JSONObject parameters = new JSONObject();
+        parameters.put("created_date__gt", "2024-01-01");
+        long count = client.getW2sStream(2, false, false, parameters, 1).count();
+        Assertions.assertEquals(5, count);
+        Assertions.assertEquals(List.of(1, 2, 3), requestedPages);
+        Assertions.assertFalse(parameters.has("page"));
+    }
+
+    @Test
+    void getContractsStreamWithoutPrefetchTest() {
+        mockPages(4, 2, true);
+        Assertions.assertEquals(4, client.getContractsStream(2, null, 0).count());
+        Assertions.assertEquals(List.of(1, 2), requestedPages);
+    }
+
+    @Test
+    void pageIteratorStopsOnEmptyPageTest() {
+        PageIterator iterator = new PageIterator(page -> CompletableFuture.completedFuture(
+                page == 1 ? "{\"results\": [{\"id\": 1}, {\"id\": 2}]}" : "{\"results\": []}"), 2, 3);
+        int records = 0;
+        while (iterator.hasNext()) {
+            iterator.next();
+            records++;
+        }
+        Assertions.assertEquals(2, records);
+        Assertions.assertEquals(2, iterator.getPageNumber());
+    }
+
+    @Test
+    void pageIteratorCloseCancelsPrefetchedPagesTest() {
+        List<CompletableFuture<String>> futures = new ArrayList<>();
+        PageIterator iterator = new PageIterator(page -> {
+            CompletableFuture<String> future = page == 1
+                    ? CompletableFuture.completedFuture(page(1, 1, 10, false).toString())
+                    : new CompletableFuture<>();
+            futures.add(future);
+            return future;
+        }, 1, 3);
+        Assertions.assertTrue(iterator.hasNext());
+        iterator.next();
+        iterator.close();
+        Assertions.assertFalse(iterator.hasNext());
+        Assertions.assertEquals(4, futures.size());
+        Assertions.assertTrue(futures.get(3).isCancelled());
+    }
+
+    @Test
+    void pageIteratorRethrowsFailedPageTest() {
+        AtomicInteger calls = new AtomicInteger();
+        PageIterator iterator = new PageIterator(page -> {
+            calls.incrementAndGet();
+            return CompletableFuture.failedFuture(new IllegalStateException("down"));
+        }, 50, 1);
+        Assertions.assertThrows(CompletionException.class, iterator::hasNext);
+        Assertions.assertFalse(iterator.hasNext());
+        Assertions.assertEquals(1, calls.get());
+    }
+
+    @Test
+    void pageIteratorRethrowsFailedResponseTest() {
+        PageIterator iterator = new PageIterator(page -> CompletableFuture.completedFuture(page == 1
+                ? page(1, 2, 6, false).toString()
+                : "{\"status\": \"fail\", \"message\": \"Too many requests\"}"), 2, 0);
+        Assertions.assertEquals(1, iterator.next().getInt("id"));
+        Assertions.assertEquals(2, iterator.next().getInt("id"));
+        CompletionException e = Assertions.assertThrows(CompletionException.class, iterator::hasNext);
+        Assertions.assertEquals("page 2 failed: Too many requests", e.getCause().getMessage());
+        Assertions.assertFalse(iterator.hasNext());
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> Pages.isLastPage(new JSONObject("{\"error\": \"Not found\"}"), 1, 50, 0));
+    }
+
+    @Test
+    void pagesTotalsTest() {
+        JSONObject meta = new JSONObject("{\"documents\": [], \"meta\": {\"total_pages\": 4, \"total_results\": 170}}");
+        JSONObject data = new JSONObject("{\"data\": {\"count\": 205, \"next\": \"\", \"results\": [{}]}}");
+        Assertions.assertEquals(4, Pages.totalPages(meta, 50));
+        Assertions.assertEquals(170, Pages.totalRecords(meta));
+        Assertions.assertEquals(5, Pages.totalPages(data, 50));
+        Assertions.assertEquals(1, Pages.records(data).length());
+        Assertions.assertEquals(-1, Pages.totalPages(new JSONObject(), 50));
+    }
+
+    private void mockPages(int total, int pageSize, boolean withCount) {
+        when(httpClient.sendAsync(any(HttpRequest.class), ArgumentMatchers.<HttpResponse.BodyHandler<String>>any())).thenAnswer(invocation -> {
+            HttpRequest request = invocation.getArgument(0);
+            int page = Integer.parseInt(request.uri().getQuery().replaceAll(".*\\bpage=(\\d+).*", "$1"));
+            synchronized (requestedPages) {
+                requestedPages.add(page);
+            }
+            HttpResponse<String> httpResponse = mock(HttpResponse.class);
+            when(httpResponse.body()).thenReturn(page(page, pageSize, total, withCount).toString());
+            return CompletableFuture.completedFuture(httpResponse);
+        });
+    }
+
+    private static JSONObject page(int page, int pageSize, int total, boolean withCount) {
+        JSONArray records = new JSONArray();
+        for (int id = (page - 1) * pageSize + 1; id <= Math.min(total, page * pageSize); id++) {
+            records.put(new JSONObject().put("id", id));
+        }
+        if (withCount) {
+            return new JSONObject().put("data", new JSONObject().put("count", total).put("next", "").put("results", records));
+        }
+        JSONObject meta = new JSONObject().put("total_pages", (total + pageSize - 1) / pageSize).put("total_results", total);
+        return new JSONObject().put("documents", records).put("meta", meta);
+    }
+}
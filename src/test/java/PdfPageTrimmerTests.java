@@ -0,0 +1,184 @@
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.graphics.image.LosslessFactory;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.apache.pdfbox.pdmodel.interactive.action.PDActionGoTo;
+import org.apache.pdfbox.pdmodel.interactive.annotation.PDAnnotationLink;
+import org.apache.pdfbox.pdmodel.interactive.documentnavigation.destination.PDPageFitDestination;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentMatchers;
+import veryfi.FileSource;
+import veryfi.RequestTemplate;
+import veryfi.VeryfiClientFactory;
+import veryfi.pdf.PdfPageTrimmer;
+import veryfi.services.ClientImpl;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PdfPageTrimmerTests {
+    String clientId = "your_client_id";
+    String clientSecret = "your_client_secret";
+    String username = "your_username";
+    String apiKey = "your_password";
+    int apiVersion = 8;
+    HttpClient httpClient;
+    ClientImpl client;
+    PdfPageTrimmer trimmer;
+    List<String> bodies;
+    byte[] statement;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void setup() throws IOException, InterruptedException {
+        httpClient = mock(HttpClient.class);
+        client = (ClientImpl) VeryfiClientFactory.createClient(clientId, clientSecret, username, apiKey, apiVersion, httpClient);
+        trimmer = new PdfPageTrimmer();
+        client.setPdfPageTrimmer(trimmer);
+        bodies = new ArrayList<>();
+        statement = pdf(12);
+        HttpResponse<String> httpResponse = mock(HttpResponse.class);
+        when(httpResponse.statusCode()).thenReturn(200);
+        when(httpResponse.body()).thenReturn("{\"id\": 1}");
+        when(httpClient.send(any(HttpRequest.class), ArgumentMatchers.<HttpResponse.BodyHandler<String>>any())).thenAnswer(invocation -> {
+            bodies.add(FileHelper.getRequestBody(invocation.<HttpRequest>getArgument(0)));
+            return httpResponse;
+        });
+        when(httpClient.sendAsync(any(HttpRequest.class), ArgumentMatchers.<HttpResponse.BodyHandler<String>>any())).thenAnswer(invocation -> {
+            bodies.add(FileHelper.getRequestBody(invocation.<HttpRequest>getArgument(0)));
+            return CompletableFuture.completedFuture(httpResponse);
+        });
+    }
+
+    @Test
+    void trimToFirstPagesTest() throws IOException {
+        byte[] trimmed = trimmer.trim("statement.pdf", statement, 2);
+        Assertions.assertTrue(trimmed.length < statement.length / 3);
+        try (PDDocument document = Loader.loadPDF(trimmed)) {
+            Assertions.assertEquals(2, document.getNumberOfPages());
+            PDPage first = document.getPage(0);
+            Assertions.assertEquals(PDRectangle.LETTER.getWidth(), first.getMediaBox().getWidth());
+            Assertions.assertEquals(1, count(first.getResources().getXObjectNames()));
+            Assertions.assertTrue(first.getAnnotations().isEmpty());
+        }
+        Assertions.assertEquals(1, trimmer.getFileCount());
+        Assertions.assertEquals(1, trimmer.getTrimmedCount());
+        Assertions.assertEquals(statement.length, trimmer.getBytesBefore());
+        Assertions.assertEquals(trimmed.length, trimmer.getBytesAfter());
+    }
+
+    @Test
+    void untouchedFilesTest() throws IOException {
+        Assertions.assertSame(statement, trimmer.trim("statement.pdf", statement, 12));
+        Assertions.assertSame(statement, trimmer.trim("statement.pdf", statement, 0));
+        Assertions.assertSame(statement, trimmer.trim("statement.png", statement, 2));
+        byte[] broken = new byte[128 * 1024];
+        Assertions.assertSame(broken, trimmer.trim("broken.pdf", broken, 1));
+        FileSource bytes = FileSource.fromBytes("statement.pdf", statement);
+        Assertions.assertSame(bytes, trimmer.trim(bytes, 20));
+
+        FileSource stream = trimmer.trim(FileSource.fromStream("statement.pdf", new ByteArrayInputStream(statement)), 20);
+        Assertions.assertArrayEquals(statement, stream.readBytes());
+        Assertions.assertEquals(0, trimmer.getTrimmedCount());
+    }
+
+    @Test
+    void processTrimmedTest() throws IOException {
+        client.processBankStatement(FileSource.fromBytes("statement.pdf", statement), new JSONObject().put("max_pages_to_process", 2));
+        Path file = tempDir.resolve("contract.pdf");
+        Files.write(file, statement);
+        client.processContractAsync(file.toString(), new JSONObject().put("max_pages_to_process", 1)).join();
+        RequestTemplate template = RequestTemplate.builder().maxPagesToProcess(3).build();
+        client.processDocument(file.toString(), template, null);
+        client.processDocument(file.toString(), template, new JSONObject().put("max_pages_to_process", 4));
+        client.processW2(file.toString(), new JSONObject().put("max_pages_to_process", 2));
+        client.processBankStatement(file.toString(), null);
+
+        Assertions.assertEquals(6, bodies.size());
+        Assertions.assertEquals(2, new JSONObject(bodies.get(0)).getInt("max_pages_to_process"));
+        Assertions.assertEquals(2, pages(bodies.get(0)));
+        Assertions.assertEquals(1, pages(bodies.get(1)));
+        Assertions.assertEquals(3, pages(bodies.get(2)));
+        Assertions.assertEquals(4, pages(bodies.get(3)));
+        Assertions.assertEquals(12, pages(bodies.get(4)));
+        Assertions.assertEquals(12, pages(bodies.get(5)));
+        Assertions.assertEquals(4, trimmer.getTrimmedCount());
+    }
+
+    private static long count(Iterable<?> items) {
+        long count = 0;
+        for (Object ignored : items) {
+            count++;
+        }
+        return count;
+    }
+
+    private static int pages(String body) throws IOException {
+        String fileData = new JSONObject(body).getString("file_data");
+        byte[] content = Base64.getDecoder().decode(fileData.substring(fileData.indexOf(',') + 1));
+        try (PDDocument document = Loader.loadPDF(content)) {
+            return document.getNumberOfPages();
+        }
+    }
+
+    /**
+     * A statement with a noise image on every page and a link from every page to the last one.
+     */
+    private static byte[] pdf(int pageCount) throws IOException {
+        Random random = new Random(7);
+        try (PDDocument document = new PDDocument()) {
+            for (int i = 0; i < pageCount; i++) {
+                document.addPage(new PDPage(PDRectangle.LETTER));
+            }
+            PDPage last = document.getPage(pageCount - 1);
+            for (PDPage page : document.getPages()) {
+                BufferedImage noise = new BufferedImage(120, 120, BufferedImage.TYPE_INT_RGB);
+                for (int y = 0; y < 120; y++) {
+                    for (int x = 0; x < 120; x++) {
+                        noise.setRGB(x, y, random.nextInt(0x1000000));
+                    }
+                }
+                PDImageXObject image = LosslessFactory.createFromImage(document, noise);
+                try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                    content.drawImage(image, 72, 72);
+                }
+                PDPageFitDestination destination = new PDPageFitDestination();
+                destination.setPage(last);
+                PDActionGoTo action = new PDActionGoTo();
+                action.setDestination(destination);
+                PDAnnotationLink link = new PDAnnotationLink();
+                link.setRectangle(new PDRectangle(72, 300, 100, 20));
+                link.setAction(action);
+                page.getAnnotations().add(link);
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            document.save(out);
+            return out.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,230 @@
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import veryfi.export.ExportResult;
+import veryfi.export.FieldProjection;
+import veryfi.export.ParallelPageExporter;
+import veryfi.export.RecordFormat;
+import veryfi.export.RecordWriter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+class RecordWriterTests {
+
+    FieldProjection projection = FieldProjection.builder()
+            .field("id").field("vendor.name", "vendor").field("total").field("tags")
+            .lineItemField("description").lineItemField("total", "line_total")
+            .build();
+
+    @Test
+    void csvWithLineItemsTest() throws IOException {
+        StringWriter out = new StringWriter();
+        try (RecordWriter writer = new RecordWriter(out, RecordFormat.CSV, projection)) {
+            writer.write(1, new JSONArray()
+                    .put(document(1, "Acme, Inc.", 2))
+                    .put(document(2, "The \"Best\" Shop", 0)));
+            Assertions.assertEquals(2, writer.getRecordCount());
+            Assertions.assertEquals(3, writer.getRowCount());
+        }
+        Assertions.assertEquals("id,vendor,total,tags,line_items.description,line_total\r\n"
+                + "1,\"Acme, Inc.\",10.5,\"[\"\"a\"\"]\",item 0,5.25\r\n"
+                + "1,\"Acme, Inc.\",10.5,\"[\"\"a\"\"]\",\"item 1\nsecond line\",5.25\r\n"
+                + "2,\"The \"\"Best\"\" Shop\",10.5,\"[\"\"a\"\"]\",,\r\n", out.toString());
+    }
+
+    @Test
+    void ndjsonTest() throws IOException {
+        StringWriter out = new StringWriter();
+        try (RecordWriter writer = new RecordWriter(out, RecordFormat.NDJSON, FieldProjection.builder()
+                .field("id").field("vendor.name", "vendor").field("line_items.1.description", "second").field("missing")
+                .build())) {
+            writer.write(document(7, "Acme", 2));
+        }
+        String[] lines = out.toString().split("\n");
+        Assertions.assertEquals(1, lines.length);
+        JSONObject row = new JSONObject(lines[0]);
+        Assertions.assertTrue(row.isNull("missing"));
+        row.remove("missing");
+        Assertions.assertEquals(Map.of("id", 7, "vendor", "Acme", "second", "item 1\nsecond line"), row.toMap());
+
+        StringWriter whole = new StringWriter();
+        try (RecordWriter writer = new RecordWriter(whole, RecordFormat.NDJSON, null)) {
+            writer.write(1, new JSONArray().put(document(1, "Acme", 1)).put(document(2, "Acme", 1)));
+        }
+        Assertions.assertEquals(2, whole.toString().lines().count());
+        Assertions.assertTrue(document(2, "Acme", 1).similar(new JSONObject(whole.toString().lines().skip(1).findFirst().orElseThrow())));
+
+        StringWriter empty = new StringWriter();
+        new RecordWriter(empty, RecordFormat.CSV, projection).close();
+        Assertions.assertEquals("id,vendor,total,tags,line_items.description,line_total\r\n", empty.toString());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new RecordWriter(empty, RecordFormat.CSV, null));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> FieldProjection.builder().field("id").field("total", "id"));
+    }
+
+    @Test
+    void writeAllFromGetEndpointTest() throws IOException {
+        InputStream fileStream = ClassLoader.getSystemResourceAsStream("documents/getDocument.json");
+        assert fileStream != null;
+        String document = new String(fileStream.readAllBytes());
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        StringWriter out = new StringWriter();
+        RecordWriter writer = new RecordWriter(out, RecordFormat.CSV, FieldProjection.builder()
+                .field("id").lineItemField("description").build());
+
+        long written = writer.writeAll(List.of("1", "2", "3", "4", "5").iterator(), id -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            return CompletableFuture.supplyAsync(() -> {
+                inFlight.decrementAndGet();
+                return document;
+            }, CompletableFuture.delayedExecutor(5, TimeUnit.MILLISECONDS));
+        }, 2);
+        writer.flush();
+
+        int lineItems = new JSONObject(document).getJSONArray("line_items").length();
+        Assertions.assertEquals(5, written);
+        Assertions.assertEquals(5L * lineItems, writer.getRowCount());
+        Assertions.assertEquals(5L * lineItems + 1, out.toString().lines().count());
+        Assertions.assertTrue(maxInFlight.get() <= 2, "in flight: " + maxInFlight.get());
+    }
+
+    @Test
+    void writeAllStopsOnFailedRecordTest() {
+        StringWriter out = new StringWriter();
+        RecordWriter writer = new RecordWriter(out, RecordFormat.NDJSON, FieldProjection.builder().field("id").build());
+
+        IOException error = Assertions.assertThrows(IOException.class, () -> writer.writeAll(List.of("1", "2", "3").iterator(),
+                id -> CompletableFuture.completedFuture(id.equals("2")
+                        ? "{\"status\": \"fail\", \"message\": \"Document not found\"}"
+                        : new JSONObject().put("id", Integer.parseInt(id)).toString()), 2));
+
+        Assertions.assertEquals("record 2 failed: Document not found", error.getMessage());
+        Assertions.assertEquals(1, writer.getRecordCount());
+        Assertions.assertEquals("{\"id\":1}\n", out.toString());
+    }
+
+    @Test
+    void writeAllStopsOnFailedRequestTest() {
+        StringWriter out = new StringWriter();
+        RecordWriter writer = new RecordWriter(out, RecordFormat.NDJSON, FieldProjection.builder().field("id").build());
+        IOException timeout = new IOException("request timed out");
+
+        IOException error = Assertions.assertThrows(IOException.class, () -> writer.writeAll(List.of("1", "2", "3").iterator(),
+                id -> id.equals("2") ? CompletableFuture.failedFuture(timeout)
+                        : CompletableFuture.completedFuture(new JSONObject().put("id", Integer.parseInt(id)).toString()), 2));
+
+        Assertions.assertEquals("record 2 failed: " + timeout, error.getMessage());
+        Assertions.assertSame(timeout, error.getCause());
+        Assertions.assertEquals("{\"id\":1}\n", out.toString());
+    }
+
+    @Test
+    void streamingThroughputTest() throws Exception {
+        int pages = 400;
+        int pageSize = 50;
+        // Every page is built on request and dropped once written, the output is counted and discarded.
+        ParallelPageExporter exporter = new ParallelPageExporter(page -> CompletableFuture.supplyAsync(() -> {
+            JSONArray documents = new JSONArray();
+            for (int i = 0; i < pageSize; i++) {
+                documents.put(document((page - 1) * pageSize + i, "Vendor " + page, 3));
+            }
+            return new JSONObject().put("documents", documents)
+                    .put("meta", new JSONObject().put("total_pages", pages)).toString();
+        }), pageSize, 4);
+        CountingWriter out = new CountingWriter();
+        RecordWriter writer = new RecordWriter(out, RecordFormat.CSV, projection);
+        long usedBefore = usedHeap();
+        AtomicLong usedHalfway = new AtomicLong();
+        AtomicLong gcNanos = new AtomicLong();
+
+        long start = System.nanoTime();
+        ExportResult result = exporter.export((page, records) -> {
+            writer.write(page, records);
+            // Half of the records are written by now, none of them may still be on the heap.
+            if (page == pages / 2) {
+                long gcStart = System.nanoTime();
+                usedHalfway.set(usedHeap());
+                gcNanos.set(System.nanoTime() - gcStart);
+            }
+        });
+        writer.close();
+        double seconds = (System.nanoTime() - start - gcNanos.get()) / 1e9;
+        long usedAfter = usedHeap();
+
+        Assertions.assertEquals(pages * pageSize, result.records);
+        Assertions.assertEquals(3L * pages * pageSize, writer.getRowCount());
+        Assertions.assertEquals(3L * pages * pageSize + 1, out.lines);
+        // The records of the export take tens of MiB as parsed objects, a few pages are in flight at any time.
+        Assertions.assertTrue(usedHalfway.get() - usedBefore < 4 * 1024 * 1024, "halfway: " + (usedHalfway.get() - usedBefore));
+        Assertions.assertTrue(usedAfter - usedBefore < 2 * 1024 * 1024, "after: " + (usedAfter - usedBefore));
+        Logger.getLogger("RecordWriterTests").info(String.format("%d documents, %d rows, %d chars in %.2f s: %.0f rows "
+                + "per second, heap %+d KiB halfway, %+d KiB after", result.records, writer.getRowCount(), out.chars,
+                seconds, writer.getRowCount() / seconds, (usedHalfway.get() - usedBefore) / 1024, (usedAfter - usedBefore) / 1024));
+    }
+
+    private static JSONObject document(int id, String vendor, int lineItems) {
+        JSONArray items = new JSONArray();
+        for (int i = 0; i < lineItems; i++) {
+            items.put(new JSONObject().put("description", i == 1 ? "item 1\nsecond line" : "item " + i)
+                    .put("total", 5.25).put("order", i));
+        }
+        return new JSONObject().put("id", id).put("vendor", new JSONObject().put("name", vendor))
+                .put("total", 10.5).put("tags", new JSONArray().put("a")).put("line_items", items);
+    }
+
+    /**
+     * The used heap once garbage is collected, a second collection catches what the first one finalized.
+     */
+    private static long usedHeap() {
+        System.gc();
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Counts what is written and keeps nothing, CSV rows end with a carriage return.
+     */
+    private static class CountingWriter extends Writer {
+        long chars = 0;
+        long lines = 0;
+
+        @Override
+        public void write(char[] cbuf, int off, int len) {
+            chars += len;
+            for (int i = off; i < off + len; i++) {
+                if (cbuf[i] == '\r')
+                    lines++;
+            }
+        }
+
+        @Override
+        public Writer append(CharSequence csq) {
+            chars += csq.length();
+            for (int i = 0; i < csq.length(); i++) {
+                if (csq.charAt(i) == '\r')
+                    lines++;
+            }
+            return this;
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,140 @@
+import org.json.JSONObject;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import veryfi.Constants;
+import veryfi.RequestTemplate;
+import veryfi.VeryfiClientFactory;
+import veryfi.services.ClientImpl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RequestTemplateTests {
+    String clientId = "your_client_id";
+    String clientSecret = "your_client_secret";
+    String username = "your_username";
+    String apiKey = "your_password";
+    int apiVersion = 8;
+    HttpClient httpClient;
+    ClientImpl client;
+
+    @BeforeEach
+    void setup() {
+        httpClient = mock(HttpClient.class);
+        client = (ClientImpl) VeryfiClientFactory.createClient(clientId, clientSecret, username, apiKey, apiVersion, httpClient);
+    }
+
+    @Test
+    void processDocumentWithTemplateTest() throws IOException, InterruptedException {
+        mockSend();
+        List<String> categories = Arrays.asList("Advertising & Marketing", "Automotive");
+        RequestTemplate template = RequestTemplate.builder()
+                .categories(categories)
+                .deleteAfterProcessing(true)
+                .boostMode(true)
+                .build();
+        JSONObject parameters = new JSONObject();
+        parameters.put("external_id", "12345");
+        String jsonResponse = client.processDocument(getFilePath(), template, parameters);
+        JSONObject document = new JSONObject(jsonResponse);
+        Assertions.assertEquals("Walgreens", document.getJSONObject("vendor").getString("name"));
+
+        JSONObject body = new JSONObject(captureBody());
+        Assertions.assertEquals(categories, body.getJSONArray("categories").toList());
+        Assertions.assertTrue(body.getBoolean("auto_delete"));
+        Assertions.assertTrue(body.getBoolean("boost_mode"));
+        Assertions.assertEquals("12345", body.getString("external_id"));
+        Assertions.assertEquals("receipt.jpeg", body.getString("file_name"));
+        Assertions.assertTrue(body.getString("file_data").startsWith("data:image/jpeg;base64,"));
+    }
+
+    @Test
+    void processDocumentWithoutCategoriesUsesDefaultTemplateTest() throws IOException, InterruptedException {
+        mockSend();
+        client.processDocument(getFileName(), getFileData(), null, false, null);
+        JSONObject body = new JSONObject(captureBody());
+        Assertions.assertEquals(Constants.LIST_CATEGORIES, body.getJSONArray("categories").toList());
+        Assertions.assertFalse(body.getBoolean("auto_delete"));
+    }
+
+    @Test
+    void parametersOverrideTemplateTest() throws IOException, InterruptedException {
+        mockSend();
+        RequestTemplate template = RequestTemplate.builder().deleteAfterProcessing(false).build();
+        JSONObject parameters = new JSONObject();
+        parameters.put("auto_delete", true);
+        client.processDocument(getFileName(), getFileData(), template, parameters);
+        JSONObject body = new JSONObject(captureBody());
+        Assertions.assertTrue(body.getBoolean("auto_delete"));
+    }
+
+    @Test
+    void processDocumentUrlWithTemplateAsyncTest() throws IOException, ExecutionException, InterruptedException {
+        InputStream fileStream = ClassLoader.getSystemResourceAsStream("documents/processDocument.json");
+        assert fileStream != null;
+        String result = new String(fileStream.readAllBytes());
+        HttpResponse<String> httpResponse = mock(HttpResponse.class);
+        CompletableFuture<HttpResponse<String>> jsonResponseFuture = CompletableFuture.completedFuture(httpResponse);
+        when(httpClient.sendAsync(any(HttpRequest.class), ArgumentMatchers.<HttpResponse.BodyHandler<String>>any())).thenReturn(jsonResponseFuture);
+        when(httpResponse.body()).thenReturn(result);
+        RequestTemplate template = RequestTemplate.builder().maxPagesToProcess(1).build();
+        String jsonResponse = client.processDocumentUrlAsync("https://cdn.example.com/receipt.jpg", null, template, null).get();
+        JSONObject document = new JSONObject(jsonResponse);
+        Assertions.assertEquals("Walgreens", document.getJSONObject("vendor").getString("name"));
+    }
+
+    @Test
+    void templateIsImmutableTest() {
+        RequestTemplate.Builder builder = RequestTemplate.builder().boostMode(false);
+        RequestTemplate template = builder.build();
+        builder.boostMode(true).parameter("tags", Arrays.asList("a", "b"));
+        JSONObject copy = template.toJsonObject();
+        copy.put("boost_mode", true);
+        Assertions.assertFalse(template.toJsonObject().getBoolean("boost_mode"));
+        Assertions.assertEquals(1, template.keys().size());
+    }
+
+    private void mockSend() throws IOException, InterruptedException {
+        InputStream fileStream = ClassLoader.getSystemResourceAsStream("documents/processDocument.json");
+        assert fileStream != null;
+        String result = new String(fileStream.readAllBytes());
+        HttpResponse<String> httpResponse = mock(HttpResponse.class);
+        when(httpClient.send(any(HttpRequest.class), ArgumentMatchers.<HttpResponse.BodyHandler<String>>any())).thenReturn(httpResponse);
+        when(httpResponse.statusCode()).thenReturn(200);
+        when(httpResponse.body()).thenReturn(result);
+    }
+
+    private String captureBody() throws IOException, InterruptedException {
+        ArgumentCaptor<HttpRequest> captor = ArgumentCaptor.forClass(HttpRequest.class);
+        verify(httpClient).send(captor.capture(), ArgumentMatchers.<HttpResponse.BodyHandler<String>>any());
+        return FileHelper.getRequestBody(captor.getValue());
+    }
+
+    private String getFilePath() {
+        return FileHelper.getFilePath("documents/receipt.jpeg");
+    }
+
+    private String getFileName() {
+        return FileHelper.getFileName("documents/receipt.jpeg");
+    }
+
+    private String getFileData() {
+        return FileHelper.getFileData("documents/receipt.jpeg");
+    }
+
+}
@@ -0,0 +1,214 @@
+import org.json.JSONObject;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import veryfi.VeryfiClientFactory;
+import veryfi.cache.ResponseCache;
+import veryfi.enums.Endpoint;
+import veryfi.services.ClientImpl;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ResponseCacheTests {
+    String clientId = "your_client_id";
+    String clientSecret = "your_client_secret";
+    String username = "your_username";
+    String apiKey = "your_password";
+    int apiVersion = 8;
+    HttpClient httpClient;
+    ClientImpl client;
+    ResponseCache cache;
+    AtomicInteger requests;
+    String responseBody;
+
+    @BeforeEach
+    void setup() throws IOException, InterruptedException {
+        httpClient = mock(HttpClient.class);
+        client = (ClientImpl) VeryfiClientFactory.createClient(clientId, clientSecret, username, apiKey, apiVersion, httpClient);
+        cache = new ResponseCache(1024 * 1024);
+        client.setResponseCache(cache);
+        requests = new AtomicInteger();
+        responseBody = "{\"id\": 42, \"total\": 10.5}";
+        when(httpClient.send(any(HttpRequest.class), ArgumentMatchers.<HttpResponse.BodyHandler<String>>any())).thenAnswer(invocation -> respond());
+        when(httpClient.sendAsync(any(HttpRequest.class), ArgumentMatchers.<HttpResponse.BodyHandler<String>>any()))
+                .thenAnswer(invocation -> CompletableFuture.completedFuture(respond()));
+    }
+
+    @Test
+    void getDocumentCachedTest() {
+        client.getDocument("42");
+        client.getDocument("42");
+        client.getDocumentAsync("42").join();
+        Assertions.assertEquals(1, requests.get());
+        Assertions.assertEquals(2, cache.getHitCount());
+        Assertions.assertEquals(1, cache.getMissCount());
+        Assertions.assertEquals(2.0 / 3, cache.getHitRatio(), 1e-9);
+    }
+
+    @Test
+    void mutationsInvalidateResourceTest() throws Exception {
+        client.getDocument("42");
+        client.getLineItems("42");
+        client.getDocument("7");
+        client.addTags("42", List.of("audited"));
+        client.getDocument("42");
+        client.getLineItems("42");
+        client.getDocument("7");
+        Assertions.assertEquals(6, requests.get());
+
+        client.deleteLineItemsAsync("42").join();
+        client.getLineItems("42");
+        Assertions.assertEquals(8, requests.get());
+    }
+
+    @Test
+    void listQueriesCachedPerParametersTest() {
+        client.getDocuments(1, 50, false, false, null);
+        client.getDocuments(2, 50, false, false, null);
+        client.getDocuments(1, 50, false, false, null);
+        Assertions.assertEquals(2, requests.get());
+        client.updateDocument("42", new JSONObject().put("notes", "x"));
+        client.getDocuments(1, 50, false, false, null);
+        Assertions.assertEquals(4, requests.get());
+    }
+
+    @Test
+    void ttlPerEndpointTest() {
+        cache.setTtl(Endpoint.w2s, Duration.ZERO);
+        client.getW2("1");
+        client.getW2("1");
+        client.getContract("1");
+        client.getContract("1");
+        Assertions.assertEquals(3, requests.get());
+    }
+
+    @Test
+    void failedResponsesNotCachedTest() {
+        responseBody = "{\"status\": \"fail\", \"message\": \"Not Authorized\"}";
+        client.getDocument("42");
+        client.getDocument("42");
+        Assertions.assertEquals(2, requests.get());
+        Assertions.assertEquals(0, cache.size());
+    }
+
+    @Test
+    void putAfterInvalidationIgnoredTest() {
+        long generation = cache.generation("/partner/documents/42/");
+        cache.invalidate("/partner/documents/42/tags/");
+        cache.put("/partner/documents/42/", "", "{}", generation);
+        Assertions.assertNull(cache.get("/partner/documents/42/", ""));
+        cache.put("/partner/documents/42/", "", "{}", cache.generation("/partner/documents/42/"));
+        Assertions.assertEquals("{}", cache.get("/partner/documents/42/", ""));
+    }
+
+    @Test
+    void frequentEntriesSurviveScanTest() {
+        ResponseCache small = new ResponseCache(64 * 1024, 1);
+        String body = "x".repeat(1000);
+        for (int i = 0; i < 20; i++) {
+            small.put("/partner/documents/" + i + "/", "", body, 0);
+        }
+        for (int round = 0; round < 10; round++) {
+            for (int i = 0; i < 20; i++) {
+                Assertions.assertNotNull(small.get("/partner/documents/" + i + "/", ""));
+            }
+        }
+        for (int i = 1000; i < 3000; i++) {
+            String path = "/partner/documents/" + i + "/";
+            small.get(path, "");
+            small.put(path, "", body, 0);
+        }
+        int survivors = 0;
+        for (int i = 0; i < 20; i++) {
+            if (small.get("/partner/documents/" + i + "/", "") != null)
+                survivors++;
+        }
+        Assertions.assertEquals(20, survivors);
+        Assertions.assertTrue(small.getWeightedSize() <= 64 * 1024);
+        Assertions.assertTrue(small.getEvictionCount() > 0);
+        Assertions.assertTrue(small.getEvictedBytes() > 0);
+    }
+
+    @Test
+    void concurrentAccessScalesTest() throws Exception {
+        int threads = Math.max(2, Math.min(8, Runtime.getRuntime().availableProcessors()));
+        int operations = 200_000;
+        // Warm up, then time the same workload per thread on one thread and on all of them.
+        run(new ResponseCache(256 * 1024, 8), threads, operations);
+        ResponseCache single = new ResponseCache(256 * 1024, 8);
+        double singleRate = run(single, 1, operations);
+        ResponseCache shared = new ResponseCache(256 * 1024, 8);
+        double sharedRate = run(shared, threads, operations);
+
+        for (ResponseCache cache : List.of(single, shared)) {
+            Assertions.assertTrue(cache.getWeightedSize() <= 256 * 1024);
+            Assertions.assertTrue(cache.getHitRatio() > 0.5);
+            Assertions.assertTrue(cache.size() > 0);
+        }
+        Logger.getLogger("ResponseCacheTests").info(String.format("1 thread: %.0f ops/s, %d threads: %.0f ops/s (%.1fx)",
+                singleRate, threads, sharedRate, sharedRate / singleRate));
+    }
+
+    /**
+     * Runs gets, puts on misses and a few invalidations from every thread.
+     *
+     * @return the operations per second of all the threads.
+     */
+    private static double run(ResponseCache cache, int threads, int operations) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < operations; i++) {
+                        String path = "/partner/documents/" + random.nextInt(2000) + "/";
+                        if (random.nextInt(50) == 0) {
+                            cache.invalidate(path);
+                        } else if (cache.get(path, "") == null) {
+                            cache.put(path, "", "{\"id\": \"" + path + "\"}", cache.generation(path));
+                        }
+                    }
+                    return null;
+                }));
+            }
+            long begin = System.nanoTime();
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            return (double) threads * operations / ((System.nanoTime() - begin) / 1e9);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private HttpResponse<String> respond() {
+        requests.incrementAndGet();
+        HttpResponse<String> httpResponse = mock(HttpResponse.class);
+        when(httpResponse.statusCode()).thenReturn(200);
+        when(httpResponse.body()).thenReturn(responseBody);
+        return httpResponse;
+    }
+}
@@ -0,0 +1,166 @@
+import org.json.JSONObject;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import veryfi.FileSource;
+import veryfi.VeryfiClientFactory;
+import veryfi.image.ImagePreprocessor;
+import veryfi.routing.DocumentRouter;
+import veryfi.routing.RoutedDocument;
+import veryfi.services.ClientImpl;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RoutingTests {
+    String clientId = "your_client_id";
+    String clientSecret = "your_client_secret";
+    String username = "your_username";
+    String apiKey = "your_password";
+    int apiVersion = 8;
+    HttpClient httpClient;
+    ClientImpl client;
+    ImagePreprocessor preprocessor;
+    Map<String, String> classifications;
+    Map<String, String> classifiedData;
+    List<String> extractions;
+    AtomicInteger inFlight;
+    AtomicInteger maxInFlight;
+
+    @BeforeEach
+    void setup() throws IOException, InterruptedException {
+        httpClient = mock(HttpClient.class);
+        client = (ClientImpl) VeryfiClientFactory.createClient(clientId, clientSecret, username, apiKey, apiVersion, httpClient);
+        preprocessor = new ImagePreprocessor();
+        preprocessor.setMinBytes(0);
+        client.setImagePreprocessor(preprocessor);
+        classifications = new ConcurrentHashMap<>();
+        classifiedData = new ConcurrentHashMap<>();
+        extractions = new CopyOnWriteArrayList<>();
+        inFlight = new AtomicInteger();
+        maxInFlight = new AtomicInteger();
+        when(httpClient.sendAsync(any(HttpRequest.class), ArgumentMatchers.<HttpResponse.BodyHandler<String>>any())).thenAnswer(invocation -> {
+            HttpRequest request = invocation.getArgument(0);
+            JSONObject body = new JSONObject(FileHelper.getRequestBody(request));
+            String fileName = body.getString("file_name");
+            String path = request.uri().getPath();
+            String response;
+            if (path.endsWith("/classify/")) {
+                classifiedData.put(fileName, body.getString("file_data"));
+                response = classifications.get(fileName);
+            } else {
+                Assertions.assertEquals(classifiedData.get(fileName), body.getString("file_data"));
+                extractions.add(fileName + " " + path.replaceAll("^.*/partner", ""));
+                response = fileName.startsWith("broken") ? "{\"status\": \"fail\", \"message\": \"Malformed file\"}" : "{\"id\": 1}";
+            }
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            HttpResponse<String> httpResponse = mock(HttpResponse.class);
+            when(httpResponse.statusCode()).thenReturn(200);
+            when(httpResponse.body()).thenReturn(response);
+            return CompletableFuture.supplyAsync(() -> {
+                inFlight.decrementAndGet();
+                return httpResponse;
+            }, CompletableFuture.delayedExecutor(20, TimeUnit.MILLISECONDS));
+        });
+    }
+
+    @Test
+    void routeByTypeAndConfidenceTest() throws InterruptedException {
+        classifications.put("w2_2023.png", classification("w2", 0.95));
+        classifications.put("check.jpg", classification("check", 0.4));
+        classifications.put("receipt.jpg", classification("receipt", 0.99));
+        classifications.put("statement.pdf", classification("bank_statement", 0.85));
+        classifications.put("unknown.pdf", "{\"status\": \"fail\", \"message\": \"Classification failed\"}");
+        classifications.put("broken.png", classification("w2", 0.9));
+        DocumentRouter router = new DocumentRouter(client);
+        router.route("bank_statement", 0.9, (fileName, fileData) -> client.processBankStatementAsync(fileName, fileData, null));
+        List<String> names = List.of("w2_2023.png", "check.jpg", "receipt.jpg", "statement.pdf", "unknown.pdf", "broken.png");
+        Random random = new Random(13);
+        List<FileSource> sources = new CopyOnWriteArrayList<>();
+        for (String name : names) {
+            byte[] content = new byte[5000];
+            random.nextBytes(content);
+            sources.add(FileSource.fromBytes(name, content));
+        }
+
+        List<RoutedDocument> documents = router.processAll(sources, 2);
+
+        Assertions.assertEquals(names.size(), documents.size());
+        Assertions.assertEquals("w2_2023.png", documents.get(0).fileName);
+        Assertions.assertEquals("w2", documents.get(0).route);
+        Assertions.assertEquals(0.95, documents.get(0).confidence);
+        Assertions.assertTrue(documents.get(0).success);
+        Assertions.assertEquals(DocumentRouter.FALLBACK, documents.get(1).route);
+        Assertions.assertEquals("check", documents.get(1).documentType);
+        Assertions.assertEquals(DocumentRouter.FALLBACK, documents.get(2).route);
+        Assertions.assertEquals(DocumentRouter.FALLBACK, documents.get(3).route);
+        Assertions.assertNull(documents.get(4).documentType);
+        Assertions.assertEquals(DocumentRouter.FALLBACK, documents.get(4).route);
+        Assertions.assertFalse(documents.get(5).success);
+        Assertions.assertEquals("Malformed file", documents.get(5).error);
+
+        Assertions.assertTrue(extractions.containsAll(List.of("w2_2023.png /w2s/", "check.jpg /documents/",
+                "receipt.jpg /documents/", "statement.pdf /documents/", "unknown.pdf /documents/", "broken.png /w2s/")));
+        Assertions.assertEquals(names.size(), extractions.size());
+        Assertions.assertEquals(2, router.getRoutedCount());
+        Assertions.assertEquals(4, router.getFallbackCount());
+        // Every image went through the client's preprocessing once for both requests.
+        Assertions.assertEquals(4, preprocessor.getFileCount());
+        Assertions.assertTrue(maxInFlight.get() <= 2);
+    }
+
+    @Test
+    void customFallbackAndThresholdTest() {
+        classifications.put("statement.pdf", classification("bank_statement", 0.85));
+        classifications.put("invoice.pdf", classification("invoice", 0.7));
+        DocumentRouter router = new DocumentRouter(client);
+        router.setMinConfidence(0.8);
+        router.route("invoice", (fileName, fileData) -> client.processAnyDocumentAsync(fileName, fileData, "invoice_blueprint", null));
+        router.setFallback((fileName, fileData) -> client.processContractAsync(fileName, fileData, null));
+
+        RoutedDocument statement = router.process(FileSource.fromBytes("statement.pdf", new byte[100])).join();
+        RoutedDocument invoice = router.process(FileSource.fromBytes("invoice.pdf", new byte[100])).join();
+        router.removeRoute("bank_statement");
+        RoutedDocument removed = router.process(FileSource.fromBytes("statement.pdf", new byte[100])).join();
+
+        Assertions.assertEquals("bank_statement", statement.route);
+        Assertions.assertEquals(DocumentRouter.FALLBACK, invoice.route);
+        Assertions.assertEquals(DocumentRouter.FALLBACK, removed.route);
+        Assertions.assertEquals(List.of("statement.pdf /bank-statements/", "invoice.pdf /contracts/", "statement.pdf /contracts/"), extractions);
+    }
+
+    @Test
+    void encodesOnClientFileExecutorTest() {
+        List<String> encodingThreads = new CopyOnWriteArrayList<>();
+        client.setFileExecutor(runnable -> new Thread(() -> {
+            encodingThreads.add(Thread.currentThread().getName());
+            runnable.run();
+        }, "routing-file-executor").start());
+        classifications.put("w2.png", classification("w2", 0.9));
+
+        RoutedDocument document = new DocumentRouter(client).process(FileSource.fromBytes("w2.png", new byte[100])).join();
+
+        Assertions.assertEquals("w2", document.route);
+        Assertions.assertEquals(List.of("routing-file-executor"), encodingThreads);
+    }
+
+    private static String classification(String type, double score) {
+        return new JSONObject().put("data", new JSONObject().put("document_type",
+                new JSONObject().put("value", type).put("score", score))).toString();
+    }
+}
@@ -0,0 +1,206 @@
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import veryfi.Client;
+import veryfi.VeryfiClientFactory;
+import veryfi.cache.ResponseCache;
+import veryfi.services.ClientImpl;
+import veryfi.split.SplitSet;
+import veryfi.split.SplitTracker;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SplitTrackerTests {
+    String clientId = "your_client_id";
+    String clientSecret = "your_client_secret";
+    String username = "your_username";
+    String apiKey = "your_password";
+    int apiVersion = 8;
+    HttpClient httpClient;
+    Client client;
+    SplitTracker tracker;
+    Map<String, Queue<String>> splitResponses;
+    Map<String, AtomicInteger> documentFetches;
+    Set<String> pollThreads;
+    Set<String> failOnce;
+    Map<String, AtomicInteger> failures;
+
+    @BeforeEach
+    void setup() throws IOException, InterruptedException {
+        httpClient = mock(HttpClient.class);
+        client = VeryfiClientFactory.createClient(clientId, clientSecret, username, apiKey, apiVersion, httpClient);
+        tracker = new SplitTracker(client);
+        tracker.setInitialDelay(Duration.ofMillis(10));
+        tracker.setMaxDelay(Duration.ofMillis(50));
+        tracker.setTimeout(Duration.ofSeconds(20));
+        splitResponses = new ConcurrentHashMap<>();
+        documentFetches = new ConcurrentHashMap<>();
+        pollThreads = ConcurrentHashMap.newKeySet();
+        failOnce = ConcurrentHashMap.newKeySet();
+        failures = new ConcurrentHashMap<>();
+        Pattern splitPath = Pattern.compile(".*/documents-set/(\\w+)/$");
+        Pattern documentPath = Pattern.compile(".*/documents/(\\w+)/$");
+        when(httpClient.sendAsync(any(HttpRequest.class), ArgumentMatchers.<HttpResponse.BodyHandler<String>>any())).thenAnswer(invocation -> {
+            HttpRequest request = invocation.getArgument(0);
+            String path = request.uri().getPath();
+            String body;
+            Matcher split = splitPath.matcher(path);
+            Matcher document = documentPath.matcher(path);
+            if (path.endsWith("/documents-set/")) {
+                body = "{\"data\": {\"id\": 7}}";
+            } else if (split.matches()) {
+                pollThreads.add(Thread.currentThread().getName());
+                Queue<String> responses = splitResponses.get(split.group(1));
+                body = responses.size() > 1 ? responses.poll() : responses.peek();
+            } else if (document.matches()) {
+                String id = document.group(1);
+                documentFetches.computeIfAbsent(id, key -> new AtomicInteger()).incrementAndGet();
+                boolean fail = failOnce.remove(id) || failures.getOrDefault(id, new AtomicInteger()).getAndDecrement() > 0;
+                body = fail ? "{\"status\": \"fail\", \"message\": \"Service unavailable\"}" : "{\"id\": " + id + "}";
+            } else {
+                body = "";
+            }
+            HttpResponse<String> httpResponse = mock(HttpResponse.class);
+            when(httpResponse.statusCode()).thenReturn(200);
+            when(httpResponse.body()).thenReturn(body);
+            return CompletableFuture.completedFuture(httpResponse);
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        tracker.close();
+    }
+
+    @Test
+    void assembleSplitSetTest() {
+        respond("1", split("processing"), split("processing", 10), split("processing", 10), split("processed", 10, 11));
+        respond("2", split("processed", 20));
+
+        CompletableFuture<SplitSet> first = tracker.track("1");
+        CompletableFuture<SplitSet> second = tracker.track("2");
+        SplitSet set = first.join();
+
+        Assertions.assertEquals("1", set.splitId);
+        Assertions.assertEquals("processed", set.status);
+        Assertions.assertEquals(List.of("10", "11"), set.documentIds);
+        Assertions.assertEquals(List.of("{\"id\": 10}", "{\"id\": 11}"), set.documents);
+        Assertions.assertEquals(4, set.polls);
+        Assertions.assertEquals(List.of("20"), second.join().documentIds);
+        Assertions.assertEquals(1, documentFetches.get("10").get());
+        Assertions.assertEquals(1, documentFetches.get("11").get());
+        Assertions.assertEquals(1, pollThreads.size());
+        Assertions.assertTrue(pollThreads.iterator().next().startsWith("veryfi-split-"));
+        Assertions.assertEquals(0, tracker.getTrackedCount());
+    }
+
+    @Test
+    void pollsBypassCachedProcessingSplitTest() throws Exception {
+        ResponseCache cache = new ResponseCache(1024 * 1024);
+        ((ClientImpl) client).setResponseCache(cache);
+        respond("4", split("processing"), split("processing", 40), split("processed", 40, 41));
+
+        SplitSet set = tracker.track("4").get(5, TimeUnit.SECONDS);
+
+        Assertions.assertEquals(List.of("40", "41"), set.documentIds);
+        Assertions.assertEquals(3, set.polls);
+        Assertions.assertEquals(0, cache.getHitCount());
+    }
+
+    @Test
+    void splitAndTrackTest() {
+        respond("7", split("processed", 70, 71, 72));
+        SplitSet set = tracker.splitAndTrack(getClass().getClassLoader().getResource("split/split.pdf").getPath(), null).join();
+        Assertions.assertEquals("7", set.splitId);
+        Assertions.assertEquals(3, set.documents.size());
+    }
+
+    @Test
+    void failedFetchRetriedTest() {
+        failOnce.add("30");
+        respond("3", split("processed", 30, 31));
+        SplitSet set = tracker.track("3").join();
+        Assertions.assertEquals(List.of("{\"id\": 30}", "{\"id\": 31}"), set.documents);
+        Assertions.assertEquals(2, documentFetches.get("30").get());
+        Assertions.assertEquals(1, documentFetches.get("31").get());
+        Assertions.assertEquals(2, set.polls);
+    }
+
+    @Test
+    void failedFetchesScheduleOnePollTest() {
+        // Both fetches fail on every poll and ask for the next poll, as does the poll itself.
+        failures.put("50", new AtomicInteger(Integer.MAX_VALUE));
+        failures.put("51", new AtomicInteger(Integer.MAX_VALUE));
+        respond("5", split("processed", 50, 51));
+        tracker.setBackoffMultiplier(1);
+        tracker.setTimeout(Duration.ofSeconds(1));
+        CompletionException e = Assertions.assertThrows(CompletionException.class, () -> tracker.track("5").join());
+        Assertions.assertTrue(e.getCause() instanceof TimeoutException);
+        // A single chain polls every 10 ms, at most 100 times, duplicate chains would triple every round.
+        long polls = tracker.getPollCount();
+        Assertions.assertTrue(polls >= 2 && polls <= 102, "polls: " + polls);
+        Assertions.assertEquals(2 * polls, tracker.getFetchCount());
+    }
+
+    @Test
+    void backoffAndTimeoutTest() {
+        respond("4", split("processing"));
+        tracker.setBackoffMultiplier(2);
+        tracker.setMaxDelay(Duration.ofMillis(80));
+        tracker.setTimeout(Duration.ofMillis(500));
+        CompletionException e = Assertions.assertThrows(CompletionException.class, () -> tracker.track("4").join());
+        Assertions.assertTrue(e.getCause() instanceof TimeoutException);
+        // 10, 20, 40 then 80 ms apart, where a fixed 10 ms rate would poll about 50 times.
+        Assertions.assertTrue(tracker.getPollCount() >= 4 && tracker.getPollCount() <= 10, "polls: " + tracker.getPollCount());
+    }
+
+    @Test
+    void manySplitsShareOneThreadTest() {
+        List<CompletableFuture<SplitSet>> futures = new ArrayList<>();
+        for (int i = 100; i < 150; i++) {
+            respond(String.valueOf(i), split("processing"), split("processed", i * 10, i * 10 + 1));
+            futures.add(tracker.track(String.valueOf(i)));
+        }
+        for (CompletableFuture<SplitSet> future : futures) {
+            Assertions.assertEquals(2, future.join().documents.size());
+        }
+        Assertions.assertEquals(1, pollThreads.size());
+        Assertions.assertEquals(100, tracker.getFetchCount());
+    }
+
+    private void respond(String splitId, String... responses) {
+        splitResponses.put(splitId, new ConcurrentLinkedQueue<>(List.of(responses)));
+    }
+
+    private static String split(String status, int... documentIds) {
+        StringBuilder ids = new StringBuilder();
+        for (int id : documentIds) {
+            ids.append(ids.length() == 0 ? "" : ", ").append(id);
+        }
+        return "{\"data\": {\"id\": 1, \"documents_id\": [" + ids + "], \"status\": \"" + status + "\"}}";
+    }
+}
@@ -0,0 +1,251 @@
+import org.json.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentMatchers;
+import veryfi.Client;
+import veryfi.FileSource;
+import veryfi.VeryfiClientFactory;
+import veryfi.cache.ResponseCache;
+import veryfi.pending.DocumentKind;
+import veryfi.pending.PendingHandle;
+import veryfi.pending.PendingStore;
+import veryfi.pending.StatusPoller;
+import veryfi.services.ClientImpl;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class StatusPollerTests {
+    String clientId = "your_client_id";
+    String clientSecret = "your_client_secret";
+    String username = "your_username";
+    String apiKey = "your_password";
+    int apiVersion = 8;
+    HttpClient httpClient;
+    Client client;
+    StatusPoller poller;
+    Map<String, AtomicInteger> pollsUntilProcessed;
+    Map<String, AtomicInteger> polls;
+    Set<String> pollThreads;
+    List<JSONObject> submissions;
+    AtomicInteger nextId;
+
+    @TempDir
+    Path directory;
+
+    @BeforeEach
+    void setup() throws IOException, InterruptedException {
+        httpClient = mock(HttpClient.class);
+        client = VeryfiClientFactory.createClient(clientId, clientSecret, username, apiKey, apiVersion, httpClient);
+        pollsUntilProcessed = new ConcurrentHashMap<>();
+        polls = new ConcurrentHashMap<>();
+        pollThreads = ConcurrentHashMap.newKeySet();
+        submissions = new ArrayList<>();
+        nextId = new AtomicInteger(100);
+        when(httpClient.send(any(HttpRequest.class), ArgumentMatchers.<HttpResponse.BodyHandler<String>>any())).thenAnswer(invocation -> {
+            HttpRequest request = invocation.getArgument(0);
+            submissions.add(new JSONObject(FileHelper.getRequestBody(request)));
+            return response("{\"id\": " + nextId.incrementAndGet() + ", \"status\": \"in_progress\"}");
+        });
+        Pattern documentPath = Pattern.compile(".*/partner(/[\\w-]+/)(\\w+)/$");
+        when(httpClient.sendAsync(any(HttpRequest.class), ArgumentMatchers.<HttpResponse.BodyHandler<String>>any())).thenAnswer(invocation -> {
+            HttpRequest request = invocation.getArgument(0);
+            pollThreads.add(Thread.currentThread().getName());
+            Matcher document = documentPath.matcher(request.uri().getPath());
+            Assertions.assertTrue(document.matches());
+            String key = document.group(1) + document.group(2);
+            int count = polls.computeIfAbsent(key, k -> new AtomicInteger()).incrementAndGet();
+            AtomicInteger until = pollsUntilProcessed.get(key);
+            String status = until != null && count >= until.get() ? "processed" : "in_progress";
+            return CompletableFuture.completedFuture(response("{\"id\": " + document.group(2) + ", \"status\": \"" + status + "\"}"));
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (poller != null)
+            poller.close();
+    }
+
+    @Test
+    void submitAndPollTest() {
+        poller = poller(null);
+        poller.setInitialDelay(Duration.ofMillis(100));
+        Map<String, String> processed = new ConcurrentHashMap<>();
+        poller.setListener((handle, document) -> processed.put(handle.key(), document));
+        pollsUntilProcessed.put("/documents/101", new AtomicInteger(3));
+        pollsUntilProcessed.put("/w2s/102", new AtomicInteger(1));
+        pollsUntilProcessed.put("/bank-statements/103", new AtomicInteger(4));
+
+        PendingHandle receipt = poller.submit(DocumentKind.DOCUMENT, FileSource.fromBytes("receipt.jpg", new byte[10]),
+                new JSONObject().put("external_id", "order-1"));
+        PendingHandle w2 = poller.submit(DocumentKind.W2, FileSource.fromBytes("w2.png", new byte[10]), null);
+        PendingHandle statement = poller.submit(DocumentKind.BANK_STATEMENT, FileSource.fromBytes("statement.pdf", new byte[10]), null);
+
+        Assertions.assertEquals("101", receipt.documentId);
+        Assertions.assertEquals("order-1", receipt.externalId);
+        Assertions.assertEquals(DocumentKind.W2, w2.kind);
+        for (JSONObject submission : submissions) {
+            Assertions.assertTrue(submission.getBoolean("async"));
+        }
+        Assertions.assertEquals("{\"id\": 101, \"status\": \"processed\"}", poller.resultOf(receipt).join());
+        poller.resultOf(statement).join();
+        Assertions.assertEquals("{\"id\": 102, \"status\": \"processed\"}", processed.get(w2.key()));
+        Assertions.assertEquals("{\"id\": 103, \"status\": \"processed\"}", processed.get(statement.key()));
+        Assertions.assertNull(poller.resultOf(w2));
+        Assertions.assertEquals(3, polls.get("/documents/101").get());
+        Assertions.assertEquals(1, polls.get("/w2s/102").get());
+        Assertions.assertEquals(8, poller.getPollCount());
+        Assertions.assertEquals(1, pollThreads.size());
+        Assertions.assertTrue(pollThreads.iterator().next().startsWith("veryfi-poller-"));
+        Assertions.assertEquals(0, poller.getPendingCount());
+        Assertions.assertSame(poller.track(receipt), poller.track(receipt));
+    }
+
+    @Test
+    void pollsBypassCachedPendingDocumentsTest() throws Exception {
+        ResponseCache cache = new ResponseCache(1024 * 1024);
+        ((ClientImpl) client).setResponseCache(cache);
+        poller = poller(null);
+        pollsUntilProcessed.put("/documents/7", new AtomicInteger(4));
+
+        String document = poller.track(new PendingHandle(DocumentKind.DOCUMENT, "7", null, Instant.now())).get(5, TimeUnit.SECONDS);
+
+        Assertions.assertEquals("{\"id\": 7, \"status\": \"processed\"}", document);
+        Assertions.assertEquals(4, polls.get("/documents/7").get());
+        Assertions.assertEquals(0, cache.getHitCount());
+        Assertions.assertEquals(document, client.getDocument("7"));
+        Assertions.assertEquals(1, cache.getHitCount());
+    }
+
+    @Test
+    void thousandsOfHandlesTest() {
+        poller = poller(null);
+        poller.setMaxPollsPerTick(200);
+        List<CompletableFuture<String>> futures = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            DocumentKind kind = DocumentKind.values()[i % DocumentKind.values().length];
+            PendingHandle handle = new PendingHandle(kind, String.valueOf(i), null, Instant.now());
+            pollsUntilProcessed.put(path(kind) + i, new AtomicInteger(1 + i % 3));
+            futures.add(poller.track(handle));
+        }
+        for (CompletableFuture<String> future : futures) {
+            Assertions.assertTrue(future.join().contains("processed"));
+        }
+        Assertions.assertEquals(6000, poller.getPollCount());
+        Assertions.assertEquals(3000, poller.getCompletedCount());
+        Assertions.assertEquals(1, pollThreads.size());
+    }
+
+    @Test
+    void resumeAfterRestartTest() throws IOException {
+        PendingStore store = new PendingStore(directory.resolve("pending.json"));
+        poller = poller(store);
+        PendingHandle first = poller.submit(DocumentKind.CHECK, FileSource.fromBytes("check.jpg", new byte[10]),
+                new JSONObject().put("external_id", "check-1"));
+        PendingHandle second = poller.submit(DocumentKind.CONTRACT, FileSource.fromBytes("contract.pdf", new byte[10]), null);
+        CompletableFuture<String> abandoned = poller.resultOf(first);
+        poller.close();
+        Assertions.assertThrows(CancellationException.class, abandoned::join);
+        List<PendingHandle> saved = store.load();
+        Assertions.assertEquals(2, saved.size());
+
+        pollsUntilProcessed.put("/checks/101", new AtomicInteger(0));
+        pollsUntilProcessed.put("/contracts/102", new AtomicInteger(0));
+        poller = poller(store);
+        Map<PendingHandle, CompletableFuture<String>> resumed = poller.resume();
+        Assertions.assertEquals(2, resumed.size());
+        for (Map.Entry<PendingHandle, CompletableFuture<String>> entry : resumed.entrySet()) {
+            Assertions.assertTrue(entry.getValue().join().contains("processed"));
+        }
+        Map<String, PendingHandle> byKey = new ConcurrentHashMap<>();
+        resumed.keySet().forEach(handle -> byKey.put(handle.key(), handle));
+        PendingHandle check = byKey.get(first.key());
+        Assertions.assertEquals("check-1", check.externalId);
+        Assertions.assertEquals(first.submittedAt, check.submittedAt);
+        Assertions.assertEquals(DocumentKind.CONTRACT, byKey.get(second.key()).kind);
+        poller.flush();
+        Assertions.assertTrue(store.load().isEmpty());
+    }
+
+    @Test
+    void backoffAndTimeoutTest() {
+        poller = poller(null);
+        poller.setBackoffMultiplier(2);
+        poller.setMaxDelay(Duration.ofMillis(80));
+        poller.setTimeout(Duration.ofMillis(500));
+        CompletableFuture<String> future = poller.track(new PendingHandle(DocumentKind.W9, "9", null, Instant.now()));
+        CompletionException e = Assertions.assertThrows(CompletionException.class, future::join);
+        Assertions.assertTrue(e.getCause() instanceof TimeoutException);
+        // 10, 20, 40 then 80 ms apart, where a fixed 10 ms rate would poll about 50 times.
+        Assertions.assertTrue(poller.getPollCount() >= 4 && poller.getPollCount() <= 10, "polls: " + poller.getPollCount());
+        Assertions.assertEquals(0, poller.getPendingCount());
+    }
+
+    @Test
+    void cancelStopsTrackingTest() throws InterruptedException {
+        poller = poller(null);
+        CompletableFuture<String> future = poller.track(new PendingHandle(DocumentKind.DOCUMENT, "5", null, Instant.now()));
+        Thread.sleep(50);
+        future.cancel(false);
+        long pollsAtCancel = poller.getPollCount();
+        Thread.sleep(100);
+        Assertions.assertTrue(poller.getPollCount() <= pollsAtCancel + 1);
+        Assertions.assertEquals(0, poller.getPendingCount());
+        Assertions.assertThrows(CancellationException.class, future::join);
+    }
+
+    private StatusPoller poller(PendingStore store) {
+        StatusPoller poller = new StatusPoller(client, store, Duration.ofMillis(5));
+        poller.setInitialDelay(Duration.ofMillis(10));
+        poller.setMaxDelay(Duration.ofMillis(20));
+        poller.setFlushInterval(Duration.ofMillis(10));
+        return poller;
+    }
+
+    private static String path(DocumentKind kind) {
+        switch (kind) {
+            case DOCUMENT: return "/documents/";
+            case ANY_DOCUMENT: return "/any-documents/";
+            case BANK_STATEMENT: return "/bank-statements/";
+            case BUSINESS_CARD: return "/business-cards/";
+            case CHECK: return "/checks/";
+            case W2: return "/w2s/";
+            case W8BENE: return "/w-8ben-e/";
+            case W9: return "/w9s/";
+            default: return "/contracts/";
+        }
+    }
+
+    private static HttpResponse<String> response(String body) {
+        HttpResponse<String> httpResponse = mock(HttpResponse.class);
+        when(httpResponse.statusCode()).thenReturn(200);
+        when(httpResponse.body()).thenReturn(body);
+        return httpResponse;
+    }
+}
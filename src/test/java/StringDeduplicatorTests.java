@@ -0,0 +1,131 @@
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import veryfi.Constants;
+import veryfi.export.ParallelPageExporter;
+import veryfi.intern.StringDeduplicator;
+import veryfi.pagination.PageFetcher;
+import veryfi.pagination.Pages;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+class StringDeduplicatorTests {
+
+    @Test
+    void decodesLikeJsonObjectTest() throws IOException {
+        InputStream fileStream = ClassLoader.getSystemResourceAsStream("documents/getDocuments.json");
+        assert fileStream != null;
+        String page = new String(fileStream.readAllBytes());
+        StringDeduplicator deduplicator = new StringDeduplicator();
+
+        Assertions.assertTrue(new JSONObject(page).similar(deduplicator.parseObject(page)));
+        String escaped = "{\"a\": \"caf\\u00e9 \\\"quoted\\\"\\n\\t\\/ \\\\\", 'b': 'single', \"c\": [\"x\", \"\"]}";
+        Assertions.assertTrue(new JSONObject(escaped).similar(deduplicator.parseObject(escaped)));
+        Assertions.assertEquals("café \"quoted\"\n\t/ \\", deduplicator.parseObject(escaped).getString("a"));
+        Assertions.assertTrue(new JSONArray("[1, \"x\", {\"y\": null}]").similar(deduplicator.parseArray("[1, \"x\", {\"y\": null}]")));
+        Assertions.assertThrows(JSONException.class, () -> deduplicator.parseObject("{\"a\": \"unterminated}"));
+        Assertions.assertThrows(JSONException.class, () -> deduplicator.parseObject("{\"a\": \"\\q\"}"));
+    }
+
+    @Test
+    void sharesRepeatedStringsTest() {
+        StringDeduplicator deduplicator = new StringDeduplicator(1024, 16);
+        deduplicator.preload(Constants.LIST_CATEGORIES);
+        String longNote = "a note longer than sixteen characters";
+        JSONArray documents = deduplicator.parseArray(new JSONArray()
+                .put(document(1, "Acme", "Travel", longNote))
+                .put(document(2, "Acme", "Travel", longNote)).toString());
+        JSONObject first = documents.getJSONObject(0);
+        JSONObject second = documents.getJSONObject(1);
+
+        Assertions.assertSame(first.getJSONObject("vendor").getString("name"), second.getJSONObject("vendor").getString("name"));
+        Assertions.assertSame(Constants.LIST_CATEGORIES.get(8), first.getString("category"));
+        Assertions.assertSame(first.getString("currency_code"), second.getString("currency_code"));
+        Assertions.assertNotSame(first.getString("notes"), second.getString("notes"));
+        Assertions.assertEquals(first.getString("notes"), second.getString("notes"));
+        // The keys of the second document, its vendor, category and currency come from the dictionary.
+        Assertions.assertTrue(deduplicator.getHitCount() >= 12, deduplicator.toString());
+    }
+
+    @Test
+    void concurrentDecodingTest() throws Exception {
+        // A tiny table, the threads keep replacing each other's strings.
+        StringDeduplicator deduplicator = new StringDeduplicator(8, 64);
+        String page = page(1, 50);
+        JSONObject expected = new JSONObject(page);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<JSONObject>> futures = new ArrayList<>();
+            for (int i = 0; i < 400; i++) {
+                futures.add(executor.submit(() -> deduplicator.parseObject(page)));
+            }
+            for (Future<JSONObject> future : futures) {
+                Assertions.assertTrue(expected.similar(future.get()));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void retainedHeapTest() throws Exception {
+        int pages = 400;
+        PageFetcher fetcher = page -> CompletableFuture.completedFuture(page(page, pages));
+        // Warm up both decoders before measuring.
+        Pages.stream(fetcher, 50, 2).limit(2000).count();
+        Pages.stream(fetcher, 50, 2, new StringDeduplicator()).limit(2000).count();
+
+        long before = usedHeap();
+        List<JSONObject> plain = Pages.stream(fetcher, 50, 4).collect(Collectors.toList());
+        long plainBytes = usedHeap() - before;
+        plain.clear();
+
+        StringDeduplicator deduplicator = new StringDeduplicator();
+        before = usedHeap();
+        List<JSONObject> deduplicated = new ArrayList<>();
+        ParallelPageExporter exporter = new ParallelPageExporter(fetcher, 50, 4);
+        exporter.setStringDeduplicator(deduplicator);
+        exporter.export((page, records) -> records.forEach(record -> deduplicated.add((JSONObject) record)));
+        long deduplicatedBytes = usedHeap() - before;
+
+        Assertions.assertEquals(pages * 50, deduplicated.size());
+        Assertions.assertTrue(deduplicatedBytes < plainBytes, deduplicatedBytes + " >= " + plainBytes);
+        Logger.getLogger("StringDeduplicatorTests").info(String.format("%d documents retained: %d KiB decoded plainly, "
+                + "%d KiB with the dictionary (%.0f%%), %s",
+                deduplicated.size(), plainBytes / 1024, deduplicatedBytes / 1024, 100.0 * deduplicatedBytes / plainBytes,
+                deduplicator));
+    }
+
+    private static String page(int page, int totalPages) {
+        JSONArray documents = new JSONArray();
+        for (int i = 0; i < 50; i++) {
+            int id = (page - 1) * 50 + i;
+            documents.put(document(id, "Vendor " + (id % 200), Constants.LIST_CATEGORIES.get(id % 15), "note " + id));
+        }
+        return new JSONObject().put("documents", documents)
+                .put("meta", new JSONObject().put("total_pages", totalPages)).toString();
+    }
+
+    private static JSONObject document(int id, String vendor, String category, String notes) {
+        return new JSONObject().put("id", id).put("vendor", new JSONObject().put("name", vendor))
+                .put("category", category).put("currency_code", id % 3 == 0 ? "EUR" : "USD")
+                .put("document_type", id % 2 == 0 ? "receipt" : "invoice").put("total", id * 1.5).put("notes", notes);
+    }
+
+    private static long usedHeap() {
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
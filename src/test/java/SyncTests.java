@@ -0,0 +1,175 @@
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import veryfi.sync.IncrementalSync;
+import veryfi.sync.ListFetcher;
+import veryfi.sync.SyncResult;
+import veryfi.sync.SyncSink;
+import veryfi.sync.WatermarkStore;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+class SyncTests {
+
+    @TempDir
+    Path tempDir;
+    List<JSONObject> remote;
+    List<JSONObject> requestedFilters;
+    Map<String, JSONObject> mirror;
+    WatermarkStore store;
+
+    @BeforeEach
+    void setup() {
+        remote = new ArrayList<>();
+        requestedFilters = new ArrayList<>();
+        mirror = new LinkedHashMap<>();
+        store = new WatermarkStore(tempDir.resolve("documents.watermark"));
+    }
+
+    @Test
+    void syncOnlyFetchesChangesTest() throws Exception {
+        remote.add(document(1, "2024-01-01 10:00:00"));
+        remote.add(document(2, "2024-01-02 10:00:00"));
+        remote.add(document(3, "2024-01-02 10:00:00"));
+        IncrementalSync sync = new IncrementalSync(fetcher(), 2, store);
+
+        SyncResult first = sync.sync(sink());
+        Assertions.assertEquals(3, first.upserts);
+        Assertions.assertEquals("2024-01-02 10:00:00", store.load().getValue());
+        Assertions.assertEquals(Set.of("2", "3"), store.load().getBoundaryIds());
+        Assertions.assertFalse(requestedFilters.get(0).has("updated_date__gte"));
+
+        remote.add(document(4, "2024-01-02 10:00:00"));
+        remote.set(0, document(1, "2024-01-03 08:00:00").put("total", 42));
+        SyncResult second = sync.sync(sink());
+        Assertions.assertEquals(2, second.upserts);
+        Assertions.assertEquals(2, second.skipped);
+        Assertions.assertEquals("2024-01-02 10:00:00", requestedFilters.get(requestedFilters.size() - 1).getString("updated_date__gte"));
+        Assertions.assertEquals(42, mirror.get("1").getInt("total"));
+        Assertions.assertEquals(4, mirror.size());
+        Assertions.assertEquals("2024-01-03 08:00:00", second.watermark.getValue());
+        Assertions.assertEquals(Set.of("1"), second.watermark.getBoundaryIds());
+
+        SyncResult third = sync.sync(sink());
+        Assertions.assertEquals(0, third.upserts);
+        Assertions.assertEquals(1, third.skipped);
+    }
+
+    @Test
+    void syncAppliesDeletesTest() throws Exception {
+        remote.add(document(1, "2024-01-01 10:00:00"));
+        remote.add(document(2, "2024-01-01 11:00:00"));
+        IncrementalSync sync = new IncrementalSync(fetcher(), 50, store);
+        sync.setDeleted(document -> document.optBoolean("deleted"));
+        sync.sync(sink());
+
+        remote.set(1, document(2, "2024-01-05 09:00:00").put("deleted", true));
+        SyncResult result = sync.sync(sink());
+        Assertions.assertEquals(1, result.deletes);
+        Assertions.assertEquals(Set.of("1"), mirror.keySet());
+    }
+
+    @Test
+    void syncKeepsWatermarkWhenSinkFailsTest() throws Exception {
+        remote.add(document(1, "2024-01-01 10:00:00"));
+        IncrementalSync sync = new IncrementalSync(fetcher(), 50, store);
+        sync.setField("created_date");
+        sync.setParameters(new JSONObject().put("tag", "warehouse"));
+        SyncSink failing = new SyncSink() {
+            @Override
+            public void upsert(JSONObject document) {
+            }
+
+            @Override
+            public void delete(String documentId) {
+            }
+
+            @Override
+            public void flush() throws IOException {
+                throw new IOException("disk full");
+            }
+        };
+        Assertions.assertThrows(IOException.class, () -> sync.sync(failing));
+        Assertions.assertNull(store.load());
+        Assertions.assertEquals("warehouse", requestedFilters.get(0).getString("tag"));
+    }
+
+    @Test
+    void syncKeepsWatermarkWhenPageFailsTest() throws Exception {
+        for (int id = 1; id <= 5; id++) {
+            remote.add(document(id, "2024-01-0" + id + " 10:00:00"));
+        }
+        ListFetcher listing = fetcher();
+        ListFetcher failing = (page, parameters) -> page == 2
+                ? CompletableFuture.completedFuture("{\"status\": \"fail\", \"message\": \"Too many requests\"}")
+                : listing.fetch(page, parameters);
+        List<String> flushed = new ArrayList<>();
+        SyncSink sink = new SyncSink() {
+            @Override
+            public void upsert(JSONObject document) {
+                mirror.put(String.valueOf(document.get("id")), document);
+            }
+
+            @Override
+            public void delete(String documentId) {
+            }
+
+            @Override
+            public void flush() {
+                flushed.add("flush");
+            }
+        };
+        IOException e = Assertions.assertThrows(IOException.class, () -> new IncrementalSync(failing, 2, store).sync(sink));
+        Assertions.assertTrue(e.getMessage().contains("Too many requests"), e.getMessage());
+        Assertions.assertEquals(Set.of("1", "2"), mirror.keySet());
+        Assertions.assertTrue(flushed.isEmpty());
+        Assertions.assertNull(store.load());
+    }
+
+    private ListFetcher fetcher() {
+        return (page, parameters) -> {
+            requestedFilters.add(parameters);
+            String field = parameters.has("created_date__gte") ? "created_date" : "updated_date";
+            String since = parameters.optString(field + "__gte", "");
+            List<JSONObject> matching = remote.stream()
+                    .filter(document -> document.getString(field).compareTo(since) >= 0)
+                    .collect(Collectors.toList());
+            int pageSize = 2;
+            JSONArray records = new JSONArray();
+            for (int i = (page - 1) * pageSize; i < Math.min(matching.size(), page * pageSize); i++) {
+                records.put(matching.get(i));
+            }
+            JSONObject meta = new JSONObject().put("total_pages", (matching.size() + pageSize - 1) / pageSize);
+            return CompletableFuture.completedFuture(new JSONObject().put("documents", records).put("meta", meta).toString());
+        };
+    }
+
+    private SyncSink sink() {
+        return new SyncSink() {
+            @Override
+            public void upsert(JSONObject document) {
+                mirror.put(String.valueOf(document.get("id")), document);
+            }
+
+            @Override
+            public void delete(String documentId) {
+                mirror.remove(documentId);
+            }
+        };
+    }
+
+    private static JSONObject document(int id, String updatedDate) {
+        return new JSONObject().put("id", id).put("created_date", updatedDate).put("updated_date", updatedDate);
+    }
+}
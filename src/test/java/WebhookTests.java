@@ -0,0 +1,246 @@
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import veryfi.Client;
+import veryfi.VeryfiClientFactory;
+import veryfi.cache.ResponseCache;
+import veryfi.pending.DocumentKind;
+import veryfi.pending.PendingHandle;
+import veryfi.pending.StatusPoller;
+import veryfi.services.ClientImpl;
+import veryfi.webhook.WebhookReceiver;
+
+import javax.net.ssl.SSLSession;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+class WebhookTests {
+    String clientId = "your_client_id";
+    String clientSecret = "your_client_secret";
+    String username = "your_username";
+    String apiKey = "your_password";
+    int apiVersion = 8;
+    HttpClient httpClient;
+    Client client;
+    StatusPoller poller;
+    WebhookReceiver receiver;
+    Set<String> processed;
+
+    @BeforeEach
+    void setup() throws IOException, InterruptedException {
+        // Stub only, the load test makes thousands of calls that don't need to be recorded.
+        httpClient = mock(HttpClient.class, withSettings().stubOnly());
+        client = VeryfiClientFactory.createClient(clientId, clientSecret, username, apiKey, apiVersion, httpClient);
+        processed = ConcurrentHashMap.newKeySet();
+        Pattern documentPath = Pattern.compile(".*/(\\w+)/$");
+        when(httpClient.sendAsync(any(HttpRequest.class), ArgumentMatchers.<HttpResponse.BodyHandler<String>>any())).thenAnswer(invocation -> {
+            HttpRequest request = invocation.getArgument(0);
+            Matcher document = documentPath.matcher(request.uri().getPath());
+            Assertions.assertTrue(document.matches());
+            String id = document.group(1);
+            String status = processed.contains(id) ? "processed" : "in_progress";
+            return CompletableFuture.completedFuture(new StubResponse(request, "{\"id\": " + id + ", \"status\": \"" + status + "\"}"));
+        });
+        // Only the webhooks poll, the scheduled polls are a minute away.
+        poller = new StatusPoller(client, null, Duration.ofMillis(10));
+        poller.setInitialDelay(Duration.ofMinutes(1));
+        receiver = new WebhookReceiver(clientSecret, poller);
+    }
+
+    @AfterEach
+    void tearDown() {
+        receiver.close();
+        poller.close();
+    }
+
+    @Test
+    void verifyAndMatchTest() {
+        CompletableFuture<String> byId = poller.track(new PendingHandle(DocumentKind.DOCUMENT, "1", "order-1", Instant.now()));
+        CompletableFuture<String> byExternalId = poller.track(new PendingHandle(DocumentKind.W2, "2", "order-2", Instant.now()));
+        CompletableFuture<String> inProgress = poller.track(new PendingHandle(DocumentKind.CHECK, "3", null, Instant.now()));
+        processed.addAll(List.of("1", "2"));
+
+        byte[] first = new JSONObject().put("event", "document.created")
+                .put("data", new JSONObject().put("id", 1)).toString().getBytes(StandardCharsets.UTF_8);
+        long now = System.currentTimeMillis();
+        String timestamp = String.valueOf(now);
+        Assertions.assertEquals(WebhookReceiver.UNAUTHORIZED, receiver.handle(first, null, timestamp));
+        Assertions.assertEquals(WebhookReceiver.UNAUTHORIZED, receiver.handle(first, receiver.sign("{\"tampered\": 1}".getBytes(StandardCharsets.UTF_8), now), timestamp));
+        Assertions.assertEquals(WebhookReceiver.UNAUTHORIZED, receiver.handle(first, receiver.sign(first, now), String.valueOf(now + 1)));
+        Assertions.assertEquals(WebhookReceiver.UNAUTHORIZED, receiver.handle(first, receiver.sign(first, now), null));
+        // A request captured and replayed later is rejected even with its valid signature.
+        long stale = now - Duration.ofMinutes(6).toMillis();
+        Assertions.assertEquals(WebhookReceiver.UNAUTHORIZED, receiver.handle(first, receiver.sign(first, stale), String.valueOf(stale)));
+        Assertions.assertFalse(byId.isDone());
+        Assertions.assertEquals(WebhookReceiver.OK, receiver.handle(first, receiver.sign(first, now), timestamp));
+        Assertions.assertEquals("{\"id\": 1, \"status\": \"processed\"}", byId.join());
+
+        byte[] second = new JSONObject().put("data", new JSONArray()
+                .put(new JSONObject().put("id", 200).put("external_id", "order-2"))
+                .put(new JSONObject().put("id", 3))
+                .put(new JSONObject().put("id", 99))).toString().getBytes(StandardCharsets.UTF_8);
+        Assertions.assertEquals(WebhookReceiver.OK, receiver.handle(second, receiver.sign(second, now), timestamp));
+        Assertions.assertEquals("{\"id\": 2, \"status\": \"processed\"}", byExternalId.join());
+        // A webhook for a document still in progress leaves it to the scheduled polls.
+        Assertions.assertFalse(inProgress.isDone());
+        Assertions.assertEquals(1, poller.getPendingCount());
+
+        byte[] malformed = "{\"data\": [}".getBytes(StandardCharsets.UTF_8);
+        Assertions.assertEquals(WebhookReceiver.BAD_REQUEST, receiver.handle(malformed, receiver.sign(malformed, now), timestamp));
+        Assertions.assertEquals(WebhookReceiver.BAD_REQUEST, receiver.handle("[]".getBytes(StandardCharsets.UTF_8), null, timestamp));
+        Assertions.assertEquals(9, receiver.getReceivedCount());
+        Assertions.assertEquals(5, receiver.getRejectedCount());
+        Assertions.assertEquals(3, receiver.getMatchedCount());
+        Assertions.assertEquals(1, receiver.getUnmatchedCount());
+    }
+
+    @Test
+    void webhookPollBypassesCachedPendingDocumentTest() {
+        ResponseCache cache = new ResponseCache(1024 * 1024);
+        ((ClientImpl) client).setResponseCache(cache);
+        CompletableFuture<String> future = poller.track(new PendingHandle(DocumentKind.DOCUMENT, "5", null, Instant.now()));
+        byte[] body = new JSONObject().put("data", new JSONObject().put("id", 5)).toString().getBytes(StandardCharsets.UTF_8);
+
+        // The first webhook arrives before the document is processed, its response must not answer the next poll.
+        long now = System.currentTimeMillis();
+        Assertions.assertEquals(WebhookReceiver.OK, receiver.handle(body, receiver.sign(body, now), String.valueOf(now)));
+        Assertions.assertEquals(1, poller.getPollCount());
+        Assertions.assertFalse(future.isDone());
+        processed.add("5");
+        Assertions.assertEquals(WebhookReceiver.OK, receiver.handle(body, receiver.sign(body, now), String.valueOf(now)));
+        Assertions.assertEquals("{\"id\": 5, \"status\": \"processed\"}", future.orTimeout(5, TimeUnit.SECONDS).join());
+        Assertions.assertEquals(0, cache.getHitCount());
+    }
+
+    @Test
+    void serverLoadTest() throws IOException, InterruptedException {
+        int callbacks = 5000;
+        List<CompletableFuture<String>> futures = new ArrayList<>();
+        for (int i = 0; i < callbacks; i++) {
+            String id = String.valueOf(1000 + i);
+            processed.add(id);
+            futures.add(poller.track(new PendingHandle(DocumentKind.values()[i % DocumentKind.values().length], id,
+                    "ext-" + id, Instant.now())));
+        }
+        receiver.setPath("/veryfi/webhook");
+        receiver.setThreads(8);
+        receiver.start(new InetSocketAddress("127.0.0.1", 0));
+        URI uri = URI.create("http://127.0.0.1:" + receiver.getPort() + "/veryfi/webhook");
+        HttpClient sender = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+        Assertions.assertEquals(WebhookReceiver.METHOD_NOT_ALLOWED, sender.send(HttpRequest.newBuilder(uri).GET().build(),
+                HttpResponse.BodyHandlers.discarding()).statusCode());
+        Assertions.assertEquals(WebhookReceiver.UNAUTHORIZED, sender.send(HttpRequest.newBuilder(uri)
+                .POST(HttpRequest.BodyPublishers.ofString("{}")).build(), HttpResponse.BodyHandlers.discarding()).statusCode());
+
+        Semaphore inFlight = new Semaphore(64);
+        Set<Integer> statuses = ConcurrentHashMap.newKeySet();
+        long start = System.nanoTime();
+        for (int i = 0; i < callbacks; i++) {
+            // Half of the callbacks carry the external_id only.
+            JSONObject document = i % 2 == 0 ? new JSONObject().put("id", 1000 + i) : new JSONObject().put("external_id", "ext-" + (1000 + i));
+            byte[] body = new JSONObject().put("event", "document.created").put("data", document).toString().getBytes(StandardCharsets.UTF_8);
+            long now = System.currentTimeMillis();
+            inFlight.acquire();
+            sender.sendAsync(HttpRequest.newBuilder(uri).header("X-Veryfi-Signature", receiver.sign(body, now))
+                    .header("X-Veryfi-Request-Timestamp", String.valueOf(now))
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(body)).build(), HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, e) -> {
+                        statuses.add(e == null ? response.statusCode() : -1);
+                        inFlight.release();
+                    });
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).orTimeout(60, TimeUnit.SECONDS).join();
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        Assertions.assertTrue(inFlight.tryAcquire(64, 10, TimeUnit.SECONDS));
+        Assertions.assertEquals(Set.of(WebhookReceiver.OK), statuses);
+        Assertions.assertEquals(callbacks, receiver.getMatchedCount());
+        Assertions.assertEquals(callbacks, poller.getPollCount());
+        Assertions.assertEquals(0, poller.getPendingCount());
+        Logger.getLogger("WebhookTests").info(String.format("%d callbacks in %.2f s, %.0f per second", callbacks, seconds,
+                callbacks / seconds));
+    }
+
+    /**
+     * A response without the cost of a mock, the load test creates thousands of them.
+     */
+    private static class StubResponse implements HttpResponse<String> {
+        private final HttpRequest request;
+        private final String body;
+
+        private StubResponse(HttpRequest request, String body) {
+            this.request = request;
+            this.body = body;
+        }
+
+        @Override
+        public int statusCode() {
+            return 200;
+        }
+
+        @Override
+        public HttpRequest request() {
+            return request;
+        }
+
+        @Override
+        public Optional<HttpResponse<String>> previousResponse() {
+            return Optional.empty();
+        }
+
+        @Override
+        public HttpHeaders headers() {
+            return HttpHeaders.of(Map.of(), (name, value) -> true);
+        }
+
+        @Override
+        public String body() {
+            return body;
+        }
+
+        @Override
+        public Optional<SSLSession> sslSession() {
+            return Optional.empty();
+        }
+
+        @Override
+        public URI uri() {
+            return request.uri();
+        }
+
+        @Override
+        public HttpClient.Version version() {
+            return HttpClient.Version.HTTP_1_1;
+        }
+    }
+}